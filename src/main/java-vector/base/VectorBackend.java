@@ -0,0 +1,97 @@
+package main.java.base;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/** @class VectorBackend
+ *
+ *  @brief Implements a ComputeBackend with the jdk.incubator.vector API.
+ *
+ *  The loops process as many doubles at a time as the preferred vector shape of the hardware holds. The dot product
+ *  keeps one partial sum per lane, so its rounding differs slightly from the one of ScalarBackend.
+ *
+ *  This class is compiled by the vector-api profile of the pom.xml and must only be loaded through
+ *  ComputeBackend.create or ComputeBackend.getDefault.
+ */
+public class VectorBackend extends ComputeBackend{
+  @Override
+  public double dot(double[] a, int aOffset, double[] b, int bOffset, int length){
+    int end = SPECIES.loopBound(length);
+
+    DoubleVector sum = DoubleVector.zero(SPECIES);
+    for(int k = 0;k < end;k += SPECIES.length()){
+      DoubleVector aVector = DoubleVector.fromArray(SPECIES, a, aOffset + k);
+      DoubleVector bVector = DoubleVector.fromArray(SPECIES, b, bOffset + k);
+
+      sum = aVector.fma(bVector, sum);
+    }
+
+    double result = sum.reduceLanes(VectorOperators.ADD);
+    for(int k = end;k < length;k++){
+      result += a[aOffset + k] * b[bOffset + k];
+    }
+
+    return result;
+  }
+
+  @Override
+  public void dot4(double[] a, int aOffset, double[] b, int bOffset0, int bOffset1, int bOffset2, int bOffset3,
+                   int length, double[] results){
+    int end = SPECIES.loopBound(length);
+
+    DoubleVector sum0 = DoubleVector.zero(SPECIES);
+    DoubleVector sum1 = sum0, sum2 = sum0, sum3 = sum0;
+    for(int k = 0;k < end;k += SPECIES.length()){
+      DoubleVector aVector = DoubleVector.fromArray(SPECIES, a, aOffset + k);
+
+      sum0 = aVector.fma(DoubleVector.fromArray(SPECIES, b, bOffset0 + k), sum0);
+      sum1 = aVector.fma(DoubleVector.fromArray(SPECIES, b, bOffset1 + k), sum1);
+      sum2 = aVector.fma(DoubleVector.fromArray(SPECIES, b, bOffset2 + k), sum2);
+      sum3 = aVector.fma(DoubleVector.fromArray(SPECIES, b, bOffset3 + k), sum3);
+    }
+
+    double result0 = sum0.reduceLanes(VectorOperators.ADD);
+    double result1 = sum1.reduceLanes(VectorOperators.ADD);
+    double result2 = sum2.reduceLanes(VectorOperators.ADD);
+    double result3 = sum3.reduceLanes(VectorOperators.ADD);
+    for(int k = end;k < length;k++){
+      double value = a[aOffset + k];
+
+      result0 += value * b[bOffset0 + k];
+      result1 += value * b[bOffset1 + k];
+      result2 += value * b[bOffset2 + k];
+      result3 += value * b[bOffset3 + k];
+    }
+
+    results[0] = result0;
+    results[1] = result1;
+    results[2] = result2;
+    results[3] = result3;
+  }
+
+  @Override
+  public void axpy(double alpha, double[] x, int xOffset, double[] y, int yOffset, int length){
+    int end = SPECIES.loopBound(length);
+    DoubleVector alphaVector = DoubleVector.broadcast(SPECIES, alpha);
+
+    for(int k = 0;k < end;k += SPECIES.length()){
+      DoubleVector xVector = DoubleVector.fromArray(SPECIES, x, xOffset + k);
+      DoubleVector yVector = DoubleVector.fromArray(SPECIES, y, yOffset + k);
+
+      xVector.fma(alphaVector, yVector).intoArray(y, yOffset + k);
+    }
+
+    for(int k = end;k < length;k++){
+      y[yOffset + k] += alpha * x[xOffset + k];
+    }
+  }
+
+  @Override
+  public String getName(){
+    return VECTOR;
+  }
+
+  private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED; //!< The vector shape used.
+
+}
@@ -0,0 +1,222 @@
+package main.java.base;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+
+/** @class Activation
+ *
+ *  @brief Implements the activation function of the neurons of a layer.
+ *
+ *  Each layer of a NeuralNetwork has its own Activation, which is applied to a whole layer at a time. The derivative
+ *  is expressed in terms of the output of the function, which is what the back propagation algorithm has at hand.
+ *
+ *  The available implementations are Sigmoid, FastSigmoid, Tanh, ReLU and LeakyReLU. An Activation is identified in
+ *  the model files by its name, as returned by getName and accepted by create.
+ */
+public abstract class Activation{
+  /**
+   *  @brief Applies this Activation to a single value.
+   *
+   *  @param z The independent variable.
+   *
+   *  @return Returns the value of this Activation at z.
+   */
+  public abstract double apply(double z);
+
+  /**
+   *  @brief Calculates the derivative of this Activation from its output.
+   *
+   *  @param activation The output of this Activation at some z.
+   *
+   *  @return Returns the derivative of this Activation at that z.
+   */
+  public abstract double derivative(double activation);
+
+  /**
+   *  @brief Applies this Activation to a range of an array, in place.
+   *
+   *  @param values The array holding the independent variables. Each one is replaced by the value of this Activation.
+   *  @param offset The position of the first value.
+   *  @param length The number of values.
+   */
+  public void apply(double[] values, int offset, int length){
+    for(int k = offset;k < offset + length;k++){
+      values[k] = this.apply(values[k]);
+    }
+  }
+
+  /**
+   *  @brief Applies this Activation to a range of an array, in place.
+   *
+   *  @param values The array holding the independent variables. Each one is replaced by the value of this Activation.
+   *  @param offset The position of the first value.
+   *  @param length The number of values.
+   */
+  public void apply(float[] values, int offset, int length){
+    for(int k = offset;k < offset + length;k++){
+      values[k] = (float)this.apply(values[k]);
+    }
+  }
+
+  /**
+   *  @brief Multiplies the errors of a layer with the derivative of this Activation, that is,
+   *         delta[k] *= derivative(activations[k]).
+   *
+   *  @param activations The outputs of the layer.
+   *  @param delta The errors of the layer.
+   *  @param length The number of neurons of the layer.
+   */
+  public void multiplyByDerivative(double[] activations, double[] delta, int length){
+    for(int k = 0;k < length;k++){
+      delta[k] *= this.derivative(activations[k]);
+    }
+  }
+
+  /**
+   *  @brief Multiplies the errors of a layer with the derivative of this Activation, that is,
+   *         delta[k] *= derivative(activations[k]).
+   *
+   *  @param activations The outputs of the layer.
+   *  @param delta The errors of the layer.
+   *  @param length The number of neurons of the layer.
+   */
+  public void multiplyByDerivative(float[] activations, float[] delta, int length){
+    for(int k = 0;k < length;k++){
+      delta[k] *= (float)this.derivative(activations[k]);
+    }
+  }
+
+  /**
+   *  @brief Calculates the error of an output neuron, that is, the derivative of the cost function with respect to the
+   *         independent variable of this Activation.
+   *
+   *  The cost function is the quadratic cost, so the error is (activation - label) * derivative(activation). Sigmoid
+   *  overrides this method, since for a sigmoid output the cost function is the cross entropy, whose error is
+   *  activation - label.
+   *
+   *  @param activation The output of the neuron.
+   *  @param label The expected output.
+   *
+   *  @return Returns the error of the neuron.
+   */
+  public double outputError(double activation, double label){
+    return (activation - label) * this.derivative(activation);
+  }
+
+  /**
+   *  @brief Getter method for the name of this Activation.
+   *
+   *  @return Returns the name of this Activation, as accepted by create.
+   */
+  public abstract String getName();
+
+  /**
+   *  @brief Creates an Activation by name.
+   *
+   *  @param name The name of the Activation, "sigmoid", "fast_sigmoid", "tanh", "relu", "leaky_relu" or
+   *         "leaky_relu:<slope>".
+   *
+   *  @return Returns the created Activation.
+   *
+   *  @throws IllegalArgumentException When the name is unknown.
+   */
+  public static Activation create(String name){
+    if(SIGMOID.equals(name)){
+      return new Sigmoid();
+    }
+    if(FAST_SIGMOID.equals(name)){
+      return new FastSigmoid();
+    }
+    if(TANH.equals(name)){
+      return new Tanh();
+    }
+    if(RELU.equals(name)){
+      return new ReLU();
+    }
+    if(LEAKY_RELU.equals(name)){
+      return new LeakyReLU();
+    }
+    if(name.startsWith(LEAKY_RELU + ":")){
+      try{
+        return new LeakyReLU(Double.parseDouble(name.substring(LEAKY_RELU.length() + 1)));
+      }
+      catch(NumberFormatException exception){
+        throw new IllegalArgumentException("Invalid slope in Activation: " + name);
+      }
+    }
+
+    throw new IllegalArgumentException("Unknown Activation: " + name);
+  }
+
+  /**
+   *  @brief Writes the names of the Activations of a model after its parameters.
+   *
+   *  @param dataOutputStream The stream of the model file.
+   *  @param activations The Activation of each layer.
+   *
+   *  @throws IOException When an exception occurs while writing on the stream.
+   */
+  static void writeActivations(DataOutputStream dataOutputStream, Activation[] activations) throws IOException{
+    dataOutputStream.writeInt(ACTIVATIONS_MAGIC_NUMBER);
+    for(int i = 0;i < activations.length;i++){
+      dataOutputStream.writeUTF(activations[i].getName());
+    }
+  }
+
+  /**
+   *  @brief Reads the Activations written by writeActivations.
+   *
+   *  Model files written before the Activations were stored end right after the parameters; their layers all use
+   *  Sigmoid.
+   *
+   *  @param dataInputStream The stream of the model file, positioned right after the parameters.
+   *  @param numberOfLayers The number of layers that have an Activation.
+   *
+   *  @return Returns the Activation of each layer.
+   *
+   *  @throws IOException When an exception occurs while reading from the stream, or when the stream does not hold
+   *          Activations.
+   */
+  static Activation[] readActivations(DataInputStream dataInputStream, int numberOfLayers) throws IOException{
+    Activation[] activations = new Activation[numberOfLayers];
+
+    int magicNumber;
+    try{
+      magicNumber = dataInputStream.readInt();
+    }
+    catch(EOFException exception){
+      for(int i = 0;i < numberOfLayers;i++){
+        activations[i] = new Sigmoid();
+      }
+
+      return activations;
+    }
+
+    if(magicNumber != ACTIVATIONS_MAGIC_NUMBER){
+      throw new IOException("Unexpected data after the parameters of the model.");
+    }
+
+    for(int i = 0;i < numberOfLayers;i++){
+      try{
+        activations[i] = create(dataInputStream.readUTF());
+      }
+      catch(IllegalArgumentException exception){
+        throw new IOException(exception.getMessage());
+      }
+    }
+
+    return activations;
+  }
+
+  public static final String SIGMOID = "sigmoid"; //!< The name of Sigmoid.
+  public static final String FAST_SIGMOID = "fast_sigmoid"; //!< The name of FastSigmoid.
+  public static final String TANH = "tanh"; //!< The name of Tanh.
+  public static final String RELU = "relu"; //!< The name of ReLU.
+  public static final String LEAKY_RELU = "leaky_relu"; //!< The name of LeakyReLU.
+
+  static final int ACTIVATIONS_MAGIC_NUMBER = 0x41435456; //!< The magic number before the Activations in a model file,
+                                                          //!< "ACTV".
+
+}
@@ -0,0 +1,76 @@
+package main.java.base;
+
+/** @class Adam
+ *
+ *  @brief Implements Adam.
+ *
+ *  Running averages of the derivative and of its square are kept for each parameter, and the parameter moves by
+ *  -gamma * m / (sqrt(v) + epsilon), where m and v are the two averages corrected for their initialization to zero.
+ *  The correction is folded into the learning rate of each step, so the inner loop does one square root and one
+ *  division per parameter.
+ */
+public class Adam extends Optimizer{
+  /**
+   *  @brief Constructor.
+   *
+   *  Uses DEFAULT_BETA1, DEFAULT_BETA2 and DEFAULT_EPSILON.
+   */
+  public Adam(){
+    this(DEFAULT_BETA1, DEFAULT_BETA2, DEFAULT_EPSILON);
+  }
+
+  /**
+   *  @brief Constructor.
+   *
+   *  @param beta1 The weight of the old average in the running average of the derivatives, in [0, 1).
+   *  @param beta2 The weight of the old average in the running average of the squared derivatives, in [0, 1).
+   *  @param epsilon The term added to the root of the second moment, to avoid divisions by zero.
+   */
+  public Adam(double beta1, double beta2, double epsilon){
+    beta1_ = beta1;
+    beta2_ = beta2;
+    epsilon_ = epsilon;
+  }
+
+  @Override
+  public void update(double[] parameters, double[] nabla, double[] firstMoment, double[] secondMoment, int length,
+                     double gamma, double scale, long step){
+    double firstCorrection = 1 - Math.pow(beta1_, step);
+    double secondCorrection = Math.sqrt(1 - Math.pow(beta2_, step));
+    double rate = gamma * secondCorrection / firstCorrection;
+    double epsilon = epsilon_ * secondCorrection;
+
+    for(int k = 0;k < length;k++){
+      double derivative = nabla[k] * scale;
+
+      firstMoment[k] = beta1_ * firstMoment[k] + (1 - beta1_) * derivative;
+      secondMoment[k] = beta2_ * secondMoment[k] + (1 - beta2_) * derivative * derivative;
+      parameters[k] -= rate * firstMoment[k] / (Math.sqrt(secondMoment[k]) + epsilon);
+      nabla[k] = 0;
+    }
+  }
+
+  @Override
+  public int getNumberOfMoments(){
+    return 2;
+  }
+
+  @Override
+  public String getName(){
+    return ADAM;
+  }
+
+  @Override
+  public double[] getHyperParameters(){
+    return new double[] {beta1_, beta2_, epsilon_};
+  }
+
+  public static final double DEFAULT_BETA1 = 0.9; //!< The default decay of the first moment.
+  public static final double DEFAULT_BETA2 = 0.999; //!< The default decay of the second moment.
+  public static final double DEFAULT_EPSILON = 1e-8; //!< The default epsilon.
+
+  private final double beta1_; //!< The decay of the first moment.
+  private final double beta2_; //!< The decay of the second moment.
+  private final double epsilon_; //!< The term added to the root of the second moment.
+
+}
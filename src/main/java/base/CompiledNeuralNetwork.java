@@ -0,0 +1,496 @@
+package main.java.base;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.lang.reflect.Constructor;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+
+/** @class CompiledNeuralNetwork
+ *
+ *  @brief An inference-only copy of a NeuralNetwork whose code is generated for its topology.
+ *
+ *  compile generates the Java source of a subclass of CompiledNeuralNetwork for the sizes of the layers and the
+ *  Activations of a NeuralNetwork, compiles it in memory with the system Java compiler and loads it with its own class
+ *  loader. In the generated code every loop bound is a constant, each weight matrix is a final field that is passed
+ *  to a static kernel per layer, four neurons are computed per pass over their input, so that each input is loaded
+ *  once for four neurons, the output layer is fully unrolled when it is small, and the built-in Activations are
+ *  inlined. The products of each neuron are added in the same order as with ScalarBackend, so the outputs are equal
+ *  to the ones of the NeuralNetwork in dense mode with ScalarBackend. With any other ComputeBackend, such as the
+ *  default VectorBackend, the sums are rounded differently and the outputs only agree to within rounding errors. The
+ *  generated kernels are scalar, so a CompiledNeuralNetwork is faster than a NeuralNetwork with ScalarBackend, but can
+ *  be slower than one with VectorBackend.
+ *
+ *  The generated classes are cached by topology, so compiling another NeuralNetwork with the same sizes and
+ *  Activations does not run the compiler again. A CompiledNeuralNetwork holds a copy of the parameters, it does not
+ *  follow later training of the NeuralNetwork it was compiled from. It is thread safe, as long as each thread uses its
+ *  own InferenceContext.
+ */
+public abstract class CompiledNeuralNetwork implements InferenceModel{
+  /**
+   *  @brief Constructor, called by the generated subclasses.
+   *
+   *  @param sizesOfLayers The sizes of the layers.
+   *  @param activations The Activation of each layer, except the input layer.
+   */
+  protected CompiledNeuralNetwork(int[] sizesOfLayers, Activation[] activations){
+    sizesOfLayers_ = sizesOfLayers.clone();
+    activations_ = activations.clone();
+  }
+
+  /**
+   *  @brief Applies an input to this CompiledNeuralNetwork and returns its output.
+   *
+   *  @param input The input to this CompiledNeuralNetwork. Its length must be equal to the size of the first layer.
+   *
+   *  @return Returns the output of this CompiledNeuralNetwork for the given input.
+   */
+  @Override
+  public double[] feedForward(double[] input){
+    return this.feedForward(input, new InferenceContext(sizesOfLayers_),
+                            new double[sizesOfLayers_[sizesOfLayers_.length - 1]]);
+  }
+
+  /**
+   *  @brief Applies an input to this CompiledNeuralNetwork and writes its output to a given array, without allocating
+   *         any memory.
+   *
+   *  @param input The input to this CompiledNeuralNetwork. Its length must be equal to the size of the first layer.
+   *  @param context The InferenceContext that holds the activations of the hidden layers.
+   *  @param output The array where the output will be written.
+   *
+   *  @return Returns the output array.
+   */
+  @Override
+  public double[] feedForward(double[] input, InferenceContext context, double[] output){
+    this.evaluate(input, context.firstBuffer_, context.secondBuffer_, output);
+
+    return output;
+  }
+
+  /**
+   *  @brief Applies an input to every layer, implemented by the generated subclasses.
+   *
+   *  @param input The input of the first layer.
+   *  @param firstBuffer The buffer for the activations of the odd layers.
+   *  @param secondBuffer The buffer for the activations of the even layers.
+   *  @param output The array where the output will be written.
+   */
+  protected abstract void evaluate(double[] input, double[] firstBuffer, double[] secondBuffer, double[] output);
+
+  /**
+   *  @brief Compiles a NeuralNetwork.
+   *
+   *  @param neuralNetwork The NeuralNetwork to compile. Its current parameters are copied.
+   *
+   *  @return Returns the CompiledNeuralNetwork.
+   *
+   *  @throws IllegalStateException When no Java compiler is available, see isAvailable, or when the generated source
+   *          can not be compiled or loaded.
+   */
+  public static CompiledNeuralNetwork compile(NeuralNetwork neuralNetwork){
+    int numberOfLayers = neuralNetwork.getNumberOfLayers();
+    int[] sizesOfLayers = neuralNetwork.getSizesOfLayers().clone();
+
+    double[][] weights = new double[numberOfLayers - 1][];
+    double[][] biases = new double[numberOfLayers - 1][];
+    Activation[] activations = new Activation[numberOfLayers - 1];
+    for(int i = 0;i < numberOfLayers - 1;i++){
+      weights[i] = neuralNetwork.getWeights(i).clone();
+      biases[i] = neuralNetwork.getBiases(i).clone();
+      activations[i] = neuralNetwork.getActivation(i);
+    }
+
+    // The generated code depends on the sizes of the layers and on the Activations it inlines.
+    StringBuilder key = new StringBuilder(Arrays.toString(sizesOfLayers));
+    for(int i = 0;i < numberOfLayers - 1;i++){
+      key.append(' ').append(isInlined(activations[i]) ? activations[i].getName() : "*");
+    }
+
+    Constructor<?> constructor;
+    synchronized(CONSTRUCTORS){
+      constructor = CONSTRUCTORS.get(key.toString());
+      if(constructor == null){
+        String className = GENERATED_PACKAGE + ".CompiledNeuralNetwork" + CONSTRUCTORS.size();
+        constructor = load(className, generateSource(className, sizesOfLayers, activations));
+        CONSTRUCTORS.put(key.toString(), constructor);
+      }
+    }
+
+    try{
+      return (CompiledNeuralNetwork)constructor.newInstance(weights, biases, activations);
+    }
+    catch(ReflectiveOperationException exception){
+      throw new IllegalStateException("The generated CompiledNeuralNetwork can not be created.", exception);
+    }
+  }
+
+  /**
+   *  @brief Returns whether a Java compiler is available to compile, which needs a JDK rather than a JRE.
+   *
+   *  @return Returns true if compile can be used.
+   */
+  public static boolean isAvailable(){
+    return ToolProvider.getSystemJavaCompiler() != null;
+  }
+
+  /**
+   *  @brief Generates the source of a subclass of CompiledNeuralNetwork for a topology.
+   *
+   *  @param className The fully qualified name of the generated class.
+   *  @param sizesOfLayers The sizes of the layers.
+   *  @param activations The Activation of each layer.
+   *
+   *  @return Returns the source of the generated class.
+   */
+  static String generateSource(String className, int[] sizesOfLayers, Activation[] activations){
+    int numberOfLayers = sizesOfLayers.length;
+    int separator = className.lastIndexOf('.');
+
+    StringBuilder source = new StringBuilder();
+    source.append("package ").append(className, 0, separator).append(";\n\n");
+    source.append("import main.java.base.Activation;\n\n");
+    source.append("public final class ").append(className.substring(separator + 1))
+          .append(" extends main.java.base.CompiledNeuralNetwork{\n");
+
+    // The constructor and the parameters.
+    source.append("  public ").append(className.substring(separator + 1))
+          .append("(double[][] weights, double[][] biases, Activation[] activations){\n");
+    source.append("    super(new int[] ").append(Arrays.toString(sizesOfLayers).replace('[', '{').replace(']', '}'))
+          .append(", activations);\n");
+    for(int i = 0;i < numberOfLayers - 1;i++){
+      source.append("    weights").append(i).append(" = weights[").append(i).append("];\n");
+      source.append("    biases").append(i).append(" = biases[").append(i).append("];\n");
+      source.append("    activation").append(i).append(" = activations[").append(i).append("];\n");
+    }
+    source.append("  }\n\n");
+
+    // The layers, one after the other, alternating between the buffers.
+    source.append("  @Override\n");
+    source.append("  protected void evaluate(double[] input, double[] firstBuffer, double[] secondBuffer, " +
+                  "double[] output){\n");
+    for(int i = 0;i < numberOfLayers - 1;i++){
+      String layerInput = (i == 0) ? "input" : (i % 2 == 1) ? "firstBuffer" : "secondBuffer";
+      String layerOutput = (i == numberOfLayers - 2) ? "output" : (i % 2 == 0) ? "firstBuffer" : "secondBuffer";
+
+      source.append("    layer").append(i).append("(weights").append(i).append(", biases").append(i)
+            .append(", activation").append(i).append(", ").append(layerInput).append(", ").append(layerOutput)
+            .append(");\n");
+    }
+    source.append("  }\n\n");
+
+    for(int i = 0;i < numberOfLayers - 1;i++){
+      generateLayer(source, i, sizesOfLayers[i], sizesOfLayers[i + 1], activations[i], i == numberOfLayers - 2);
+    }
+
+    for(int i = 0;i < numberOfLayers - 1;i++){
+      source.append("  private final double[] weights").append(i).append(";\n");
+      source.append("  private final double[] biases").append(i).append(";\n");
+      source.append("  private final Activation activation").append(i).append(";\n");
+    }
+    source.append("}\n");
+
+    return source.toString();
+  }
+
+  /**
+   *  @brief Generates the static kernel of one layer.
+   *
+   *  @param source The source where the kernel is appended.
+   *  @param layer The layer.
+   *  @param inputSize The size of the input of the layer.
+   *  @param outputSize The number of neurons of the layer.
+   *  @param activation The Activation of the layer.
+   *  @param isOutputLayer Whether the layer is the output layer.
+   */
+  private static void generateLayer(StringBuilder source, int layer, int inputSize, int outputSize,
+                                    Activation activation, boolean isOutputLayer){
+    source.append("  private static void layer").append(layer).append("(double[] weights, double[] biases, " +
+                  "Activation activation, double[] input, double[] output){\n");
+
+    int blockedSize = outputSize - outputSize % NEURONS_PER_PASS;
+    boolean unrolled = isOutputLayer && outputSize <= MAXIMUM_UNROLLED_SIZE;
+
+    // Four neurons per pass over the input.
+    if(blockedSize > 0){
+      String indent;
+      if(unrolled){
+        indent = "    ";
+      }
+      else{
+        indent = "      ";
+        source.append("    for(int j = 0;j < ").append(blockedSize).append(";j += ").append(NEURONS_PER_PASS)
+              .append("){\n");
+      }
+
+      for(int start = 0;start < (unrolled ? blockedSize : NEURONS_PER_PASS);start += NEURONS_PER_PASS){
+        String neuron = unrolled ? Integer.toString(start) : "j";
+        if(unrolled){
+          source.append("    {\n");
+        }
+
+        source.append(indent).append("int offset0 = ").append(neuron).append(" * ").append(inputSize).append(";\n");
+        for(int n = 1;n < NEURONS_PER_PASS;n++){
+          source.append(indent).append("int offset").append(n).append(" = offset").append(n - 1).append(" + ")
+                .append(inputSize).append(";\n");
+        }
+        for(int n = 0;n < NEURONS_PER_PASS;n++){
+          source.append(indent).append("double sum").append(n).append(" = 0;\n");
+        }
+        source.append(indent).append("for(int k = 0;k < ").append(inputSize).append(";k++){\n");
+        source.append(indent).append("  double value = input[k];\n");
+        for(int n = 0;n < NEURONS_PER_PASS;n++){
+          source.append(indent).append("  sum").append(n).append(" += weights[offset").append(n)
+                .append(" + k] * value;\n");
+        }
+        source.append(indent).append("}\n");
+        for(int n = 0;n < NEURONS_PER_PASS;n++){
+          String index = unrolled ? Integer.toString(start + n) : "j + " + n;
+          source.append(indent).append("output[").append(index).append("] = ")
+                .append(activationExpression(activation, "sum" + n + " + biases[" + index + "]")).append(";\n");
+        }
+
+        if(unrolled){
+          source.append("    }\n");
+        }
+      }
+
+      if(!unrolled){
+        source.append("    }\n");
+      }
+    }
+
+    // The neurons that do not fill a pass.
+    for(int j = blockedSize;j < outputSize;j++){
+      source.append("    {\n");
+      source.append("      double sum = 0;\n");
+      source.append("      for(int k = 0;k < ").append(inputSize).append(";k++){\n");
+      source.append("        sum += weights[").append(j * inputSize).append(" + k] * input[k];\n");
+      source.append("      }\n");
+      source.append("      output[").append(j).append("] = ")
+            .append(activationExpression(activation, "sum + biases[" + j + "]")).append(";\n");
+      source.append("    }\n");
+    }
+
+    if(!isInlined(activation)){
+      source.append("    activation.apply(output, 0, ").append(outputSize).append(");\n");
+    }
+    source.append("  }\n\n");
+  }
+
+  /**
+   *  @brief Returns whether an Activation is inlined in the generated code.
+   *
+   *  Only the exact built-in classes are inlined, with the same expressions they use, so that the results do not
+   *  change. Subclasses, such as FastSigmoid, and other Activations are called through the Activation object.
+   *
+   *  @param activation The Activation.
+   *
+   *  @return Returns true if the Activation is inlined.
+   */
+  private static boolean isInlined(Activation activation){
+    Class<?> activationClass = activation.getClass();
+
+    return activationClass == Sigmoid.class || activationClass == Tanh.class || activationClass == ReLU.class ||
+           activationClass == LeakyReLU.class;
+  }
+
+  /**
+   *  @brief Returns the expression that applies an Activation to a value in the generated code.
+   *
+   *  @param activation The Activation.
+   *  @param value The expression of the value.
+   *
+   *  @return Returns the expression, or the value itself when the Activation is not inlined and is applied to the
+   *          whole layer afterwards.
+   */
+  private static String activationExpression(Activation activation, String value){
+    Class<?> activationClass = activation.getClass();
+
+    if(activationClass == Sigmoid.class){
+      return "1 / (1 + Math.exp(-(" + value + ")))";
+    }
+    if(activationClass == Tanh.class){
+      return "Math.tanh(" + value + ")";
+    }
+    if(activationClass == ReLU.class){
+      return "Math.max(" + value + ", 0)";
+    }
+    if(activationClass == LeakyReLU.class){
+      String slope = Double.toString(((LeakyReLU)activation).getSlope());
+
+      return "leakyReLU(" + value + ", " + slope + ")";
+    }
+
+    return value;
+  }
+
+  /**
+   *  @brief Applies the LeakyReLU function, for the generated code.
+   *
+   *  @param z The independent variable.
+   *  @param slope The slope of the negative part.
+   *
+   *  @return Returns z for positive z and slope * z otherwise.
+   */
+  protected static double leakyReLU(double z, double slope){
+    return (z > 0) ? z : slope * z;
+  }
+
+  /**
+   *  @brief Compiles the source of a generated class and returns its constructor.
+   *
+   *  @param className The fully qualified name of the class.
+   *  @param source The source of the class.
+   *
+   *  @return Returns the constructor of the loaded class.
+   *
+   *  @throws IllegalStateException When there is no Java compiler, or the class can not be compiled or loaded.
+   */
+  private static Constructor<?> load(String className, String source){
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    if(compiler == null){
+      throw new IllegalStateException("No Java compiler is available, a JDK is needed to compile a NeuralNetwork.");
+    }
+
+    final Map<String, ByteArrayOutputStream> classes = new HashMap<String, ByteArrayOutputStream>();
+    JavaFileManager fileManager =
+      new ForwardingJavaFileManager<JavaFileManager>(compiler.getStandardFileManager(null, null, null)){
+        @Override
+        public JavaFileObject getJavaFileForOutput(Location location, final String name, JavaFileObject.Kind kind,
+                                                   FileObject sibling){
+          return new SimpleJavaFileObject(URI.create("memory:///" + name.replace('.', '/') + kind.extension), kind){
+            @Override
+            public OutputStream openOutputStream(){
+              ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+              classes.put(name, outputStream);
+
+              return outputStream;
+            }
+          };
+        }
+      };
+
+    final String classSource = source;
+    JavaFileObject sourceFile = new SimpleJavaFileObject(URI.create("memory:///" + className.replace('.', '/') +
+                                                                    JavaFileObject.Kind.SOURCE.extension),
+                                                         JavaFileObject.Kind.SOURCE){
+      @Override
+      public CharSequence getCharContent(boolean ignoreEncodingErrors){
+        return classSource;
+      }
+    };
+
+    StringWriter diagnostics = new StringWriter();
+    boolean compiled = compiler.getTask(diagnostics, fileManager, null, Arrays.asList("-classpath", classPath()),
+                                        null, Collections.singletonList(sourceFile)).call();
+    if(!compiled){
+      throw new IllegalStateException("The generated CompiledNeuralNetwork does not compile:\n" + diagnostics);
+    }
+
+    GeneratedClassLoader classLoader = new GeneratedClassLoader(CompiledNeuralNetwork.class.getClassLoader());
+    try{
+      Class<?> generatedClass = null;
+      for(Map.Entry<String, ByteArrayOutputStream> entry : classes.entrySet()){
+        Class<?> definedClass = classLoader.define(entry.getKey(), entry.getValue().toByteArray());
+        if(entry.getKey().equals(className)){
+          generatedClass = definedClass;
+        }
+      }
+
+      return generatedClass.getConstructor(double[][].class, double[][].class, Activation[].class);
+    }
+    catch(ReflectiveOperationException exception){
+      throw new IllegalStateException("The generated CompiledNeuralNetwork can not be loaded.", exception);
+    }
+  }
+
+  /**
+   *  @brief Returns the class path the generated classes are compiled against.
+   *
+   *  @return Returns the location of CompiledNeuralNetwork, followed by the class path of the JVM.
+   */
+  private static String classPath(){
+    String classPath = System.getProperty("java.class.path");
+    try{
+      URI location = CompiledNeuralNetwork.class.getProtectionDomain().getCodeSource().getLocation().toURI();
+
+      return new File(location).getPath() + File.pathSeparator + classPath;
+    }
+    catch(Exception exception){
+      return classPath;
+    }
+  }
+
+  /**
+   *  @brief Getter method for the Activation of a layer.
+   *
+   *  @param layer The layer, from 0 for the first hidden layer to the output layer.
+   *
+   *  @return Returns the Activation of the neurons of the layer.
+   */
+  public Activation getActivation(int layer){
+    return activations_[layer];
+  }
+
+  /**
+   *  @brief Getter method for the sizes of layers of this CompiledNeuralNetwork.
+   *
+   *  @return Returns the sizes of the layers of this CompiledNeuralNetwork.
+   */
+  @Override
+  public int[] getSizesOfLayers(){
+    return sizesOfLayers_;
+  }
+
+  /** @class GeneratedClassLoader
+   *
+   *  @brief The class loader of the generated classes.
+   */
+  private static class GeneratedClassLoader extends ClassLoader{
+    /**
+     *  @brief Constructor.
+     *
+     *  @param parent The class loader of CompiledNeuralNetwork.
+     */
+    GeneratedClassLoader(ClassLoader parent){
+      super(parent);
+    }
+
+    /**
+     *  @brief Defines a compiled class.
+     *
+     *  @param name The fully qualified name of the class.
+     *  @param bytecode The class file.
+     *
+     *  @return Returns the class.
+     */
+    Class<?> define(String name, byte[] bytecode){
+      return this.defineClass(name, bytecode, 0, bytecode.length);
+    }
+  }
+
+  private final int[] sizesOfLayers_; //!< The number of neurons in each layer.
+  private final Activation[] activations_; //!< The Activation of each layer, except the input layer.
+
+  private static final Map<String, Constructor<?>> CONSTRUCTORS =
+    new HashMap<String, Constructor<?>>(); //!< The constructor of the generated class of each topology.
+
+  private static final String GENERATED_PACKAGE = "main.java.base.generated"; //!< The package of the generated classes.
+  private static final int NEURONS_PER_PASS = 4; //!< The number of neurons computed per pass over their input.
+  private static final int MAXIMUM_UNROLLED_SIZE = 16; //!< The largest output layer that is fully unrolled.
+
+}
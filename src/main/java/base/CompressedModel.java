@@ -0,0 +1,504 @@
+package main.java.base;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/** @class CompressedModel
+ *
+ *  @brief Reads and writes the compressed file format of a NeuralNetwork, with 16 bit parameters.
+ *
+ *  Each parameter is stored as a float16, with 11 significant bits, or as a bfloat16, with the range of a float and 8
+ *  significant bits, rounded to nearest even. Before being written, the parameters can be transformed so that they
+ *  compress better:
+ *  - FLAG_DELTA replaces each 16 bit code by its difference from the previous one,
+ *  - FLAG_SHUFFLE writes the high bytes of the codes of a block before their low bytes, so that the slowly changing
+ *    signs and exponents end up next to each other,
+ *  - FLAG_DEFLATE compresses the parameters with Deflate.
+ *
+ *  The file is big endian, as written by a DataOutputStream. It starts with a header, which is never compressed:
+ *  - MAGIC_NUMBER, VERSION, the encoding, ENCODING_FLOAT16 or ENCODING_BFLOAT16, and the flags, as ints,
+ *  - the number of layers and the size of each layer, as ints,
+ *  - the error bound of each layer, that is, the largest absolute difference between a weight or a bias and its stored
+ *    value, as doubles,
+ *  - the Activations, as written by Activation.writeActivations.
+ *
+ *  The parameters follow, for each layer the biases and then the row-major weights, in blocks of BLOCK_SIZE values. A
+ *  CompressedModel reads them one block at a time, through a buffer of one block, straight into the parameters of a
+ *  NeuralNetwork, see NeuralNetwork.loadFromCompressed.
+ */
+public class CompressedModel implements Closeable{
+  /**
+   *  @brief Opens a file written by write and reads its header.
+   *
+   *  @param path The path of the file.
+   *
+   *  @throws IOException When an exception occurs while reading from the file, or when the file was not written by
+   *          write.
+   */
+  public CompressedModel(String path) throws IOException{
+    DataInputStream header = new DataInputStream(new BufferedInputStream(new FileInputStream(path),
+                                                                         IO_BUFFER_SIZE));
+
+    try{
+      if(header.readInt() != MAGIC_NUMBER){
+        throw new IOException(path + " is not a compressed NeuralNetwork file.");
+      }
+      int version = header.readInt();
+      if(version != VERSION){
+        throw new IOException(path + " has an unsupported version: " + version + ".");
+      }
+
+      encoding_ = header.readInt();
+      if(encoding_ != ENCODING_FLOAT16 && encoding_ != ENCODING_BFLOAT16){
+        throw new IOException(path + " has an unknown encoding: " + encoding_ + ".");
+      }
+      flags_ = header.readInt();
+
+      int numberOfLayers = header.readInt();
+      if(numberOfLayers < 2){
+        throw new IOException(path + " is corrupted.");
+      }
+      sizesOfLayers_ = new int[numberOfLayers];
+      for(int i = 0;i < numberOfLayers;i++){
+        sizesOfLayers_[i] = header.readInt();
+      }
+
+      errorBounds_ = new double[numberOfLayers - 1];
+      for(int i = 0;i < numberOfLayers - 1;i++){
+        errorBounds_[i] = header.readDouble();
+      }
+
+      activations_ = Activation.readActivations(header, numberOfLayers - 1);
+    }
+    catch(IOException exception){
+      header.close();
+      throw exception;
+    }
+
+    InputStream parameters = header;
+    if((flags_ & FLAG_DEFLATE) != 0){
+      inflater_ = new Inflater();
+      parameters = new InflaterInputStream(header, inflater_, IO_BUFFER_SIZE);
+    }
+    else{
+      inflater_ = null;
+    }
+    input_ = new DataInputStream(parameters);
+  }
+
+  /**
+   *  @brief Writes a NeuralNetwork to a file in the compressed format.
+   *
+   *  @param neuralNetwork The NeuralNetwork.
+   *  @param path The path of the file.
+   *  @param encoding ENCODING_FLOAT16 or ENCODING_BFLOAT16.
+   *  @param flags A combination of FLAG_DELTA, FLAG_SHUFFLE and FLAG_DEFLATE, or 0.
+   *
+   *  @return Returns the error bound of each layer, as stored in the file.
+   *
+   *  @throws IOException When an exception occurs while writing on the file.
+   */
+  static double[] write(NeuralNetwork neuralNetwork, String path, int encoding, int flags) throws IOException{
+    if(encoding != ENCODING_FLOAT16 && encoding != ENCODING_BFLOAT16){
+      throw new IllegalArgumentException("Unknown encoding: " + encoding + ".");
+    }
+
+    int numberOfLayers = neuralNetwork.getNumberOfLayers();
+    int[] sizesOfLayers = neuralNetwork.getSizesOfLayers();
+
+    double[] errorBounds = new double[numberOfLayers - 1];
+    for(int i = 0;i < numberOfLayers - 1;i++){
+      errorBounds[i] = Math.max(errorBound(neuralNetwork.getBiases(i), encoding),
+                                errorBound(neuralNetwork.getWeights(i), encoding));
+    }
+
+    Activation[] activations = new Activation[numberOfLayers - 1];
+    for(int i = 0;i < numberOfLayers - 1;i++){
+      activations[i] = neuralNetwork.getActivation(i);
+    }
+
+    DataOutputStream header = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path),
+                                                                            IO_BUFFER_SIZE));
+    Deflater deflater = null;
+    try{
+      header.writeInt(MAGIC_NUMBER);
+      header.writeInt(VERSION);
+      header.writeInt(encoding);
+      header.writeInt(flags);
+
+      header.writeInt(numberOfLayers);
+      for(int i = 0;i < numberOfLayers;i++){
+        header.writeInt(sizesOfLayers[i]);
+      }
+      for(int i = 0;i < numberOfLayers - 1;i++){
+        header.writeDouble(errorBounds[i]);
+      }
+      Activation.writeActivations(header, activations);
+
+      OutputStream parameters = header;
+      if((flags & FLAG_DEFLATE) != 0){
+        deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        parameters = new DeflaterOutputStream(header, deflater, IO_BUFFER_SIZE);
+      }
+
+      byte[] block = new byte[2 * BLOCK_SIZE];
+      for(int i = 0;i < numberOfLayers - 1;i++){
+        writeValues(parameters, neuralNetwork.getBiases(i), encoding, flags, block);
+        writeValues(parameters, neuralNetwork.getWeights(i), encoding, flags, block);
+      }
+
+      if(deflater != null){
+        ((DeflaterOutputStream)parameters).finish();
+      }
+    }
+    finally{
+      if(deflater != null){
+        deflater.end();
+      }
+      header.close();
+    }
+
+    return errorBounds;
+  }
+
+  /**
+   *  @brief Reads the parameters of the next layer.
+   *
+   *  The layers must be read in order, each one once.
+   *
+   *  @param biases The array where the biases of the layer are stored.
+   *  @param weights The array where the row-major weights of the layer are stored.
+   *
+   *  @throws IOException When an exception occurs while reading from the file, or when the file ends.
+   */
+  void readLayer(double[] biases, double[] weights) throws IOException{
+    this.readValues(biases);
+    this.readValues(weights);
+  }
+
+  /**
+   *  @brief Getter method for the sizes of the layers.
+   *
+   *  @return Returns the number of neurons in each layer.
+   */
+  public int[] getSizesOfLayers(){
+    return sizesOfLayers_.clone();
+  }
+
+  /**
+   *  @brief Getter method for the encoding of the parameters.
+   *
+   *  @return Returns ENCODING_FLOAT16 or ENCODING_BFLOAT16.
+   */
+  public int getEncoding(){
+    return encoding_;
+  }
+
+  /**
+   *  @brief Getter method for the flags the file was written with.
+   *
+   *  @return Returns a combination of FLAG_DELTA, FLAG_SHUFFLE and FLAG_DEFLATE, or 0.
+   */
+  public int getFlags(){
+    return flags_;
+  }
+
+  /**
+   *  @brief Getter method for the error bounds.
+   *
+   *  @return Returns, for each layer, the largest absolute difference between a parameter of the written NeuralNetwork
+   *          and its stored value.
+   */
+  public double[] getErrorBounds(){
+    return errorBounds_.clone();
+  }
+
+  /**
+   *  @brief Getter method for the Activations.
+   *
+   *  @return Returns the Activation of each layer.
+   */
+  Activation[] getActivations(){
+    return activations_;
+  }
+
+  /**
+   *  @brief Closes the file.
+   *
+   *  @throws IOException When an exception occurs while closing the file.
+   */
+  @Override
+  public void close() throws IOException{
+    try{
+      input_.close();
+    }
+    finally{
+      if(inflater_ != null){
+        inflater_.end();
+      }
+    }
+  }
+
+  /**
+   *  @brief Rounds a float to the nearest float16, ties to even.
+   *
+   *  Values too large for a float16 become infinite, and NaN stays NaN.
+   *
+   *  @param value The float.
+   *
+   *  @return Returns the bits of the float16, in the low 16 bits.
+   */
+  public static int toFloat16(float value){
+    int bits = Float.floatToRawIntBits(value);
+    int sign = (bits >>> 16) & 0x8000;
+    int exponent = (bits >>> 23) & 0xFF;
+    int mantissa = bits & 0x7FFFFF;
+
+    if(exponent == 0xFF){
+      return sign | 0x7C00 | ((mantissa != 0) ? 0x200 : 0);
+    }
+
+    int halfExponent = exponent - 127 + 15;
+    if(halfExponent >= 0x1F){
+      return sign | 0x7C00;
+    }
+
+    if(halfExponent <= 0){
+      // Subnormal float16, in multiples of 2^-24.
+      if(halfExponent < -10){
+        return sign;
+      }
+
+      mantissa |= 0x800000;
+      int shift = 14 - halfExponent;
+      int half = mantissa >>> shift;
+      int remainder = mantissa & ((1 << shift) - 1);
+      int halfway = 1 << (shift - 1);
+      if(remainder > halfway || (remainder == halfway && (half & 1) != 0)){
+        half++;
+      }
+
+      return sign | half;
+    }
+
+    // A carry out of the mantissa correctly moves to the next exponent, or to infinity.
+    int half = (halfExponent << 10) | (mantissa >>> 13);
+    int remainder = mantissa & 0x1FFF;
+    if(remainder > 0x1000 || (remainder == 0x1000 && (half & 1) != 0)){
+      half++;
+    }
+
+    return sign | half;
+  }
+
+  /**
+   *  @brief Converts a float16 to a float, exactly.
+   *
+   *  @param half The bits of the float16, in the low 16 bits.
+   *
+   *  @return Returns the float.
+   */
+  public static float fromFloat16(int half){
+    int sign = (half & 0x8000) << 16;
+    int exponent = (half >>> 10) & 0x1F;
+    int mantissa = half & 0x3FF;
+
+    if(exponent == 0x1F){
+      return Float.intBitsToFloat(sign | 0x7F800000 | (mantissa << 13));
+    }
+    if(exponent == 0){
+      float value = mantissa * 0x1p-24f;
+      return (sign != 0) ? -value : value;
+    }
+
+    return Float.intBitsToFloat(sign | ((exponent + 112) << 23) | (mantissa << 13));
+  }
+
+  /**
+   *  @brief Rounds a float to the nearest bfloat16, ties to even.
+   *
+   *  @param value The float.
+   *
+   *  @return Returns the bits of the bfloat16, in the low 16 bits.
+   */
+  public static int toBFloat16(float value){
+    int bits = Float.floatToRawIntBits(value);
+    if((bits & 0x7FFFFFFF) > 0x7F800000){
+      return (bits >>> 16) | 0x40;
+    }
+
+    return (bits + 0x7FFF + ((bits >>> 16) & 1)) >>> 16;
+  }
+
+  /**
+   *  @brief Converts a bfloat16 to a float, exactly.
+   *
+   *  @param bfloat The bits of the bfloat16, in the low 16 bits.
+   *
+   *  @return Returns the float.
+   */
+  public static float fromBFloat16(int bfloat){
+    return Float.intBitsToFloat(bfloat << 16);
+  }
+
+  /**
+   *  @brief Converts a value to the nearest 16 bit code.
+   *
+   *  @param value The value.
+   *  @param encoding ENCODING_FLOAT16 or ENCODING_BFLOAT16.
+   *
+   *  @return Returns the code, in the low 16 bits.
+   */
+  private static int encode(double value, int encoding){
+    int code = (encoding == ENCODING_FLOAT16) ? toFloat16((float)value) : toBFloat16((float)value);
+
+    // Rounding to a float first may round twice, in which case the nearest code is a neighbor of the chosen one.
+    double error = Math.abs(decode(code, encoding) - value);
+    for(int neighbor = code - 1;neighbor <= code + 1;neighbor += 2){
+      double neighborError = Math.abs(decode(neighbor & 0xFFFF, encoding) - value);
+      if(neighborError < error){
+        code = neighbor & 0xFFFF;
+        error = neighborError;
+      }
+    }
+
+    return code;
+  }
+
+  /**
+   *  @brief Converts a 16 bit code to its value.
+   *
+   *  @param code The code, in the low 16 bits.
+   *  @param encoding ENCODING_FLOAT16 or ENCODING_BFLOAT16.
+   *
+   *  @return Returns the value.
+   */
+  private static double decode(int code, int encoding){
+    return (encoding == ENCODING_FLOAT16) ? fromFloat16(code) : fromBFloat16(code);
+  }
+
+  /**
+   *  @brief Returns the largest absolute difference between some values and their stored values.
+   *
+   *  @param values The values.
+   *  @param encoding ENCODING_FLOAT16 or ENCODING_BFLOAT16.
+   *
+   *  @return Returns the largest difference, or infinity if a value overflows.
+   */
+  private static double errorBound(double[] values, int encoding){
+    double errorBound = 0;
+    for(int i = 0;i < values.length;i++){
+      errorBound = Math.max(errorBound, Math.abs(decode(encode(values[i], encoding), encoding) - values[i]));
+    }
+
+    return errorBound;
+  }
+
+  /**
+   *  @brief Encodes values and writes them, one block at a time.
+   *
+   *  @param output The stream.
+   *  @param values The values.
+   *  @param encoding ENCODING_FLOAT16 or ENCODING_BFLOAT16.
+   *  @param flags The flags of the file.
+   *  @param block A buffer of 2 * BLOCK_SIZE bytes.
+   *
+   *  @throws IOException When an exception occurs while writing on the stream.
+   */
+  private static void writeValues(OutputStream output, double[] values, int encoding, int flags, byte[] block)
+    throws IOException{
+    for(int start = 0;start < values.length;start += BLOCK_SIZE){
+      int length = Math.min(BLOCK_SIZE, values.length - start);
+
+      int previous = 0;
+      for(int i = 0;i < length;i++){
+        int code = encode(values[start + i], encoding);
+        int stored = code;
+        if((flags & FLAG_DELTA) != 0){
+          stored = (code - previous) & 0xFFFF;
+          previous = code;
+        }
+
+        if((flags & FLAG_SHUFFLE) != 0){
+          block[i] = (byte)(stored >>> 8);
+          block[length + i] = (byte)stored;
+        }
+        else{
+          block[2 * i] = (byte)(stored >>> 8);
+          block[2 * i + 1] = (byte)stored;
+        }
+      }
+
+      output.write(block, 0, 2 * length);
+    }
+  }
+
+  /**
+   *  @brief Reads values and decodes them, one block at a time.
+   *
+   *  @param values The array where the values are stored.
+   *
+   *  @throws IOException When an exception occurs while reading from the file, or when the file ends.
+   */
+  private void readValues(double[] values) throws IOException{
+    byte[] block = block_;
+
+    for(int start = 0;start < values.length;start += BLOCK_SIZE){
+      int length = Math.min(BLOCK_SIZE, values.length - start);
+      input_.readFully(block, 0, 2 * length);
+
+      int previous = 0;
+      for(int i = 0;i < length;i++){
+        int stored;
+        if((flags_ & FLAG_SHUFFLE) != 0){
+          stored = ((block[i] & 0xFF) << 8) | (block[length + i] & 0xFF);
+        }
+        else{
+          stored = ((block[2 * i] & 0xFF) << 8) | (block[2 * i + 1] & 0xFF);
+        }
+
+        int code = stored;
+        if((flags_ & FLAG_DELTA) != 0){
+          code = (stored + previous) & 0xFFFF;
+          previous = code;
+        }
+
+        values[start + i] = decode(code, encoding_);
+      }
+    }
+  }
+
+  private final int encoding_; //!< The encoding of the parameters.
+  private final int flags_; //!< The flags the file was written with.
+  private final int[] sizesOfLayers_; //!< The number of neurons in each layer.
+  private final double[] errorBounds_; //!< The error bound of each layer.
+  private final Activation[] activations_; //!< The Activation of each layer.
+  private final DataInputStream input_; //!< The stream of the parameters.
+  private final Inflater inflater_; //!< The Inflater of the parameters, or null if they are not compressed.
+  private final byte[] block_ = new byte[2 * BLOCK_SIZE]; //!< The bytes of the block being decoded.
+
+  public static final int ENCODING_FLOAT16 = 1; //!< The parameters are stored as IEEE 754 half precision floats.
+  public static final int ENCODING_BFLOAT16 = 2; //!< The parameters are stored as the high 16 bits of floats.
+
+  public static final int FLAG_DELTA = 1; //!< Each code is stored as its difference from the previous one.
+  public static final int FLAG_SHUFFLE = 2; //!< The high bytes of the codes of a block are stored before the low ones.
+  public static final int FLAG_DEFLATE = 4; //!< The parameters are compressed with Deflate.
+
+  static final int MAGIC_NUMBER = 0x4E4E435A; //!< The magic number of the format, "NNCZ".
+  static final int VERSION = 1; //!< The version of the format.
+  static final int BLOCK_SIZE = 1 << 16; //!< The number of values that are shuffled and decoded at once.
+  private static final int IO_BUFFER_SIZE = 1 << 16; //!< The size of the buffers of the streams, in bytes.
+
+}
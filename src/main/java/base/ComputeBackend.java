@@ -0,0 +1,175 @@
+package main.java.base;
+
+/** @class ComputeBackend
+ *
+ *  @brief Implements the vector kernels that a NeuralNetwork spends most of its time in.
+ *
+ *  Two implementations exist: ScalarBackend, which uses plain loops, and VectorBackend, which uses the incubating
+ *  jdk.incubator.vector module. VectorBackend is only compiled when building with a JDK that has the module, and only
+ *  usable when the module is resolved at runtime (--add-modules jdk.incubator.vector), so it is always loaded through
+ *  reflection; when it can not be loaded, the scalar implementation is used instead.
+ *
+ *  The default ComputeBackend is chosen by the system property neural_network.backend, which can be "scalar" or
+ *  "vector". When the property is not set, the vector implementation is used if it is available.
+ */
+public abstract class ComputeBackend{
+  /**
+   *  @brief Calculates the dot product of two vectors.
+   *
+   *  @param a The array holding the first vector.
+   *  @param aOffset The position of the first vector in a.
+   *  @param b The array holding the second vector.
+   *  @param bOffset The position of the second vector in b.
+   *  @param length The length of the vectors.
+   *
+   *  @return Returns the dot product.
+   */
+  public abstract double dot(double[] a, int aOffset, double[] b, int bOffset, int length);
+
+  /**
+   *  @brief Calculates the dot products of one vector with four others at once.
+   *
+   *  Each result is equal to the one dot returns for the same vectors. Implementations load each element of the first
+   *  vector once for the four products.
+   *
+   *  @param a The array holding the first vector.
+   *  @param aOffset The position of the first vector in a.
+   *  @param b The array holding the four other vectors.
+   *  @param bOffset0 The position of the first of the other vectors in b.
+   *  @param bOffset1 The position of the second of the other vectors in b.
+   *  @param bOffset2 The position of the third of the other vectors in b.
+   *  @param bOffset3 The position of the fourth of the other vectors in b.
+   *  @param length The length of the vectors.
+   *  @param results The array where the four dot products will be written.
+   */
+  public void dot4(double[] a, int aOffset, double[] b, int bOffset0, int bOffset1, int bOffset2, int bOffset3,
+                   int length, double[] results){
+    results[0] = this.dot(a, aOffset, b, bOffset0, length);
+    results[1] = this.dot(a, aOffset, b, bOffset1, length);
+    results[2] = this.dot(a, aOffset, b, bOffset2, length);
+    results[3] = this.dot(a, aOffset, b, bOffset3, length);
+  }
+
+  /**
+   *  @brief Adds a multiple of a vector to another vector, that is, y += alpha * x.
+   *
+   *  @param alpha The multiplier of x.
+   *  @param x The array holding the vector to be added.
+   *  @param xOffset The position of the vector in x.
+   *  @param y The array holding the vector to add to.
+   *  @param yOffset The position of the vector in y.
+   *  @param length The length of the vectors.
+   */
+  public abstract void axpy(double alpha, double[] x, int xOffset, double[] y, int yOffset, int length);
+
+  /**
+   *  @brief Adds the outer product of two vectors to a row-major matrix, that is,
+   *         matrix[j * columns + k] += rowVector[j] * columnVector[k].
+   *
+   *  @param rowVector The vector whose elements multiply the rows, of length rows.
+   *  @param columnVector The vector whose elements multiply the columns, of length columns.
+   *  @param matrix The matrix to add to.
+   *  @param rows The number of rows of the matrix.
+   *  @param columns The number of columns of the matrix.
+   */
+  public void addOuterProduct(double[] rowVector, double[] columnVector, double[] matrix, int rows, int columns){
+    for(int j = 0;j < rows;j++){
+      this.axpy(rowVector[j], columnVector, 0, matrix, j * columns, columns);
+    }
+  }
+
+  /**
+   *  @brief Getter method for the name of this ComputeBackend.
+   *
+   *  @return Returns the name of this ComputeBackend, as accepted by create.
+   */
+  public abstract String getName();
+
+  /**
+   *  @brief Creates a ComputeBackend by name.
+   *
+   *  @param name The name of the ComputeBackend, "scalar" or "vector".
+   *
+   *  @return Returns the created ComputeBackend.
+   *
+   *  @throws IllegalArgumentException When the name is unknown, or when the vector implementation is requested but
+   *          can not be loaded.
+   */
+  public static ComputeBackend create(String name){
+    if(SCALAR.equals(name)){
+      return new ScalarBackend();
+    }
+
+    if(VECTOR.equals(name)){
+      ComputeBackend computeBackend = loadVectorBackend();
+      if(computeBackend == null){
+        throw new IllegalArgumentException("The vector ComputeBackend is not available, make sure the code was built " +
+                                           "with a JDK that has jdk.incubator.vector and that the JVM runs with " +
+                                           "--add-modules jdk.incubator.vector.");
+      }
+
+      return computeBackend;
+    }
+
+    throw new IllegalArgumentException("Unknown ComputeBackend: " + name);
+  }
+
+  /**
+   *  @brief Returns whether the vector implementation can be used in this JVM.
+   *
+   *  @return Returns true if the vector implementation can be loaded.
+   */
+  public static boolean isVectorAvailable(){
+    return loadVectorBackend() != null;
+  }
+
+  /**
+   *  @brief Returns the default ComputeBackend.
+   *
+   *  @return Returns the ComputeBackend named by the neural_network.backend system property, or, if it is not set, the
+   *          vector implementation when it is available and the scalar one otherwise.
+   */
+  public static ComputeBackend getDefault(){
+    if(default_ == null){
+      String name = System.getProperty(BACKEND_PROPERTY);
+
+      if(name != null){
+        default_ = create(name);
+      }
+      else{
+        ComputeBackend computeBackend = loadVectorBackend();
+        default_ = (computeBackend != null) ? computeBackend : new ScalarBackend();
+      }
+    }
+
+    return default_;
+  }
+
+  /**
+   *  @brief Loads the vector implementation through reflection.
+   *
+   *  @return Returns the vector implementation, or null if it was not compiled or jdk.incubator.vector is not
+   *          available.
+   */
+  private static ComputeBackend loadVectorBackend(){
+    try{
+      return (ComputeBackend)Class.forName(VECTOR_BACKEND_CLASS).getDeclaredConstructor().newInstance();
+    }
+    catch(ReflectiveOperationException exception){
+      return null;
+    }
+    catch(LinkageError error){
+      // jdk.incubator.vector is not resolved in this JVM.
+      return null;
+    }
+  }
+
+  public static final String SCALAR = "scalar"; //!< The name of the scalar implementation.
+  public static final String VECTOR = "vector"; //!< The name of the vector implementation.
+  public static final String BACKEND_PROPERTY = "neural_network.backend"; //!< The property naming the default.
+
+  private static final String VECTOR_BACKEND_CLASS = "main.java.base.VectorBackend"; //!< The vector implementation.
+
+  private static volatile ComputeBackend default_; //!< The default ComputeBackend, chosen on first use.
+
+}
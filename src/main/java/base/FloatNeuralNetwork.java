@@ -0,0 +1,551 @@
+package main.java.base;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/** @class FloatNeuralNetwork
+ *
+ *  @brief Implements a feed forward neural network whose parameters, activations and derivatives are single
+ *         precision.
+ *
+ *  A FloatNeuralNetwork behaves like a NeuralNetwork, but it needs half the memory and half the memory bandwidth. The
+ *  dot products can optionally be accumulated in double precision, which costs a conversion per term but keeps the
+ *  rounding error of large layers close to the one of a NeuralNetwork.
+ */
+public class FloatNeuralNetwork{
+  /**
+   *  @brief Default constructor.
+   */
+  public FloatNeuralNetwork(){
+    momentumCoefficient_ = 0;
+  }
+
+  /**
+   *  @brief Constructor.
+   *
+   *  Randomly initializes the parameters with values in [-0.25, 0.25).
+   *
+   *  @param sizesOfLayers The number of neurons in each layer including the input and output layers.
+   */
+  public FloatNeuralNetwork(int[] sizesOfLayers){
+    sizesOfLayers_ = sizesOfLayers;
+    numberOfLayers_ = sizesOfLayers_.length;
+
+    this.allocateParameters();
+
+    for(int i = 0;i < numberOfLayers_ - 1;i++){
+      for(int k = 0;k < weights_[i].length;k++){
+        weights_[i][k] = (float)(Math.random() * 0.5 - 0.25);
+      }
+      for(int j = 0;j < sizesOfLayers_[i + 1];j++){
+        biases_[i][j] = (float)(Math.random() * 0.5 - 0.25);
+      }
+
+      this.updateTransposedWeights(i);
+    }
+
+    momentumCoefficient_ = 0;
+  }
+
+  /**
+   *  @brief Constructor.
+   *
+   *  Converts a NeuralNetwork to single precision. Each parameter is rounded to the nearest float. The Activations of
+   *  the layers are the same as the ones of the NeuralNetwork.
+   *
+   *  @param neuralNetwork The NeuralNetwork to be converted.
+   */
+  public FloatNeuralNetwork(NeuralNetwork neuralNetwork){
+    sizesOfLayers_ = neuralNetwork.getSizesOfLayers().clone();
+    numberOfLayers_ = sizesOfLayers_.length;
+
+    this.allocateParameters();
+
+    for(int i = 0;i < numberOfLayers_ - 1;i++){
+      double[] weights = neuralNetwork.getWeights(i);
+      double[] biases = neuralNetwork.getBiases(i);
+
+      for(int k = 0;k < weights.length;k++){
+        weights_[i][k] = (float)weights[k];
+      }
+      for(int j = 0;j < biases.length;j++){
+        biases_[i][j] = (float)biases[j];
+      }
+
+      activations_[i] = neuralNetwork.getActivation(i);
+
+      this.updateTransposedWeights(i);
+    }
+
+    momentumCoefficient_ = neuralNetwork.getMomentumCoefficient();
+  }
+
+  /**
+   *  @brief Applies an input to this FloatNeuralNetwork and returns its output.
+   *
+   *  @param input The input to this FloatNeuralNetwork. The length of the input must be equal to sizesOfLayers_[0].
+   *
+   *  @return Returns the output of this FloatNeuralNetwork for the given input.
+   */
+  public float[] feedForward(float[] input){
+    return this.feedForward(input, new InferenceContext(sizesOfLayers_),
+                            new float[sizesOfLayers_[numberOfLayers_ - 1]]);
+  }
+
+  /**
+   *  @brief Applies an input to this FloatNeuralNetwork and writes its output to a given array, without allocating
+   *         any memory.
+   *
+   *  The first time a context is used with a FloatNeuralNetwork, its float buffers are allocated.
+   *
+   *  @param input The input to this FloatNeuralNetwork. The length of the input must be equal to sizesOfLayers_[0].
+   *  @param context The InferenceContext that holds the activations of the hidden layers.
+   *  @param output The array where the output will be written.
+   *
+   *  @return Returns the output array.
+   */
+  public float[] feedForward(float[] input, InferenceContext context, float[] output){
+    context.allocateFloatBuffers();
+
+    float[] inputBuffer = input;
+    float[] outputBuffer = context.firstFloatBuffer_;
+
+    for(int i = 0;i < numberOfLayers_ - 1;i++){
+      if(i == numberOfLayers_ - 2){
+        outputBuffer = output;
+      }
+
+      this.feedForwardLayer(i, inputBuffer, outputBuffer);
+
+      inputBuffer = outputBuffer;
+      outputBuffer = (outputBuffer == context.firstFloatBuffer_) ? context.secondFloatBuffer_ :
+                                                                   context.firstFloatBuffer_;
+    }
+
+    return output;
+  }
+
+  /**
+   *  @brief Trains this FloatNeuralNetwork on a given set of data.
+   *
+   *  The training method is the same as the one of NeuralNetwork.train with its default Momentum, velocity =
+   *  (1 - momentumCoefficient_) * nabla / trainingSetSize + momentumCoefficient_ * velocity, except that the velocity
+   *  starts from zero on every call.
+   *
+   *  @param trainingSet The set of data on which this FloatNeuralNetwork will be trained.
+   *  @param labels The labels for the training set.
+   *  @param trainingSetSize The number of training samples in the training set.
+   *  @param numberOfIterations The number of iterations of the training method.
+   *  @param gamma Parameter gamma of the training method(gradient descent).
+   */
+  public void train(float[][] trainingSet, float[][] labels, int trainingSetSize, int numberOfIterations, float gamma){
+    float[][] nablaWeights = new float[numberOfLayers_ - 1][];
+    float[][] nablaBiases = new float[numberOfLayers_ - 1][];
+    float[][] momentumWeights = new float[numberOfLayers_ - 1][];
+    float[][] momentumBiases = new float[numberOfLayers_ - 1][];
+    float[][] activations = new float[numberOfLayers_ - 1][];
+    float[][] delta = new float[numberOfLayers_ - 1][];
+    for(int i = 0;i < numberOfLayers_ - 1;i++){
+      nablaWeights[i] = new float[weights_[i].length];
+      nablaBiases[i] = new float[sizesOfLayers_[i + 1]];
+      momentumWeights[i] = new float[weights_[i].length];
+      momentumBiases[i] = new float[sizesOfLayers_[i + 1]];
+      activations[i] = new float[sizesOfLayers_[i + 1]];
+      delta[i] = new float[sizesOfLayers_[i + 1]];
+    }
+
+    float momentumCoefficient = (float)momentumCoefficient_;
+    float averageCoefficient = (1 - momentumCoefficient) / trainingSetSize;
+
+    for(int iteration = 0;iteration < numberOfIterations;iteration++){
+
+      for(int sample = 0;sample < trainingSetSize;sample++){
+        this.backPropagation(trainingSet[sample], labels[sample], activations, delta, nablaWeights, nablaBiases);
+      }
+
+      // Updating the parameters and setting nablaTheta to zero in the same pass.
+      for(int i = 0;i < numberOfLayers_ - 1;i++){
+        float[] weights = weights_[i];
+        float[] nablaWeightsOfLayer = nablaWeights[i];
+        float[] momentumWeightsOfLayer = momentumWeights[i];
+
+        for(int j = 0;j < sizesOfLayers_[i + 1];j++){
+          momentumBiases[i][j] = nablaBiases[i][j] * averageCoefficient + momentumBiases[i][j] * momentumCoefficient;
+          biases_[i][j] -= gamma * momentumBiases[i][j];
+          nablaBiases[i][j] = 0;
+        }
+
+        for(int k = 0;k < weights.length;k++){
+          momentumWeightsOfLayer[k] = nablaWeightsOfLayer[k] * averageCoefficient +
+                                      momentumWeightsOfLayer[k] * momentumCoefficient;
+          weights[k] -= gamma * momentumWeightsOfLayer[k];
+          nablaWeightsOfLayer[k] = 0;
+        }
+
+        this.updateTransposedWeights(i);
+      }
+
+    }
+  }
+
+  /**
+   *  @brief Saves the parameters of this FloatNeuralNetwork to a binary file.
+   *
+   *  The file starts with MAGIC_NUMBER, followed by the number of layers and the size of each layer. Then, for each
+   *  neuron, its bias is followed by its weights, as in NeuralNetwork.saveToBinary, but each parameter is a 4 byte
+   *  float. The parameters are followed by the names of the Activations of the layers.
+   *
+   *  @param path The absolute, or relative path of the file where the parameters will be saved.
+   *
+   *  @throws IOException When an exception occurs while writing on the file.
+   */
+  public void saveToBinary(String path) throws IOException{
+    DataOutputStream dataOutputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path)));
+
+    dataOutputStream.writeInt(MAGIC_NUMBER);
+    dataOutputStream.writeInt(numberOfLayers_);
+    for(int i = 0;i < numberOfLayers_;i++){
+      dataOutputStream.writeInt(sizesOfLayers_[i]);
+    }
+
+    for(int i = 0;i < numberOfLayers_ - 1;i++){
+      for(int j = 0;j < sizesOfLayers_[i + 1];j++){
+        dataOutputStream.writeFloat(biases_[i][j]);
+
+        for(int k = 0;k < sizesOfLayers_[i];k++){
+          dataOutputStream.writeFloat(weights_[i][j * sizesOfLayers_[i] + k]);
+        }
+      }
+    }
+
+    Activation.writeActivations(dataOutputStream, activations_);
+
+    dataOutputStream.close();
+  }
+
+  /**
+   *  @brief Loads the parameters for this FloatNeuralNetwork from a binary file written by saveToBinary.
+   *
+   *  @param path The path of the file where the parameters are saved.
+   *
+   *  @throws IOException When an exception occurs while reading from the file, or when the file was not written by
+   *          saveToBinary.
+   */
+  public void loadFromBinary(String path) throws IOException{
+    DataInputStream dataInputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(path)));
+
+    try{
+      if(dataInputStream.readInt() != MAGIC_NUMBER){
+        throw new IOException(path + " is not a FloatNeuralNetwork binary file.");
+      }
+
+      numberOfLayers_ = dataInputStream.readInt();
+      sizesOfLayers_ = new int[numberOfLayers_];
+      for(int i = 0;i < numberOfLayers_;i++){
+        sizesOfLayers_[i] = dataInputStream.readInt();
+      }
+
+      this.allocateParameters();
+
+      for(int i = 0;i < numberOfLayers_ - 1;i++){
+        for(int j = 0;j < sizesOfLayers_[i + 1];j++){
+          biases_[i][j] = dataInputStream.readFloat();
+
+          for(int k = 0;k < sizesOfLayers_[i];k++){
+            weights_[i][j * sizesOfLayers_[i] + k] = dataInputStream.readFloat();
+          }
+        }
+
+        this.updateTransposedWeights(i);
+      }
+
+      activations_ = Activation.readActivations(dataInputStream, numberOfLayers_ - 1);
+    }
+    finally{
+      dataInputStream.close();
+    }
+  }
+
+  /**
+   *  @brief Creates a FloatNeuralNetwork and loads the parameters from the given binary file.
+   *
+   *  @param path The path of a binary file written by saveToBinary.
+   *
+   *  @return Returns the created FloatNeuralNetwork.
+   *
+   *  @throws IOException When an exception occurs while reading from the file.
+   */
+  public static FloatNeuralNetwork createFromBinary(String path) throws IOException{
+    FloatNeuralNetwork floatNeuralNetwork = new FloatNeuralNetwork();
+
+    floatNeuralNetwork.loadFromBinary(path);
+
+    return floatNeuralNetwork;
+  }
+
+  /**
+   *  @brief Converts a binary file written by NeuralNetwork.saveToBinary to a binary file of a FloatNeuralNetwork.
+   *
+   *  @param neuralNetworkPath The path of the binary file of the NeuralNetwork.
+   *  @param floatNeuralNetworkPath The path of the file where the FloatNeuralNetwork will be saved.
+   *
+   *  @throws IOException When an exception occurs while reading or writing the files.
+   */
+  public static void convertBinary(String neuralNetworkPath, String floatNeuralNetworkPath) throws IOException{
+    new FloatNeuralNetwork(NeuralNetwork.createFromBinary(neuralNetworkPath)).saveToBinary(floatNeuralNetworkPath);
+  }
+
+  /**
+   *  @brief Implements the back propagation algorithm for one sample.
+   *
+   *  @param sample The input to this FloatNeuralNetwork.
+   *  @param label The label of the input.
+   *  @param activations The arrays where the output of each neuron will be written.
+   *  @param delta The arrays where the error of each neuron will be written.
+   *  @param nablaWeights The arrays in which the derivative of the cost function with respect to the weights will be
+   *         added.
+   *  @param nablaBiases The arrays in which the derivative of the cost function with respect to the biases will be
+   *         added.
+   */
+  private void backPropagation(float[] sample, float[] label, float[][] activations, float[][] delta,
+                               float[][] nablaWeights, float[][] nablaBiases){
+    // Calculating the output of each neuron.
+    float[] sampleBuffer = sample;
+    for(int i = 0;i < numberOfLayers_ - 1;i++){
+      this.feedForwardLayer(i, sampleBuffer, activations[i]);
+
+      sampleBuffer = activations[i];
+    }
+
+    // Calculating the error of each neuron.
+    Activation outputActivation = activations_[numberOfLayers_ - 2];
+    for(int j = 0;j < sizesOfLayers_[numberOfLayers_ - 1];j++){
+      delta[numberOfLayers_ - 2][j] = (float)outputActivation.outputError(activations[numberOfLayers_ - 2][j],
+                                                                          label[j]);
+    }
+    for(int i = numberOfLayers_ - 3;i >= 0;i--){
+      for(int j = 0;j < sizesOfLayers_[i + 1];j++){
+        delta[i][j] = this.dot(transposedWeights_[i + 1], j * sizesOfLayers_[i + 2], delta[i + 1],
+                               sizesOfLayers_[i + 2]);
+      }
+
+      activations_[i].multiplyByDerivative(activations[i], delta[i], sizesOfLayers_[i + 1]);
+    }
+
+    // Calculating the derivative of the cost function with respect to every parameter.
+    sampleBuffer = sample;
+    for(int i = 0;i < numberOfLayers_ - 1;i++){
+      float[] nablaWeightsOfLayer = nablaWeights[i];
+      int inputSize = sizesOfLayers_[i];
+
+      for(int j = 0;j < sizesOfLayers_[i + 1];j++){
+        nablaBiases[i][j] += delta[i][j];
+
+        int offset = j * inputSize;
+        float deltaOfNeuron = delta[i][j];
+        for(int k = 0;k < inputSize;k++){
+          nablaWeightsOfLayer[offset + k] += sampleBuffer[k] * deltaOfNeuron;
+        }
+      }
+
+      sampleBuffer = activations[i];
+    }
+  }
+
+  /**
+   *  @brief Applies a sample to one layer of this FloatNeuralNetwork.
+   *
+   *  @param layer The layer to apply the sample to.
+   *  @param input The sample.
+   *  @param output The array where the activations of the layer will be written.
+   */
+  private void feedForwardLayer(int layer, float[] input, float[] output){
+    int inputSize = sizesOfLayers_[layer];
+    int outputSize = sizesOfLayers_[layer + 1];
+
+    for(int j = 0;j < outputSize;j++){
+      output[j] = this.dot(weights_[layer], j * inputSize, input, inputSize) + biases_[layer][j];
+    }
+
+    activations_[layer].apply(output, 0, outputSize);
+  }
+
+  /**
+   *  @brief Calculates the dot product of a row of a weight buffer with a vector.
+   *
+   *  Four partial sums are accumulated independently, so that consecutive additions do not wait for each other.
+   *
+   *  @param weights The weight buffer.
+   *  @param offset The position of the row in the weight buffer.
+   *  @param vector The vector.
+   *  @param length The length of the row and the vector.
+   *
+   *  @return Returns the dot product, accumulated in double precision if doubleAccumulation_ is true.
+   */
+  private float dot(float[] weights, int offset, float[] vector, int length){
+    int end = length & ~3;
+
+    if(doubleAccumulation_){
+      double sum0 = 0, sum1 = 0, sum2 = 0, sum3 = 0;
+      for(int k = 0;k < end;k += 4){
+        sum0 += (double)weights[offset + k] * vector[k];
+        sum1 += (double)weights[offset + k + 1] * vector[k + 1];
+        sum2 += (double)weights[offset + k + 2] * vector[k + 2];
+        sum3 += (double)weights[offset + k + 3] * vector[k + 3];
+      }
+      for(int k = end;k < length;k++){
+        sum0 += (double)weights[offset + k] * vector[k];
+      }
+
+      return (float)((sum0 + sum1) + (sum2 + sum3));
+    }
+
+    float sum0 = 0, sum1 = 0, sum2 = 0, sum3 = 0;
+    for(int k = 0;k < end;k += 4){
+      sum0 += weights[offset + k] * vector[k];
+      sum1 += weights[offset + k + 1] * vector[k + 1];
+      sum2 += weights[offset + k + 2] * vector[k + 2];
+      sum3 += weights[offset + k + 3] * vector[k + 3];
+    }
+    for(int k = end;k < length;k++){
+      sum0 += weights[offset + k] * vector[k];
+    }
+
+    return (sum0 + sum1) + (sum2 + sum3);
+  }
+
+  /**
+   *  @brief Allocates the weights, the transposed weights and the biases according to sizesOfLayers_, and sets the
+   *         Activation of every layer to Sigmoid.
+   */
+  private void allocateParameters(){
+    weights_ = new float[numberOfLayers_ - 1][];
+    transposedWeights_ = new float[numberOfLayers_ - 1][];
+    biases_ = new float[numberOfLayers_ - 1][];
+    activations_ = new Activation[numberOfLayers_ - 1];
+
+    for(int i = 0;i < numberOfLayers_ - 1;i++){
+      weights_[i] = new float[sizesOfLayers_[i + 1] * sizesOfLayers_[i]];
+      biases_[i] = new float[sizesOfLayers_[i + 1]];
+      activations_[i] = new Sigmoid();
+
+      if(i > 0){
+        transposedWeights_[i] = new float[sizesOfLayers_[i] * sizesOfLayers_[i + 1]];
+      }
+    }
+  }
+
+  /**
+   *  @brief Copies the weights of a layer to the transposed weights of the same layer.
+   *
+   *  @param layer The layer whose transposed weights will be updated.
+   */
+  private void updateTransposedWeights(int layer){
+    if(transposedWeights_[layer] == null){
+      return;
+    }
+
+    int rows = sizesOfLayers_[layer + 1];
+    int columns = sizesOfLayers_[layer];
+
+    for(int j = 0;j < rows;j++){
+      for(int k = 0;k < columns;k++){
+        transposedWeights_[layer][k * rows + j] = weights_[layer][j * columns + k];
+      }
+    }
+  }
+
+  /**
+   *  @brief Getter method for the number of layers of this FloatNeuralNetwork.
+   *
+   *  @return Returns the number of layers of this FloatNeuralNetwork.
+   */
+  public int getNumberOfLayers(){
+    return numberOfLayers_;
+  }
+
+  /**
+   *  @brief Getter method for the sizes of layers of this FloatNeuralNetwork.
+   *
+   *  @return Returns the sizes of the layers of this FloatNeuralNetwork.
+   */
+  public int[] getSizesOfLayers(){
+    return sizesOfLayers_;
+  }
+
+  /**
+   *  @brief Setter method for the Activation of a layer.
+   *
+   *  @param layer The layer, from 0 for the first hidden layer to getNumberOfLayers() - 2 for the output layer.
+   *  @param activation The Activation of the neurons of the layer. The default value is a Sigmoid.
+   */
+  public void setActivation(int layer, Activation activation){
+    activations_[layer] = activation;
+  }
+
+  /**
+   *  @brief Getter method for the Activation of a layer.
+   *
+   *  @param layer The layer, from 0 for the first hidden layer to getNumberOfLayers() - 2 for the output layer.
+   *
+   *  @return Returns the Activation of the neurons of the layer.
+   */
+  public Activation getActivation(int layer){
+    return activations_[layer];
+  }
+
+  /**
+   *  @brief Setter method for the double precision accumulation of the dot products.
+   *
+   *  @param doubleAccumulation If true, the dot products are accumulated in double precision.
+   */
+  public void setDoubleAccumulation(boolean doubleAccumulation){
+    doubleAccumulation_ = doubleAccumulation;
+  }
+
+  /**
+   *  @brief Getter method for the double precision accumulation of the dot products.
+   *
+   *  @return Returns true if the dot products are accumulated in double precision.
+   */
+  public boolean isDoubleAccumulation(){
+    return doubleAccumulation_;
+  }
+
+  /**
+   *  @brief Setter method for the momentum coefficient.
+   *
+   *  @param momentumCoefficient The new value for the momentum coefficient.
+   */
+  public void setMomentumCoefficient(double momentumCoefficient){
+    momentumCoefficient_ = momentumCoefficient;
+  }
+
+  /**
+   *  @brief Getter method for the momentum coefficient.
+   *
+   *  @return Returns the current value of the momentum coefficient.
+   */
+  public double getMomentumCoefficient(){
+    return momentumCoefficient_;
+  }
+
+  private int numberOfLayers_; //!< The number of layers of this FloatNeuralNetwork.
+  private int[] sizesOfLayers_; //!< The number of neurons in each layer.
+
+  private float[][] weights_; //!< The row-major weights of each layer, as in NeuralNetwork.
+  private float[][] transposedWeights_; //!< A column-major copy of weights_, null for the first layer.
+  private float[][] biases_; //!< The biases of each layer.
+  private Activation[] activations_; //!< The Activation of each layer, except the input layer.
+
+  private double momentumCoefficient_; //!< The momentum coefficient of this FloatNeuralNetwork.
+  private boolean doubleAccumulation_; //!< Whether the dot products are accumulated in double precision.
+
+  public static final int MAGIC_NUMBER = 0x464E4E32; //!< The magic number at the beginning of a binary file, "FNN2".
+
+}
@@ -0,0 +1,69 @@
+package main.java.base;
+
+/** @class InferenceContext
+ *
+ *  @brief Holds the buffers that a NeuralNetwork needs to evaluate an input.
+ *
+ *  An InferenceContext is created once, from the sizes of the layers of a NeuralNetwork, and then passed to
+ *  NeuralNetwork.feedForward(double[], InferenceContext, double[]) on every call, so that evaluating an input does not
+ *  allocate any memory. The same InferenceContext can also be used with a FloatNeuralNetwork or a
+ *  QuantizedNeuralNetwork of the same sizes; the buffers that only they need are allocated the first time the
+ *  InferenceContext is used with one of them. An InferenceContext is not thread safe; each thread should use its own.
+ */
+public class InferenceContext{
+  /**
+   *  @brief Constructor.
+   *
+   *  @param sizesOfLayers The number of neurons in each layer of the NeuralNetwork(s) this InferenceContext will be used
+   *         with, as returned by NeuralNetwork.getSizesOfLayers().
+   */
+  public InferenceContext(int[] sizesOfLayers){
+    int maximumSizeOfLayer = 0;
+    for(int i = 0;i < sizesOfLayers.length;i++){
+      maximumSizeOfLayer = Math.max(maximumSizeOfLayer, sizesOfLayers[i]);
+    }
+
+    firstBuffer_ = new double[maximumSizeOfLayer];
+    secondBuffer_ = new double[maximumSizeOfLayer];
+    indexBuffer_ = new int[1];
+  }
+
+  /**
+   *  @brief Getter method for the capacity of this InferenceContext.
+   *
+   *  @return Returns the largest layer this InferenceContext can hold.
+   */
+  public int getCapacity(){
+    return firstBuffer_.length;
+  }
+
+  /**
+   *  @brief Allocates the buffers used by a FloatNeuralNetwork, if they have not been allocated yet.
+   */
+  void allocateFloatBuffers(){
+    if(firstFloatBuffer_ == null){
+      firstFloatBuffer_ = new float[firstBuffer_.length];
+      secondFloatBuffer_ = new float[firstBuffer_.length];
+    }
+  }
+
+  /**
+   *  @brief Allocates the buffer used by a QuantizedNeuralNetwork, if it has not been allocated yet.
+   */
+  void allocateByteBuffer(){
+    if(byteBuffer_ == null){
+      byteBuffer_ = new byte[firstBuffer_.length];
+    }
+  }
+
+  double[] firstBuffer_; //!< The buffer holding the activations of the odd layers.
+  double[] secondBuffer_; //!< The buffer holding the activations of the even layers.
+  float[] firstFloatBuffer_; //!< The buffer holding the activations of the odd layers of a FloatNeuralNetwork, or
+                             //!< null until it is used with one.
+  float[] secondFloatBuffer_; //!< The buffer holding the activations of the even layers of a FloatNeuralNetwork, or
+                              //!< null until it is used with one.
+  byte[] byteBuffer_; //!< The buffer holding the quantized input of a layer of a QuantizedNeuralNetwork, or null until
+                      //!< it is used with one.
+  int[] indexBuffer_; //!< The buffer holding the class selected by NeuralNetwork.classify.
+
+}
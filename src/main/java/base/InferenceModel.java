@@ -0,0 +1,40 @@
+package main.java.base;
+
+/** @interface InferenceModel
+ *
+ *  @brief A model that maps an input to an output the same way a NeuralNetwork does.
+ *
+ *  NeuralNetwork implements it, and so do the inference-only models that are derived from a trained NeuralNetwork, so
+ *  that they can be evaluated and compared with each other.
+ */
+public interface InferenceModel{
+  /**
+   *  @brief Applies an input to this InferenceModel and returns its output.
+   *
+   *  @param input The input. Its length must be equal to the size of the first layer.
+   *
+   *  @return Returns the output. Its length is equal to the size of the last layer.
+   */
+  double[] feedForward(double[] input);
+
+  /**
+   *  @brief Applies an input to this InferenceModel and writes its output to a given array, without allocating any
+   *         memory.
+   *
+   *  @param input The input. Its length must be equal to the size of the first layer.
+   *  @param context The InferenceContext that holds the activations of the hidden layers. It must have been created
+   *         for layers at least as large as the ones of this InferenceModel.
+   *  @param output The array where the output will be written. Its length must be at least the size of the last layer.
+   *
+   *  @return Returns the output array.
+   */
+  double[] feedForward(double[] input, InferenceContext context, double[] output);
+
+  /**
+   *  @brief Getter method for the sizes of the layers of this InferenceModel.
+   *
+   *  @return Returns the number of neurons in each layer, including the input and output layers.
+   */
+  int[] getSizesOfLayers();
+
+}
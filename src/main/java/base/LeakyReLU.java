@@ -0,0 +1,75 @@
+package main.java.base;
+
+/** @class LeakyReLU
+ *
+ *  @brief Implements the leaky rectified linear unit, which is z for positive z and slope * z otherwise.
+ */
+public class LeakyReLU extends Activation{
+  /**
+   *  @brief Constructor.
+   *
+   *  Uses DEFAULT_SLOPE as the slope of the negative part.
+   */
+  public LeakyReLU(){
+    this(DEFAULT_SLOPE);
+  }
+
+  /**
+   *  @brief Constructor.
+   *
+   *  @param slope The slope of the negative part. It must be positive, so that the sign of the output tells which part
+   *         the derivative belongs to.
+   */
+  public LeakyReLU(double slope){
+    if(!(slope > 0)){
+      throw new IllegalArgumentException("The slope of a LeakyReLU must be positive.");
+    }
+
+    slope_ = slope;
+  }
+
+  @Override
+  public double apply(double z){
+    return (z > 0) ? z : slope_ * z;
+  }
+
+  @Override
+  public double derivative(double activation){
+    return (activation > 0) ? 1 : slope_;
+  }
+
+  @Override
+  public void apply(double[] values, int offset, int length){
+    for(int k = offset;k < offset + length;k++){
+      values[k] = (values[k] > 0) ? values[k] : slope_ * values[k];
+    }
+  }
+
+  @Override
+  public void multiplyByDerivative(double[] activations, double[] delta, int length){
+    for(int k = 0;k < length;k++){
+      if(activations[k] <= 0){
+        delta[k] *= slope_;
+      }
+    }
+  }
+
+  @Override
+  public String getName(){
+    return (slope_ == DEFAULT_SLOPE) ? LEAKY_RELU : LEAKY_RELU + ":" + slope_;
+  }
+
+  /**
+   *  @brief Getter method for the slope of the negative part.
+   *
+   *  @return Returns the slope of the negative part.
+   */
+  public double getSlope(){
+    return slope_;
+  }
+
+  public static final double DEFAULT_SLOPE = 0.01; //!< The default slope of the negative part.
+
+  private final double slope_; //!< The slope of the negative part.
+
+}
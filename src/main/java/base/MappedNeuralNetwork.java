@@ -0,0 +1,530 @@
+package main.java.base;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/** @class MappedNeuralNetwork
+ *
+ *  @brief Implements an inference-only feed forward neural network whose parameters are read straight from a memory
+ *         mapped file.
+ *
+ *  A MappedNeuralNetwork is created by map, which reads the header of a file written by write and maps the
+ *  parameters of each layer with FileChannel.map, without copying them. Opening a model therefore takes the same time
+ *  whatever its size, the parameters are read from disk only when they are first used, and every process that maps
+ *  the same file shares one copy of it in the page cache.
+ *
+ *  The file is little endian. It starts with a header:
+ *  - MAGIC_NUMBER, VERSION and the data type of the parameters, DTYPE_FLOAT64 or DTYPE_FLOAT32, as ints,
+ *  - the number of layers, as an int,
+ *  - the CRC32 of the parameters and the size of the header, as longs,
+ *  - the size of each layer, as ints,
+ *  - the offset in the file of the weights and of the biases of each layer, as longs,
+ *  - the name of the Activation of each layer, as a short length followed by UTF-8 bytes.
+ *
+ *  The parameters follow. The row-major weights and the biases of each layer start at an offset that is a multiple
+ *  of ALIGNMENT. The checksum covers the weights and the biases of each layer, in that order, and is checked by
+ *  verify rather than by map, since checking it reads the whole file.
+ *
+ *  The mapping is released when the MappedNeuralNetwork is garbage collected. A MappedNeuralNetwork is read only, so
+ *  it is thread safe, as long as each thread uses its own InferenceContext.
+ */
+public class MappedNeuralNetwork implements InferenceModel{
+  /**
+   *  @brief Constructor, used by map.
+   */
+  private MappedNeuralNetwork(){
+  }
+
+  /**
+   *  @brief Maps a file written by write.
+   *
+   *  @param path The path of the file.
+   *
+   *  @return Returns the MappedNeuralNetwork.
+   *
+   *  @throws IOException When an exception occurs while reading from the file, or when the file was not written by
+   *          write.
+   */
+  public static MappedNeuralNetwork map(String path) throws IOException{
+    MappedNeuralNetwork mappedNeuralNetwork = new MappedNeuralNetwork();
+
+    RandomAccessFile file = new RandomAccessFile(path, "r");
+    try{
+      FileChannel channel = file.getChannel();
+      long fileSize = channel.size();
+
+      ByteBuffer header = readFully(channel, 0, (int)Math.min(fileSize, FIXED_HEADER_SIZE));
+      if(header.remaining() < FIXED_HEADER_SIZE || header.getInt() != MAGIC_NUMBER){
+        throw new IOException(path + " is not a MappedNeuralNetwork file.");
+      }
+      int version = header.getInt();
+      if(version != VERSION){
+        throw new IOException(path + " has version " + version + ", only version " + VERSION + " is supported.");
+      }
+      int dtype = header.getInt();
+      if(dtype != DTYPE_FLOAT64 && dtype != DTYPE_FLOAT32){
+        throw new IOException(path + " has an unknown data type.");
+      }
+      int numberOfLayers = header.getInt();
+      if(numberOfLayers < 2 || numberOfLayers > MAXIMUM_NUMBER_OF_LAYERS){
+        throw new IOException(path + " is corrupted.");
+      }
+
+      mappedNeuralNetwork.dtype_ = dtype;
+      mappedNeuralNetwork.checksum_ = header.getLong();
+      long headerSize = header.getLong();
+      if(headerSize < FIXED_HEADER_SIZE || headerSize > Math.min(fileSize, MAXIMUM_HEADER_SIZE)){
+        throw new IOException(path + " is corrupted.");
+      }
+
+      // The rest of the header.
+      header = readFully(channel, FIXED_HEADER_SIZE, (int)headerSize - FIXED_HEADER_SIZE);
+      mappedNeuralNetwork.numberOfLayers_ = numberOfLayers;
+      mappedNeuralNetwork.sizesOfLayers_ = new int[numberOfLayers];
+      for(int i = 0;i < numberOfLayers;i++){
+        mappedNeuralNetwork.sizesOfLayers_[i] = header.getInt();
+        if(mappedNeuralNetwork.sizesOfLayers_[i] <= 0){
+          throw new IOException(path + " is corrupted.");
+        }
+      }
+
+      long[] weightsOffsets = new long[numberOfLayers - 1];
+      long[] biasesOffsets = new long[numberOfLayers - 1];
+      for(int i = 0;i < numberOfLayers - 1;i++){
+        weightsOffsets[i] = header.getLong();
+        biasesOffsets[i] = header.getLong();
+      }
+
+      mappedNeuralNetwork.activations_ = new Activation[numberOfLayers - 1];
+      for(int i = 0;i < numberOfLayers - 1;i++){
+        byte[] name = new byte[header.getShort() & 0xFFFF];
+        header.get(name);
+        mappedNeuralNetwork.activations_[i] = Activation.create(new String(name, StandardCharsets.UTF_8));
+      }
+
+      mappedNeuralNetwork.mapParameters(channel, fileSize, weightsOffsets, biasesOffsets, path);
+    }
+    catch(BufferUnderflowException | IllegalArgumentException exception){
+      throw new IOException(path + " is corrupted.", exception);
+    }
+    finally{
+      // The mappings stay valid after the channel is closed.
+      file.close();
+    }
+
+    return mappedNeuralNetwork;
+  }
+
+  /**
+   *  @brief Reads a part of a file.
+   *
+   *  @param channel The channel of the file.
+   *  @param position The position of the part.
+   *  @param length The length of the part.
+   *
+   *  @return Returns a little endian buffer holding the part, or less if the file ends before it.
+   *
+   *  @throws IOException When an exception occurs while reading from the file.
+   */
+  private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException{
+    ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+    while(buffer.hasRemaining() && channel.read(buffer, position + buffer.position()) >= 0){
+    }
+    buffer.flip();
+
+    return buffer;
+  }
+
+  /**
+   *  @brief Maps the weights and the biases of every layer.
+   *
+   *  @param channel The channel of the file.
+   *  @param fileSize The size of the file.
+   *  @param weightsOffsets The offset of the weights of each layer.
+   *  @param biasesOffsets The offset of the biases of each layer.
+   *  @param path The path of the file, for the error messages.
+   *
+   *  @throws IOException When an offset is out of the file or not aligned, or the mapping fails.
+   */
+  private void mapParameters(FileChannel channel, long fileSize, long[] weightsOffsets, long[] biasesOffsets,
+                             String path) throws IOException{
+    int valueSize = (dtype_ == DTYPE_FLOAT64) ? 8 : 4;
+
+    weightBuffers_ = new ByteBuffer[numberOfLayers_ - 1];
+    biasBuffers_ = new ByteBuffer[numberOfLayers_ - 1];
+
+    for(int i = 0;i < numberOfLayers_ - 1;i++){
+      long weightsLength = (long)sizesOfLayers_[i + 1] * sizesOfLayers_[i] * valueSize;
+      long biasesLength = (long)sizesOfLayers_[i + 1] * valueSize;
+      if(!isValidRegion(weightsOffsets[i], weightsLength, fileSize) ||
+         !isValidRegion(biasesOffsets[i], biasesLength, fileSize)){
+        throw new IOException(path + " is corrupted.");
+      }
+      if(weightsLength > Integer.MAX_VALUE){
+        throw new IOException("The weights of layer " + i + " of " + path + " are larger than 2 GB.");
+      }
+
+      weightBuffers_[i] = channel.map(FileChannel.MapMode.READ_ONLY, weightsOffsets[i], weightsLength)
+                                 .order(ByteOrder.LITTLE_ENDIAN);
+      biasBuffers_[i] = channel.map(FileChannel.MapMode.READ_ONLY, biasesOffsets[i], biasesLength)
+                               .order(ByteOrder.LITTLE_ENDIAN);
+    }
+  }
+
+  /**
+   *  @brief Returns whether a region of the file holds parameters.
+   *
+   *  @param offset The offset of the region.
+   *  @param length The length of the region.
+   *  @param fileSize The size of the file.
+   *
+   *  @return Returns true if the region is aligned and inside the file.
+   */
+  private static boolean isValidRegion(long offset, long length, long fileSize){
+    return offset >= FIXED_HEADER_SIZE && offset % ALIGNMENT == 0 && offset + length <= fileSize;
+  }
+
+  /**
+   *  @brief Checks the parameters against the checksum of the header.
+   *
+   *  This reads the whole mapping, so it is not done by map.
+   *
+   *  @return Returns true if the parameters match the checksum.
+   */
+  public boolean verify(){
+    CRC32 crc = new CRC32();
+    for(int i = 0;i < numberOfLayers_ - 1;i++){
+      crc.update(weightBuffers_[i].duplicate());
+      crc.update(biasBuffers_[i].duplicate());
+    }
+
+    return crc.getValue() == checksum_;
+  }
+
+  /**
+   *  @brief Applies an input to this MappedNeuralNetwork and returns its output.
+   *
+   *  @param input The input to this MappedNeuralNetwork. The length of the input must be equal to sizesOfLayers_[0].
+   *
+   *  @return Returns the output of this MappedNeuralNetwork for the given input.
+   */
+  @Override
+  public double[] feedForward(double[] input){
+    return this.feedForward(input, new InferenceContext(sizesOfLayers_),
+                            new double[sizesOfLayers_[numberOfLayers_ - 1]]);
+  }
+
+  /**
+   *  @brief Applies an input to this MappedNeuralNetwork and writes its output to a given array, without allocating
+   *         any memory.
+   *
+   *  The weights are read from the mapping, four neurons per pass over the input of a layer.
+   *
+   *  @param input The input to this MappedNeuralNetwork. The length of the input must be equal to sizesOfLayers_[0].
+   *  @param context The InferenceContext that holds the activations of the hidden layers.
+   *  @param output The array where the output will be written.
+   *
+   *  @return Returns the output array.
+   */
+  @Override
+  public double[] feedForward(double[] input, InferenceContext context, double[] output){
+    double[] inputBuffer = input;
+    double[] outputBuffer = context.firstBuffer_;
+
+    for(int i = 0;i < numberOfLayers_ - 1;i++){
+      if(i == numberOfLayers_ - 2){
+        outputBuffer = output;
+      }
+
+      this.feedForwardLayer(i, inputBuffer, outputBuffer);
+      activations_[i].apply(outputBuffer, 0, sizesOfLayers_[i + 1]);
+
+      inputBuffer = outputBuffer;
+      outputBuffer = (outputBuffer == context.firstBuffer_) ? context.secondBuffer_ : context.firstBuffer_;
+    }
+
+    return output;
+  }
+
+  /**
+   *  @brief Applies an input to a layer, without its Activation.
+   *
+   *  The parameters are read with getParameter, so the same kernel serves both data types. The check of the data type
+   *  is the same in every iteration, so the JIT can hoist it out of the loops. Float parameters are widened, and the
+   *  products are accumulated in doubles.
+   *
+   *  @param layer The layer.
+   *  @param input The input of the layer.
+   *  @param output The array where the outputs of the neurons will be written.
+   */
+  private void feedForwardLayer(int layer, double[] input, double[] output){
+    ByteBuffer weights = weightBuffers_[layer];
+    ByteBuffer biases = biasBuffers_[layer];
+    boolean doubles = (dtype_ == DTYPE_FLOAT64);
+    int inputSize = sizesOfLayers_[layer];
+    int outputSize = sizesOfLayers_[layer + 1];
+
+    int j = 0;
+    for(;j + 4 <= outputSize;j += 4){
+      int offset0 = j * inputSize;
+      int offset1 = offset0 + inputSize;
+      int offset2 = offset1 + inputSize;
+      int offset3 = offset2 + inputSize;
+
+      double sum0 = 0, sum1 = 0, sum2 = 0, sum3 = 0;
+      for(int k = 0;k < inputSize;k++){
+        double value = input[k];
+
+        sum0 += getParameter(weights, doubles, offset0 + k) * value;
+        sum1 += getParameter(weights, doubles, offset1 + k) * value;
+        sum2 += getParameter(weights, doubles, offset2 + k) * value;
+        sum3 += getParameter(weights, doubles, offset3 + k) * value;
+      }
+
+      output[j] = sum0 + getParameter(biases, doubles, j);
+      output[j + 1] = sum1 + getParameter(biases, doubles, j + 1);
+      output[j + 2] = sum2 + getParameter(biases, doubles, j + 2);
+      output[j + 3] = sum3 + getParameter(biases, doubles, j + 3);
+    }
+
+    // The neurons that do not fill a group of four.
+    for(;j < outputSize;j++){
+      int offset = j * inputSize;
+
+      double sum = 0;
+      for(int k = 0;k < inputSize;k++){
+        sum += getParameter(weights, doubles, offset + k) * input[k];
+      }
+
+      output[j] = sum + getParameter(biases, doubles, j);
+    }
+  }
+
+  /**
+   *  @brief Reads a parameter from a mapping.
+   *
+   *  @param buffer The mapping.
+   *  @param doubles Whether the parameters are doubles, rather than floats.
+   *  @param index The index of the parameter.
+   *
+   *  @return Returns the parameter, as a double.
+   */
+  private static double getParameter(ByteBuffer buffer, boolean doubles, int index){
+    return doubles ? buffer.getDouble(index << 3) : buffer.getFloat(index << 2);
+  }
+
+  /**
+   *  @brief Writes a NeuralNetwork to a file that can be mapped with map.
+   *
+   *  @param neuralNetwork The NeuralNetwork to write.
+   *  @param path The path of the file.
+   *  @param dtype The data type of the parameters in the file, DTYPE_FLOAT64 or DTYPE_FLOAT32.
+   *
+   *  @throws IOException When an exception occurs while writing on the file.
+   */
+  public static void write(NeuralNetwork neuralNetwork, String path, int dtype) throws IOException{
+    if(dtype != DTYPE_FLOAT64 && dtype != DTYPE_FLOAT32){
+      throw new IllegalArgumentException("Unknown data type: " + dtype);
+    }
+
+    int numberOfLayers = neuralNetwork.getNumberOfLayers();
+    int[] sizesOfLayers = neuralNetwork.getSizesOfLayers();
+    int valueSize = (dtype == DTYPE_FLOAT64) ? 8 : 4;
+
+    byte[][] names = new byte[numberOfLayers - 1][];
+    int headerSize = FIXED_HEADER_SIZE + 4 * numberOfLayers + 16 * (numberOfLayers - 1);
+    for(int i = 0;i < numberOfLayers - 1;i++){
+      names[i] = neuralNetwork.getActivation(i).getName().getBytes(StandardCharsets.UTF_8);
+      headerSize += 2 + names[i].length;
+    }
+
+    // The layout of the parameters.
+    long[] weightsOffsets = new long[numberOfLayers - 1];
+    long[] biasesOffsets = new long[numberOfLayers - 1];
+    long offset = align(headerSize);
+    for(int i = 0;i < numberOfLayers - 1;i++){
+      weightsOffsets[i] = offset;
+      offset = align(offset + (long)sizesOfLayers[i + 1] * sizesOfLayers[i] * valueSize);
+      biasesOffsets[i] = offset;
+      offset = align(offset + (long)sizesOfLayers[i + 1] * valueSize);
+    }
+
+    RandomAccessFile file = new RandomAccessFile(path, "rw");
+    try{
+      file.setLength(0);
+      FileChannel channel = file.getChannel();
+
+      ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+      CRC32 crc = new CRC32();
+      for(int i = 0;i < numberOfLayers - 1;i++){
+        channel.position(weightsOffsets[i]);
+        writeValues(channel, buffer, neuralNetwork.getWeights(i), dtype, crc);
+        channel.position(biasesOffsets[i]);
+        writeValues(channel, buffer, neuralNetwork.getBiases(i), dtype, crc);
+      }
+      // The file ends on a boundary, so that the last region can be read whole.
+      file.setLength(offset);
+
+      ByteBuffer header = ByteBuffer.allocate(headerSize).order(ByteOrder.LITTLE_ENDIAN);
+      header.putInt(MAGIC_NUMBER);
+      header.putInt(VERSION);
+      header.putInt(dtype);
+      header.putInt(numberOfLayers);
+      header.putLong(crc.getValue());
+      header.putLong(headerSize);
+      for(int i = 0;i < numberOfLayers;i++){
+        header.putInt(sizesOfLayers[i]);
+      }
+      for(int i = 0;i < numberOfLayers - 1;i++){
+        header.putLong(weightsOffsets[i]);
+        header.putLong(biasesOffsets[i]);
+      }
+      for(int i = 0;i < numberOfLayers - 1;i++){
+        header.putShort((short)names[i].length);
+        header.put(names[i]);
+      }
+      header.flip();
+      channel.position(0);
+      while(header.hasRemaining()){
+        channel.write(header);
+      }
+    }
+    finally{
+      file.close();
+    }
+  }
+
+  /**
+   *  @brief Converts a file written by NeuralNetwork.saveToBinary or NeuralNetwork.saveToXML to a file that can be
+   *         mapped with map.
+   *
+   *  @param neuralNetworkPath The path of the NeuralNetwork. Files whose name ends with ".xml" are read with
+   *         NeuralNetwork.loadFromXML, the others with NeuralNetwork.loadFromBinary.
+   *  @param mappedNeuralNetworkPath The path of the file to write.
+   *  @param dtype The data type of the parameters in the file, DTYPE_FLOAT64 or DTYPE_FLOAT32.
+   *
+   *  @throws IOException When an exception occurs while reading or writing the files.
+   */
+  public static void convert(String neuralNetworkPath, String mappedNeuralNetworkPath, int dtype) throws IOException{
+    NeuralNetwork neuralNetwork = neuralNetworkPath.toLowerCase().endsWith(".xml") ?
+                                  NeuralNetwork.createFromXML(neuralNetworkPath) :
+                                  NeuralNetwork.createFromBinary(neuralNetworkPath);
+
+    write(neuralNetwork, mappedNeuralNetworkPath, dtype);
+  }
+
+  /**
+   *  @brief Writes an array of parameters to a channel, through a buffer.
+   *
+   *  @param channel The channel, positioned where the parameters start.
+   *  @param buffer The buffer, little endian.
+   *  @param values The parameters.
+   *  @param dtype The data type of the parameters in the file.
+   *  @param crc The checksum, updated with the bytes written.
+   *
+   *  @throws IOException When an exception occurs while writing on the channel.
+   */
+  private static void writeValues(FileChannel channel, ByteBuffer buffer, double[] values, int dtype, CRC32 crc)
+                                  throws IOException{
+    int valueSize = (dtype == DTYPE_FLOAT64) ? 8 : 4;
+
+    for(int start = 0;start < values.length;){
+      buffer.clear();
+      int end = Math.min(values.length, start + buffer.capacity() / valueSize);
+      if(dtype == DTYPE_FLOAT64){
+        buffer.asDoubleBuffer().put(values, start, end - start);
+      }
+      else{
+        FloatBuffer floatBuffer = buffer.asFloatBuffer();
+        for(int k = start;k < end;k++){
+          floatBuffer.put((float)values[k]);
+        }
+      }
+      buffer.limit((end - start) * valueSize);
+
+      crc.update(buffer.array(), 0, buffer.limit());
+      while(buffer.hasRemaining()){
+        channel.write(buffer);
+      }
+      start = end;
+    }
+  }
+
+  /**
+   *  @brief Rounds an offset up to a multiple of ALIGNMENT.
+   *
+   *  @param offset The offset.
+   *
+   *  @return Returns the aligned offset.
+   */
+  private static long align(long offset){
+    return (offset + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+  }
+
+  /**
+   *  @brief Getter method for the data type of the parameters.
+   *
+   *  @return Returns DTYPE_FLOAT64 or DTYPE_FLOAT32.
+   */
+  public int getDtype(){
+    return dtype_;
+  }
+
+  /**
+   *  @brief Getter method for the number of layers of this MappedNeuralNetwork.
+   *
+   *  @return Returns the number of layers of this MappedNeuralNetwork.
+   */
+  public int getNumberOfLayers(){
+    return numberOfLayers_;
+  }
+
+  /**
+   *  @brief Getter method for the Activation of a layer.
+   *
+   *  @param layer The layer, from 0 for the first hidden layer to getNumberOfLayers() - 2 for the output layer.
+   *
+   *  @return Returns the Activation of the neurons of the layer.
+   */
+  public Activation getActivation(int layer){
+    return activations_[layer];
+  }
+
+  /**
+   *  @brief Getter method for the sizes of layers of this MappedNeuralNetwork.
+   *
+   *  @return Returns the sizes of the layers of this MappedNeuralNetwork.
+   */
+  @Override
+  public int[] getSizesOfLayers(){
+    return sizesOfLayers_;
+  }
+
+  private int numberOfLayers_; //!< The number of layers of this MappedNeuralNetwork.
+  private int[] sizesOfLayers_; //!< The number of neurons in each layer.
+  private int dtype_; //!< The data type of the parameters.
+  private long checksum_; //!< The CRC32 of the parameters, as read from the header.
+
+  private ByteBuffer[] weightBuffers_; //!< The mapping of the weights of each layer.
+  private ByteBuffer[] biasBuffers_; //!< The mapping of the biases of each layer.
+  private Activation[] activations_; //!< The Activation of each layer, except the input layer.
+
+  public static final int MAGIC_NUMBER = 0x4D4E4E4D; //!< The magic number at the beginning of a file, "MNNM".
+  public static final int VERSION = 1; //!< The version of the format written by write.
+  public static final int DTYPE_FLOAT64 = 1; //!< The data type of parameters stored as 8 byte doubles.
+  public static final int DTYPE_FLOAT32 = 2; //!< The data type of parameters stored as 4 byte floats.
+  public static final int ALIGNMENT = 64; //!< The alignment of the parameters of each layer in the file.
+
+  private static final int FIXED_HEADER_SIZE = 32; //!< The size of the part of the header before the sizes.
+  private static final int MAXIMUM_NUMBER_OF_LAYERS = 1 << 16; //!< The largest number of layers accepted by map.
+  private static final int MAXIMUM_HEADER_SIZE = 1 << 24; //!< The largest header read by map.
+  private static final int WRITE_BUFFER_SIZE = 1 << 16; //!< The size of the buffer used by write.
+
+}
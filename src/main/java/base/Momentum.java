@@ -0,0 +1,70 @@
+package main.java.base;
+
+/** @class Momentum
+ *
+ *  @brief Implements gradient descent with momentum.
+ *
+ *  The velocity of each parameter is a running average of its derivative, velocity = (1 - coefficient) * derivative +
+ *  coefficient * velocity, and the parameter moves by -gamma * velocity. With a coefficient of zero this is the same
+ *  as SGD.
+ */
+public class Momentum extends Optimizer{
+  /**
+   *  @brief Constructor.
+   *
+   *  Uses DEFAULT_COEFFICIENT as the momentum coefficient.
+   */
+  public Momentum(){
+    this(DEFAULT_COEFFICIENT);
+  }
+
+  /**
+   *  @brief Constructor.
+   *
+   *  @param coefficient The momentum coefficient, in [0, 1).
+   */
+  public Momentum(double coefficient){
+    coefficient_ = coefficient;
+  }
+
+  @Override
+  public void update(double[] parameters, double[] nabla, double[] firstMoment, double[] secondMoment, int length,
+                     double gamma, double scale, long step){
+    double averageCoefficient = (1 - coefficient_) * scale;
+
+    for(int k = 0;k < length;k++){
+      firstMoment[k] = nabla[k] * averageCoefficient + firstMoment[k] * coefficient_;
+      parameters[k] -= gamma * firstMoment[k];
+      nabla[k] = 0;
+    }
+  }
+
+  @Override
+  public int getNumberOfMoments(){
+    return 1;
+  }
+
+  @Override
+  public String getName(){
+    return MOMENTUM;
+  }
+
+  @Override
+  public double[] getHyperParameters(){
+    return new double[] {coefficient_};
+  }
+
+  /**
+   *  @brief Getter method for the momentum coefficient.
+   *
+   *  @return Returns the momentum coefficient.
+   */
+  public double getCoefficient(){
+    return coefficient_;
+  }
+
+  public static final double DEFAULT_COEFFICIENT = 0.9; //!< The default momentum coefficient.
+
+  private final double coefficient_; //!< The momentum coefficient.
+
+}
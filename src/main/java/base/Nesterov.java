@@ -0,0 +1,70 @@
+package main.java.base;
+
+/** @class Nesterov
+ *
+ *  @brief Implements gradient descent with Nesterov momentum.
+ *
+ *  The velocity is updated as in Momentum, but the parameter moves by -gamma * ((1 - coefficient) * derivative +
+ *  coefficient * velocity), that is, by the step the velocity is about to take, which dampens the oscillations of
+ *  plain momentum.
+ */
+public class Nesterov extends Optimizer{
+  /**
+   *  @brief Constructor.
+   *
+   *  Uses Momentum.DEFAULT_COEFFICIENT as the momentum coefficient.
+   */
+  public Nesterov(){
+    this(Momentum.DEFAULT_COEFFICIENT);
+  }
+
+  /**
+   *  @brief Constructor.
+   *
+   *  @param coefficient The momentum coefficient, in [0, 1).
+   */
+  public Nesterov(double coefficient){
+    coefficient_ = coefficient;
+  }
+
+  @Override
+  public void update(double[] parameters, double[] nabla, double[] firstMoment, double[] secondMoment, int length,
+                     double gamma, double scale, long step){
+    double averageCoefficient = (1 - coefficient_) * scale;
+
+    for(int k = 0;k < length;k++){
+      double derivative = nabla[k] * averageCoefficient;
+
+      firstMoment[k] = derivative + firstMoment[k] * coefficient_;
+      parameters[k] -= gamma * (derivative + firstMoment[k] * coefficient_);
+      nabla[k] = 0;
+    }
+  }
+
+  @Override
+  public int getNumberOfMoments(){
+    return 1;
+  }
+
+  @Override
+  public String getName(){
+    return NESTEROV;
+  }
+
+  @Override
+  public double[] getHyperParameters(){
+    return new double[] {coefficient_};
+  }
+
+  /**
+   *  @brief Getter method for the momentum coefficient.
+   *
+   *  @return Returns the momentum coefficient.
+   */
+  public double getCoefficient(){
+    return coefficient_;
+  }
+
+  private final double coefficient_; //!< The momentum coefficient.
+
+}
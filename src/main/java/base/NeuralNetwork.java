@@ -1,13 +1,30 @@
 package main.java.base;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.nio.file.Files;
-import java.nio.file.Paths;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /** @class NeuralNetwork
  *
@@ -15,10 +32,12 @@ import java.nio.file.Paths;
  *
  *  The implementation includes the NeuralNetwork parameters, training and evaluating methods.
  */
-public class NeuralNetwork{
+public class NeuralNetwork implements InferenceModel{
 
   public NeuralNetwork(){
     momentumCoefficient_ = 0;
+    numberOfThreads_ = 1;
+    computeBackend_ = ComputeBackend.getDefault();
   }
 
   /**
@@ -33,480 +52,2642 @@ public class NeuralNetwork{
     sizesOfLayers_ = sizesOfLayers;
     numberOfLayers_ = sizesOfLayers_.length;
 
-    weights_ = new double[numberOfLayers_ - 1][][];
-    biases_ = new double[numberOfLayers_ - 1][];
+    this.allocateParameters();
 
     for(int i = 0;i < numberOfLayers_ - 1;i++){
-      weights_[i] = new double[sizesOfLayers_[i + 1]][];
-      biases_[i] = new double[sizesOfLayers_[i + 1]];
-
       for(int j = 0;j < sizesOfLayers_[i + 1];j++){
-        weights_[i][j] = new double[sizesOfLayers_[i]];
-
         for(int k = 0;k < sizesOfLayers_[i];k++){
-          weights_[i][j][k] = ((double)Math.random()) * 0.5 - 0.25;
+          weights_[i][j * sizesOfLayers_[i] + k] = ((double)Math.random()) * 0.5 - 0.25;
         }
         biases_[i][j] = ((double)Math.random()) * 0.5 - 0.25;
       }
+
+      this.updateTransposedWeights(i);
     }
 
     momentumCoefficient_ = 0;
+    numberOfThreads_ = 1;
+    computeBackend_ = ComputeBackend.getDefault();
+  }
+
+  /**
+   *  @brief Constructor.
+   *
+   *  This constructor is used to create an identical copy of a NeuralNetwork. The copy does not share any parameters
+   *  with the given NeuralNetwork, so it can be trained independently.
+   *
+   *  @param neuralNetwork The NeuralNetwork to be copied.
+   */
+  public NeuralNetwork(NeuralNetwork neuralNetwork){
+    this.copyParameters(neuralNetwork, true);
+
+    momentumCoefficient_ = neuralNetwork.momentumCoefficient_;
+    optimizer_ = neuralNetwork.optimizer_;
+    numberOfThreads_ = neuralNetwork.numberOfThreads_;
+    computeBackend_ = neuralNetwork.computeBackend_;
+
+    if(neuralNetwork.pruningMasks_ != null){
+      pruningMasks_ = new boolean[numberOfLayers_ - 1][];
+      for(int i = 0;i < numberOfLayers_ - 1;i++){
+        pruningMasks_[i] = neuralNetwork.pruningMasks_[i].clone();
+      }
+    }
   }
 
   /**
    *  @brief Applies an input to this NeuralNetwork and returns its output.
    *
+   *  This is a convenience wrapper that allocates a new InferenceContext and output on every call. Callers evaluating
+   *  many inputs should use feedForward(double[], InferenceContext, double[]) instead.
+   *
    *  @param input The input to this NeuralNetwork. The length of the input must be equal to sizesOfLayers_[0].
    *
    *  @return Returns the output of this NeuralNetwork for the given input. The length of the output is equal to
    *          sizesOfLayers_[sizesOfLayers_.length - 1].
    */
+  @Override
   public double[] feedForward(double[] input){
-    double[] inputBuffer = input.clone();
+    return this.feedForward(input, new InferenceContext(sizesOfLayers_),
+                            new double[sizesOfLayers_[numberOfLayers_ - 1]]);
+  }
+
+  /**
+   *  @brief Applies an input to this NeuralNetwork and writes its output to a given array.
+   *
+   *  This method does not allocate any memory, the activations of the hidden layers are kept in the given
+   *  InferenceContext.
+   *
+   *  @param input The input to this NeuralNetwork. The length of the input must be equal to sizesOfLayers_[0].
+   *  @param context The InferenceContext that holds the activations of the hidden layers. It must have been created
+   *         for layers at least as large as the ones of this NeuralNetwork.
+   *  @param output The array where the output will be written. Its length must be at least
+   *         sizesOfLayers_[sizesOfLayers_.length - 1].
+   *
+   *  @return Returns the output array.
+   */
+  @Override
+  public double[] feedForward(double[] input, InferenceContext context, double[] output){
+    double[] firstOutput = (numberOfLayers_ == 2) ? output : context.firstBuffer_;
+    this.feedForwardLayer(0, input, firstOutput);
+
+    return this.feedForwardHiddenLayers(firstOutput, context, output);
+  }
+
+  /**
+   *  @brief Applies a raw byte input to this NeuralNetwork and returns its output.
+   *
+   *  @param input The input to this NeuralNetwork. Its length must be equal to sizesOfLayers_[0].
+   *
+   *  @return Returns the output of this NeuralNetwork for the given input.
+   *
+   *  @sa feedForward(byte[], InferenceContext, double[])
+   */
+  public double[] feedForward(byte[] input){
+    return this.feedForward(input, new InferenceContext(sizesOfLayers_),
+                            new double[sizesOfLayers_[numberOfLayers_ - 1]]);
+  }
+
+  /**
+   *  @brief Applies a raw byte input to this NeuralNetwork and writes its output to a given array, without allocating
+   *         any memory.
+   *
+   *  Each byte is read as an unsigned value u, and the first layer sees u * inputScale_ + inputOffset_. The
+   *  normalization is done inside the kernel of the first layer, so the result is the same, up to rounding, as
+   *  normalizing the input to doubles and calling feedForward(double[], InferenceContext, double[]).
+   *
+   *  @param input The input to this NeuralNetwork. Its length must be equal to sizesOfLayers_[0].
+   *  @param context The InferenceContext that holds the activations of the hidden layers.
+   *  @param output The array where the output will be written.
+   *
+   *  @return Returns the output array.
+   *
+   *  @sa setInputNormalization
+   */
+  public double[] feedForward(byte[] input, InferenceContext context, double[] output){
+    double[] firstOutput = (numberOfLayers_ == 2) ? output : context.firstBuffer_;
+    this.feedForwardLayer(input, firstOutput);
+
+    return this.feedForwardHiddenLayers(firstOutput, context, output);
+  }
+
+  /**
+   *  @brief Applies the output of the first layer to the rest of the layers of this NeuralNetwork.
+   *
+   *  @param firstOutput The output of the first layer. It must be context.firstBuffer_, or output if there are no
+   *         hidden layers.
+   *  @param context The InferenceContext that holds the activations of the hidden layers.
+   *  @param output The array where the output will be written.
+   *
+   *  @return Returns the output array.
+   */
+  private double[] feedForwardHiddenLayers(double[] firstOutput, InferenceContext context, double[] output){
+    if(numberOfLayers_ > 2){
+      this.feedForwardLayer(numberOfLayers_ - 2, this.feedForwardToLastLayer(firstOutput, context), output);
+    }
+
+    return output;
+  }
+
+  /**
+   *  @brief Applies the output of the first layer to the hidden layers of this NeuralNetwork, up to the output layer.
+   *
+   *  @param firstOutput The output of the first layer. It must be context.firstBuffer_.
+   *  @param context The InferenceContext that holds the activations of the hidden layers.
+   *
+   *  @return Returns the buffer of the context that holds the input of the output layer. The other buffer is free.
+   */
+  private double[] feedForwardToLastLayer(double[] firstOutput, InferenceContext context){
+    double[] inputBuffer = firstOutput;
+    double[] outputBuffer = context.secondBuffer_;
+
+    for(int i = 1;i < numberOfLayers_ - 2;i++){
+      this.feedForwardLayer(i, inputBuffer, outputBuffer);
+
+      inputBuffer = outputBuffer;
+      outputBuffer = (outputBuffer == context.firstBuffer_) ? context.secondBuffer_ : context.firstBuffer_;
+    }
+
+    return inputBuffer;
+  }
+
+  /**
+   *  @brief Applies a set of inputs to this NeuralNetwork and returns the output for each one of them.
+   *
+   *  @param inputs The inputs to this NeuralNetwork. The length of each input must be equal to sizesOfLayers_[0].
+   *
+   *  @return Returns the outputs of this NeuralNetwork, one for each input.
+   *
+   *  @sa feedForwardBatch(double[][], int, double[][])
+   */
+  public double[][] feedForwardBatch(double[][] inputs){
+    return this.feedForwardBatch(inputs, inputs.length, null);
+  }
+
+  /**
+   *  @brief Applies a set of inputs to this NeuralNetwork and returns the output for each one of them.
+   *
+   *  The inputs are pushed through each layer in blocks of BATCH_BLOCK_SIZE samples, so that every row of the weights
+   *  is loaded from memory once per block instead of once per sample. The inner products run through
+   *  ComputeBackend.dot4, so the results are identical to calling feedForward on each input with any ComputeBackend.
+   *
+   *  @param inputs The inputs to this NeuralNetwork. The length of each input must be equal to sizesOfLayers_[0].
+   *  @param numberOfInputs The number of inputs, starting from the first, to apply to this NeuralNetwork.
+   *  @param outputs The array where the outputs will be written. It must hold at least numberOfInputs arrays of length
+   *         sizesOfLayers_[sizesOfLayers_.length - 1]. If it is null, a new array is allocated.
+   *
+   *  @return Returns the outputs of this NeuralNetwork, that is, the outputs array if it was not null.
+   */
+  public double[][] feedForwardBatch(double[][] inputs, int numberOfInputs, double[][] outputs){
+    return this.feedForwardBatch(inputs, null, numberOfInputs, outputs);
+  }
+
+  /**
+   *  @brief Applies a set of raw byte inputs to this NeuralNetwork and returns the output for each one of them.
+   *
+   *  @param inputs The inputs to this NeuralNetwork. The length of each input must be equal to sizesOfLayers_[0].
+   *
+   *  @return Returns the outputs of this NeuralNetwork, one for each input.
+   *
+   *  @sa feedForwardBatch(byte[][], int, double[][])
+   */
+  public double[][] feedForwardBatch(byte[][] inputs){
+    return this.feedForwardBatch(inputs, inputs.length, null);
+  }
+
+  /**
+   *  @brief Applies a set of raw byte inputs to this NeuralNetwork and returns the output for each one of them.
+   *
+   *  The inputs are normalized as in feedForward(byte[], InferenceContext, double[]) while they are copied to the
+   *  blocks of feedForwardBatch(double[][], int, double[][]), so only one block of them is expanded at a time.
+   *
+   *  @param inputs The inputs to this NeuralNetwork. The length of each input must be equal to sizesOfLayers_[0].
+   *  @param numberOfInputs The number of inputs, starting from the first, to apply to this NeuralNetwork.
+   *  @param outputs The array where the outputs will be written. If it is null, a new array is allocated.
+   *
+   *  @return Returns the outputs of this NeuralNetwork, that is, the outputs array if it was not null.
+   */
+  public double[][] feedForwardBatch(byte[][] inputs, int numberOfInputs, double[][] outputs){
+    return this.feedForwardBatch(null, inputs, numberOfInputs, outputs);
+  }
+
+  /**
+   *  @brief Implements feedForwardBatch for either double or byte inputs.
+   *
+   *  @param inputs The double inputs, or null if byteInputs is given.
+   *  @param byteInputs The byte inputs, or null if inputs is given.
+   *  @param numberOfInputs The number of inputs to apply to this NeuralNetwork.
+   *  @param outputs The array where the outputs will be written, or null.
+   *
+   *  @return Returns the outputs of this NeuralNetwork.
+   */
+  private double[][] feedForwardBatch(double[][] inputs, byte[][] byteInputs, int numberOfInputs, double[][] outputs){
+    if(outputs == null){
+      outputs = new double[numberOfInputs][sizesOfLayers_[numberOfLayers_ - 1]];
+    }
+
+    this.feedForwardBatch(inputs, byteInputs, numberOfInputs, outputs, 0, null, null);
+
+    return outputs;
+  }
+
+  /**
+   *  @brief Implements feedForwardBatch and topKBatch for either double or byte inputs.
+   *
+   *  Either the outputs are copied to the given arrays, or the k largest outputs of each input are selected straight
+   *  from the block buffers, so that no output array is created for each input.
+   *
+   *  @param inputs The double inputs, or null if byteInputs is given.
+   *  @param byteInputs The byte inputs, or null if inputs is given.
+   *  @param numberOfInputs The number of inputs to apply to this NeuralNetwork.
+   *  @param outputs The array where the outputs will be written, or null if the k largest outputs are selected.
+   *  @param k The number of outputs to select for each input, when outputs is null.
+   *  @param indices The array where the indices of the selected outputs will be written, k for each input.
+   *  @param scores The array where the selected outputs will be written, k for each input, or null.
+   */
+  private void feedForwardBatch(double[][] inputs, byte[][] byteInputs, int numberOfInputs, double[][] outputs,
+                                int k, int[] indices, double[] scores){
+    int outputSize = sizesOfLayers_[numberOfLayers_ - 1];
+
+    // When the scores are not needed, the scores of the selected outputs of each input are kept here.
+    double[] selectedScores = (outputs == null && scores == null) ? new double[k] : null;
+
+    int maximumSizeOfLayer = 0;
+    for(int i = 0;i < numberOfLayers_;i++){
+      maximumSizeOfLayer = Math.max(maximumSizeOfLayer, sizesOfLayers_[i]);
+    }
+    double[] inputBuffer = new double[BATCH_BLOCK_SIZE * maximumSizeOfLayer];
+    double[] outputBuffer = new double[BATCH_BLOCK_SIZE * maximumSizeOfLayer];
+    double[] sums = new double[4];
+
+    for(int start = 0;start < numberOfInputs;start += BATCH_BLOCK_SIZE){
+      int blockSize = Math.min(BATCH_BLOCK_SIZE, numberOfInputs - start);
+
+      for(int s = 0;s < blockSize;s++){
+        if(byteInputs != null){
+          this.normalizeInput(byteInputs[start + s], inputBuffer, s * sizesOfLayers_[0]);
+        }
+        else{
+          System.arraycopy(inputs[start + s], 0, inputBuffer, s * sizesOfLayers_[0], sizesOfLayers_[0]);
+        }
+      }
+
+      for(int i = 0;i < numberOfLayers_ - 1;i++){
+        if(i == 0 && sparseInput_){
+          for(int s = 0;s < blockSize;s++){
+            this.feedForwardSparse(inputBuffer, s * sizesOfLayers_[0], outputBuffer, s * sizesOfLayers_[1]);
+          }
+          activations_[0].apply(outputBuffer, 0, blockSize * sizesOfLayers_[1]);
+        }
+        else{
+          // The fused kernel of feedForward for raw byte samples accumulates in order, whatever the ComputeBackend.
+          ComputeBackend computeBackend = (i == 0 && byteInputs != null) ? SCALAR_BACKEND : computeBackend_;
+          this.feedForwardBlock(i, computeBackend, inputBuffer, outputBuffer, blockSize, sums);
+        }
+
+        double[] temporary = inputBuffer;
+        inputBuffer = outputBuffer;
+        outputBuffer = temporary;
+      }
+
+      for(int s = 0;s < blockSize;s++){
+        if(outputs != null){
+          System.arraycopy(inputBuffer, s * outputSize, outputs[start + s], 0, outputSize);
+        }
+        else if(scores != null){
+          selectTopK(inputBuffer, s * outputSize, outputSize, k, indices, (start + s) * k, scores, (start + s) * k);
+        }
+        else{
+          selectTopK(inputBuffer, s * outputSize, outputSize, k, indices, (start + s) * k, selectedScores, 0);
+        }
+      }
+    }
+  }
+
+  /**
+   *  @brief Applies an input to this NeuralNetwork and returns the index of its largest output.
+   *
+   *  This is a convenience wrapper that allocates a new InferenceContext on every call. Callers classifying many
+   *  inputs should use classify(double[], InferenceContext) instead.
+   *
+   *  @param input The input to this NeuralNetwork. The length of the input must be equal to sizesOfLayers_[0].
+   *
+   *  @return Returns the index of the largest output, the first one if several are equal.
+   */
+  public int classify(double[] input){
+    return this.classify(input, new InferenceContext(sizesOfLayers_));
+  }
+
+  /**
+   *  @brief Applies an input to this NeuralNetwork and returns the index of its largest output, without allocating
+   *         any memory.
+   *
+   *  The largest output is found while the output layer is computed, so the output of this NeuralNetwork is never
+   *  stored. The result is the index that an argmax over the output of feedForward would return.
+   *
+   *  @param input The input to this NeuralNetwork. The length of the input must be equal to sizesOfLayers_[0].
+   *  @param context The InferenceContext that holds the activations of the hidden layers.
+   *
+   *  @return Returns the index of the largest output, the first one if several are equal.
+   *
+   *  @sa topK(double[], InferenceContext, int, int[], double[])
+   */
+  public int classify(double[] input, InferenceContext context){
+    this.topK(input, null, context, 1, context.indexBuffer_, null);
+
+    return context.indexBuffer_[0];
+  }
+
+  /**
+   *  @brief Applies a raw byte input to this NeuralNetwork and returns the index of its largest output, without
+   *         allocating any memory.
+   *
+   *  @param input The input to this NeuralNetwork. Its length must be equal to sizesOfLayers_[0].
+   *  @param context The InferenceContext that holds the activations of the hidden layers.
+   *
+   *  @return Returns the index of the largest output, the first one if several are equal.
+   *
+   *  @sa classify(double[], InferenceContext)
+   */
+  public int classify(byte[] input, InferenceContext context){
+    this.topK(null, input, context, 1, context.indexBuffer_, null);
+
+    return context.indexBuffer_[0];
+  }
+
+  /**
+   *  @brief Applies an input to this NeuralNetwork and finds its k largest outputs.
+   *
+   *  This is a convenience wrapper that allocates a new InferenceContext on every call.
+   *
+   *  @param input The input to this NeuralNetwork. The length of the input must be equal to sizesOfLayers_[0].
+   *  @param k The number of outputs to find.
+   *  @param indices The array where the indices of the k largest outputs will be written, largest first.
+   *  @param scores The array where the k largest outputs will be written, largest first, or null.
+   *
+   *  @sa topK(double[], InferenceContext, int, int[], double[])
+   */
+  public void topK(double[] input, int k, int[] indices, double[] scores){
+    this.topK(input, new InferenceContext(sizesOfLayers_), k, indices, scores);
+  }
+
+  /**
+   *  @brief Applies an input to this NeuralNetwork and finds its k largest outputs, without allocating any memory.
+   *
+   *  Each output is inserted in the top k as soon as it is computed, so the output of this NeuralNetwork is never
+   *  stored. Equal outputs are ordered by index.
+   *
+   *  @param input The input to this NeuralNetwork. The length of the input must be equal to sizesOfLayers_[0].
+   *  @param context The InferenceContext that holds the activations of the hidden layers.
+   *  @param k The number of outputs to find, from 1 to sizesOfLayers_[sizesOfLayers_.length - 1].
+   *  @param indices The array where the indices of the k largest outputs will be written, largest first.
+   *  @param scores The array where the k largest outputs will be written, largest first, or null.
+   *
+   *  @throws IllegalArgumentException When k is out of range.
+   */
+  public void topK(double[] input, InferenceContext context, int k, int[] indices, double[] scores){
+    this.checkK(k);
+
+    this.topK(input, null, context, k, indices, scores);
+  }
+
+  /**
+   *  @brief Applies a raw byte input to this NeuralNetwork and finds its k largest outputs, without allocating any
+   *         memory.
+   *
+   *  @param input The input to this NeuralNetwork. Its length must be equal to sizesOfLayers_[0].
+   *  @param context The InferenceContext that holds the activations of the hidden layers.
+   *  @param k The number of outputs to find, from 1 to sizesOfLayers_[sizesOfLayers_.length - 1].
+   *  @param indices The array where the indices of the k largest outputs will be written, largest first.
+   *  @param scores The array where the k largest outputs will be written, largest first, or null.
+   *
+   *  @throws IllegalArgumentException When k is out of range.
+   *
+   *  @sa topK(double[], InferenceContext, int, int[], double[])
+   */
+  public void topK(byte[] input, InferenceContext context, int k, int[] indices, double[] scores){
+    this.checkK(k);
+
+    this.topK(null, input, context, k, indices, scores);
+  }
+
+  /**
+   *  @brief Classifies a set of inputs.
+   *
+   *  The inputs are applied as in feedForwardBatch(double[][], int, double[][]), and the largest output of each one is
+   *  selected from the block buffers, so no output is stored for each input.
+   *
+   *  @param inputs The inputs to this NeuralNetwork. The length of each input must be equal to sizesOfLayers_[0].
+   *  @param numberOfInputs The number of inputs, starting from the first, to classify.
+   *  @param classes The array where the index of the largest output of each input will be written.
+   *  @param scores The array where the largest output of each input will be written, or null.
+   */
+  public void classifyBatch(double[][] inputs, int numberOfInputs, int[] classes, double[] scores){
+    this.feedForwardBatch(inputs, null, numberOfInputs, null, 1, classes, scores);
+  }
+
+  /**
+   *  @brief Classifies a set of raw byte inputs.
+   *
+   *  @param inputs The inputs to this NeuralNetwork. The length of each input must be equal to sizesOfLayers_[0].
+   *  @param numberOfInputs The number of inputs, starting from the first, to classify.
+   *  @param classes The array where the index of the largest output of each input will be written.
+   *  @param scores The array where the largest output of each input will be written, or null.
+   *
+   *  @sa classifyBatch(double[][], int, int[], double[])
+   */
+  public void classifyBatch(byte[][] inputs, int numberOfInputs, int[] classes, double[] scores){
+    this.feedForwardBatch(null, inputs, numberOfInputs, null, 1, classes, scores);
+  }
+
+  /**
+   *  @brief Finds the k largest outputs of each one of a set of inputs.
+   *
+   *  @param inputs The inputs to this NeuralNetwork. The length of each input must be equal to sizesOfLayers_[0].
+   *  @param numberOfInputs The number of inputs, starting from the first, to apply to this NeuralNetwork.
+   *  @param k The number of outputs to find for each input, from 1 to sizesOfLayers_[sizesOfLayers_.length - 1].
+   *  @param indices The array where the indices of the k largest outputs of each input will be written, largest first.
+   *         Those of input i start at i * k.
+   *  @param scores The array where the k largest outputs of each input will be written, in the same layout as indices,
+   *         or null.
+   *
+   *  @throws IllegalArgumentException When k is out of range.
+   *
+   *  @sa classifyBatch(double[][], int, int[], double[])
+   */
+  public void topKBatch(double[][] inputs, int numberOfInputs, int k, int[] indices, double[] scores){
+    this.checkK(k);
+
+    this.feedForwardBatch(inputs, null, numberOfInputs, null, k, indices, scores);
+  }
+
+  /**
+   *  @brief Finds the k largest outputs of each one of a set of raw byte inputs.
+   *
+   *  @param inputs The inputs to this NeuralNetwork. The length of each input must be equal to sizesOfLayers_[0].
+   *  @param numberOfInputs The number of inputs, starting from the first, to apply to this NeuralNetwork.
+   *  @param k The number of outputs to find for each input, from 1 to sizesOfLayers_[sizesOfLayers_.length - 1].
+   *  @param indices The array where the indices of the k largest outputs of each input will be written.
+   *  @param scores The array where the k largest outputs of each input will be written, or null.
+   *
+   *  @throws IllegalArgumentException When k is out of range.
+   *
+   *  @sa topKBatch(double[][], int, int, int[], double[])
+   */
+  public void topKBatch(byte[][] inputs, int numberOfInputs, int k, int[] indices, double[] scores){
+    this.checkK(k);
+
+    this.feedForwardBatch(null, inputs, numberOfInputs, null, k, indices, scores);
+  }
+
+  /**
+   *  @brief Implements topK for either a double or a byte input.
+   *
+   *  The output layer is fused with the selection, unless it is also the first layer and its input is made of bytes or
+   *  sparse. Then its output is computed in a buffer of the context and selected from there.
+   *
+   *  @param input The double input, or null if byteInput is given.
+   *  @param byteInput The byte input, or null if input is given.
+   *  @param context The InferenceContext that holds the activations of the hidden layers.
+   *  @param k The number of outputs to find.
+   *  @param indices The array where the indices of the k largest outputs will be written.
+   *  @param scores The array where the k largest outputs will be written, or null.
+   */
+  private void topK(double[] input, byte[] byteInput, InferenceContext context, int k, int[] indices,
+                    double[] scores){
+    if(numberOfLayers_ == 2 && byteInput == null && !sparseInput_){
+      this.selectTopK(0, input, k, indices, (scores != null) ? scores : context.firstBuffer_);
+
+      return;
+    }
+
+    double[] firstOutput = context.firstBuffer_;
+    if(byteInput != null){
+      this.feedForwardLayer(byteInput, firstOutput);
+    }
+    else{
+      this.feedForwardLayer(0, input, firstOutput);
+    }
+
+    if(numberOfLayers_ == 2){
+      selectTopK(firstOutput, 0, sizesOfLayers_[1], k, indices, 0, (scores != null) ? scores : context.secondBuffer_,
+                 0);
+
+      return;
+    }
+
+    // The buffer that does not hold the input of the output layer is free for the scores.
+    double[] lastInput = this.feedForwardToLastLayer(firstOutput, context);
+    double[] freeBuffer = (lastInput == context.firstBuffer_) ? context.secondBuffer_ : context.firstBuffer_;
+    this.selectTopK(numberOfLayers_ - 2, lastInput, k, indices, (scores != null) ? scores : freeBuffer);
+  }
+
+  /**
+   *  @brief Applies an input to the output layer of this NeuralNetwork and selects its k largest outputs, as they are
+   *         computed.
+   *
+   *  @param layer The output layer, that is, numberOfLayers_ - 2.
+   *  @param input The input of the layer.
+   *  @param k The number of outputs to select.
+   *  @param indices The array where the indices of the k largest outputs will be written.
+   *  @param scores The array where the k largest outputs will be written.
+   */
+  private void selectTopK(int layer, double[] input, int k, int[] indices, double[] scores){
+    double[] weights = weights_[layer];
+    double[] biases = biases_[layer];
+    Activation activation = activations_[layer];
+    int inputSize = sizesOfLayers_[layer];
+    int outputSize = sizesOfLayers_[layer + 1];
+
+    int count = 0;
+    for(int j = 0;j < outputSize;j++){
+      double score = activation.apply(computeBackend_.dot(weights, j * inputSize, input, 0, inputSize) + biases[j]);
+
+      count = insertTopK(j, score, count, k, indices, 0, scores, 0);
+    }
+  }
+
+  /**
+   *  @brief Selects the k largest values of a range of an array.
+   *
+   *  @param values The array holding the values.
+   *  @param offset The position of the first value.
+   *  @param length The number of values.
+   *  @param k The number of values to select.
+   *  @param indices The array where the indices of the k largest values, relative to offset, will be written.
+   *  @param indicesOffset The position of the first index in the indices array.
+   *  @param scores The array where the k largest values will be written.
+   *  @param scoresOffset The position of the first value in the scores array.
+   */
+  private static void selectTopK(double[] values, int offset, int length, int k, int[] indices, int indicesOffset,
+                                 double[] scores, int scoresOffset){
+    int count = 0;
+    for(int j = 0;j < length;j++){
+      count = insertTopK(j, values[offset + j], count, k, indices, indicesOffset, scores, scoresOffset);
+    }
+  }
+
+  /**
+   *  @brief Inserts a value in a list of the largest values seen so far, sorted from the largest one.
+   *
+   *  A value that is equal to one already in the list is placed after it, so equal values are ordered by index.
+   *
+   *  @param index The index of the value.
+   *  @param score The value.
+   *  @param count The number of values in the list.
+   *  @param k The largest number of values the list can hold.
+   *  @param indices The array holding the indices of the values in the list.
+   *  @param indicesOffset The position of the list in the indices array.
+   *  @param scores The array holding the values in the list.
+   *  @param scoresOffset The position of the list in the scores array.
+   *
+   *  @return Returns the new number of values in the list.
+   */
+  private static int insertTopK(int index, double score, int count, int k, int[] indices, int indicesOffset,
+                                double[] scores, int scoresOffset){
+    if(count == k && !(score > scores[scoresOffset + k - 1])){
+      return count;
+    }
+
+    int position = (count < k) ? count++ : k - 1;
+    while(position > 0 && scores[scoresOffset + position - 1] < score){
+      indices[indicesOffset + position] = indices[indicesOffset + position - 1];
+      scores[scoresOffset + position] = scores[scoresOffset + position - 1];
+      position--;
+    }
+    indices[indicesOffset + position] = index;
+    scores[scoresOffset + position] = score;
+
+    return count;
+  }
+
+  /**
+   *  @brief Checks the number of outputs to select.
+   *
+   *  @param k The number of outputs to select.
+   *
+   *  @throws IllegalArgumentException When k is not in [1, sizesOfLayers_[sizesOfLayers_.length - 1]].
+   */
+  private void checkK(int k){
+    if(k < 1 || k > sizesOfLayers_[numberOfLayers_ - 1]){
+      throw new IllegalArgumentException("k must be between 1 and the size of the output layer.");
+    }
+  }
+
+  /**
+   *  @brief Trains this NeuralNetwork on a given set of data.
+   *
+   *  The derivatives and the velocity of the parameters are kept in a TrainingState owned by this NeuralNetwork, which
+   *  is created on the first call and reused by the following ones.
+   *
+   *  @param trainingSet The set of data on which this NeuralNetwork will be trained. The length of each sample
+   *         of the data set must be equal to sizesOfLayers_[0].
+   *  @param labels The labels for the training set. The length of each sample of the labels set must be equal to
+   *         sizesOfLayers_[sizesOfLayers_.length - 1].
+   *  @param trainingSetSize The number of training samples in the training set.
+   *  @param numberOfIterations The number of iterations of the training method.
+   *  @param gamma Parameter gamma of the training method(gradient descent).
+   *
+   *  @sa train(double[][], double[][], int, int, double, TrainingState)
+   */
+  public void train(double[][] trainingSet, double[][] labels, int trainingSetSize, int numberOfIterations, double gamma){
+    if(trainingState_ == null){
+      trainingState_ = new TrainingState(sizesOfLayers_);
+    }
+
+    this.train(trainingSet, labels, trainingSetSize, numberOfIterations, gamma, trainingState_);
+  }
+
+  /**
+   *  @brief Trains this NeuralNetwork on a given set of data, using the buffers of a given TrainingState.
+   *
+   *  This is the same as train(TrainingSet, int, int, int, double, TrainingState) on a TrainingSet of the given samples
+   *  and labels, from position 0 to trainingSetSize. The TrainingSet is kept in the TrainingState and reused while the
+   *  same arrays are given, so this method does not allocate memory either.
+   *
+   *  @param trainingSet The set of data on which this NeuralNetwork will be trained. The length of each sample
+   *         of the data set must be equal to sizesOfLayers_[0].
+   *  @param labels The labels for the training set. The length of each sample of the labels set must be equal to
+   *         sizesOfLayers_[sizesOfLayers_.length - 1].
+   *  @param trainingSetSize The number of training samples in the training set.
+   *  @param numberOfIterations The number of iterations of the training method.
+   *  @param gamma Parameter gamma of the training method(gradient descent).
+   *  @param trainingState The TrainingState holding the derivatives and the moments of the parameters. Its moments
+   *         carry over from the previous call it was used in.
+   *
+   *  @throws IllegalArgumentException When the TrainingState was created for different sizes of layers.
+   */
+  public void train(double[][] trainingSet, double[][] labels, int trainingSetSize, int numberOfIterations, double gamma,
+                    TrainingState trainingState){
+    this.train(trainingState.getTrainingSet(trainingSet, labels), 0, trainingSetSize, numberOfIterations, gamma,
+               trainingState);
+  }
+
+  /**
+   *  @brief Trains this NeuralNetwork on a range of positions of a TrainingSet, using the buffers of a given
+   *         TrainingState.
+   *
+   *  Each iteration sums the derivatives of the cost function over the batch and then lets the Optimizer of this
+   *  NeuralNetwork update the parameters, setting the derivatives to zero in the same pass. The batch is read in
+   *  place, so consecutive batches can be taken from a whole, possibly shuffled, TrainingSet without copying it. No
+   *  memory is allocated when numberOfThreads_ is one, except on the first call with a TrainingState, when the moments
+   *  of the Optimizer are allocated.
+   *
+   *  @param trainingSet The TrainingSet that holds the batch.
+   *  @param offset The position of the first sample of the batch.
+   *  @param length The number of samples in the batch.
+   *  @param numberOfIterations The number of iterations of the training method.
+   *  @param gamma Parameter gamma of the training method(gradient descent).
+   *  @param trainingState The TrainingState holding the derivatives and the moments of the parameters. Its moments
+   *         carry over from the previous call it was used in.
+   *
+   *  @throws IllegalArgumentException When the TrainingState was created for different sizes of layers, or when a
+   *          class index of the batch is not smaller than the size of the output layer.
+   */
+  public void train(TrainingSet trainingSet, int offset, int length, int numberOfIterations, double gamma,
+                    TrainingState trainingState){
+    this.checkWritable();
+
+    if(!trainingState.isCompatible(sizesOfLayers_)){
+      throw new IllegalArgumentException("The TrainingState was created for different sizes of layers.");
+    }
+    this.checkClasses(trainingSet, offset, length);
+
+    Optimizer optimizer = this.getOptimizer();
+    trainingState.prepare(optimizer);
+
+    double[][] nablaWeights = trainingState.nablaWeights_;
+    double[][] nablaBiases = trainingState.nablaBiases_;
+    int numberOfMoments = optimizer.getNumberOfMoments();
+
+    // Training loop.
+    for(int iteration = 0;iteration < numberOfIterations;iteration++){
+
+      // Calculating the derivative of the cost function for each sample using the back propagation algorithm.
+      if(numberOfThreads_ > 1 && length > 1){
+        this.parallelBackPropagation(trainingSet, offset, length, nablaWeights, nablaBiases);
+      }
+      else{
+        for(int position = offset;position < offset + length;position++){
+          this.backPropagation(trainingSet, position, trainingState.activations_, trainingState.delta_,
+                               trainingState.foreground_, nablaWeights, nablaBiases);
+        }
+      }
+
+      // The background pixels, or the offset of the byte samples, were skipped while accumulating the derivatives of
+      // the first layer, their part is added once per batch.
+      if(trainingSet.byteSamples_ != null){
+        this.addBackgroundDerivatives(nablaWeights[0], nablaBiases[0], inputOffset_);
+      }
+      else if(sparseInput_){
+        this.addBackgroundDerivatives(nablaWeights[0], nablaBiases[0], inputBackground_);
+      }
+
+      // Updating network's parameters using the Optimizer. nablaTheta is set to zero in the same pass.
+      long step = ++trainingState.step_;
+      for(int i = 0;i < numberOfLayers_ - 1;i++){
+        optimizer.update(biases_[i], nablaBiases[i],
+                         (numberOfMoments > 0) ? trainingState.momentBiases_[0][i] : null,
+                         (numberOfMoments > 1) ? trainingState.momentBiases_[1][i] : null,
+                         biases_[i].length, gamma, 1.0 / length, step);
+        optimizer.update(weights_[i], nablaWeights[i],
+                         (numberOfMoments > 0) ? trainingState.momentWeights_[0][i] : null,
+                         (numberOfMoments > 1) ? trainingState.momentWeights_[1][i] : null,
+                         weights_[i].length, gamma, 1.0 / length, step);
+
+        if(pruningMasks_ != null){
+          this.applyPruningMask(i);
+        }
+        this.updateTransposedWeights(i);
+      }
+
+    }
+
+    if(autoPublish_){
+      this.publish();
+    }
+  }
+
+  /**
+   *  @brief Trains this NeuralNetwork on a given set of data using lock free asynchronous stochastic gradient descent
+   *         (Hogwild).
+   *
+   *  This is the same as trainHogwild(TrainingSet, int, int, int, double) on a TrainingSet of the given samples and
+   *  labels, from position 0 to trainingSetSize.
+   *
+   *  @param trainingSet The set of data on which this NeuralNetwork will be trained. The length of each sample
+   *         of the data set must be equal to sizesOfLayers_[0].
+   *  @param labels The labels for the training set. The length of each sample of the labels set must be equal to
+   *         sizesOfLayers_[sizesOfLayers_.length - 1].
+   *  @param trainingSetSize The number of training samples in the training set.
+   *  @param numberOfIterations The number of passes over the training set.
+   *  @param gamma Parameter gamma of the training method(gradient descent). It is applied on every sample, unlike
+   *         train where it is applied on the average of a batch.
+   */
+  public void trainHogwild(double[][] trainingSet, double[][] labels, int trainingSetSize, int numberOfIterations,
+                           double gamma){
+    this.trainHogwild(new TrainingSet(trainingSet, labels), 0, trainingSetSize, numberOfIterations, gamma);
+  }
+
+  /**
+   *  @brief Trains this NeuralNetwork on a range of positions of a TrainingSet using lock free asynchronous stochastic
+   *         gradient descent (Hogwild).
+   *
+   *  numberOfThreads_ workers pull samples from the range and each one updates the parameters of this NeuralNetwork
+   *  right after running the back propagation algorithm on a sample, without any locking. There is no batch and no
+   *  momentum, so that no worker ever waits for another, except at the end of each iteration. Workers may read
+   *  parameters that another worker is updating; the algorithm tolerates that, as long as the updates are small
+   *  compared to the parameters. Neurons whose error is zero are skipped while updating. Raw byte samples are
+   *  normalized by each worker into a buffer of its own, since the parameters of the first layer are updated densely
+   *  after each sample anyway.
+   *
+   *  @param trainingSet The TrainingSet on which this NeuralNetwork will be trained.
+   *  @param offset The position of the first sample.
+   *  @param length The number of samples.
+   *  @param numberOfIterations The number of passes over the range.
+   *  @param gamma Parameter gamma of the training method(gradient descent). It is applied on every sample, unlike
+   *         train where it is applied on the average of a batch.
+   *
+   *  @throws IllegalArgumentException When a class index of the range is not smaller than the size of the output
+   *          layer.
+   */
+  public void trainHogwild(TrainingSet trainingSet, int offset, int length, int numberOfIterations, double gamma){
+    this.checkWritable();
+    this.checkClasses(trainingSet, offset, length);
+
+    int numberOfWorkers = Math.max(1, Math.min(numberOfThreads_, length));
+
+    AtomicInteger nextPosition = new AtomicInteger();
+    List<HogwildWorker> workers = new ArrayList<HogwildWorker>();
+    for(int worker = 0;worker < numberOfWorkers;worker++){
+      workers.add(new HogwildWorker(trainingSet, offset + length, gamma, nextPosition));
+    }
+
+    for(int iteration = 0;iteration < numberOfIterations;iteration++){
+      nextPosition.set(offset);
+
+      if(numberOfWorkers == 1){
+        workers.get(0).call();
+        continue;
+      }
+
+      // Wait for the iteration to finish and rethrow anything a worker has thrown.
+      for(Future<Void> future : this.getForkJoinPool().invokeAll(workers)){
+        try{
+          future.get();
+        }
+        catch(InterruptedException exception){
+          Thread.currentThread().interrupt();
+          return;
+        }
+        catch(ExecutionException exception){
+          throw new RuntimeException(exception.getCause());
+        }
+      }
+    }
+
+    // The workers update the weights densely, the pruned ones are set back to zero once all of them are done.
+    if(pruningMasks_ != null){
+      for(int i = 0;i < numberOfLayers_ - 1;i++){
+        this.applyPruningMask(i);
+        this.updateTransposedWeights(i);
+      }
+    }
+
+    if(autoPublish_){
+      this.publish();
+    }
+  }
+
+  /**
+   *  @brief Prunes the weights of this NeuralNetwork with the smallest magnitude.
+   *
+   *  In each layer, the given fraction of the weights, those closest to zero, are set to zero. The pruned weights are
+   *  remembered, and train and trainHogwild keep them at zero, so this NeuralNetwork can be fine-tuned after pruning.
+   *  The biases are not pruned. Pruning again replaces the pruned weights, and loading parameters forgets them.
+   *
+   *  @param sparsity The fraction of the weights of each layer to prune, in [0, 1].
+   *
+   *  @throws IllegalArgumentException When the sparsity is not in [0, 1].
+   *
+   *  @sa SparseNeuralNetwork
+   */
+  public void prune(double sparsity){
+    this.checkWritable();
+
+    if(!(sparsity >= 0 && sparsity <= 1)){
+      throw new IllegalArgumentException("The sparsity must be in [0, 1].");
+    }
+
+    pruningMasks_ = new boolean[numberOfLayers_ - 1][];
+    for(int i = 0;i < numberOfLayers_ - 1;i++){
+      double[] weights = weights_[i];
+      int numberOfPrunedWeights = (int)Math.round(sparsity * weights.length);
+
+      // The magnitude of the weight with the largest magnitude that is pruned.
+      double[] magnitudes = new double[weights.length];
+      for(int k = 0;k < weights.length;k++){
+        magnitudes[k] = Math.abs(weights[k]);
+      }
+      Arrays.sort(magnitudes);
+      double threshold = (numberOfPrunedWeights > 0) ? magnitudes[numberOfPrunedWeights - 1] : -1;
+
+      // The weights below the threshold are pruned first, and then as many as needed of the ones equal to it.
+      pruningMasks_[i] = new boolean[weights.length];
+      int numberOfBelowThreshold = 0;
+      for(int k = 0;k < weights.length;k++){
+        if(Math.abs(weights[k]) < threshold){
+          pruningMasks_[i][k] = true;
+          numberOfBelowThreshold++;
+        }
+      }
+      for(int k = 0;k < weights.length && numberOfBelowThreshold < numberOfPrunedWeights;k++){
+        if(Math.abs(weights[k]) == threshold){
+          pruningMasks_[i][k] = true;
+          numberOfBelowThreshold++;
+        }
+      }
+
+      this.applyPruningMask(i);
+      this.updateTransposedWeights(i);
+    }
+  }
+
+  /**
+   *  @brief Returns the fraction of the weights of this NeuralNetwork that are zero.
+   *
+   *  @return Returns the fraction of the weights, over all the layers, that are zero.
+   */
+  public double getSparsity(){
+    long numberOfZeroWeights = 0;
+    long numberOfWeights = 0;
+    for(int i = 0;i < numberOfLayers_ - 1;i++){
+      for(int k = 0;k < weights_[i].length;k++){
+        if(weights_[i][k] == 0){
+          numberOfZeroWeights++;
+        }
+      }
+      numberOfWeights += weights_[i].length;
+    }
+
+    return (double)numberOfZeroWeights / numberOfWeights;
+  }
+
+  /**
+   *  @brief Sets the pruned weights of a layer to zero.
+   *
+   *  @param layer The layer whose pruned weights are set to zero.
+   */
+  private void applyPruningMask(int layer){
+    double[] weights = weights_[layer];
+    boolean[] pruningMask = pruningMasks_[layer];
+
+    for(int k = 0;k < weights.length;k++){
+      if(pruningMask[k]){
+        weights[k] = 0;
+      }
+    }
+  }
+
+  /**
+   *  @brief Publishes a snapshot of the current parameters of this NeuralNetwork.
+   *
+   *  The snapshot is a read-only copy of this NeuralNetwork; training or loading it throws an
+   *  UnsupportedOperationException. Since the parameters of a snapshot never change after it is published, any number
+   *  of threads can evaluate inputs on it, without locking, while this NeuralNetwork keeps training. The last snapshot
+   *  published can be retrieved by any thread with getSnapshot.
+   *
+   *  This method must be called by the thread that trains this NeuralNetwork, or while it is not being trained.
+   *
+   *  @return Returns the published snapshot.
+   */
+  public NeuralNetwork publish(){
+    NeuralNetwork snapshot = new NeuralNetwork();
+    snapshot.copyParameters(this, false);
+    snapshot.computeBackend_ = computeBackend_;
+    snapshot.readOnly_ = true;
+
+    snapshot_ = snapshot;
+
+    return snapshot;
+  }
+
+  /**
+   *  @brief Getter method for the last published snapshot of this NeuralNetwork.
+   *
+   *  @return Returns the last snapshot published by publish, or null if no snapshot has been published yet.
+   */
+  public NeuralNetwork getSnapshot(){
+    return snapshot_;
+  }
+
+  /**
+   *  @brief Setter method for the automatic publishing of snapshots.
+   *
+   *  @param autoPublish If true, train and trainHogwild publish a new snapshot each time they return.
+   */
+  public void setAutoPublish(boolean autoPublish){
+    autoPublish_ = autoPublish;
+  }
+
+  /**
+   *  @brief Getter method for the automatic publishing of snapshots.
+   *
+   *  @return Returns true if train and trainHogwild publish a new snapshot each time they return.
+   */
+  public boolean isAutoPublish(){
+    return autoPublish_;
+  }
+
+  /**
+   *  @brief Returns whether this NeuralNetwork is a read-only snapshot.
+   *
+   *  @return Returns true if this NeuralNetwork was created by publish.
+   */
+  public boolean isReadOnly(){
+    return readOnly_;
+  }
+
+  /**
+   *  @brief Getter function for the number of this NeuralNetwork layers.
+   *
+   *  \return The number of this NeuralNetwork layers.
+   */
+  public int getNumberOfLayers(){
+    return numberOfLayers_;
+  }
+
+  /**
+   *  @brief Saves the parameters of this NeuralNetwork to a binary file.
+   *
+   *  The parameters are followed by the names of the Activations of the layers, so that files written before the
+   *  Activations were stored are still loaded, with a Sigmoid for every layer.
+   *
+   *  @param path The absolute, or relative path of the file where the parameters will be saved.
+   *
+   *  @throws IOException When an exception occurs while writing on the file.
+   */
+  public void saveToBinary(String path) throws IOException{
+    FileChannel channel = new FileOutputStream(path).getChannel();
+
+    try{
+      ByteBuffer buffer = ByteBuffer.allocateDirect(IO_BUFFER_SIZE);
+
+      writeInt(channel, buffer, numberOfLayers_);
+      for(int i = 0;i < numberOfLayers_;i++){
+        writeInt(channel, buffer, sizesOfLayers_[i]);
+      }
+
+      for(int i = 0;i < numberOfLayers_ - 1;i++){
+        for(int j = 0;j < sizesOfLayers_[i + 1];j++){
+          writeDoubles(channel, buffer, biases_[i], j, 1);
+          writeDoubles(channel, buffer, weights_[i], j * sizesOfLayers_[i], sizesOfLayers_[i]);
+        }
+      }
+      flush(channel, buffer);
+
+      // The Activations are a few bytes, written through a stream after the parameters.
+      DataOutputStream dataOutputStream = new DataOutputStream(new BufferedOutputStream(
+        Channels.newOutputStream(channel)));
+      Activation.writeActivations(dataOutputStream, activations_);
+      dataOutputStream.flush();
+    }
+    finally{
+      channel.close();
+    }
+  }
+
+  /**
+   *  @brief Saves the parameters of this NeuralNetwork to an xml file.
+   *
+   *  @param path The absolute or relative path of the file where the parameters will be saved.
+   *
+   *  @throws IOException When an exception occurs while writing on the file.
+   */
+  public void saveToXML(String path) throws IOException{
+    Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(path), StandardCharsets.UTF_8),
+                                       XML_BUFFER_SIZE);
+
+    try{
+      writer.write("<sizes_of_layers>");
+      for(int i = 0;i < numberOfLayers_ - 1;i++){
+        writer.write(Integer.toString(sizesOfLayers_[i]));
+        writer.write(' ');
+      }
+      writer.write(Integer.toString(sizesOfLayers_[numberOfLayers_ - 1]));
+      writer.write("</sizes_of_layers>\n");
+
+      writer.write("<activations>");
+      for(int i = 0;i < numberOfLayers_ - 2;i++){
+        writer.write(activations_[i].getName());
+        writer.write(' ');
+      }
+      writer.write(activations_[numberOfLayers_ - 2].getName());
+      writer.write("</activations>\n");
+
+      for(int i = 0;i < numberOfLayers_ - 1;i++){
+        writer.write("<layer>\n");
+
+        for(int j = 0;j < sizesOfLayers_[i + 1];j++){
+          writer.write("  <neuron>\n    <bias>");
+          writer.write(Double.toString(biases_[i][j]));
+          writer.write("</bias>\n    <weights>");
+
+          int offset = j * sizesOfLayers_[i];
+          for(int k = 0;k < sizesOfLayers_[i] - 1;k++){
+            writer.write(Double.toString(weights_[i][offset + k]));
+            writer.write(' ');
+          }
+          writer.write(Double.toString(weights_[i][offset + sizesOfLayers_[i] - 1]));
+          writer.write("</weights>\n  </neuron>\n");
+        }
+
+        writer.write("</layer>\n");
+      }
+    }
+    finally{
+      writer.close();
+    }
+  }
+
+  /**
+   *  @brief Loads the parameters for this NeuralNetwork from a binary file.
+   *
+   *  @param path The path of the file where the parameters are saved.
+   *
+   *  @throws IOException When an exception occurs while reading from the file.
+   */
+  public void loadFromBinary(String path) throws IOException{
+    this.checkWritable();
+
+    FileChannel channel = new FileInputStream(path).getChannel();
+
+    try{
+      ByteBuffer buffer = ByteBuffer.allocateDirect(IO_BUFFER_SIZE);
+      buffer.limit(0);
+
+      numberOfLayers_ = readInt(channel, buffer);
+      sizesOfLayers_ = new int[numberOfLayers_];
+      for(int i = 0;i < numberOfLayers_;i++){
+        sizesOfLayers_[i] = readInt(channel, buffer);
+      }
+
+      // Allocate the needed memory for the weights and the biases.
+      this.allocateParameters();
+
+      for(int i = 0;i < numberOfLayers_ - 1;i++){
+        for(int j = 0;j < sizesOfLayers_[i + 1];j++){
+          readDoubles(channel, buffer, biases_[i], j, 1);
+          readDoubles(channel, buffer, weights_[i], j * sizesOfLayers_[i], sizesOfLayers_[i]);
+        }
+
+        this.updateTransposedWeights(i);
+      }
+
+      // Move the channel back to the end of the parameters, since the buffer may have read past them.
+      channel.position(channel.position() - buffer.remaining());
+      activations_ = Activation.readActivations(new DataInputStream(new BufferedInputStream(
+        Channels.newInputStream(channel))), numberOfLayers_ - 1);
+    }
+    finally{
+      channel.close();
+    }
+  }
+
+  /**
+   *  @brief Puts an int in the buffer of a binary file, in the byte order of DataOutputStream.
+   *
+   *  @param channel The channel of the file, where the buffer is flushed when it is full.
+   *  @param buffer The buffer.
+   *  @param value The int.
+   *
+   *  @throws IOException When an exception occurs while writing on the channel.
+   */
+  private static void writeInt(FileChannel channel, ByteBuffer buffer, int value) throws IOException{
+    if(buffer.remaining() < 4){
+      flush(channel, buffer);
+    }
+
+    buffer.putInt(value);
+  }
+
+  /**
+   *  @brief Puts doubles in the buffer of a binary file, in the byte order of DataOutputStream, flushing it to the
+   *         channel every time it is full.
+   *
+   *  @param channel The channel of the file.
+   *  @param buffer The buffer.
+   *  @param values The array that holds the doubles.
+   *  @param offset The index of the first double in values.
+   *  @param length The number of doubles.
+   *
+   *  @throws IOException When an exception occurs while writing on the channel.
+   */
+  private static void writeDoubles(FileChannel channel, ByteBuffer buffer, double[] values, int offset, int length)
+    throws IOException{
+    while(length > 0){
+      if(buffer.remaining() < 8){
+        flush(channel, buffer);
+      }
+
+      int count = Math.min(length, buffer.remaining() / 8);
+      buffer.asDoubleBuffer().put(values, offset, count);
+      buffer.position(buffer.position() + count * 8);
+
+      offset += count;
+      length -= count;
+    }
+  }
+
+  /**
+   *  @brief Writes the contents of the buffer of a binary file to its channel and clears it.
+   *
+   *  @param channel The channel of the file.
+   *  @param buffer The buffer.
+   *
+   *  @throws IOException When an exception occurs while writing on the channel.
+   */
+  private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException{
+    buffer.flip();
+    while(buffer.hasRemaining()){
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  /**
+   *  @brief Takes an int from the buffer of a binary file, in the byte order of DataInputStream.
+   *
+   *  @param channel The channel of the file, from which the buffer is filled when it is empty.
+   *  @param buffer The buffer.
+   *
+   *  @return Returns the int.
+   *
+   *  @throws IOException When an exception occurs while reading from the channel, or when the file ends.
+   */
+  private static int readInt(FileChannel channel, ByteBuffer buffer) throws IOException{
+    fill(channel, buffer, 4);
+
+    return buffer.getInt();
+  }
+
+  /**
+   *  @brief Takes doubles from the buffer of a binary file, in the byte order of DataInputStream, filling it from the
+   *         channel every time it is empty.
+   *
+   *  @param channel The channel of the file.
+   *  @param buffer The buffer.
+   *  @param values The array where the doubles are stored.
+   *  @param offset The index of the first double in values.
+   *  @param length The number of doubles.
+   *
+   *  @throws IOException When an exception occurs while reading from the channel, or when the file ends.
+   */
+  private static void readDoubles(FileChannel channel, ByteBuffer buffer, double[] values, int offset, int length)
+    throws IOException{
+    while(length > 0){
+      fill(channel, buffer, 8);
+
+      int count = Math.min(length, buffer.remaining() / 8);
+      buffer.asDoubleBuffer().get(values, offset, count);
+      buffer.position(buffer.position() + count * 8);
+
+      offset += count;
+      length -= count;
+    }
+  }
+
+  /**
+   *  @brief Makes sure that the buffer of a binary file holds at least the given number of bytes, reading as many as
+   *         fit from the channel when it does not.
+   *
+   *  @param channel The channel of the file.
+   *  @param buffer The buffer.
+   *  @param bytes The number of bytes.
+   *
+   *  @throws IOException When an exception occurs while reading from the channel, or when the file ends.
+   */
+  private static void fill(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException{
+    if(buffer.remaining() >= bytes){
+      return;
+    }
+
+    buffer.compact();
+    while(buffer.position() < bytes){
+      if(channel.read(buffer) < 0){
+        throw new EOFException();
+      }
+    }
+    buffer.flip();
+  }
+
+  /**
+   *  @brief Loads the parameters for this NeuralNetwork from an xml file.
+   *
+   *  @param path The path of the file where the parameters are saved.
+   *
+   *  @throws IOException When an exception occurs while reading from the file.
+   */
+  public void loadFromXML(String path) throws IOException{
+    this.checkWritable();
+
+    XMLModelReader reader = new XMLModelReader(new InputStreamReader(new FileInputStream(path),
+                                                                     StandardCharsets.UTF_8));
+    try{
+      // Parse the sizes of the layers.
+      reader.expectTag("<sizes_of_layers>");
+
+      List<Integer> sizesOfLayers = new ArrayList<Integer>();
+      for(String token = reader.nextToken();token != null;token = reader.nextToken()){
+        sizesOfLayers.add(Integer.parseInt(token));
+      }
+      reader.expectTag("</sizes_of_layers>");
+
+      numberOfLayers_ = sizesOfLayers.size();
+      sizesOfLayers_ = new int[numberOfLayers_];
+      for(int i = 0;i < numberOfLayers_;i++){
+        sizesOfLayers_[i] = sizesOfLayers.get(i);
+      }
+
+      // Allocate the needed memory for the weights and the biases.
+      this.allocateParameters();
+
+      // Parse the rest of the file in one pass. The activations are missing from files written before they were
+      // stored.
+      int currentLayer = -1;
+      int currentNeuron = 0;
+      int completedLayers = 0;
+      for(String tag = reader.nextTag();tag != null;tag = reader.nextTag()){
+        if(tag.equals("<activations>")){
+          for(int i = 0;i < numberOfLayers_ - 1;i++){
+            String name = reader.nextToken();
+            if(name == null){
+              throw new IOException(path + " has fewer activations than layers.");
+            }
+
+            try{
+              activations_[i] = Activation.create(name);
+            }
+            catch(IllegalArgumentException exception){
+              throw new IOException(exception.getMessage());
+            }
+          }
+        }
+        else if(tag.equals("<layer>")){
+          currentLayer++;
+          currentNeuron = 0;
+          if(currentLayer >= numberOfLayers_ - 1){
+            throw new IOException(path + " has more layers than its sizes of layers.");
+          }
+        }
+        else if(tag.equals("<bias>")){
+          this.checkNeuron(currentLayer, currentNeuron, path);
+
+          biases_[currentLayer][currentNeuron] = reader.nextDouble();
+        }
+        else if(tag.equals("<weights>")){
+          this.checkNeuron(currentLayer, currentNeuron, path);
+
+          int offset = currentNeuron * sizesOfLayers_[currentLayer];
+          for(int k = 0;k < sizesOfLayers_[currentLayer];k++){
+            weights_[currentLayer][offset + k] = reader.nextDouble();
+          }
+        }
+        else if(tag.equals("</neuron>")){
+          currentNeuron++;
+        }
+        else if(tag.equals("</layer>")){
+          if(currentLayer < 0 || currentNeuron != sizesOfLayers_[currentLayer + 1]){
+            throw new IOException(path + " has fewer neurons than its sizes of layers.");
+          }
+
+          this.updateTransposedWeights(currentLayer);
+          completedLayers++;
+        }
+      }
+
+      if(completedLayers != numberOfLayers_ - 1){
+        throw new IOException(path + " has fewer layers than its sizes of layers.");
+      }
+    }
+    catch(NumberFormatException exception){
+      throw new IOException(path + " is corrupted.", exception);
+    }
+    finally{
+      reader.close();
+    }
+  }
+
+  /**
+   *  @brief Checks that the neuron being parsed from an xml file exists.
+   *
+   *  @param layer The layer of the neuron, or -1 outside of any layer.
+   *  @param neuron The neuron.
+   *  @param path The path of the file, for the error message.
+   *
+   *  @throws IOException When the neuron is outside of a layer or the layer has fewer neurons.
+   */
+  private void checkNeuron(int layer, int neuron, String path) throws IOException{
+    if(layer < 0 || neuron >= sizesOfLayers_[layer + 1]){
+      throw new IOException(path + " has more neurons than its sizes of layers.");
+    }
+  }
+
+  /**
+   *  @brief Saves the parameters of this NeuralNetwork to a compressed file, with 16 bit parameters.
+   *
+   *  See CompressedModel for the format.
+   *
+   *  @param path The path of the file where the parameters will be saved.
+   *  @param encoding CompressedModel.ENCODING_FLOAT16 or CompressedModel.ENCODING_BFLOAT16.
+   *  @param flags A combination of CompressedModel.FLAG_DELTA, CompressedModel.FLAG_SHUFFLE and
+   *         CompressedModel.FLAG_DEFLATE, or 0.
+   *
+   *  @return Returns, for each layer, the largest absolute difference between a parameter and its stored value.
+   *
+   *  @throws IOException When an exception occurs while writing on the file.
+   */
+  public double[] saveToCompressed(String path, int encoding, int flags) throws IOException{
+    return CompressedModel.write(this, path, encoding, flags);
+  }
+
+  /**
+   *  @brief Loads the parameters for this NeuralNetwork from a compressed file.
+   *
+   *  The parameters are decoded straight into the parameters of this NeuralNetwork, one block at a time.
+   *
+   *  @param path The path of the file where the parameters are saved.
+   *
+   *  @throws IOException When an exception occurs while reading from the file, or when it is not a compressed file.
+   */
+  public void loadFromCompressed(String path) throws IOException{
+    this.checkWritable();
+
+    CompressedModel compressedModel = new CompressedModel(path);
+    try{
+      sizesOfLayers_ = compressedModel.getSizesOfLayers();
+      numberOfLayers_ = sizesOfLayers_.length;
+
+      // Allocate the needed memory for the weights and the biases.
+      this.allocateParameters();
+
+      for(int i = 0;i < numberOfLayers_ - 1;i++){
+        compressedModel.readLayer(biases_[i], weights_[i]);
+
+        this.updateTransposedWeights(i);
+      }
+
+      activations_ = compressedModel.getActivations();
+    }
+    finally{
+      compressedModel.close();
+    }
+  }
+
+  /**
+   *  @brief Creates a NeuralNetwork and loads the parameters from the given compressed file.
+   *
+   *  @param path The path of the compressed file that holds the parameters of the NeuralNetwork to be created.
+   *
+   *  @return Returns the created NeuralNetwork.
+   *
+   *  @throws IOException When an exception occurs while reading from the file.
+   */
+  public static NeuralNetwork createFromCompressed(String path) throws IOException{
+    NeuralNetwork neuralNetwork = new NeuralNetwork();
+
+    neuralNetwork.loadFromCompressed(path);
+
+    return neuralNetwork;
+  }
+
+  /**
+   *  @brief Creates a NeuralNetwork and loads the parameters from the given binary file.
+   *
+   *  @param path The path of the binary file that holds the parameters of the NeuralNetwork to be created.
+   *
+   *  @return Returns the created NeuralNetwork.
+   *
+   *  @throws IOException When an exception occurs while reading from the file.
+   */
+  public static NeuralNetwork createFromBinary(String path) throws IOException{
+    NeuralNetwork neuralNetwork = new NeuralNetwork();
+
+    neuralNetwork.loadFromBinary(path);
+
+    return neuralNetwork;
+  }
+
+  /**
+   *  @brief Creates a NeuralNetwork and loads the parameters from the given XML file.
+   *
+   *  @param path The path of the XML file that holds the parameters of the NeuralNetwork to be created.
+   *
+   *  @return Returns the created NeuralNetwork.
+   *
+   *  @throws IOException When an exception occurs while reading from the file.
+   */
+  public static NeuralNetwork createFromXML(String path) throws IOException{
+    NeuralNetwork neuralNetwork = new NeuralNetwork();
+
+    neuralNetwork.loadFromXML(path);
+
+    return neuralNetwork;
+  }
+
+  /**
+   *  @brief Runs the back propagation algorithm on a batch of samples using numberOfThreads_ threads.
+   *
+   *  The batch is split into one contiguous chunk per worker. Each worker accumulates the derivatives of its chunk in
+   *  its own buffers, and the buffers are then summed pairwise, as a tree, into nablaWeights and nablaBiases.
+   *
+   *  @param trainingSet The TrainingSet that holds the batch.
+   *  @param offset The position of the first sample of the batch.
+   *  @param length The number of samples in the batch.
+   *  @param nablaWeights The arrays in which the derivative of the cost function with respect to the weights will be
+   *         added.
+   *  @param nablaBiases The arrays in which the derivative of the cost function with respect to the biases will be
+   *         added.
+   */
+  private void parallelBackPropagation(TrainingSet trainingSet, int offset, int length, double[][] nablaWeights,
+                                       double[][] nablaBiases){
+    int numberOfWorkers = Math.min(numberOfThreads_, length);
+
+    // The first worker accumulates directly in the given buffers. The buffers of the other workers are kept between
+    // calls, they are left zeroed by the reduction.
+    if(workerNablaWeights_ == null || workerNablaWeights_.length < numberOfWorkers){
+      workerNablaWeights_ = new double[numberOfWorkers][][];
+      workerNablaBiases_ = new double[numberOfWorkers][][];
+
+      for(int worker = 1;worker < numberOfWorkers;worker++){
+        workerNablaWeights_[worker] = new double[numberOfLayers_ - 1][];
+        workerNablaBiases_[worker] = new double[numberOfLayers_ - 1][];
+
+        for(int i = 0;i < numberOfLayers_ - 1;i++){
+          workerNablaWeights_[worker][i] = new double[sizesOfLayers_[i + 1] * sizesOfLayers_[i]];
+          workerNablaBiases_[worker][i] = new double[sizesOfLayers_[i + 1]];
+        }
+      }
+    }
+    workerNablaWeights_[0] = nablaWeights;
+    workerNablaBiases_[0] = nablaBiases;
+
+    this.getForkJoinPool().invoke(new BackPropagationTask(trainingSet, offset, length, numberOfWorkers, 0,
+                                                          numberOfWorkers));
+
+    workerNablaWeights_[0] = null;
+    workerNablaBiases_[0] = null;
+  }
+
+  /** @class HogwildWorker
+   *
+   *  @brief Pulls samples from a training set and updates the parameters of this NeuralNetwork after each one of
+   *         them.
+   */
+  private class HogwildWorker implements Callable<Void>{
+    /**
+     *  @brief Constructor.
+     *
+     *  @param trainingSet The TrainingSet on which this NeuralNetwork will be trained.
+     *  @param endPosition The position after the last sample to be pulled.
+     *  @param gamma Parameter gamma of the training method(gradient descent).
+     *  @param nextPosition The position of the next sample to be pulled, shared by all the workers.
+     */
+    HogwildWorker(TrainingSet trainingSet, int endPosition, double gamma, AtomicInteger nextPosition){
+      trainingSet_ = trainingSet;
+      inputBuffer_ = (trainingSet.byteSamples_ != null) ? new double[sizesOfLayers_[0]] : null;
+      endPosition_ = endPosition;
+      gamma_ = gamma;
+      nextPosition_ = nextPosition;
+
+      activations_ = new double[numberOfLayers_ - 1][];
+      delta_ = new double[numberOfLayers_ - 1][];
+      for(int i = 0;i < numberOfLayers_ - 1;i++){
+        activations_[i] = new double[sizesOfLayers_[i + 1]];
+        delta_[i] = new double[sizesOfLayers_[i + 1]];
+      }
+    }
+
+    @Override
+    public Void call(){
+      int position;
+      while((position = nextPosition_.getAndIncrement()) < endPosition_){
+        int sample = trainingSet_.sampleAt(position);
+        double[] input;
+        if(trainingSet_.byteSamples_ != null){
+          normalizeInput(trainingSet_.byteSamples_[sample], inputBuffer_, 0);
+          input = inputBuffer_;
+        }
+        else{
+          input = trainingSet_.samples_[sample];
+        }
+
+        computeErrors(input, (trainingSet_.labels_ != null) ? trainingSet_.labels_[sample] : null,
+                      trainingSet_.labelClass(sample), activations_, delta_);
+
+        for(int i = 0;i < numberOfLayers_ - 1;i++){
+          updateLayer(i, input, delta_[i], gamma_);
+
+          input = activations_[i];
+        }
+      }
+
+      return null;
+    }
+
+    private final TrainingSet trainingSet_; //!< The TrainingSet on which this NeuralNetwork is trained.
+    private final double[] inputBuffer_; //!< The normalized byte sample, or null.
+    private final int endPosition_; //!< The position after the last sample to be pulled.
+    private final double gamma_; //!< Parameter gamma of the training method(gradient descent).
+    private final AtomicInteger nextPosition_; //!< The position of the next sample to be pulled.
+
+    private final double[][] activations_; //!< The output of each neuron for the current sample.
+    private final double[][] delta_; //!< The error of each neuron for the current sample.
+
+  }
+
+  /**
+   *  @brief Applies the gradient descent step of one sample to the parameters of a layer.
+   *
+   *  Both the weights and the transposed weights of the layer are updated.
+   *
+   *  @param layer The layer to update.
+   *  @param input The input of the layer for the sample.
+   *  @param delta The error of each neuron of the layer for the sample.
+   *  @param gamma Parameter gamma of the training method(gradient descent).
+   */
+  private void updateLayer(int layer, double[] input, double[] delta, double gamma){
+    double[] weights = weights_[layer];
+    double[] transposedWeights = transposedWeights_[layer];
+    double[] biases = biases_[layer];
+    int inputSize = sizesOfLayers_[layer];
+    int outputSize = sizesOfLayers_[layer + 1];
+
+    // The sum of the weights of each neuron changes by -step times the sum of the input.
+    double inputSum = 0;
+    boolean sparseLayer = layer == 0 && sparseInput_;
+    if(sparseLayer){
+      for(int k = 0;k < inputSize;k++){
+        inputSum += input[k];
+      }
+    }
+
+    for(int j = 0;j < outputSize;j++){
+      double step = gamma * delta[j];
+      if(step == 0){
+        continue;
+      }
+
+      biases[j] -= step;
+      if(sparseLayer){
+        weightSums_[j] -= step * inputSum;
+      }
+
+      computeBackend_.axpy(-step, input, 0, weights, j * inputSize, inputSize);
+
+      if(transposedWeights != null){
+        for(int k = 0;k < inputSize;k++){
+          transposedWeights[k * outputSize + j] -= step * input[k];
+        }
+      }
+    }
+  }
+
+  /**
+   *  @brief Returns the pool that runs the workers of train and trainHogwild, creating it if needed.
+   *
+   *  @return Returns a ForkJoinPool with numberOfThreads_ threads.
+   */
+  private ForkJoinPool getForkJoinPool(){
+    if(forkJoinPool_ == null || forkJoinPool_.getParallelism() != numberOfThreads_){
+      if(forkJoinPool_ != null){
+        forkJoinPool_.shutdown();
+      }
+      forkJoinPool_ = new ForkJoinPool(numberOfThreads_);
+    }
+
+    return forkJoinPool_;
+  }
+
+  /** @class BackPropagationTask
+   *
+   *  @brief Runs the back propagation algorithm for a range of workers and reduces their derivatives into the buffers
+   *         of the first worker of the range.
+   */
+  private class BackPropagationTask extends RecursiveAction{
+    /**
+     *  @brief Constructor.
+     *
+     *  @param trainingSet The TrainingSet that holds the batch.
+     *  @param offset The position of the first sample of the batch.
+     *  @param length The number of samples in the batch.
+     *  @param numberOfWorkers The number of workers the batch is split into.
+     *  @param firstWorker The first worker of the range, inclusive.
+     *  @param lastWorker The last worker of the range, exclusive.
+     */
+    BackPropagationTask(TrainingSet trainingSet, int offset, int length, int numberOfWorkers, int firstWorker,
+                        int lastWorker){
+      trainingSet_ = trainingSet;
+      offset_ = offset;
+      length_ = length;
+      numberOfWorkers_ = numberOfWorkers;
+      firstWorker_ = firstWorker;
+      lastWorker_ = lastWorker;
+    }
+
+    @Override
+    protected void compute(){
+      if(lastWorker_ - firstWorker_ == 1){
+        int firstPosition = offset_ + (int)((long)length_ * firstWorker_ / numberOfWorkers_);
+        int lastPosition = offset_ + (int)((long)length_ * lastWorker_ / numberOfWorkers_);
+
+        double[][] activations = new double[numberOfLayers_ - 1][];
+        double[][] delta = new double[numberOfLayers_ - 1][];
+        for(int i = 0;i < numberOfLayers_ - 1;i++){
+          activations[i] = new double[sizesOfLayers_[i + 1]];
+          delta[i] = new double[sizesOfLayers_[i + 1]];
+        }
+        int[] foreground = new int[sizesOfLayers_[0]];
+
+        for(int position = firstPosition;position < lastPosition;position++){
+          backPropagation(trainingSet_, position, activations, delta, foreground, workerNablaWeights_[firstWorker_],
+                          workerNablaBiases_[firstWorker_]);
+        }
+
+        return;
+      }
+
+      int middleWorker = (firstWorker_ + lastWorker_) / 2;
+      invokeAll(new BackPropagationTask(trainingSet_, offset_, length_, numberOfWorkers_, firstWorker_, middleWorker),
+                new BackPropagationTask(trainingSet_, offset_, length_, numberOfWorkers_, middleWorker, lastWorker_));
+
+      // Add the derivatives of the second half to the first half, zeroing the second half in the same pass.
+      for(int i = 0;i < numberOfLayers_ - 1;i++){
+        addAndClear(workerNablaWeights_[middleWorker][i], workerNablaWeights_[firstWorker_][i]);
+        addAndClear(workerNablaBiases_[middleWorker][i], workerNablaBiases_[firstWorker_][i]);
+      }
+    }
+
+    private final TrainingSet trainingSet_; //!< The TrainingSet that holds the batch.
+    private final int offset_; //!< The position of the first sample of the batch.
+    private final int length_; //!< The number of samples in the batch.
+    private final int numberOfWorkers_; //!< The number of workers the batch is split into.
+    private final int firstWorker_; //!< The first worker of the range, inclusive.
+    private final int lastWorker_; //!< The last worker of the range, exclusive.
+
+    private static final long serialVersionUID = 1L; //!< The serial version of this RecursiveAction.
+
+  }
+
+  /**
+   *  @brief Adds an array to another one and sets the first array to zero.
+   *
+   *  @param source The array to be added. It is set to zero.
+   *  @param destination The array to add to.
+   */
+  private static void addAndClear(double[] source, double[] destination){
+    for(int k = 0;k < source.length;k++){
+      destination[k] += source[k];
+      source[k] = 0;
+    }
+  }
+
+  /**
+   *  @brief Throws an exception if the class index of a sample of a batch is not an output neuron.
+   *
+   *  The class indices are checked before training starts, so that a wrong one does not leave a batch half applied.
+   *
+   *  @param trainingSet The TrainingSet that holds the batch.
+   *  @param offset The position of the first sample of the batch.
+   *  @param length The number of samples in the batch.
+   *
+   *  @throws IllegalArgumentException When a class index is not smaller than the size of the output layer.
+   */
+  private void checkClasses(TrainingSet trainingSet, int offset, int length){
+    if(trainingSet.classes_ == null){
+      return;
+    }
+
+    int outputSize = sizesOfLayers_[numberOfLayers_ - 1];
+    for(int position = offset;position < offset + length;position++){
+      int labelClass = trainingSet.labelClass(trainingSet.sampleAt(position));
+      if(labelClass < 0 || labelClass >= outputSize){
+        throw new IllegalArgumentException("The class index " + labelClass + " is not an output neuron.");
+      }
+    }
+  }
+
+  /**
+   *  @brief Runs the back propagation algorithm on the sample at a position of a TrainingSet.
+   *
+   *  @param trainingSet The TrainingSet.
+   *  @param position The position of the sample.
+   *  @param activations The arrays where the output of each neuron will be written.
+   *  @param delta The arrays where the error of each neuron will be written.
+   *  @param foreground The array where the indices of the foreground pixels of the sample will be written.
+   *  @param nablaWeights The arrays in which the derivative of the cost function with respect to the weights will be
+   *         added.
+   *  @param nablaBiases The arrays in which the derivative of the cost function with respect to the biases will be
+   *         added.
+   */
+  private void backPropagation(TrainingSet trainingSet, int position, double[][] activations, double[][] delta,
+                               int[] foreground, double[][] nablaWeights, double[][] nablaBiases){
+    int sample = trainingSet.sampleAt(position);
+    double[] label = (trainingSet.labels_ != null) ? trainingSet.labels_[sample] : null;
+    int labelClass = trainingSet.labelClass(sample);
+
+    if(trainingSet.byteSamples_ != null){
+      this.backPropagation(trainingSet.byteSamples_[sample], label, labelClass, activations, delta, foreground,
+                           nablaWeights, nablaBiases);
+    }
+    else{
+      this.backPropagation(trainingSet.samples_[sample], label, labelClass, activations, delta, foreground,
+                           nablaWeights, nablaBiases);
+    }
+  }
+
+  /**
+   *  @brief Implements the back propagation algorithm to calculate the derivative of the cost function with respect
+   *         to each parameter.
+   *
+   *  @param sample The input to this NeuralNetwork.
+   *  @param label The label of the input, or null if the label is a class index.
+   *  @param labelClass The class index of the input, used when label is null.
+   *  @param activations The arrays where the output of each neuron will be written.
+   *  @param delta The arrays where the error of each neuron will be written.
+   *  @param foreground The array where the indices of the foreground pixels of the sample will be written, when the
+   *         input is sparse. Its length must be at least sizesOfLayers_[0].
+   *  @param nablaWeights The arrays in which the derivative of the cost function with respect to the weights will be
+   *         added. They have the same layout as weights_. When the input is sparse, the part of the background
+   *         pixels is not added to the first layer, see addBackgroundDerivatives.
+   *  @param nablaBiases The arrays in which the derivative of the cost function with respect to the biases will be
+   *         added. They have the same layout as biases_.
+   */
+  private void backPropagation(double[] sample, double[] label, int labelClass, double[][] activations,
+                               double[][] delta, int[] foreground, double[][] nablaWeights, double[][] nablaBiases){
+    this.computeErrors(sample, label, labelClass, activations, delta);
+
+    // Calculating the derivative of the cost function with respect to every parameter.
+    if(sparseInput_){
+      this.addSparseOuterProduct(delta[0], sample, foreground, nablaWeights[0]);
+    }
+    else{
+      computeBackend_.addOuterProduct(delta[0], sample, nablaWeights[0], sizesOfLayers_[1], sizesOfLayers_[0]);
+    }
+    this.addDerivatives(activations, delta, nablaWeights, nablaBiases);
+  }
+
+  /**
+   *  @brief Implements the back propagation algorithm for a byte sample.
+   *
+   *  @param sample The input to this NeuralNetwork, normalized as in feedForward(byte[], InferenceContext, double[]).
+   *  @param label The label of the input, or null if the label is a class index.
+   *  @param labelClass The class index of the input, used when label is null.
+   *  @param activations The arrays where the output of each neuron will be written.
+   *  @param delta The arrays where the error of each neuron will be written.
+   *  @param foreground The array where the indices of the non zero bytes of the sample will be written. Its length
+   *         must be at least sizesOfLayers_[0].
+   *  @param nablaWeights The arrays in which the derivative of the cost function with respect to the weights will be
+   *         added. The part of inputOffset_ is not added to the first layer, see addBackgroundDerivatives.
+   *  @param nablaBiases The arrays in which the derivative of the cost function with respect to the biases will be
+   *         added.
+   */
+  private void backPropagation(byte[] sample, double[] label, int labelClass, double[][] activations,
+                               double[][] delta, int[] foreground, double[][] nablaWeights, double[][] nablaBiases){
+    this.feedForwardLayer(sample, activations[0]);
+    this.computeErrors(label, labelClass, activations, delta);
+
+    // Only the non zero bytes contribute to the derivatives of the first layer, besides inputOffset_.
+    int inputSize = sizesOfLayers_[0];
+    int numberOfForegroundPixels = 0;
+    for(int k = 0;k < inputSize;k++){
+      if(sample[k] != 0){
+        foreground[numberOfForegroundPixels++] = k;
+      }
+    }
+
+    double[] firstNablaWeights = nablaWeights[0];
+    for(int j = 0;j < sizesOfLayers_[1];j++){
+      double error = delta[0][j] * inputScale_;
+      if(error == 0){
+        continue;
+      }
+
+      int offset = j * inputSize;
+      for(int p = 0;p < numberOfForegroundPixels;p++){
+        int k = foreground[p];
+        firstNablaWeights[offset + k] += error * (sample[k] & 0xFF);
+      }
+    }
+    this.addDerivatives(activations, delta, nablaWeights, nablaBiases);
+  }
+
+  /**
+   *  @brief Adds the derivatives of the biases of every layer, and of the weights of every layer after the first one,
+   *         for a sample whose errors have been calculated.
+   *
+   *  @param activations The output of each neuron for the sample.
+   *  @param delta The error of each neuron for the sample.
+   *  @param nablaWeights The arrays in which the derivative of the cost function with respect to the weights will be
+   *         added.
+   *  @param nablaBiases The arrays in which the derivative of the cost function with respect to the biases will be
+   *         added.
+   */
+  private void addDerivatives(double[][] activations, double[][] delta, double[][] nablaWeights,
+                              double[][] nablaBiases){
+    computeBackend_.axpy(1, delta[0], 0, nablaBiases[0], 0, sizesOfLayers_[1]);
+    for(int i = 1;i < numberOfLayers_ - 1;i++){
+      computeBackend_.axpy(1, delta[i], 0, nablaBiases[i], 0, sizesOfLayers_[i + 1]);
+      computeBackend_.addOuterProduct(delta[i], activations[i - 1], nablaWeights[i], sizesOfLayers_[i + 1],
+                                      sizesOfLayers_[i]);
+    }
+  }
+
+  /**
+   *  @brief Calculates the output and the error of each neuron for a sample.
+   *
+   *  @param sample The input to this NeuralNetwork.
+   *  @param label The label of the input, or null if the label is a class index.
+   *  @param labelClass The class index of the input, used when label is null.
+   *  @param activations The arrays where the output of each neuron will be written, one for each layer except the
+   *         input layer.
+   *  @param delta The arrays where the error of each neuron will be written, one for each layer except the input
+   *         layer.
+   */
+  private void computeErrors(double[] sample, double[] label, int labelClass, double[][] activations,
+                             double[][] delta){
+    this.feedForwardLayer(0, sample, activations[0]);
+    this.computeErrors(label, labelClass, activations, delta);
+  }
+
+  /**
+   *  @brief Calculates the output of each neuron after the first layer, and the error of each neuron, for a sample
+   *         whose first layer has been applied.
+   *
+   *  @param label The label of the sample, or null if the label is a class index.
+   *  @param labelClass The class index of the sample, used when label is null. The label is then one for the output
+   *         neuron labelClass and zero for every other one.
+   *  @param activations The output of each neuron, one array for each layer except the input layer. The first one must
+   *         hold the output of the first layer, the others are written.
+   *  @param delta The arrays where the error of each neuron will be written.
+   */
+  private void computeErrors(double[] label, int labelClass, double[][] activations, double[][] delta){
+    // Calculating the output of each neuron.
+    for(int i = 1;i < numberOfLayers_ - 1;i++){
+      this.feedForwardLayer(i, activations[i - 1], activations[i]);
+    }
+
+    // Calculating the error of each neuron.
+    Activation outputActivation = activations_[numberOfLayers_ - 2];
+    int outputSize = sizesOfLayers_[numberOfLayers_ - 1];
+    if(label != null){
+      for(int j = 0;j < outputSize;j++){
+        delta[numberOfLayers_ - 2][j] = outputActivation.outputError(activations[numberOfLayers_ - 2][j], label[j]);
+      }
+    }
+    else{
+      for(int j = 0;j < outputSize;j++){
+        delta[numberOfLayers_ - 2][j] = outputActivation.outputError(activations[numberOfLayers_ - 2][j],
+                                                                     (j == labelClass) ? 1 : 0);
+      }
+    }
+    for(int i = numberOfLayers_ - 3;i >= 0;i--){
+      // The transposed weights of the next layer are used, so that the inner loop walks contiguous memory.
+      double[] transposedWeights = transposedWeights_[i + 1];
+      int nextLayerSize = sizesOfLayers_[i + 2];
+
+      for(int j = 0;j < sizesOfLayers_[i + 1];j++){
+        delta[i][j] = computeBackend_.dot(transposedWeights, j * nextLayerSize, delta[i + 1], 0, nextLayerSize);
+      }
+
+      activations_[i].multiplyByDerivative(activations[i], delta[i], sizesOfLayers_[i + 1]);
+    }
+  }
+
+  /**
+   *  @brief Applies a sample to one layer of this NeuralNetwork.
+   *
+   *  @param layer The layer to apply the sample to.
+   *  @param input The sample. Its length must be at least sizesOfLayers_[layer].
+   *  @param output The array where the activations of the layer will be written. Its length must be at least
+   *         sizesOfLayers_[layer + 1].
+   */
+  private void feedForwardLayer(int layer, double[] input, double[] output){
+    double[] weights = weights_[layer];
+    double[] biases = biases_[layer];
+    int inputSize = sizesOfLayers_[layer];
+
+    int outputSize = sizesOfLayers_[layer + 1];
 
-    double[] output = new double[sizesOfLayers_[1]];
-    for(int i = 0;i < numberOfLayers_ - 1;i++){
-      for(int j = 0;j < sizesOfLayers_[i + 1];j++){
-        double sum = 0;
-        for(int k = 0;k < sizesOfLayers_[i];k++){
-          sum += weights_[i][j][k] * inputBuffer[k];
-        }
+    if(layer == 0 && sparseInput_){
+      this.feedForwardSparse(input, 0, output, 0);
+      activations_[0].apply(output, 0, outputSize);
 
-        output[j] = this.activationFunction(sum + biases_[i][j]);
-      }
+      return;
+    }
 
-      if(i + 2 < numberOfLayers_){
-        inputBuffer = output.clone();
-        output = new double[sizesOfLayers_[i + 2]];
-      }
+    for(int j = 0;j < outputSize;j++){
+      output[j] = computeBackend_.dot(weights, j * inputSize, input, 0, inputSize) + biases[j];
     }
 
-    return output;
+    activations_[layer].apply(output, 0, outputSize);
   }
 
   /**
-   *  @brief Trains this NeuralNetwork on a given set of data.
+   *  @brief Applies a raw byte sample to the first layer of this NeuralNetwork.
    *
-   *  @param trainingSet The set of data on which this NeuralNetwork will be trained. The length of each sample
-   *         of the data set must be equal to sizesOfLayers_[0].
-   *  @param labels The labels for the training set. The length of each sample of the labels set must be equal to
-   *         sizesOfLayers_[sizesOfLayers_.length - 1].
-   *  @param trainingSetSize The number of training samples in the training set.
-   *  @param numberOfIterations The number of iterations of the training method.
-   *  @param gamma Parameter gamma of the training method(gradient descent).
+   *  Each byte is normalized to u * inputScale_ + inputOffset_ while it is multiplied with the weights. In sparse
+   *  input mode, the bytes equal to zero are skipped, and their part is taken from weightSums_.
+   *
+   *  @param input The sample. Its length must be at least sizesOfLayers_[0].
+   *  @param output The array where the activations of the first layer will be written.
    */
-  public void train(double[][] trainingSet, double[][] labels, int trainingSetSize, int numberOfIterations, double gamma){
-    double[][][] nablaTheta = new double[numberOfLayers_ - 1][][];
-    double[][][] momentum = new double[numberOfLayers_ - 1][][];
-    for(int i = 0;i < numberOfLayers_ - 1;i++){
+  private void feedForwardLayer(byte[] input, double[] output){
+    double[] weights = weights_[0];
+    double[] biases = biases_[0];
+    int inputSize = sizesOfLayers_[0];
+    int outputSize = sizesOfLayers_[1];
 
-      nablaTheta[i] = new double[sizesOfLayers_[i + 1]][];
-      momentum[i] = new double[sizesOfLayers_[i + 1]][];;
-      for(int j = 0;j < sizesOfLayers_[i + 1];j++){
-        nablaTheta[i][j] = new double[sizesOfLayers_[i] + 1];
-        momentum[i][j] = new double[sizesOfLayers_[i] + 1];
+    if(sparseInput_){
+      double[] transposedWeights = transposedWeights_[0];
+
+      for(int j = 0;j < outputSize;j++){
+        output[j] = biases[j] + inputOffset_ * weightSums_[j];
+      }
 
-        for(int k = 0;k < sizesOfLayers_[i] + 1;k++){
-          nablaTheta[i][j][k] = 0;
-          momentum[i][j][k] = 0;
+      for(int k = 0;k < inputSize;k++){
+        int value = input[k] & 0xFF;
+        if(value != 0){
+          computeBackend_.axpy(value * inputScale_, transposedWeights, k * outputSize, output, 0, outputSize);
         }
       }
     }
+    else{
+      // Four neurons are applied at a time, so that each byte is normalized once for all four of them.
+      int j = 0;
+      for(;j + 4 <= outputSize;j += 4){
+        int offset0 = j * inputSize;
+        int offset1 = offset0 + inputSize;
+        int offset2 = offset1 + inputSize;
+        int offset3 = offset2 + inputSize;
+
+        double sum0 = 0, sum1 = 0, sum2 = 0, sum3 = 0;
+        for(int k = 0;k < inputSize;k++){
+          double value = (input[k] & 0xFF) * inputScale_ + inputOffset_;
+
+          sum0 += weights[offset0 + k] * value;
+          sum1 += weights[offset1 + k] * value;
+          sum2 += weights[offset2 + k] * value;
+          sum3 += weights[offset3 + k] * value;
+        }
 
-    // Training loop.
-    for(int iteration = 0;iteration < numberOfIterations;iteration++){
-
-      // Calculating the derivative of the cost function for each sample using the back propagation algorithm.
-      for(int sample = 0;sample < trainingSetSize;sample++){
-        this.backPropagation(trainingSet[sample], labels[sample], nablaTheta);
+        output[j] = sum0 + biases[j];
+        output[j + 1] = sum1 + biases[j + 1];
+        output[j + 2] = sum2 + biases[j + 2];
+        output[j + 3] = sum3 + biases[j + 3];
       }
 
-      // Updating network's parameters using the gradient descent algorithm.
-      for(int i = 0;i < numberOfLayers_ - 1;i++){
-        for(int j = 0;j < sizesOfLayers_[i + 1];j++){
-          momentum[i][j][0] = (nablaTheta[i][j][0] * (1 - momentumCoefficient_) +
-                                momentum[i][j][0] * momentumCoefficient_)  / trainingSetSize;
-          biases_[i][j] -= gamma * momentum[i][j][0];
-          for(int k = 0;k < sizesOfLayers_[i];k++){
-            momentum[i][j][k + 1] = (nablaTheta[i][j][k + 1] * (1 - momentumCoefficient_) +
-                                      momentum[i][j][k + 1] * momentumCoefficient_)  / trainingSetSize;
-            weights_[i][j][k] -= gamma * momentum[i][j][k + 1];
-          }
-        }
-      }
+      // The neurons that do not fill a group of four.
+      for(;j < outputSize;j++){
+        int offset = j * inputSize;
 
-      // Set nablaTheta to zero.
-      for(int i = 0;i < numberOfLayers_ - 1;i++){
-        for(int j = 0;j < sizesOfLayers_[i + 1];j++){
-          for(int k = 0;k < sizesOfLayers_[i] + 1;k++){
-            nablaTheta[i][j][k] = 0;
-          }
+        double sum = 0;
+        for(int k = 0;k < inputSize;k++){
+          sum += weights[offset + k] * ((input[k] & 0xFF) * inputScale_ + inputOffset_);
         }
-      }
 
+        output[j] = sum + biases[j];
+      }
     }
+
+    activations_[0].apply(output, 0, outputSize);
   }
 
   /**
-   *  @brief Getter function for the number of this NeuralNetwork layers.
+   *  @brief Normalizes a raw byte sample to doubles, the same way the first layer does.
    *
-   *  \return The number of this NeuralNetwork layers.
+   *  @param input The sample.
+   *  @param output The array where the normalized sample will be written.
+   *  @param offset The position of the normalized sample in the output array.
    */
-  public int getNumberOfLayers(){
-    return numberOfLayers_;
+  private void normalizeInput(byte[] input, double[] output, int offset){
+    for(int k = 0;k < sizesOfLayers_[0];k++){
+      output[offset + k] = (input[k] & 0xFF) * inputScale_ + inputOffset_;
+    }
   }
 
   /**
-   *  @brief Saves the parameters of this NeuralNetwork to a binary file.
+   *  @brief Applies a block of samples to one layer of this NeuralNetwork.
    *
-   *  @param path The absolute, or relative path of the file where the parameters will be saved.
+   *  The neurons of the layer are visited in groups of NEURON_BLOCK_SIZE, whose weights stay in cache while every
+   *  sample of the block is applied to them. Four samples are processed at a time with ComputeBackend.dot4, so that
+   *  each weight loaded is used four times. The sum of each neuron is the one ComputeBackend.dot returns, as in
+   *  feedForward. The Activation of the layer is applied to the whole block at the end.
    *
-   *  @throws IOException When an exception occurs while writing on the file.
+   *  @param layer The layer to apply the samples to.
+   *  @param computeBackend The ComputeBackend that calculates the inner products.
+   *  @param input The samples, stored one after the other, each one of length sizesOfLayers_[layer].
+   *  @param output The array where the activations will be written, one sample after the other, each one of length
+   *         sizesOfLayers_[layer + 1].
+   *  @param numberOfSamples The number of samples in the block.
+   *  @param sums An array of length 4 where the sums of four samples are kept.
    */
-  public void saveToBinary(String path) throws IOException{
-    FileOutputStream fileOutputStream = new FileOutputStream(path);
-    DataOutputStream dataOutputStream = new DataOutputStream(fileOutputStream);
-
-    dataOutputStream.writeInt(numberOfLayers_);
-    for(int i = 0;i < numberOfLayers_;i++){
-      dataOutputStream.writeInt(sizesOfLayers_[i]);
-    }
+  private void feedForwardBlock(int layer, ComputeBackend computeBackend, double[] input, double[] output,
+                                int numberOfSamples, double[] sums){
+    double[] weights = weights_[layer];
+    double[] biases = biases_[layer];
+    int inputSize = sizesOfLayers_[layer];
+    int outputSize = sizesOfLayers_[layer + 1];
+
+    for(int neuronBlock = 0;neuronBlock < outputSize;neuronBlock += NEURON_BLOCK_SIZE){
+      int neuronEnd = Math.min(neuronBlock + NEURON_BLOCK_SIZE, outputSize);
+
+      int s = 0;
+      for(;s + 4 <= numberOfSamples;s += 4){
+        int offset0 = s * inputSize;
+        int offset1 = offset0 + inputSize;
+        int offset2 = offset1 + inputSize;
+        int offset3 = offset2 + inputSize;
+
+        for(int j = neuronBlock;j < neuronEnd;j++){
+          computeBackend.dot4(weights, j * inputSize, input, offset0, offset1, offset2, offset3, inputSize, sums);
+
+          output[s * outputSize + j] = sums[0] + biases[j];
+          output[(s + 1) * outputSize + j] = sums[1] + biases[j];
+          output[(s + 2) * outputSize + j] = sums[2] + biases[j];
+          output[(s + 3) * outputSize + j] = sums[3] + biases[j];
+        }
+      }
 
-    for(int i = 0;i < numberOfLayers_ - 1;i++){
-      for(int j = 0;j < sizesOfLayers_[i + 1];j++){
-        dataOutputStream.writeDouble(biases_[i][j]);
+      // The samples that do not fill a group of four.
+      for(;s < numberOfSamples;s++){
+        int inputOffset = s * inputSize;
 
-        for(int k = 0;k < sizesOfLayers_[i];k++){
-          dataOutputStream.writeDouble(weights_[i][j][k]);
+        for(int j = neuronBlock;j < neuronEnd;j++){
+          output[s * outputSize + j] = computeBackend.dot(weights, j * inputSize, input, inputOffset, inputSize) +
+                                       biases[j];
         }
       }
     }
 
-    dataOutputStream.close();
+    activations_[layer].apply(output, 0, numberOfSamples * outputSize);
   }
 
   /**
-   *  @brief Saves the parameters of this NeuralNetwork to an xml file.
+   *  @brief Applies a sample to the first layer of this NeuralNetwork, visiting only its foreground pixels.
    *
-   *  @param path The absolute or relative path of the file where the parameters will be saved.
+   *  Each neuron starts from its bias plus inputBackground_ times weightSums_, that is, its output when every pixel is
+   *  background. Then, for each foreground pixel, the corresponding column of the transposed weights, scaled by the
+   *  difference of the pixel from inputBackground_, is added to the outputs. The Activation of the layer is not
+   *  applied.
    *
-   *  @throws IOException When an exception occurs while writing on the file.
+   *  @param input The array holding the sample.
+   *  @param inputOffset The position of the sample in the input array.
+   *  @param output The array where the outputs of the neurons will be written.
+   *  @param outputOffset The position of the first output in the output array.
    */
-  public void saveToXML(String path) throws IOException{
-    PrintWriter printWriter = new PrintWriter(path);
-
-    printWriter.print("<sizes_of_layers>");
-    for(int i = 0;i < numberOfLayers_ - 1;i++){
-      printWriter.print(sizesOfLayers_[i] + " ");
+  private void feedForwardSparse(double[] input, int inputOffset, double[] output, int outputOffset){
+    double[] transposedWeights = transposedWeights_[0];
+    double[] biases = biases_[0];
+    int inputSize = sizesOfLayers_[0];
+    int outputSize = sizesOfLayers_[1];
+
+    for(int j = 0;j < outputSize;j++){
+      output[outputOffset + j] = biases[j] + inputBackground_ * weightSums_[j];
     }
-    printWriter.println(sizesOfLayers_[numberOfLayers_ - 1] + "</sizes_of_layers>");
-
-    for(int i = 0;i < numberOfLayers_ - 1;i++){
-      printWriter.println("<layer>");
-
-      for(int j = 0;j < sizesOfLayers_[i + 1];j++){
-        printWriter.print("  <neuron>\n    <bias>" + biases_[i][j] + "</bias>\n    <weights>");
 
-        for(int k = 0;k < sizesOfLayers_[i] - 1;k++){
-          printWriter.print(weights_[i][j][k] + " ");
-        }
-        printWriter.println(weights_[i][j][sizesOfLayers_[i] - 1] + "</weights>\n  </neuron>");
+    for(int k = 0;k < inputSize;k++){
+      double difference = input[inputOffset + k] - inputBackground_;
+      if(difference != 0){
+        computeBackend_.axpy(difference, transposedWeights, k * outputSize, output, outputOffset, outputSize);
       }
-
-      printWriter.println("</layer>");
     }
-
-    printWriter.close();
   }
 
   /**
-   *  @brief Loads the parameters for this NeuralNetwork from a binary file.
+   *  @brief Adds the outer product of the errors of the first layer and the foreground pixels of a sample to the
+   *         derivatives of the weights of the first layer.
    *
-   *  @param path The path of the file where the parameters are saved.
+   *  Each pixel contributes its difference from inputBackground_, so background pixels contribute nothing and are
+   *  skipped. The remaining part of the derivatives, inputBackground_ times the error of each neuron, is added for a
+   *  whole batch at once by addBackgroundDerivatives.
    *
-   *  @throws IOException When an exception occurs while reading from the file.
+   *  @param delta The errors of the first layer.
+   *  @param sample The sample.
+   *  @param foreground The array where the indices of the foreground pixels will be written.
+   *  @param nablaWeights The derivatives of the weights of the first layer.
    */
-  public void loadFromBinary(String path) throws IOException{
-    FileInputStream fileInputStream = new FileInputStream(path);
-    DataInputStream dataInputStream = new DataInputStream(fileInputStream);
+  private void addSparseOuterProduct(double[] delta, double[] sample, int[] foreground, double[] nablaWeights){
+    int inputSize = sizesOfLayers_[0];
+    int outputSize = sizesOfLayers_[1];
+
+    int numberOfForegroundPixels = 0;
+    for(int k = 0;k < inputSize;k++){
+      if(sample[k] != inputBackground_){
+        foreground[numberOfForegroundPixels++] = k;
+      }
+    }
 
-    numberOfLayers_ = dataInputStream.readInt();
-    sizesOfLayers_ = new int[numberOfLayers_];
-    for(int i = 0;i < numberOfLayers_;i++){
-      sizesOfLayers_[i] = dataInputStream.readInt();
+    for(int j = 0;j < outputSize;j++){
+      double error = delta[j];
+      if(error == 0){
+        continue;
+      }
+
+      int offset = j * inputSize;
+      for(int p = 0;p < numberOfForegroundPixels;p++){
+        int k = foreground[p];
+        nablaWeights[offset + k] += error * (sample[k] - inputBackground_);
+      }
     }
+  }
 
-    // Allocate the needed memory for the weights and the biases.
-    weights_ = new double[numberOfLayers_ - 1][][];
-    biases_ = new double[numberOfLayers_ - 1][];
+  /**
+   *  @brief Adds the part of the background pixels to the derivatives of the weights of the first layer, which
+   *         addSparseOuterProduct and the back propagation of byte samples leave out.
+   *
+   *  Since the errors of each neuron summed over the batch are the derivatives of its bias, the part of the background
+   *  pixels is the background times the derivative of the bias, for every weight of the neuron.
+   *
+   *  @param nablaWeights The derivatives of the weights of the first layer, summed over a batch.
+   *  @param nablaBiases The derivatives of the biases of the first layer, summed over the same batch.
+   *  @param background The value the pixels were measured from, inputBackground_ for double samples and inputOffset_
+   *         for byte samples.
+   */
+  private void addBackgroundDerivatives(double[] nablaWeights, double[] nablaBiases, double background){
+    int inputSize = sizesOfLayers_[0];
 
-    for(int i = 0;i < numberOfLayers_ - 1;i++){
-      weights_[i] = new double[sizesOfLayers_[i + 1]][];
-      biases_[i] = new double[sizesOfLayers_[i + 1]];
+    for(int j = 0;j < sizesOfLayers_[1];j++){
+      double derivative = background * nablaBiases[j];
+      if(derivative == 0){
+        continue;
+      }
 
-      for(int j = 0;j < sizesOfLayers_[i + 1];j++){
-        weights_[i][j] = new double[sizesOfLayers_[i]];
+      int offset = j * inputSize;
+      for(int k = 0;k < inputSize;k++){
+        nablaWeights[offset + k] += derivative;
       }
     }
+  }
+
+  /**
+   *  @brief Makes the parameters of this NeuralNetwork a copy of the parameters of another one.
+   *
+   *  @param neuralNetwork The NeuralNetwork whose parameters will be copied.
+   *  @param withTransposedWeights If false, the transposed weights are not copied, since they are only needed for
+   *         training.
+   */
+  private void copyParameters(NeuralNetwork neuralNetwork, boolean withTransposedWeights){
+    numberOfLayers_ = neuralNetwork.numberOfLayers_;
+    sizesOfLayers_ = neuralNetwork.sizesOfLayers_.clone();
 
+    weights_ = new double[numberOfLayers_ - 1][];
+    transposedWeights_ = new double[numberOfLayers_ - 1][];
+    biases_ = new double[numberOfLayers_ - 1][];
+    activations_ = neuralNetwork.activations_.clone();
     for(int i = 0;i < numberOfLayers_ - 1;i++){
-      for(int j = 0;j < sizesOfLayers_[i + 1];j++){
-        biases_[i][j] = dataInputStream.readDouble();
+      weights_[i] = neuralNetwork.weights_[i].clone();
+      biases_[i] = neuralNetwork.biases_[i].clone();
 
-        for(int k = 0;k < sizesOfLayers_[i];k++){
-          weights_[i][j][k] = dataInputStream.readDouble();
-        }
+      if(withTransposedWeights && neuralNetwork.transposedWeights_[i] != null){
+        transposedWeights_[i] = neuralNetwork.transposedWeights_[i].clone();
       }
     }
 
-    dataInputStream.close();
+    // The sparse first layer is evaluated with the transposed weights.
+    sparseInput_ = neuralNetwork.sparseInput_;
+    inputBackground_ = neuralNetwork.inputBackground_;
+    inputScale_ = neuralNetwork.inputScale_;
+    inputOffset_ = neuralNetwork.inputOffset_;
+    if(sparseInput_){
+      transposedWeights_[0] = neuralNetwork.transposedWeights_[0].clone();
+      weightSums_ = neuralNetwork.weightSums_.clone();
+    }
   }
 
   /**
-   *  @brief Loads the parameters for this NeuralNetwork from an xml file.
-   *
-   *  @param path The path of the file where the parameters are saved.
+   *  @brief Throws an exception if this NeuralNetwork is a read-only snapshot.
    *
-   *  @throws IOException When an exception occurs while reading from the file.
+   *  @throws UnsupportedOperationException When this NeuralNetwork is a read-only snapshot.
    */
-  public void loadFromXML(String path) throws IOException{
-    // Load all the data from the given file.
-    String xmlData = new String(Files.readAllBytes(Paths.get(path)));
-
-    // Parse the sizes of the layers.
-    int startOfSizesOfLayers = xmlData.indexOf("<sizes_of_layers>");
-    int endOfSizesOfLayers = xmlData.indexOf("</sizes_of_layers>");
-
-    String[] sizesOfLayers = xmlData.substring(startOfSizesOfLayers + ("<sizes_of_layers>").length(), endOfSizesOfLayers)
-                                    .split(" ");
-
-    numberOfLayers_ = sizesOfLayers.length;
-    sizesOfLayers_ = new int[numberOfLayers_];
-    for(int i = 0;i < numberOfLayers_;i++){
-      sizesOfLayers_[i] = Integer.parseInt(sizesOfLayers[i]);
+  private void checkWritable(){
+    if(readOnly_){
+      throw new UnsupportedOperationException("The parameters of a published snapshot can not be modified.");
     }
+  }
 
-    // Allocate the needed memory for the weights and the biases.
-    weights_ = new double[numberOfLayers_ - 1][][];
+  /**
+   *  @brief Allocates the weights, the transposed weights and the biases of this NeuralNetwork according to
+   *         sizesOfLayers_, and sets the Activation of every layer to Sigmoid.
+   */
+  private void allocateParameters(){
+    pruningMasks_ = null;
+    workerNablaWeights_ = null;
+    workerNablaBiases_ = null;
+    trainingState_ = null;
+
+    weights_ = new double[numberOfLayers_ - 1][];
+    transposedWeights_ = new double[numberOfLayers_ - 1][];
     biases_ = new double[numberOfLayers_ - 1][];
+    activations_ = new Activation[numberOfLayers_ - 1];
 
     for(int i = 0;i < numberOfLayers_ - 1;i++){
-      weights_[i] = new double[sizesOfLayers_[i + 1]][];
+      weights_[i] = new double[sizesOfLayers_[i + 1] * sizesOfLayers_[i]];
       biases_[i] = new double[sizesOfLayers_[i + 1]];
+      activations_[i] = new Sigmoid();
 
-      for(int j = 0;j < sizesOfLayers_[i + 1];j++){
-        weights_[i][j] = new double[sizesOfLayers_[i]];
+      // The transposed weights of the first layer are never used by the back propagation algorithm, only by the
+      // sparse first layer.
+      if(i > 0 || sparseInput_){
+        transposedWeights_[i] = new double[sizesOfLayers_[i] * sizesOfLayers_[i + 1]];
       }
     }
+    weightSums_ = (sparseInput_) ? new double[sizesOfLayers_[1]] : null;
+  }
 
-    xmlData = xmlData.substring(endOfSizesOfLayers + ("</sizes_of_layers>").length());
-
-    // Parse each layer.
-    int startOfLayer = xmlData.indexOf("<layer>");
-    int currentLayer = 0;
-    while(startOfLayer != -1){
+  /**
+   *  @brief Copies the weights of a layer to the transposed weights of the same layer.
+   *
+   *  The copy is done in square blocks, so that both the source and the destination stay in cache.
+   *
+   *  @param layer The layer whose transposed weights will be updated.
+   */
+  private void updateTransposedWeights(int layer){
+    if(transposedWeights_[layer] == null){
+      return;
+    }
 
-      // Parse each neuron in the current layer.
-      int currentNeuron = 0;
-      while(currentNeuron < sizesOfLayers_[currentLayer + 1]){
+    double[] weights = weights_[layer];
+    double[] transposedWeights = transposedWeights_[layer];
+    int rows = sizesOfLayers_[layer + 1];
+    int columns = sizesOfLayers_[layer];
 
-        int startOfBias = xmlData.indexOf("<bias>");
-        int endOfBias = xmlData.indexOf("</bias>");
+    for(int rowBlock = 0;rowBlock < rows;rowBlock += TRANSPOSE_BLOCK_SIZE){
+      int rowEnd = Math.min(rowBlock + TRANSPOSE_BLOCK_SIZE, rows);
 
-        biases_[currentLayer][currentNeuron] = Double.parseDouble(xmlData.substring(startOfBias + ("<bias>").length(),
-                                                                                    endOfBias));
+      for(int columnBlock = 0;columnBlock < columns;columnBlock += TRANSPOSE_BLOCK_SIZE){
+        int columnEnd = Math.min(columnBlock + TRANSPOSE_BLOCK_SIZE, columns);
 
-        int startOfWeights = xmlData.indexOf("<weights>");
-        int endOfWeights = xmlData.indexOf("</weights>");
+        for(int j = rowBlock;j < rowEnd;j++){
+          for(int k = columnBlock;k < columnEnd;k++){
+            transposedWeights[k * rows + j] = weights[j * columns + k];
+          }
+        }
+      }
+    }
 
-        String[] weights = xmlData.substring(startOfWeights + ("<weights>").length(), endOfWeights).split(" ");
-        for(int i = 0;i < weights.length;i++){
-          weights_[currentLayer][currentNeuron][i] = Double.parseDouble(weights[i]);
+    if(layer == 0 && sparseInput_){
+      for(int j = 0;j < rows;j++){
+        double sum = 0;
+        for(int k = 0;k < columns;k++){
+          sum += weights[j * columns + k];
         }
 
-        xmlData = xmlData.substring(xmlData.indexOf("</neuron>") + ("</neuron>").length());
-        currentNeuron++;
+        weightSums_[j] = sum;
       }
-
-      xmlData = xmlData.substring(xmlData.indexOf("</layer>") + ("</layer>").length());
-      startOfLayer = xmlData.indexOf("<layer>");
-      currentLayer++;
     }
   }
 
   /**
-   *  @brief Creates a NeuralNetwork and loads the parameters from the given binary file.
+   *  @brief Getter method for the sizes of layers of this independent.
    *
-   *  @param path The path of the binary file that holds the parameters of the NeuralNetwork to be created.
+   *  @return Returns the sizes of the layers of this independent.
+   */
+  @Override
+  public int[] getSizesOfLayers(){
+    return sizesOfLayers_;
+  }
+
+  /**
+   *  @brief Setter method for the ComputeBackend.
    *
-   *  @return Returns the created NeuralNetwork.
+   *  @param computeBackend The ComputeBackend that runs the dot products and the vector updates of this NeuralNetwork.
+   *         The default value is ComputeBackend.getDefault().
+   */
+  public void setComputeBackend(ComputeBackend computeBackend){
+    computeBackend_ = computeBackend;
+  }
+
+  /**
+   *  @brief Getter method for the ComputeBackend.
    *
-   *  @throws IOException When an exception occurs while reading from the file.
+   *  @return Returns the ComputeBackend that runs the dot products and the vector updates of this NeuralNetwork.
    */
-  public static NeuralNetwork createFromBinary(String path) throws IOException{
-    NeuralNetwork neuralNetwork = new NeuralNetwork();
+  public ComputeBackend getComputeBackend(){
+    return computeBackend_;
+  }
 
-    neuralNetwork.loadFromBinary(path);
+  /**
+   *  @brief Setter method for the Activation of a layer.
+   *
+   *  @param layer The layer, from 0 for the first hidden layer to getNumberOfLayers() - 2 for the output layer.
+   *  @param activation The Activation of the neurons of the layer. The default value is a Sigmoid.
+   */
+  public void setActivation(int layer, Activation activation){
+    this.checkWritable();
 
-    return neuralNetwork;
+    activations_[layer] = activation;
   }
 
   /**
-   *  @brief Creates a NeuralNetwork and loads the parameters from the given XML file.
+   *  @brief Sets the same Activation to every layer.
    *
-   *  @param path The path of the XML file that holds the parameters of the NeuralNetwork to be created.
+   *  @param activation The Activation of all the neurons of this NeuralNetwork.
+   */
+  public void setActivation(Activation activation){
+    for(int i = 0;i < numberOfLayers_ - 1;i++){
+      this.setActivation(i, activation);
+    }
+  }
+
+  /**
+   *  @brief Getter method for the Activation of a layer.
    *
-   *  @return Returns the created NeuralNetwork.
+   *  @param layer The layer, from 0 for the first hidden layer to getNumberOfLayers() - 2 for the output layer.
    *
-   *  @throws IOException When an exception occurs while reading from the file.
+   *  @return Returns the Activation of the neurons of the layer.
    */
-  public static NeuralNetwork createFromXML(String path) throws IOException{
-    NeuralNetwork neuralNetwork = new NeuralNetwork();
-
-    neuralNetwork.loadFromXML(path);
+  public Activation getActivation(int layer){
+    return activations_[layer];
+  }
 
-    return neuralNetwork;
+  /**
+   *  @brief Returns the weights of a layer.
+   *
+   *  This is the actual buffer of this NeuralNetwork, not a copy, so that the other models of this package can be
+   *  converted from a NeuralNetwork without copying it twice.
+   *
+   *  @param layer The layer whose weights will be returned.
+   *
+   *  @return Returns the row-major weights of the layer.
+   */
+  double[] getWeights(int layer){
+    return weights_[layer];
   }
 
   /**
-   *  @brief Implements the back propagation algorithm to calculate the derivative of the cost function with respect
-   *         to each parameter.
+   *  @brief Returns the biases of a layer.
    *
-   *  @param sample The input to this NeuralNetwork.
-   *  @param label The label of the input.
-   *  @param nablaTheta The array in which the derivative of the cost function will be saved.
+   *  This is the actual buffer of this NeuralNetwork, not a copy.
+   *
+   *  @param layer The layer whose biases will be returned.
+   *
+   *  @return Returns the biases of the layer.
    */
-  private void backPropagation(double[] sample, double[] label, double[][][] nablaTheta){
-    // Calculating the output of each neuron.
-    double[] sampleBuffer = sample.clone();
-    double[][] activations = new double[numberOfLayers_ - 1][];
-    activations[0] = new double[sizesOfLayers_[1]];
-    for(int i = 0;i < numberOfLayers_ - 1;i++){
+  double[] getBiases(int layer){
+    return biases_[layer];
+  }
 
-      for(int j = 0;j < sizesOfLayers_[i + 1];j++){
+  /**
+   *  @brief Setter method for the momentum coefficient.
+   *
+   *  The momentum coefficient is used by the default Optimizer, a Momentum, which is used when no Optimizer has been
+   *  set with setOptimizer.
+   *
+   *  @param momentumCoefficient The new value for the momentum coefficient.
+   */
+  public void setMomentumCoefficient(double momentumCoefficient){
+    momentumCoefficient_ = momentumCoefficient;
+    defaultOptimizer_ = null;
+  }
 
-        double sum = 0;
-        for(int k = 0;k < sizesOfLayers_[i];k++){
-          sum += weights_[i][j][k] * sampleBuffer[k];
-        }
+  /**
+   *  @brief Getter method for the momentum coefficient.
+   *
+   *  @return Returns the current value of the momentum coefficient.
+   */
+  public double getMomentumCoefficient(){
+    return momentumCoefficient_;
+  }
 
-        activations[i][j] = this.activationFunction(sum + biases_[i][j]);
-      }
+  /**
+   *  @brief Setter method for the Optimizer used by train.
+   *
+   *  @param optimizer The Optimizer that updates the parameters after each batch. If it is null, a Momentum with the
+   *         momentum coefficient of this NeuralNetwork is used, which is the default.
+   */
+  public void setOptimizer(Optimizer optimizer){
+    optimizer_ = optimizer;
+  }
 
-      if(i + 2 < numberOfLayers_){
-        sampleBuffer = activations[i];
-        activations[i + 1] = new double[sizesOfLayers_[i + 2]];
-      }
+  /**
+   *  @brief Getter method for the Optimizer used by train.
+   *
+   *  @return Returns the Optimizer set with setOptimizer, or, if none is set, a Momentum with the momentum coefficient
+   *          of this NeuralNetwork.
+   */
+  public Optimizer getOptimizer(){
+    if(optimizer_ != null){
+      return optimizer_;
     }
 
-    // Calculating the error of each neuron.
-    double[][] delta = new double[numberOfLayers_ - 1][];
-    delta[numberOfLayers_ - 2] = new double[sizesOfLayers_[numberOfLayers_ - 1]];
-    for(int j = 0;j < sizesOfLayers_[numberOfLayers_ - 1];j++){
-      delta[numberOfLayers_ - 2][j] = costFunction(activations[numberOfLayers_ - 2][j], label[j]);
+    if(defaultOptimizer_ == null){
+      defaultOptimizer_ = new Momentum(momentumCoefficient_);
     }
-    for(int i = numberOfLayers_ - 3;i >= 0;i--){
-
-      delta[i] = new double[sizesOfLayers_[i + 1]];
-
-      for(int j = 0;j < sizesOfLayers_[i + 1];j++){
 
-        delta[i][j] = 0;
-        for(int k = 0;k < sizesOfLayers_[i + 2];k++){
-          delta[i][j] += weights_[i + 1][k][j] * delta[i + 1][k];
-        }
+    return defaultOptimizer_;
+  }
 
-        delta[i][j] *= activations[i][j] * (1 - activations[i][j]);
-      }
+  /**
+   *  @brief Setter method for the sparse input mode of this NeuralNetwork.
+   *
+   *  Inputs such as bitmaps of handwritten symbols are mostly background pixels, which all have the same value. In
+   *  sparse input mode, the part of the background pixels is folded into a constant per neuron of the first layer, so
+   *  that only the foreground pixels are visited while applying an input to the first layer and while accumulating
+   *  the derivatives of its weights. The results are the same as in dense mode, up to rounding. The first layer keeps
+   *  a transposed copy of its weights in this mode. trainHogwild still updates the first layer densely.
+   *
+   *  @param sparseInput Whether the input is sparse. The default value is false.
+   */
+  public void setSparseInput(boolean sparseInput){
+    this.checkWritable();
+
+    sparseInput_ = sparseInput;
+    if(!sparseInput_){
+      transposedWeights_[0] = null;
+      weightSums_ = null;
+      return;
     }
 
-    // Calculating the derivative of the cost function with respect to every parameter.
-    for(int j = 0;j < sizesOfLayers_[1];j++){
-      nablaTheta[0][j][0] += delta[0][j]; // biases.
-      for(int k = 1;k < sizesOfLayers_[0] + 1;k++){
-        nablaTheta[0][j][k] += sample[k - 1] * delta[0][j];
-      }
-    }
-    for(int i = 1;i < numberOfLayers_ - 1;i++){
-      for(int j = 0;j < sizesOfLayers_[i + 1];j++){
-        nablaTheta[i][j][0] += delta[i][j]; // biases.
-        for(int k = 1;k < sizesOfLayers_[i] + 1;k++){
-          nablaTheta[i][j][k] += activations[i - 1][k - 1] * delta[i][j];
-        }
-      }
+    if(transposedWeights_[0] == null){
+      transposedWeights_[0] = new double[sizesOfLayers_[0] * sizesOfLayers_[1]];
     }
-
+    weightSums_ = new double[sizesOfLayers_[1]];
+    this.updateTransposedWeights(0);
   }
 
   /**
-   *  @brief Implements the cost function of this NeuralNetwork.
+   *  @brief Getter method for the sparse input mode of this NeuralNetwork.
    *
-   *  @param activation The output of last layer of this NeuralNetwork.
-   *  @param label The expected output.
-   *
-   *  @return Returns the value of the cost function for the given activation and label.
+   *  @return Returns true if only the foreground pixels of the input are visited by the first layer.
    */
-  private double costFunction(double activation, double label){
-    return (activation - label);
+  public boolean isSparseInput(){
+    return sparseInput_;
   }
 
   /**
-   *  @brief The activation function for each neuron.
+   *  @brief Setter method for the value of the background pixels of the input, used in sparse input mode.
    *
-   *  @param z The independent variable.
+   *  @param inputBackground The value of the background pixels. The default value is -1, which is the value of a
+   *         blank pixel after the normalization of main.java.trainers.SimpleTrainer.
+   */
+  public void setInputBackground(double inputBackground){
+    this.checkWritable();
+
+    inputBackground_ = inputBackground;
+  }
+
+  /**
+   *  @brief Getter method for the value of the background pixels of the input.
    *
-   *  @return The value of the activation function at z.
+   *  @return Returns the value of the background pixels of the input.
    */
-  private double activationFunction(double z){
-    return (sigmoid(z));
+  public double getInputBackground(){
+    return inputBackground_;
   }
 
   /**
-   *  @brief Implements the sigmoid function.
+   *  @brief Setter method for the normalization of the raw byte inputs of this NeuralNetwork.
    *
-   *  This function is used as an activation function for the neurons.
+   *  A byte input, read as an unsigned value u, is seen by the first layer as u * scale + offset. The defaults map
+   *  [0, 255] to [-1, 1], the same way main.java.trainers.SimpleTrainer normalizes its data, so that a blank pixel
+   *  maps to the default value of the input background.
    *
-   *  @param z The independent variab.e
+   *  @param scale The scale of the normalization. The default value is 1 / 127.5.
+   *  @param offset The offset of the normalization. The default value is -1.
+   */
+  public void setInputNormalization(double scale, double offset){
+    this.checkWritable();
+
+    inputScale_ = scale;
+    inputOffset_ = offset;
+  }
+
+  /**
+   *  @brief Getter method for the scale of the normalization of the raw byte inputs.
    *
-   *  @return Returns the value of the sigmoid function on z.
+   *  @return Returns the scale of the normalization of the raw byte inputs.
    */
-  private double sigmoid(double z){
-    return (1 / (1 + Math.exp(-z)));
+  public double getInputScale(){
+    return inputScale_;
   }
 
   /**
-   *  @brief Getter method for the sizes of layers of this independent.
+   *  @brief Getter method for the offset of the normalization of the raw byte inputs.
    *
-   *  @return Returns the sizes of the layers of this independent.
+   *  @return Returns the offset of the normalization of the raw byte inputs.
    */
-  public int[] getSizesOfLayers(){
-    return sizesOfLayers_;
+  public double getInputOffset(){
+    return inputOffset_;
   }
 
   /**
-   *  @brief Setter method for the momentum coefficient.
+   *  @brief Setter method for the number of threads used by train and trainHogwild.
    *
-   *  @param momentumCoefficient The new value for the momentum coefficient.
+   *  When the number of threads is larger than one, the samples of each batch of train are split among that many
+   *  threads, each one with its own derivative buffers, which are summed at the end of the batch. trainHogwild runs
+   *  that many workers.
+   *
+   *  @param numberOfThreads The number of threads to use. The default value is one.
    */
-  public void setMomentumCoefficient(double momentumCoefficient){
-    momentumCoefficient_ = momentumCoefficient;
+  public void setNumberOfThreads(int numberOfThreads){
+    numberOfThreads_ = Math.max(1, numberOfThreads);
   }
 
   /**
-   *  @brief Getter method for the momentum coefficient.
+   *  @brief Getter method for the number of threads used by train and trainHogwild.
    *
-   *  @return Returns the current value of the momentum coefficient.
+   *  @return Returns the number of threads used by train and trainHogwild.
    */
-  public double getMomentumCoefficient(){
-    return momentumCoefficient_;
+  public int getNumberOfThreads(){
+    return numberOfThreads_;
   }
 
   private int numberOfLayers_; //!< The number of layers of this NeuralNetwork.
   private int[] sizesOfLayers_; //!< The number of neurons in each layer.
 
-  private double[][][] weights_; //!< The weight parameters of this NeuralNetwork. dimensions are: layer, neuron, weight.
+  private double[][] weights_; //!< The weight parameters of this NeuralNetwork. For each layer, the weights are kept
+                               //!< in one row-major buffer, that is, weight k of neuron j is at j * sizesOfLayers_[i] + k.
+  private double[][] transposedWeights_; //!< A column-major copy of weights_, used by the back propagation algorithm.
+                                         //!< It is null for the first layer.
   private double[][] biases_; //!< The bias parameters of this NeuralNetwork. dimensions are: layer, neuron.
+  private Activation[] activations_; //!< The Activation of each layer, except the input layer.
 
   private double momentumCoefficient_; //!< The momentum coefficient of this NeuralNetwork.
+  private Optimizer optimizer_; //!< The Optimizer used by train, or null to use defaultOptimizer_.
+  private Optimizer defaultOptimizer_; //!< A Momentum with momentumCoefficient_, created on first use.
+
+  private volatile NeuralNetwork snapshot_; //!< The last snapshot published by this NeuralNetwork.
+  private boolean autoPublish_; //!< Whether train and trainHogwild publish a snapshot when they return.
+  private boolean readOnly_; //!< Whether this NeuralNetwork is a read-only snapshot.
+
+  private ComputeBackend computeBackend_; //!< The ComputeBackend that runs the vector kernels of this NeuralNetwork.
+
+  private boolean sparseInput_; //!< Whether the first layer only visits the foreground pixels of the input.
+  private double inputBackground_ = -1; //!< The value of the background pixels of the input.
+  private double[] weightSums_; //!< The sum of the weights of each neuron of the first layer. It is null unless
+                                //!< sparseInput_ is set.
+  private double inputScale_ = 1 / 127.5; //!< The scale of the normalization of the raw byte inputs.
+  private double inputOffset_ = -1; //!< The offset of the normalization of the raw byte inputs.
+
+  private boolean[][] pruningMasks_; //!< Whether each weight has been pruned, in the layout of weights_, or null if
+                                     //!< this NeuralNetwork has not been pruned.
+
+  private int numberOfThreads_; //!< The number of threads used by train and trainHogwild.
+  private ForkJoinPool forkJoinPool_; //!< The pool that runs the workers of train and trainHogwild, created on first
+                                      //!< use.
+  private double[][][] workerNablaWeights_; //!< The weight derivative buffers of each worker, kept between batches.
+  private double[][][] workerNablaBiases_; //!< The bias derivative buffers of each worker, kept between batches.
+  private TrainingState trainingState_; //!< The TrainingState used by train when none is given, created on first use.
+
+  private static final int TRANSPOSE_BLOCK_SIZE = 32; //!< The side of the blocks used when transposing the weights.
+  private static final ComputeBackend SCALAR_BACKEND = new ScalarBackend(); //!< The ComputeBackend of the fused
+                                                                           //!< kernels that accumulate in order.
+  private static final int BATCH_BLOCK_SIZE = 64; //!< The number of samples that feedForwardBatch applies at once.
+  private static final int NEURON_BLOCK_SIZE = 16; //!< The number of neurons whose weights feedForwardBatch keeps in
+                                                   //!< cache at once.
+  private static final int IO_BUFFER_SIZE = 1 << 20; //!< The size of the buffer saveToBinary and loadFromBinary transfer
+                                                    //!< through, in bytes.
+  private static final int XML_BUFFER_SIZE = 1 << 16; //!< The size of the buffer saveToXML writes through, in
+                                                      //!< characters.
 
 }
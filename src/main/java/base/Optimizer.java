@@ -0,0 +1,126 @@
+package main.java.base;
+
+/** @class Optimizer
+ *
+ *  @brief Implements the rule that NeuralNetwork.train uses to update the parameters from their derivatives.
+ *
+ *  An Optimizer is stateless; the moments it keeps for each parameter live in a TrainingState, so the same Optimizer
+ *  can be shared by any number of NeuralNetworks. Each update is a single pass that reads the summed derivative of a
+ *  parameter, updates its moments and the parameter itself, and sets the derivative to zero.
+ *
+ *  The available implementations are SGD, Momentum, Nesterov, RMSProp and Adam. An Optimizer is identified by its
+ *  name, as returned by getName and accepted by create.
+ */
+public abstract class Optimizer{
+  /**
+   *  @brief Updates a range of parameters and sets their derivatives to zero.
+   *
+   *  @param parameters The parameters to update.
+   *  @param nabla The derivatives of the cost function with respect to the parameters, summed over a batch. They are
+   *         set to zero.
+   *  @param firstMoment The first moment of each parameter, or null if getNumberOfMoments() is zero.
+   *  @param secondMoment The second moment of each parameter, or null if getNumberOfMoments() is smaller than two.
+   *  @param length The number of parameters.
+   *  @param gamma The learning rate.
+   *  @param scale The factor that turns the summed derivatives into their average, that is, one over the batch size.
+   *  @param step The number of updates done with these moments so far, including this one, starting from one.
+   */
+  public abstract void update(double[] parameters, double[] nabla, double[] firstMoment, double[] secondMoment,
+                              int length, double gamma, double scale, long step);
+
+  /**
+   *  @brief Getter method for the number of moments this Optimizer keeps for each parameter.
+   *
+   *  @return Returns zero, one or two.
+   */
+  public abstract int getNumberOfMoments();
+
+  /**
+   *  @brief Getter method for the name of this Optimizer.
+   *
+   *  @return Returns the name of this Optimizer, as accepted by create.
+   */
+  public abstract String getName();
+
+  /**
+   *  @brief Getter method for the hyper-parameters of this Optimizer.
+   *
+   *  The hyper-parameters are returned in the order of the arguments of the constructor of the implementation, so
+   *  that create(String, double[]) rebuilds an identical Optimizer from them.
+   *
+   *  @return Returns the hyper-parameters of this Optimizer, an empty array if it has none.
+   */
+  public double[] getHyperParameters(){
+    return new double[0];
+  }
+
+  /**
+   *  @brief Creates an Optimizer with its default hyper-parameters by name.
+   *
+   *  @param name The name of the Optimizer, "sgd", "momentum", "nesterov", "rmsprop" or "adam".
+   *
+   *  @return Returns the created Optimizer.
+   *
+   *  @throws IllegalArgumentException When the name is unknown.
+   */
+  public static Optimizer create(String name){
+    if(SGD_NAME.equals(name)){
+      return new SGD();
+    }
+    if(MOMENTUM.equals(name)){
+      return new Momentum();
+    }
+    if(NESTEROV.equals(name)){
+      return new Nesterov();
+    }
+    if(RMSPROP.equals(name)){
+      return new RMSProp();
+    }
+    if(ADAM.equals(name)){
+      return new Adam();
+    }
+
+    throw new IllegalArgumentException("Unknown Optimizer: " + name);
+  }
+
+  /**
+   *  @brief Creates an Optimizer by name with given hyper-parameters.
+   *
+   *  @param name The name of the Optimizer, "sgd", "momentum", "nesterov", "rmsprop" or "adam".
+   *  @param hyperParameters The hyper-parameters, as returned by getHyperParameters.
+   *
+   *  @return Returns the created Optimizer.
+   *
+   *  @throws IllegalArgumentException When the name is unknown or the number of hyper-parameters is wrong.
+   */
+  public static Optimizer create(String name, double[] hyperParameters){
+    Optimizer optimizer = Optimizer.create(name);
+    int numberOfHyperParameters = optimizer.getHyperParameters().length;
+    if(hyperParameters.length != numberOfHyperParameters){
+      throw new IllegalArgumentException("The Optimizer " + name + " takes " + numberOfHyperParameters +
+                                         " hyper-parameters, not " + hyperParameters.length + ".");
+    }
+
+    if(MOMENTUM.equals(name)){
+      return new Momentum(hyperParameters[0]);
+    }
+    if(NESTEROV.equals(name)){
+      return new Nesterov(hyperParameters[0]);
+    }
+    if(RMSPROP.equals(name)){
+      return new RMSProp(hyperParameters[0], hyperParameters[1]);
+    }
+    if(ADAM.equals(name)){
+      return new Adam(hyperParameters[0], hyperParameters[1], hyperParameters[2]);
+    }
+
+    return optimizer;
+  }
+
+  public static final String SGD_NAME = "sgd"; //!< The name of SGD.
+  public static final String MOMENTUM = "momentum"; //!< The name of Momentum.
+  public static final String NESTEROV = "nesterov"; //!< The name of Nesterov.
+  public static final String RMSPROP = "rmsprop"; //!< The name of RMSProp.
+  public static final String ADAM = "adam"; //!< The name of Adam.
+
+}
@@ -0,0 +1,316 @@
+package main.java.base;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/** @class QuantizedNeuralNetwork
+ *
+ *  @brief Implements an inference-only feed forward neural network whose weights are 8 bit integers.
+ *
+ *  A QuantizedNeuralNetwork is created from a trained NeuralNetwork. The weights of each neuron are scaled so that the
+ *  largest one in magnitude maps to 127 and rounded to a byte. While evaluating an input, the input of each layer is
+ *  quantized too, the dot products are accumulated in integers, and the result is scaled back before the bias and the
+ *  Activation of the layer are applied. An input with negative elements is quantized the same way as the weights. An
+ *  input without any, such as the output of a Sigmoid or a ReLU layer, is quantized to unsigned bytes, its largest
+ *  element mapping to 255, so that it keeps all 8 bits of resolution. The weights take one byte instead of eight, at
+ *  the cost of a small loss of accuracy.
+ */
+public class QuantizedNeuralNetwork implements InferenceModel{
+  /**
+   *  @brief Default constructor.
+   */
+  public QuantizedNeuralNetwork(){
+  }
+
+  /**
+   *  @brief Constructor.
+   *
+   *  Quantizes the weights of a trained NeuralNetwork.
+   *
+   *  @param neuralNetwork The NeuralNetwork to be quantized.
+   */
+  public QuantizedNeuralNetwork(NeuralNetwork neuralNetwork){
+    sizesOfLayers_ = neuralNetwork.getSizesOfLayers().clone();
+    numberOfLayers_ = sizesOfLayers_.length;
+
+    this.allocateParameters();
+
+    for(int i = 0;i < numberOfLayers_ - 1;i++){
+      double[] weights = neuralNetwork.getWeights(i);
+      double[] biases = neuralNetwork.getBiases(i);
+      int inputSize = sizesOfLayers_[i];
+
+      for(int j = 0;j < sizesOfLayers_[i + 1];j++){
+        int offset = j * inputSize;
+
+        double maximum = 0;
+        for(int k = 0;k < inputSize;k++){
+          maximum = Math.max(maximum, Math.abs(weights[offset + k]));
+        }
+        // Round with the scale as it is stored, so that a loaded QuantizedNeuralNetwork is the same.
+        float scale = (maximum > 0) ? (float)(maximum / 127) : 1;
+
+        for(int k = 0;k < inputSize;k++){
+          weights_[i][offset + k] = (byte)Math.round(weights[offset + k] / scale);
+        }
+        scales_[i][j] = scale;
+        biases_[i][j] = (float)biases[j];
+      }
+
+      activations_[i] = neuralNetwork.getActivation(i);
+    }
+  }
+
+  /**
+   *  @brief Applies an input to this QuantizedNeuralNetwork and returns its output.
+   *
+   *  @param input The input to this QuantizedNeuralNetwork. The length of the input must be equal to
+   *         sizesOfLayers_[0].
+   *
+   *  @return Returns the output of this QuantizedNeuralNetwork for the given input.
+   */
+  @Override
+  public double[] feedForward(double[] input){
+    return this.feedForward(input, new InferenceContext(sizesOfLayers_),
+                            new double[sizesOfLayers_[numberOfLayers_ - 1]]);
+  }
+
+  /**
+   *  @brief Applies an input to this QuantizedNeuralNetwork and writes its output to a given array, without
+   *         allocating any memory.
+   *
+   *  The first time a context is used with a QuantizedNeuralNetwork, its byte buffer is allocated.
+   *
+   *  @param input The input to this QuantizedNeuralNetwork. The length of the input must be equal to
+   *         sizesOfLayers_[0].
+   *  @param context The InferenceContext that holds the activations of the hidden layers.
+   *  @param output The array where the output will be written.
+   *
+   *  @return Returns the output array.
+   */
+  @Override
+  public double[] feedForward(double[] input, InferenceContext context, double[] output){
+    context.allocateByteBuffer();
+
+    double[] inputBuffer = input;
+    double[] outputBuffer = context.firstBuffer_;
+    byte[] quantizedInput = context.byteBuffer_;
+
+    for(int i = 0;i < numberOfLayers_ - 1;i++){
+      if(i == numberOfLayers_ - 2){
+        outputBuffer = output;
+      }
+
+      int inputSize = sizesOfLayers_[i];
+
+      // Quantize the input of the layer, to unsigned bytes if it has no negative elements.
+      double minimum = 0;
+      double maximum = 0;
+      for(int k = 0;k < inputSize;k++){
+        minimum = Math.min(minimum, inputBuffer[k]);
+        maximum = Math.max(maximum, Math.abs(inputBuffer[k]));
+      }
+      boolean unsigned = (minimum >= 0);
+      double inputScale = (maximum > 0) ? maximum / (unsigned ? 255 : 127) : 1;
+      for(int k = 0;k < inputSize;k++){
+        quantizedInput[k] = (byte)Math.round(inputBuffer[k] / inputScale);
+      }
+
+      byte[] weights = weights_[i];
+      for(int j = 0;j < sizesOfLayers_[i + 1];j++){
+        int offset = j * inputSize;
+
+        int sum = 0;
+        if(unsigned){
+          for(int k = 0;k < inputSize;k++){
+            sum += weights[offset + k] * (quantizedInput[k] & 0xFF);
+          }
+        }
+        else{
+          for(int k = 0;k < inputSize;k++){
+            sum += weights[offset + k] * quantizedInput[k];
+          }
+        }
+
+        outputBuffer[j] = sum * scales_[i][j] * inputScale + biases_[i][j];
+      }
+      activations_[i].apply(outputBuffer, 0, sizesOfLayers_[i + 1]);
+
+      inputBuffer = outputBuffer;
+      outputBuffer = (outputBuffer == context.firstBuffer_) ? context.secondBuffer_ : context.firstBuffer_;
+    }
+
+    return output;
+  }
+
+  /**
+   *  @brief Saves this QuantizedNeuralNetwork to a binary file.
+   *
+   *  The file starts with MAGIC_NUMBER, followed by the number of layers and the size of each layer. Then, for each
+   *  neuron, its scale and its bias, as 4 byte floats, are followed by its weights, one byte each. The parameters are
+   *  followed by the names of the Activations of the layers.
+   *
+   *  @param path The absolute, or relative path of the file where this QuantizedNeuralNetwork will be saved.
+   *
+   *  @throws IOException When an exception occurs while writing on the file.
+   */
+  public void saveToBinary(String path) throws IOException{
+    DataOutputStream dataOutputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path)));
+
+    dataOutputStream.writeInt(MAGIC_NUMBER);
+    dataOutputStream.writeInt(numberOfLayers_);
+    for(int i = 0;i < numberOfLayers_;i++){
+      dataOutputStream.writeInt(sizesOfLayers_[i]);
+    }
+
+    for(int i = 0;i < numberOfLayers_ - 1;i++){
+      for(int j = 0;j < sizesOfLayers_[i + 1];j++){
+        dataOutputStream.writeFloat(scales_[i][j]);
+        dataOutputStream.writeFloat(biases_[i][j]);
+        dataOutputStream.write(weights_[i], j * sizesOfLayers_[i], sizesOfLayers_[i]);
+      }
+    }
+
+    Activation.writeActivations(dataOutputStream, activations_);
+
+    dataOutputStream.close();
+  }
+
+  /**
+   *  @brief Loads this QuantizedNeuralNetwork from a binary file written by saveToBinary.
+   *
+   *  @param path The path of the file.
+   *
+   *  @throws IOException When an exception occurs while reading from the file, or when the file was not written by
+   *          saveToBinary.
+   */
+  public void loadFromBinary(String path) throws IOException{
+    DataInputStream dataInputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(path)));
+
+    try{
+      if(dataInputStream.readInt() != MAGIC_NUMBER){
+        throw new IOException(path + " is not a QuantizedNeuralNetwork binary file.");
+      }
+
+      numberOfLayers_ = dataInputStream.readInt();
+      sizesOfLayers_ = new int[numberOfLayers_];
+      for(int i = 0;i < numberOfLayers_;i++){
+        sizesOfLayers_[i] = dataInputStream.readInt();
+      }
+
+      this.allocateParameters();
+
+      for(int i = 0;i < numberOfLayers_ - 1;i++){
+        for(int j = 0;j < sizesOfLayers_[i + 1];j++){
+          scales_[i][j] = dataInputStream.readFloat();
+          biases_[i][j] = dataInputStream.readFloat();
+          dataInputStream.readFully(weights_[i], j * sizesOfLayers_[i], sizesOfLayers_[i]);
+        }
+      }
+
+      activations_ = Activation.readActivations(dataInputStream, numberOfLayers_ - 1);
+    }
+    finally{
+      dataInputStream.close();
+    }
+  }
+
+  /**
+   *  @brief Creates a QuantizedNeuralNetwork and loads it from the given binary file.
+   *
+   *  @param path The path of a binary file written by saveToBinary.
+   *
+   *  @return Returns the created QuantizedNeuralNetwork.
+   *
+   *  @throws IOException When an exception occurs while reading from the file.
+   */
+  public static QuantizedNeuralNetwork createFromBinary(String path) throws IOException{
+    QuantizedNeuralNetwork quantizedNeuralNetwork = new QuantizedNeuralNetwork();
+
+    quantizedNeuralNetwork.loadFromBinary(path);
+
+    return quantizedNeuralNetwork;
+  }
+
+  /**
+   *  @brief Quantizes a binary file written by NeuralNetwork.saveToBinary.
+   *
+   *  @param neuralNetworkPath The path of the binary file of the NeuralNetwork.
+   *  @param quantizedNeuralNetworkPath The path of the file where the QuantizedNeuralNetwork will be saved.
+   *
+   *  @return Returns the QuantizedNeuralNetwork.
+   *
+   *  @throws IOException When an exception occurs while reading or writing the files.
+   */
+  public static QuantizedNeuralNetwork quantizeBinary(String neuralNetworkPath, String quantizedNeuralNetworkPath)
+                                                      throws IOException{
+    QuantizedNeuralNetwork quantizedNeuralNetwork =
+      new QuantizedNeuralNetwork(NeuralNetwork.createFromBinary(neuralNetworkPath));
+
+    quantizedNeuralNetwork.saveToBinary(quantizedNeuralNetworkPath);
+
+    return quantizedNeuralNetwork;
+  }
+
+  /**
+   *  @brief Allocates the weights, the scales and the biases according to sizesOfLayers_.
+   */
+  private void allocateParameters(){
+    weights_ = new byte[numberOfLayers_ - 1][];
+    scales_ = new float[numberOfLayers_ - 1][];
+    biases_ = new float[numberOfLayers_ - 1][];
+    activations_ = new Activation[numberOfLayers_ - 1];
+
+    for(int i = 0;i < numberOfLayers_ - 1;i++){
+      weights_[i] = new byte[sizesOfLayers_[i + 1] * sizesOfLayers_[i]];
+      scales_[i] = new float[sizesOfLayers_[i + 1]];
+      biases_[i] = new float[sizesOfLayers_[i + 1]];
+    }
+  }
+
+  /**
+   *  @brief Getter method for the number of layers of this QuantizedNeuralNetwork.
+   *
+   *  @return Returns the number of layers of this QuantizedNeuralNetwork.
+   */
+  public int getNumberOfLayers(){
+    return numberOfLayers_;
+  }
+
+  /**
+   *  @brief Getter method for the Activation of a layer.
+   *
+   *  @param layer The layer, from 0 for the first hidden layer to getNumberOfLayers() - 2 for the output layer.
+   *
+   *  @return Returns the Activation of the neurons of the layer.
+   */
+  public Activation getActivation(int layer){
+    return activations_[layer];
+  }
+
+  /**
+   *  @brief Getter method for the sizes of layers of this QuantizedNeuralNetwork.
+   *
+   *  @return Returns the sizes of the layers of this QuantizedNeuralNetwork.
+   */
+  @Override
+  public int[] getSizesOfLayers(){
+    return sizesOfLayers_;
+  }
+
+  private int numberOfLayers_; //!< The number of layers of this QuantizedNeuralNetwork.
+  private int[] sizesOfLayers_; //!< The number of neurons in each layer.
+
+  private byte[][] weights_; //!< The quantized row-major weights of each layer.
+  private float[][] scales_; //!< The scale of the weights of each neuron, that is, the value of a quantized step.
+  private float[][] biases_; //!< The biases of each layer.
+  private Activation[] activations_; //!< The Activation of each layer, except the input layer.
+
+  public static final int MAGIC_NUMBER = 0x514E4E38; //!< The magic number at the beginning of a binary file, "QNN8".
+
+}
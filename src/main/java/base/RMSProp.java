@@ -0,0 +1,64 @@
+package main.java.base;
+
+/** @class RMSProp
+ *
+ *  @brief Implements RMSProp.
+ *
+ *  A running average of the square of the derivative of each parameter is kept, and the parameter moves by
+ *  -gamma * derivative / (sqrt(average) + epsilon), so that every parameter takes steps of about the same size.
+ */
+public class RMSProp extends Optimizer{
+  /**
+   *  @brief Constructor.
+   *
+   *  Uses DEFAULT_DECAY and DEFAULT_EPSILON.
+   */
+  public RMSProp(){
+    this(DEFAULT_DECAY, DEFAULT_EPSILON);
+  }
+
+  /**
+   *  @brief Constructor.
+   *
+   *  @param decay The weight of the old average in the running average of the squared derivatives, in [0, 1).
+   *  @param epsilon The term added to the root mean square, to avoid divisions by zero.
+   */
+  public RMSProp(double decay, double epsilon){
+    decay_ = decay;
+    epsilon_ = epsilon;
+  }
+
+  @Override
+  public void update(double[] parameters, double[] nabla, double[] firstMoment, double[] secondMoment, int length,
+                     double gamma, double scale, long step){
+    for(int k = 0;k < length;k++){
+      double derivative = nabla[k] * scale;
+
+      firstMoment[k] = decay_ * firstMoment[k] + (1 - decay_) * derivative * derivative;
+      parameters[k] -= gamma * derivative / (Math.sqrt(firstMoment[k]) + epsilon_);
+      nabla[k] = 0;
+    }
+  }
+
+  @Override
+  public int getNumberOfMoments(){
+    return 1;
+  }
+
+  @Override
+  public String getName(){
+    return RMSPROP;
+  }
+
+  @Override
+  public double[] getHyperParameters(){
+    return new double[] {decay_, epsilon_};
+  }
+
+  public static final double DEFAULT_DECAY = 0.9; //!< The default decay of the running average.
+  public static final double DEFAULT_EPSILON = 1e-8; //!< The default epsilon.
+
+  private final double decay_; //!< The weight of the old average in the running average.
+  private final double epsilon_; //!< The term added to the root mean square.
+
+}
@@ -0,0 +1,39 @@
+package main.java.base;
+
+/** @class ReLU
+ *
+ *  @brief Implements the rectified linear unit, max(0, z).
+ */
+public class ReLU extends Activation{
+  @Override
+  public double apply(double z){
+    return (z > 0) ? z : 0;
+  }
+
+  @Override
+  public double derivative(double activation){
+    return (activation > 0) ? 1 : 0;
+  }
+
+  @Override
+  public void apply(double[] values, int offset, int length){
+    for(int k = offset;k < offset + length;k++){
+      values[k] = Math.max(values[k], 0);
+    }
+  }
+
+  @Override
+  public void multiplyByDerivative(double[] activations, double[] delta, int length){
+    for(int k = 0;k < length;k++){
+      if(activations[k] <= 0){
+        delta[k] = 0;
+      }
+    }
+  }
+
+  @Override
+  public String getName(){
+    return RELU;
+  }
+
+}
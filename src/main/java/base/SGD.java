@@ -0,0 +1,29 @@
+package main.java.base;
+
+/** @class SGD
+ *
+ *  @brief Implements plain gradient descent, parameter -= gamma * average derivative.
+ */
+public class SGD extends Optimizer{
+  @Override
+  public void update(double[] parameters, double[] nabla, double[] firstMoment, double[] secondMoment, int length,
+                     double gamma, double scale, long step){
+    double rate = gamma * scale;
+
+    for(int k = 0;k < length;k++){
+      parameters[k] -= rate * nabla[k];
+      nabla[k] = 0;
+    }
+  }
+
+  @Override
+  public int getNumberOfMoments(){
+    return 0;
+  }
+
+  @Override
+  public String getName(){
+    return SGD_NAME;
+  }
+
+}
@@ -0,0 +1,51 @@
+package main.java.base;
+
+/** @class ScalarBackend
+ *
+ *  @brief Implements a ComputeBackend with plain loops.
+ *
+ *  The dot product is accumulated in order, one term at a time, so the results do not depend on the hardware.
+ */
+public class ScalarBackend extends ComputeBackend{
+  @Override
+  public double dot(double[] a, int aOffset, double[] b, int bOffset, int length){
+    double sum = 0;
+    for(int k = 0;k < length;k++){
+      sum += a[aOffset + k] * b[bOffset + k];
+    }
+
+    return sum;
+  }
+
+  @Override
+  public void dot4(double[] a, int aOffset, double[] b, int bOffset0, int bOffset1, int bOffset2, int bOffset3,
+                   int length, double[] results){
+    double sum0 = 0, sum1 = 0, sum2 = 0, sum3 = 0;
+    for(int k = 0;k < length;k++){
+      double value = a[aOffset + k];
+
+      sum0 += value * b[bOffset0 + k];
+      sum1 += value * b[bOffset1 + k];
+      sum2 += value * b[bOffset2 + k];
+      sum3 += value * b[bOffset3 + k];
+    }
+
+    results[0] = sum0;
+    results[1] = sum1;
+    results[2] = sum2;
+    results[3] = sum3;
+  }
+
+  @Override
+  public void axpy(double alpha, double[] x, int xOffset, double[] y, int yOffset, int length){
+    for(int k = 0;k < length;k++){
+      y[yOffset + k] += alpha * x[xOffset + k];
+    }
+  }
+
+  @Override
+  public String getName(){
+    return SCALAR;
+  }
+
+}
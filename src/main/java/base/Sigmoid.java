@@ -0,0 +1,38 @@
+package main.java.base;
+
+/** @class Sigmoid
+ *
+ *  @brief Implements the sigmoid function, 1 / (1 + e^-z).
+ *
+ *  This is the default Activation of every layer. When it is the Activation of the output layer, the cost function is
+ *  the cross entropy.
+ */
+public class Sigmoid extends Activation{
+  @Override
+  public double apply(double z){
+    return 1 / (1 + Math.exp(-z));
+  }
+
+  @Override
+  public double derivative(double activation){
+    return activation * (1 - activation);
+  }
+
+  @Override
+  public void multiplyByDerivative(double[] activations, double[] delta, int length){
+    for(int k = 0;k < length;k++){
+      delta[k] *= activations[k] * (1 - activations[k]);
+    }
+  }
+
+  @Override
+  public double outputError(double activation, double label){
+    return activation - label;
+  }
+
+  @Override
+  public String getName(){
+    return SIGMOID;
+  }
+
+}
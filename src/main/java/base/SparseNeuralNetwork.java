@@ -0,0 +1,327 @@
+package main.java.base;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/** @class SparseNeuralNetwork
+ *
+ *  @brief Implements an inference-only feed forward neural network whose weights are stored in compressed sparse row
+ *         (CSR) format.
+ *
+ *  A SparseNeuralNetwork is created from a NeuralNetwork, usually one that has been pruned with NeuralNetwork.prune,
+ *  and keeps only its non-zero weights. The weights of each layer are stored row after row, that is, neuron after
+ *  neuron, along with the index of the input each weight is applied to, and rowPointers_[i][j] is the position of
+ *  the first weight of neuron j. The time needed to evaluate an input and the size of the parameters are proportional
+ *  to the number of non-zero weights, and the outputs are equal to the ones of the NeuralNetwork it was created from.
+ */
+public class SparseNeuralNetwork implements InferenceModel{
+  /**
+   *  @brief Default constructor.
+   */
+  public SparseNeuralNetwork(){
+  }
+
+  /**
+   *  @brief Constructor.
+   *
+   *  Keeps the non-zero weights of a NeuralNetwork.
+   *
+   *  @param neuralNetwork The NeuralNetwork to be converted.
+   */
+  public SparseNeuralNetwork(NeuralNetwork neuralNetwork){
+    sizesOfLayers_ = neuralNetwork.getSizesOfLayers().clone();
+    numberOfLayers_ = sizesOfLayers_.length;
+
+    values_ = new double[numberOfLayers_ - 1][];
+    columnIndices_ = new int[numberOfLayers_ - 1][];
+    rowPointers_ = new int[numberOfLayers_ - 1][];
+    biases_ = new double[numberOfLayers_ - 1][];
+    activations_ = new Activation[numberOfLayers_ - 1];
+
+    for(int i = 0;i < numberOfLayers_ - 1;i++){
+      double[] weights = neuralNetwork.getWeights(i);
+      int inputSize = sizesOfLayers_[i];
+
+      int numberOfNonZeroWeights = 0;
+      for(int k = 0;k < weights.length;k++){
+        if(weights[k] != 0){
+          numberOfNonZeroWeights++;
+        }
+      }
+
+      values_[i] = new double[numberOfNonZeroWeights];
+      columnIndices_[i] = new int[numberOfNonZeroWeights];
+      rowPointers_[i] = new int[sizesOfLayers_[i + 1] + 1];
+
+      int position = 0;
+      for(int j = 0;j < sizesOfLayers_[i + 1];j++){
+        rowPointers_[i][j] = position;
+
+        int offset = j * inputSize;
+        for(int k = 0;k < inputSize;k++){
+          if(weights[offset + k] != 0){
+            values_[i][position] = weights[offset + k];
+            columnIndices_[i][position] = k;
+            position++;
+          }
+        }
+      }
+      rowPointers_[i][sizesOfLayers_[i + 1]] = position;
+
+      biases_[i] = neuralNetwork.getBiases(i).clone();
+      activations_[i] = neuralNetwork.getActivation(i);
+    }
+  }
+
+  /**
+   *  @brief Applies an input to this SparseNeuralNetwork and returns its output.
+   *
+   *  @param input The input to this SparseNeuralNetwork. The length of the input must be equal to sizesOfLayers_[0].
+   *
+   *  @return Returns the output of this SparseNeuralNetwork for the given input.
+   */
+  @Override
+  public double[] feedForward(double[] input){
+    return this.feedForward(input, new InferenceContext(sizesOfLayers_),
+                            new double[sizesOfLayers_[numberOfLayers_ - 1]]);
+  }
+
+  /**
+   *  @brief Applies an input to this SparseNeuralNetwork and writes its output to a given array, without allocating
+   *         any memory.
+   *
+   *  @param input The input to this SparseNeuralNetwork. The length of the input must be equal to sizesOfLayers_[0].
+   *  @param context The InferenceContext that holds the activations of the hidden layers.
+   *  @param output The array where the output will be written.
+   *
+   *  @return Returns the output array.
+   */
+  @Override
+  public double[] feedForward(double[] input, InferenceContext context, double[] output){
+    double[] inputBuffer = input;
+    double[] outputBuffer = context.firstBuffer_;
+
+    for(int i = 0;i < numberOfLayers_ - 1;i++){
+      if(i == numberOfLayers_ - 2){
+        outputBuffer = output;
+      }
+
+      double[] values = values_[i];
+      int[] columnIndices = columnIndices_[i];
+      int[] rowPointers = rowPointers_[i];
+      double[] biases = biases_[i];
+      for(int j = 0;j < sizesOfLayers_[i + 1];j++){
+        double sum = 0;
+        for(int k = rowPointers[j];k < rowPointers[j + 1];k++){
+          sum += values[k] * inputBuffer[columnIndices[k]];
+        }
+
+        outputBuffer[j] = sum + biases[j];
+      }
+      activations_[i].apply(outputBuffer, 0, sizesOfLayers_[i + 1]);
+
+      inputBuffer = outputBuffer;
+      outputBuffer = (outputBuffer == context.firstBuffer_) ? context.secondBuffer_ : context.firstBuffer_;
+    }
+
+    return output;
+  }
+
+  /**
+   *  @brief Saves this SparseNeuralNetwork to a binary file.
+   *
+   *  The file starts with MAGIC_NUMBER, followed by the number of layers and the size of each layer. Then, for each
+   *  neuron, its bias and its number of non-zero weights are followed by the indices of the inputs of these weights,
+   *  as 4 byte integers, and by the weights themselves, as 8 byte doubles. The parameters are followed by the names of
+   *  the Activations of the layers.
+   *
+   *  @param path The absolute, or relative path of the file where this SparseNeuralNetwork will be saved.
+   *
+   *  @throws IOException When an exception occurs while writing on the file.
+   */
+  public void saveToBinary(String path) throws IOException{
+    DataOutputStream dataOutputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path)));
+
+    dataOutputStream.writeInt(MAGIC_NUMBER);
+    dataOutputStream.writeInt(numberOfLayers_);
+    for(int i = 0;i < numberOfLayers_;i++){
+      dataOutputStream.writeInt(sizesOfLayers_[i]);
+    }
+
+    for(int i = 0;i < numberOfLayers_ - 1;i++){
+      for(int j = 0;j < sizesOfLayers_[i + 1];j++){
+        int start = rowPointers_[i][j];
+        int end = rowPointers_[i][j + 1];
+
+        dataOutputStream.writeDouble(biases_[i][j]);
+        dataOutputStream.writeInt(end - start);
+        for(int k = start;k < end;k++){
+          dataOutputStream.writeInt(columnIndices_[i][k]);
+        }
+        for(int k = start;k < end;k++){
+          dataOutputStream.writeDouble(values_[i][k]);
+        }
+      }
+    }
+
+    Activation.writeActivations(dataOutputStream, activations_);
+
+    dataOutputStream.close();
+  }
+
+  /**
+   *  @brief Loads this SparseNeuralNetwork from a binary file written by saveToBinary.
+   *
+   *  @param path The path of the file.
+   *
+   *  @throws IOException When an exception occurs while reading from the file, or when the file was not written by
+   *          saveToBinary.
+   */
+  public void loadFromBinary(String path) throws IOException{
+    DataInputStream dataInputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(path)));
+
+    try{
+      if(dataInputStream.readInt() != MAGIC_NUMBER){
+        throw new IOException(path + " is not a SparseNeuralNetwork binary file.");
+      }
+
+      numberOfLayers_ = dataInputStream.readInt();
+      sizesOfLayers_ = new int[numberOfLayers_];
+      for(int i = 0;i < numberOfLayers_;i++){
+        sizesOfLayers_[i] = dataInputStream.readInt();
+      }
+
+      values_ = new double[numberOfLayers_ - 1][];
+      columnIndices_ = new int[numberOfLayers_ - 1][];
+      rowPointers_ = new int[numberOfLayers_ - 1][];
+      biases_ = new double[numberOfLayers_ - 1][];
+
+      for(int i = 0;i < numberOfLayers_ - 1;i++){
+        int inputSize = sizesOfLayers_[i];
+
+        // The number of non-zero weights of the layer is not known in advance, so the arrays grow as needed.
+        double[] values = new double[16];
+        int[] columnIndices = new int[16];
+        rowPointers_[i] = new int[sizesOfLayers_[i + 1] + 1];
+        biases_[i] = new double[sizesOfLayers_[i + 1]];
+
+        int position = 0;
+        for(int j = 0;j < sizesOfLayers_[i + 1];j++){
+          rowPointers_[i][j] = position;
+
+          biases_[i][j] = dataInputStream.readDouble();
+          int numberOfNonZeroWeights = dataInputStream.readInt();
+          if(numberOfNonZeroWeights < 0 || numberOfNonZeroWeights > inputSize){
+            throw new IOException(path + " is corrupted.");
+          }
+
+          if(position + numberOfNonZeroWeights > values.length){
+            int length = Math.max(2 * values.length, position + numberOfNonZeroWeights);
+            values = Arrays.copyOf(values, length);
+            columnIndices = Arrays.copyOf(columnIndices, length);
+          }
+
+          for(int k = position;k < position + numberOfNonZeroWeights;k++){
+            columnIndices[k] = dataInputStream.readInt();
+            if(columnIndices[k] < 0 || columnIndices[k] >= inputSize){
+              throw new IOException(path + " is corrupted.");
+            }
+          }
+          for(int k = position;k < position + numberOfNonZeroWeights;k++){
+            values[k] = dataInputStream.readDouble();
+          }
+          position += numberOfNonZeroWeights;
+        }
+        rowPointers_[i][sizesOfLayers_[i + 1]] = position;
+
+        values_[i] = Arrays.copyOf(values, position);
+        columnIndices_[i] = Arrays.copyOf(columnIndices, position);
+      }
+
+      activations_ = Activation.readActivations(dataInputStream, numberOfLayers_ - 1);
+    }
+    finally{
+      dataInputStream.close();
+    }
+  }
+
+  /**
+   *  @brief Creates a SparseNeuralNetwork and loads it from the given binary file.
+   *
+   *  @param path The path of a binary file written by saveToBinary.
+   *
+   *  @return Returns the created SparseNeuralNetwork.
+   *
+   *  @throws IOException When an exception occurs while reading from the file.
+   */
+  public static SparseNeuralNetwork createFromBinary(String path) throws IOException{
+    SparseNeuralNetwork sparseNeuralNetwork = new SparseNeuralNetwork();
+
+    sparseNeuralNetwork.loadFromBinary(path);
+
+    return sparseNeuralNetwork;
+  }
+
+  /**
+   *  @brief Returns the number of non-zero weights of this SparseNeuralNetwork.
+   *
+   *  @return Returns the number of weights, over all the layers, that are stored.
+   */
+  public int getNumberOfNonZeroWeights(){
+    int numberOfNonZeroWeights = 0;
+    for(int i = 0;i < numberOfLayers_ - 1;i++){
+      numberOfNonZeroWeights += values_[i].length;
+    }
+
+    return numberOfNonZeroWeights;
+  }
+
+  /**
+   *  @brief Getter method for the number of layers of this SparseNeuralNetwork.
+   *
+   *  @return Returns the number of layers of this SparseNeuralNetwork.
+   */
+  public int getNumberOfLayers(){
+    return numberOfLayers_;
+  }
+
+  /**
+   *  @brief Getter method for the Activation of a layer.
+   *
+   *  @param layer The layer, from 0 for the first hidden layer to getNumberOfLayers() - 2 for the output layer.
+   *
+   *  @return Returns the Activation of the neurons of the layer.
+   */
+  public Activation getActivation(int layer){
+    return activations_[layer];
+  }
+
+  /**
+   *  @brief Getter method for the sizes of layers of this SparseNeuralNetwork.
+   *
+   *  @return Returns the sizes of the layers of this SparseNeuralNetwork.
+   */
+  @Override
+  public int[] getSizesOfLayers(){
+    return sizesOfLayers_;
+  }
+
+  private int numberOfLayers_; //!< The number of layers of this SparseNeuralNetwork.
+  private int[] sizesOfLayers_; //!< The number of neurons in each layer.
+
+  private double[][] values_; //!< The non-zero weights of each layer, neuron after neuron.
+  private int[][] columnIndices_; //!< The index of the input of each non-zero weight.
+  private int[][] rowPointers_; //!< The position of the first non-zero weight of each neuron in values_, followed by
+                                //!< the number of non-zero weights of the layer.
+  private double[][] biases_; //!< The biases of each layer.
+  private Activation[] activations_; //!< The Activation of each layer, except the input layer.
+
+  public static final int MAGIC_NUMBER = 0x534E4E43; //!< The magic number at the beginning of a binary file, "SNNC".
+
+}
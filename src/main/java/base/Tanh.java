@@ -0,0 +1,37 @@
+package main.java.base;
+
+/** @class Tanh
+ *
+ *  @brief Implements the hyperbolic tangent.
+ */
+public class Tanh extends Activation{
+  @Override
+  public double apply(double z){
+    return Math.tanh(z);
+  }
+
+  @Override
+  public double derivative(double activation){
+    return 1 - activation * activation;
+  }
+
+  @Override
+  public void apply(double[] values, int offset, int length){
+    for(int k = offset;k < offset + length;k++){
+      values[k] = Math.tanh(values[k]);
+    }
+  }
+
+  @Override
+  public void multiplyByDerivative(double[] activations, double[] delta, int length){
+    for(int k = 0;k < length;k++){
+      delta[k] *= 1 - activations[k] * activations[k];
+    }
+  }
+
+  @Override
+  public String getName(){
+    return TANH;
+  }
+
+}
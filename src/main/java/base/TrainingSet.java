@@ -0,0 +1,139 @@
+package main.java.base;
+
+/** @class TrainingSet
+ *
+ *  @brief A view of the samples and the labels that a NeuralNetwork is trained on, that does not copy them.
+ *
+ *  The samples are either doubles or raw bytes. Raw bytes are normalized on the fly, inside the kernels of the first
+ *  layer, as set with NeuralNetwork.setInputNormalization, so they never need to be expanded to doubles. The labels are
+ *  either dense, one row of doubles per sample for soft targets, or class indices, one int per sample. A class index c
+ *  stands for the one-hot label whose element c is one, and the error of each output neuron is calculated from the
+ *  index directly.
+ *
+ *  NeuralNetwork.train and NeuralNetwork.trainHogwild take a range of positions of a TrainingSet. By default the
+ *  position of a sample is its index. When indices are set, the sample at position p is the sample indices[p], so a
+ *  shuffled training set is a permutation of its indices, split into consecutive ranges.
+ */
+public class TrainingSet{
+  /**
+   *  @brief Constructor for double samples with dense labels.
+   *
+   *  @param samples The samples. The length of each sample must be equal to the size of the input layer.
+   *  @param labels The label of each sample. The length of each label must be equal to the size of the output layer.
+   */
+  public TrainingSet(double[][] samples, double[][] labels){
+    this(samples, null, labels, null);
+  }
+
+  /**
+   *  @brief Constructor for double samples with class indices.
+   *
+   *  @param samples The samples. The length of each sample must be equal to the size of the input layer.
+   *  @param classes The class index of each sample, from 0 to the size of the output layer - 1.
+   */
+  public TrainingSet(double[][] samples, int[] classes){
+    this(samples, null, null, classes);
+  }
+
+  /**
+   *  @brief Constructor for raw byte samples with dense labels.
+   *
+   *  @param samples The samples, each byte read as an unsigned value. The length of each sample must be equal to the
+   *         size of the input layer.
+   *  @param labels The label of each sample. The length of each label must be equal to the size of the output layer.
+   */
+  public TrainingSet(byte[][] samples, double[][] labels){
+    this(null, samples, labels, null);
+  }
+
+  /**
+   *  @brief Constructor for raw byte samples with class indices.
+   *
+   *  @param samples The samples, each byte read as an unsigned value. The length of each sample must be equal to the
+   *         size of the input layer.
+   *  @param classes The class index of each sample, from 0 to the size of the output layer - 1.
+   */
+  public TrainingSet(byte[][] samples, int[] classes){
+    this(null, samples, null, classes);
+  }
+
+  /**
+   *  @brief Constructor.
+   *
+   *  @param samples The double samples, or null.
+   *  @param byteSamples The raw byte samples, or null.
+   *  @param labels The dense labels, or null.
+   *  @param classes The class indices, or null.
+   */
+  private TrainingSet(double[][] samples, byte[][] byteSamples, double[][] labels, int[] classes){
+    if((samples == null && byteSamples == null) || (labels == null && classes == null)){
+      throw new IllegalArgumentException("The samples and the labels of a TrainingSet must not be null.");
+    }
+
+    samples_ = samples;
+    byteSamples_ = byteSamples;
+    labels_ = labels;
+    classes_ = classes;
+  }
+
+  /**
+   *  @brief Setter method for the indices of the samples.
+   *
+   *  @param indices The index of the sample at each position, or null to take the samples in order. The array is not
+   *         copied, so it can be shuffled in place between epochs.
+   */
+  public void setIndices(int[] indices){
+    indices_ = indices;
+  }
+
+  /**
+   *  @brief Getter method for the indices of the samples.
+   *
+   *  @return Returns the index of the sample at each position, or null if the samples are taken in order.
+   */
+  public int[] getIndices(){
+    return indices_;
+  }
+
+  /**
+   *  @brief Getter method for the number of positions of this TrainingSet.
+   *
+   *  @return Returns the length of the indices if they are set, otherwise the number of samples.
+   */
+  public int getSize(){
+    if(indices_ != null){
+      return indices_.length;
+    }
+
+    return (samples_ != null) ? samples_.length : byteSamples_.length;
+  }
+
+  /**
+   *  @brief Returns the index of the sample at a position.
+   *
+   *  @param position The position.
+   *
+   *  @return Returns the index of the sample.
+   */
+  int sampleAt(int position){
+    return (indices_ == null) ? position : indices_[position];
+  }
+
+  /**
+   *  @brief Returns the class index of a sample.
+   *
+   *  @param sample The index of the sample.
+   *
+   *  @return Returns the class index of the sample, or -1 if the labels are dense.
+   */
+  int labelClass(int sample){
+    return (classes_ == null) ? -1 : classes_[sample];
+  }
+
+  final double[][] samples_; //!< The double samples, or null.
+  final byte[][] byteSamples_; //!< The raw byte samples, or null.
+  final double[][] labels_; //!< The dense label of each sample, or null.
+  final int[] classes_; //!< The class index of each sample, or null.
+  private int[] indices_; //!< The index of the sample at each position, or null.
+
+}
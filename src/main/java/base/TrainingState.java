@@ -0,0 +1,246 @@
+package main.java.base;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/** @class TrainingState
+ *
+ *  @brief Holds the buffers that a NeuralNetwork needs to be trained.
+ *
+ *  A TrainingState is created once, from the sizes of the layers of a NeuralNetwork, and then passed to
+ *  NeuralNetwork.train on every batch, so that training does not allocate any memory for the derivatives and the
+ *  moments of the parameters. Since the moments of the Optimizer are kept in the TrainingState, they carry over from
+ *  one batch to the next. The derivatives are left zeroed by train, so a TrainingState can be reused as is. The
+ *  moments are allocated the first time an Optimizer needs them, and reset when a different Optimizer is used.
+ *
+ *  A TrainingState must only be used by one training NeuralNetwork at a time.
+ */
+public class TrainingState{
+  /**
+   *  @brief Constructor.
+   *
+   *  @param sizesOfLayers The number of neurons in each layer of the NeuralNetwork this TrainingState will be used
+   *         with, as returned by NeuralNetwork.getSizesOfLayers().
+   */
+  public TrainingState(int[] sizesOfLayers){
+    sizesOfLayers_ = sizesOfLayers.clone();
+
+    int numberOfLayers = sizesOfLayers_.length;
+
+    nablaWeights_ = new double[numberOfLayers - 1][];
+    nablaBiases_ = new double[numberOfLayers - 1][];
+    activations_ = new double[numberOfLayers - 1][];
+    delta_ = new double[numberOfLayers - 1][];
+    for(int i = 0;i < numberOfLayers - 1;i++){
+      nablaWeights_[i] = new double[sizesOfLayers_[i + 1] * sizesOfLayers_[i]];
+      nablaBiases_[i] = new double[sizesOfLayers_[i + 1]];
+      activations_[i] = new double[sizesOfLayers_[i + 1]];
+      delta_[i] = new double[sizesOfLayers_[i + 1]];
+    }
+    foreground_ = new int[sizesOfLayers_[0]];
+  }
+
+  /**
+   *  @brief Copy constructor.
+   *
+   *  The copy holds the same moments and number of steps, and it is bound to the same Optimizer, so it can be used to
+   *  continue training from where the given TrainingState is now. Its derivatives are zero.
+   *
+   *  @param trainingState The TrainingState to be copied.
+   */
+  public TrainingState(TrainingState trainingState){
+    this(trainingState.sizesOfLayers_);
+
+    momentWeights_ = new double[trainingState.momentWeights_.length][][];
+    momentBiases_ = new double[trainingState.momentBiases_.length][][];
+    for(int moment = 0;moment < momentWeights_.length;moment++){
+      momentWeights_[moment] = new double[nablaWeights_.length][];
+      momentBiases_[moment] = new double[nablaBiases_.length][];
+
+      for(int i = 0;i < nablaWeights_.length;i++){
+        momentWeights_[moment][i] = trainingState.momentWeights_[moment][i].clone();
+        momentBiases_[moment][i] = trainingState.momentBiases_[moment][i].clone();
+      }
+    }
+
+    step_ = trainingState.step_;
+    optimizer_ = trainingState.optimizer_;
+  }
+
+  /**
+   *  @brief Sets the moments of every parameter and the number of steps to zero, so that the next batch starts as the
+   *         first one.
+   */
+  public void reset(){
+    for(int moment = 0;moment < momentWeights_.length;moment++){
+      for(int i = 0;i < momentWeights_[moment].length;i++){
+        Arrays.fill(momentWeights_[moment][i], 0);
+        Arrays.fill(momentBiases_[moment][i], 0);
+      }
+    }
+
+    step_ = 0;
+  }
+
+  /**
+   *  @brief Writes the number of steps and the moments of this TrainingState to a stream.
+   *
+   *  Only the moments of the Optimizer used on the last update are written.
+   *
+   *  @param dataOutputStream The stream.
+   *
+   *  @throws IOException When an exception occurs while writing on the stream.
+   */
+  public void write(DataOutputStream dataOutputStream) throws IOException{
+    int numberOfMoments = (optimizer_ == null) ? 0 : optimizer_.getNumberOfMoments();
+
+    dataOutputStream.writeLong(step_);
+    dataOutputStream.writeInt(numberOfMoments);
+
+    for(int moment = 0;moment < numberOfMoments;moment++){
+      for(int i = 0;i < nablaWeights_.length;i++){
+        for(int j = 0;j < momentWeights_[moment][i].length;j++){
+          dataOutputStream.writeDouble(momentWeights_[moment][i][j]);
+        }
+        for(int j = 0;j < momentBiases_[moment][i].length;j++){
+          dataOutputStream.writeDouble(momentBiases_[moment][i][j]);
+        }
+      }
+    }
+  }
+
+  /**
+   *  @brief Reads the number of steps and the moments written by write, and binds this TrainingState to an Optimizer.
+   *
+   *  Training continues with the read moments as long as it uses the given Optimizer.
+   *
+   *  @param dataInputStream The stream.
+   *  @param optimizer The Optimizer the moments were kept for.
+   *
+   *  @throws IOException When an exception occurs while reading from the stream, or when the number of moments does
+   *          not match the Optimizer.
+   */
+  public void read(DataInputStream dataInputStream, Optimizer optimizer) throws IOException{
+    long step = dataInputStream.readLong();
+    int numberOfMoments = dataInputStream.readInt();
+    if(numberOfMoments != 0 && numberOfMoments != optimizer.getNumberOfMoments()){
+      throw new IOException("The TrainingState holds " + numberOfMoments + " moments but " + optimizer.getName() +
+                            " keeps " + optimizer.getNumberOfMoments() + ".");
+    }
+
+    optimizer_ = null;
+    this.prepare(optimizer);
+
+    for(int moment = 0;moment < numberOfMoments;moment++){
+      for(int i = 0;i < nablaWeights_.length;i++){
+        for(int j = 0;j < momentWeights_[moment][i].length;j++){
+          momentWeights_[moment][i][j] = dataInputStream.readDouble();
+        }
+        for(int j = 0;j < momentBiases_[moment][i].length;j++){
+          momentBiases_[moment][i][j] = dataInputStream.readDouble();
+        }
+      }
+    }
+
+    step_ = step;
+  }
+
+  /**
+   *  @brief Prepares the moments for an Optimizer.
+   *
+   *  The moments are reset when the Optimizer is not the one used on the previous call, and allocated when they are
+   *  fewer than the Optimizer needs.
+   *
+   *  @param optimizer The Optimizer that will update the parameters.
+   */
+  void prepare(Optimizer optimizer){
+    if(optimizer != optimizer_){
+      this.reset();
+      optimizer_ = optimizer;
+    }
+
+    int numberOfMoments = optimizer.getNumberOfMoments();
+    if(momentWeights_.length >= numberOfMoments){
+      return;
+    }
+
+    double[][][] momentWeights = Arrays.copyOf(momentWeights_, numberOfMoments);
+    double[][][] momentBiases = Arrays.copyOf(momentBiases_, numberOfMoments);
+    for(int moment = momentWeights_.length;moment < numberOfMoments;moment++){
+      momentWeights[moment] = new double[nablaWeights_.length][];
+      momentBiases[moment] = new double[nablaBiases_.length][];
+
+      for(int i = 0;i < nablaWeights_.length;i++){
+        momentWeights[moment][i] = new double[nablaWeights_[i].length];
+        momentBiases[moment][i] = new double[nablaBiases_[i].length];
+      }
+    }
+
+    momentWeights_ = momentWeights;
+    momentBiases_ = momentBiases;
+  }
+
+  /**
+   *  @brief Returns a TrainingSet of given samples and dense labels, reusing the one of the previous call when they
+   *         are the same arrays, so that training on them does not allocate any memory.
+   *
+   *  @param samples The samples.
+   *  @param labels The dense labels.
+   *
+   *  @return Returns a TrainingSet of the samples and the labels, without indices.
+   */
+  TrainingSet getTrainingSet(double[][] samples, double[][] labels){
+    if(trainingSet_ == null || trainingSet_.samples_ != samples || trainingSet_.labels_ != labels){
+      trainingSet_ = new TrainingSet(samples, labels);
+    }
+
+    return trainingSet_;
+  }
+
+  /**
+   *  @brief Getter method for the number of updates done with this TrainingState since it was created or reset.
+   *
+   *  @return Returns the number of updates.
+   */
+  public long getStep(){
+    return step_;
+  }
+
+  /**
+   *  @brief Returns whether this TrainingState can be used with a NeuralNetwork.
+   *
+   *  @param sizesOfLayers The sizes of the layers of the NeuralNetwork.
+   *
+   *  @return Returns true if this TrainingState was created for the same sizes of layers.
+   */
+  public boolean isCompatible(int[] sizesOfLayers){
+    return Arrays.equals(sizesOfLayers_, sizesOfLayers);
+  }
+
+  /**
+   *  @brief Getter method for the sizes of the layers this TrainingState was created for.
+   *
+   *  @return Returns the sizes of the layers this TrainingState was created for.
+   */
+  public int[] getSizesOfLayers(){
+    return sizesOfLayers_;
+  }
+
+  private final int[] sizesOfLayers_; //!< The sizes of the layers this TrainingState was created for.
+
+  double[][] nablaWeights_; //!< The derivative of the cost function with respect to each weight, summed over a batch.
+  double[][] nablaBiases_; //!< The derivative of the cost function with respect to each bias, summed over a batch.
+  double[][][] momentWeights_ = new double[0][][]; //!< The moments of each weight kept by the Optimizer. Dimensions
+                                                  //!< are: moment, layer, weight.
+  double[][][] momentBiases_ = new double[0][][]; //!< The moments of each bias kept by the Optimizer. Dimensions are:
+                                                 //!< moment, layer, neuron.
+  long step_; //!< The number of updates done since this TrainingState was created or reset.
+  private Optimizer optimizer_; //!< The Optimizer used on the last update.
+  double[][] activations_; //!< The output of each neuron for the current sample.
+  double[][] delta_; //!< The error of each neuron for the current sample.
+  int[] foreground_; //!< The indices of the foreground pixels of the current sample, when the input is sparse.
+  private TrainingSet trainingSet_; //!< The TrainingSet returned by the last call to getTrainingSet, or null.
+
+}
@@ -0,0 +1,170 @@
+package main.java.base;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/** @class XMLModelReader
+ *
+ *  @brief A single pass tokenizer for the XML files written by NeuralNetwork.saveToXML.
+ *
+ *  The files hold several top level elements, so they are not documents a standard XML parser accepts. This reader
+ *  goes through the characters once, through a fixed size buffer, and returns either the next tag or the next token of
+ *  the text before it, so a file is read in linear time and in constant memory, whatever its size.
+ */
+class XMLModelReader implements Closeable{
+  /**
+   *  @brief Constructor.
+   *
+   *  @param reader The reader of the file.
+   */
+  XMLModelReader(Reader reader){
+    reader_ = reader;
+  }
+
+  /**
+   *  @brief Skips the text up to the next tag and reads it.
+   *
+   *  @return Returns the next tag, including its angle brackets, or null at the end of the file.
+   *
+   *  @throws IOException When an exception occurs while reading, or when the file ends inside the tag.
+   */
+  String nextTag() throws IOException{
+    int character = this.read();
+    while(character != -1 && character != '<'){
+      character = this.read();
+    }
+    if(character == -1){
+      return null;
+    }
+
+    token_.setLength(0);
+    token_.append('<');
+    do{
+      character = this.read();
+      if(character == -1){
+        throw new IOException("The file ends inside a tag.");
+      }
+      token_.append((char)character);
+    }while(character != '>');
+
+    return token_.toString();
+  }
+
+  /**
+   *  @brief Reads the next whitespace separated token of the text before the next tag.
+   *
+   *  @return Returns the token, or null when only whitespace is left before the next tag or the end of the file.
+   *
+   *  @throws IOException When an exception occurs while reading.
+   */
+  String nextToken() throws IOException{
+    int character = this.peek();
+    while(character != -1 && Character.isWhitespace(character)){
+      position_++;
+      character = this.peek();
+    }
+    if(character == -1 || character == '<'){
+      return null;
+    }
+
+    token_.setLength(0);
+    while(character != -1 && character != '<' && !Character.isWhitespace(character)){
+      token_.append((char)character);
+      position_++;
+      character = this.peek();
+    }
+
+    return token_.toString();
+  }
+
+  /**
+   *  @brief Reads the next token of the text before the next tag as a double.
+   *
+   *  @return Returns the value of the token.
+   *
+   *  @throws IOException When an exception occurs while reading, or when there is no token or it is not a number.
+   */
+  double nextDouble() throws IOException{
+    String token = this.nextToken();
+    if(token == null){
+      throw new IOException("A number is missing.");
+    }
+
+    try{
+      return Double.parseDouble(token);
+    }
+    catch(NumberFormatException exception){
+      throw new IOException(token + " is not a number.");
+    }
+  }
+
+  /**
+   *  @brief Reads the next tag and checks that it is the expected one.
+   *
+   *  @param tag The expected tag.
+   *
+   *  @throws IOException When an exception occurs while reading, or when the next tag is a different one.
+   */
+  void expectTag(String tag) throws IOException{
+    String nextTag = this.nextTag();
+    if(!tag.equals(nextTag)){
+      throw new IOException("Expected " + tag + " but found " + nextTag + ".");
+    }
+  }
+
+  /**
+   *  @brief Reads the next character.
+   *
+   *  @return Returns the next character, or -1 at the end of the file.
+   *
+   *  @throws IOException When an exception occurs while reading.
+   */
+  private int read() throws IOException{
+    int character = this.peek();
+    if(character != -1){
+      position_++;
+    }
+
+    return character;
+  }
+
+  /**
+   *  @brief Returns the next character without consuming it, filling the buffer when it is empty.
+   *
+   *  @return Returns the next character, or -1 at the end of the file.
+   *
+   *  @throws IOException When an exception occurs while reading.
+   */
+  private int peek() throws IOException{
+    if(position_ == limit_){
+      limit_ = reader_.read(buffer_, 0, buffer_.length);
+      position_ = 0;
+      if(limit_ <= 0){
+        limit_ = 0;
+        return -1;
+      }
+    }
+
+    return buffer_[position_];
+  }
+
+  /**
+   *  @brief Closes the underlying reader.
+   *
+   *  @throws IOException When an exception occurs while closing the reader.
+   */
+  @Override
+  public void close() throws IOException{
+    reader_.close();
+  }
+
+  private final Reader reader_; //!< The reader of the file.
+  private final char[] buffer_ = new char[BUFFER_SIZE]; //!< The characters read from the file and not consumed yet.
+  private int position_; //!< The position of the next character in buffer_.
+  private int limit_; //!< The number of characters in buffer_.
+  private final StringBuilder token_ = new StringBuilder(); //!< The last tag or token read.
+
+  private static final int BUFFER_SIZE = 1 << 16; //!< The size of the buffer, in characters.
+
+}
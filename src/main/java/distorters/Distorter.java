@@ -1,11 +1,17 @@
 package main.java.distorters;
 
+import java.util.Random;
+
 /** @class Distorter
  *
  *  @brief Implements and abstract Distorter.
  *
  *  A Distorter is used to apply distortions on data. This method is used to virtually increase the size of a set of
  *  data when using it to train a machine learning algorithm.
+ *
+ *  The random numbers of each distortion come from nextRandom, which derives a generator from the seed of this
+ *  Distorter and the number of distortions applied so far. The seed and that number are the whole state of a
+ *  Distorter, so setting them back, e.g. when training resumes from a checkpoint, repeats the same distortions.
  */
 public abstract class Distorter{
   /**
@@ -13,6 +19,7 @@ public abstract class Distorter{
    */
   public Distorter(){
     distortFrequency_ = -1;
+    seed_ = new Random().nextLong();
   }
 
   /**
@@ -23,6 +30,7 @@ public abstract class Distorter{
    */
   public Distorter(int distortFrequency){
     distortFrequency_ = distortFrequency;
+    seed_ = new Random().nextLong();
   }
 
   /**
@@ -52,6 +60,64 @@ public abstract class Distorter{
     return distortFrequency_;
   }
 
+  /**
+   *  @brief Setter method for the seed of this Distorter.
+   *
+   *  The number of distortions applied is set to zero, so the next distortion is the first one of the seed.
+   *
+   *  @param seed The seed from which the random numbers of every distortion are derived.
+   */
+  public void setSeed(long seed){
+    seed_ = seed;
+    numberOfDistortions_ = 0;
+  }
+
+  /**
+   *  @brief Getter method for the seed of this Distorter.
+   *
+   *  @return Returns the seed from which the random numbers of every distortion are derived.
+   */
+  public long getSeed(){
+    return seed_;
+  }
+
+  /**
+   *  @brief Setter method for the number of distortions applied.
+   *
+   *  @param numberOfDistortions The number of distortions applied so far. The next distortion uses the random numbers
+   *         of the distortion with this index.
+   */
+  public void setNumberOfDistortions(long numberOfDistortions){
+    numberOfDistortions_ = numberOfDistortions;
+  }
+
+  /**
+   *  @brief Getter method for the number of distortions applied.
+   *
+   *  @return Returns the number of times nextRandom has been called since the seed was set.
+   */
+  public long getNumberOfDistortions(){
+    return numberOfDistortions_;
+  }
+
+  /**
+   *  @brief Returns the generator of the random numbers of the next distortion.
+   *
+   *  Each distortion calls this method once. The seed of the generator is a mix of the seed of this Distorter and the
+   *  index of the distortion, so consecutive distortions are independent, and each one depends only on its index.
+   *
+   *  @return Returns the generator of the random numbers of the next distortion.
+   */
+  protected Random nextRandom(){
+    long z = seed_ + (++numberOfDistortions_) * 0x9E3779B97F4A7C15L;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+
+    return new Random(z ^ (z >>> 31));
+  }
+
   private int distortFrequency_; //!< The distortion frequency of this Distorter.
+  private long seed_; //!< The seed from which the random numbers of every distortion are derived.
+  private long numberOfDistortions_; //!< The number of distortions applied since the seed was set.
 
 }
@@ -32,12 +32,14 @@ public class ImageDistorter extends Distorter{
   /**
    *  @brief Applies random affine transformations on a set of data.
    *
+   *  The transformations are drawn from nextRandom, so they are the same for the same seed and number of distortions.
+   *
    *  @param data The set of data on which to apply the transformations.
    *
    *  @return Returns the distorted data.
    */
   public double[][] distort(double[][] data){
-    Random random = new Random();
+    Random random = this.nextRandom();
     double destortionType, parameter;
     Mat trfMtx = new Mat(2, 3, CvType.CV_64F);
     Mat image = new Mat(sampleRows_, sampleColumns_, CvType.CV_64F);
@@ -0,0 +1,258 @@
+package main.java.trainers;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicReference;
+
+import main.java.base.NeuralNetwork;
+
+/** @class CheckpointWriter
+ *
+ *  @brief Saves checkpoints of a main.java.base.NeuralNetwork on a background thread, while it keeps training.
+ *
+ *  Each checkpoint is a private copy of the parameters, which is then saved on a background thread to a temporary file
+ *  next to the checkpoint, with the suffix ".tmp", forced to the disk and renamed over the checkpoint atomically, so
+ *  the checkpoint always holds a complete main.java.base.NeuralNetwork, even if the process dies while writing.
+ *
+ *  A checkpoint holds either a main.java.base.NeuralNetwork only, or the whole state of a Trainer, see
+ *  main.java.trainers.TrainingCheckpoint, from which Trainer.resume continues training.
+ *
+ *  The previous checkpoints can be kept as backups, named after the checkpoint with the suffixes ".1", ".2" and so on,
+ *  ".1" being the most recent. When a checkpoint is requested while an older one is still waiting to be written, only
+ *  the newest one is written.
+ */
+public class CheckpointWriter implements Closeable{
+  /**
+   *  @brief Constructor.
+   *
+   *  @param path The path of the checkpoint.
+   *  @param numberOfBackups The number of previous checkpoints to keep, 0 to keep only the latest.
+   */
+  public CheckpointWriter(String path, int numberOfBackups){
+    if(numberOfBackups < 0){
+      throw new IllegalArgumentException("The number of backups must not be negative.");
+    }
+
+    path_ = Paths.get(path).toAbsolutePath();
+    numberOfBackups_ = numberOfBackups;
+    pending_ = new AtomicReference<TrainingCheckpoint>();
+
+    executor_ = Executors.newSingleThreadExecutor(new ThreadFactory(){
+      @Override
+      public Thread newThread(Runnable runnable){
+        Thread thread = new Thread(runnable, "checkpoint-writer");
+        thread.setDaemon(true);
+
+        return thread;
+      }
+    });
+  }
+
+  /**
+   *  @brief Takes a copy of a main.java.base.NeuralNetwork and saves it in the background.
+   *
+   *  @param neuralNetwork The main.java.base.NeuralNetwork. It can keep training as soon as this method returns.
+   *
+   *  @throws IOException When an earlier checkpoint could not be written.
+   */
+  public void write(NeuralNetwork neuralNetwork) throws IOException{
+    this.write(new TrainingCheckpoint(new NeuralNetwork(neuralNetwork)));
+  }
+
+  /**
+   *  @brief Takes a copy of the state of a Trainer and saves it in the background.
+   *
+   *  @param trainer The Trainer, between two epochs. It can keep training as soon as this method returns.
+   *
+   *  @throws IOException When an earlier checkpoint could not be written.
+   */
+  public void write(Trainer trainer) throws IOException{
+    this.write(TrainingCheckpoint.capture(trainer));
+  }
+
+  /**
+   *  @brief Queues a TrainingCheckpoint to be saved in the background.
+   *
+   *  @param checkpoint The TrainingCheckpoint.
+   *
+   *  @throws IOException When an earlier checkpoint could not be written.
+   */
+  private void write(TrainingCheckpoint checkpoint) throws IOException{
+    this.checkFailure();
+
+    if(pending_.getAndSet(checkpoint) == null){
+      executor_.execute(new Runnable(){
+        @Override
+        public void run(){
+          CheckpointWriter.this.writePending();
+        }
+      });
+    }
+  }
+
+  /**
+   *  @brief Waits until every checkpoint requested so far has been written.
+   *
+   *  @throws IOException When a checkpoint could not be written.
+   */
+  public void await() throws IOException{
+    try{
+      executor_.submit(new Runnable(){
+        @Override
+        public void run(){
+        }
+      }).get();
+    }
+    catch(InterruptedException exception){
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting for the checkpoints.", exception);
+    }
+    catch(ExecutionException exception){
+      throw new IOException(exception.getCause());
+    }
+
+    this.checkFailure();
+  }
+
+  /**
+   *  @brief Waits until every checkpoint requested so far has been written and stops the background thread.
+   *
+   *  @throws IOException When a checkpoint could not be written.
+   */
+  @Override
+  public void close() throws IOException{
+    try{
+      this.await();
+    }
+    finally{
+      executor_.shutdown();
+    }
+  }
+
+  /**
+   *  @brief Getter method for the path of the checkpoint.
+   *
+   *  @return Returns the path of the checkpoint.
+   */
+  public String getPath(){
+    return path_.toString();
+  }
+
+  /**
+   *  @brief Getter method for the number of previous checkpoints kept.
+   *
+   *  @return Returns the number of previous checkpoints kept.
+   */
+  public int getNumberOfBackups(){
+    return numberOfBackups_;
+  }
+
+  /**
+   *  @brief Writes the newest pending checkpoint, on the background thread.
+   */
+  private void writePending(){
+    TrainingCheckpoint checkpoint = pending_.getAndSet(null);
+    if(checkpoint == null || failure_ != null){
+      return;
+    }
+
+    Path temporaryPath = path_.resolveSibling(path_.getFileName() + ".tmp");
+    try{
+      checkpoint.save(temporaryPath.toString());
+
+      FileChannel channel = FileChannel.open(temporaryPath, StandardOpenOption.WRITE);
+      try{
+        channel.force(true);
+      }
+      finally{
+        channel.close();
+      }
+
+      if(numberOfBackups_ > 0 && Files.exists(path_)){
+        this.rotateBackups();
+      }
+
+      Files.move(temporaryPath, path_, StandardCopyOption.ATOMIC_MOVE);
+      temporaryPath = null;
+    }
+    catch(IOException exception){
+      failure_ = exception;
+    }
+    finally{
+      if(temporaryPath != null){
+        try{
+          Files.deleteIfExists(temporaryPath);
+        }
+        catch(IOException exception){
+        }
+      }
+    }
+  }
+
+  /**
+   *  @brief Shifts the backups by one, dropping the oldest, and makes the current checkpoint the most recent backup.
+   *
+   *  The current checkpoint is linked, not moved, so that it stays in place until the new one is renamed over it. When
+   *  the file system does not support links, it is copied.
+   *
+   *  @throws IOException When a backup can not be moved, linked or copied.
+   */
+  private void rotateBackups() throws IOException{
+    Files.deleteIfExists(this.getBackupPath(numberOfBackups_));
+    for(int i = numberOfBackups_ - 1;i > 0;i--){
+      Path backup = this.getBackupPath(i);
+      if(Files.exists(backup)){
+        Files.move(backup, this.getBackupPath(i + 1), StandardCopyOption.ATOMIC_MOVE);
+      }
+    }
+
+    Path backup = this.getBackupPath(1);
+    try{
+      Files.createLink(backup, path_);
+    }
+    catch(UnsupportedOperationException | IOException exception){
+      Files.copy(path_, backup, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  /**
+   *  @brief Returns the path of a backup.
+   *
+   *  @param index The index of the backup, 1 being the most recent.
+   *
+   *  @return Returns the path of the backup.
+   */
+  private Path getBackupPath(int index){
+    return path_.resolveSibling(path_.getFileName() + "." + index);
+  }
+
+  /**
+   *  @brief Throws the exception that made a checkpoint fail, if any.
+   *
+   *  @throws IOException When a checkpoint could not be written.
+   */
+  private void checkFailure() throws IOException{
+    IOException failure = failure_;
+    if(failure != null){
+      throw new IOException("Could not write the checkpoint " + path_ + ".", failure);
+    }
+  }
+
+  private final Path path_; //!< The path of the checkpoint.
+  private final int numberOfBackups_; //!< The number of previous checkpoints kept.
+
+  private final ExecutorService executor_; //!< The executor of the background thread.
+  private final AtomicReference<TrainingCheckpoint> pending_; //!< The newest checkpoint waiting to be written.
+  private volatile IOException failure_; //!< The exception that made a checkpoint fail, if any.
+
+}
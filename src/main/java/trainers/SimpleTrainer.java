@@ -1,7 +1,9 @@
 package main.java.trainers;
 
-import java.util.Arrays;
+import java.io.IOException;
 
+import main.java.base.TrainingSet;
+import main.java.base.TrainingState;
 import main.java.distorters.Distorter;
 import main.java.utilities.data.DataSet;
 
@@ -45,30 +47,28 @@ public class SimpleTrainer extends Trainer{
   /**
    *  @brief Loads a training and a testing set.
    *
+   *  The raw samples of the data sets are kept as they are, without being copied or expanded to doubles. The
+   *  main.java.base.NeuralNetwork normalizes them on the fly, see main.java.base.NeuralNetwork.setInputNormalization.
+   *  The length of the data of each sample must be equal to sampleLength_. The labels are kept as class indices.
+   *
    *  @throws Exception Doesn't throw an exception.
    */
   @Override
   public void load(DataSet trainingSet, DataSet testingSet) throws Exception{
-    trainingSet_ = new double[trainingSet.size()][sampleLength_];
-    trainingLabels_ = new double[trainingSet.size()][numberOfLabels_];
+    rawTrainingSet_ = new byte[trainingSet.size()][];
+    trainingSet_ = null;
+    trainingLabels_ = new int[trainingSet.size()];
     for(int i = 0;i < trainingSet.size();i++){
-      for(int j = 0;j < sampleLength_;j++){
-        trainingSet_[i][j] = ((double)(trainingSet.get(i).data_[j] & 0xFF)) / 127.5 - 1;
-      }
-
-      for(int j = 0;j < numberOfLabels_;j++){
-        trainingLabels_[i][j] = 0;
-      }
+      rawTrainingSet_[i] = trainingSet.get(i).data_;
 
-      trainingLabels_[i][trainingSet.get(i).label_ & 0xFF] = 1;
+      trainingLabels_[i] = trainingSet.get(i).label_ & 0xFF;
     }
 
-    testingSet_ = new double[testingSet.size()][sampleLength_];
+    rawTestingSet_ = new byte[testingSet.size()][];
+    testingSet_ = null;
     testingLabels_ = new int[testingSet.size()];
     for(int i = 0;i < testingSet.size();i++){
-      for(int j = 0;j < sampleLength_;j++){
-        testingSet_[i][j] = ((double)(testingSet.get(i).data_[j] & 0xFF)) / 127.5 - 1;
-      }
+      rawTestingSet_[i] = testingSet.get(i).data_;
 
       testingLabels_[i] = testingSet.get(i).label_ & 0xFF;
     }
@@ -78,14 +78,77 @@ public class SimpleTrainer extends Trainer{
   /**
    *  @brief Trains a main.java.base.NeuralNetwork on the given data.
    *
-   *  @throws Exception Doesn't throw an exception.
+   *  The main.java.base.NeuralNetwork is trained on the raw training set, until the first distortion. Since the
+   *  main.java.distorters.Distorter works on normalized data, the training set is then expanded to doubles, once, and
+   *  each distortion is applied on a fresh copy of the raw training set.
+   *
+   *  Each new best main.java.base.NeuralNetwork is saved to the save path by a main.java.trainers.CheckpointWriter, on
+   *  a background thread, while training goes on. When a checkpoint path is set, the whole state of this SimpleTrainer
+   *  is saved there after each epoch, the same way. This method returns once the last checkpoint has been written.
+   *
+   *  After resume, training continues from the epoch after the one the checkpoint was written after, with the training
+   *  set distorted as it was then, and follows the same trajectory as if it had not stopped, unless the Hogwild mode,
+   *  whose updates race, is used.
+   *
+   *  @throws Exception When a checkpoint could not be written.
    */
   @Override
   public void train() throws Exception{
-    double[][] trainingSetBuffer = new double[numberOfTrainingSamples_][sampleLength_];
+    int[] testingClasses = new int[numberOfTestingSamples_];
+
+    neuralNetwork_.setNumberOfThreads(numberOfThreads_);
+    if(optimizer_ != null){
+      neuralNetwork_.setOptimizer(optimizer_);
+    }
+    TrainingState trainingState = this.prepareTrainingState();
+
+    // Continue from the epoch a checkpoint was written after, if resume was called, with the training set distorted as
+    // it was then.
+    if(!resumed_){
+      epoch_ = 0;
+      bestAccuracy_ = 0;
+    }
+    else if(epoch_ > 0 && distorter_.getNumberOfDistortions() > 0 && epoch_ % distorter_.getDistortFrequency() != 0){
+      distorter_.setNumberOfDistortions(distorter_.getNumberOfDistortions() - 1);
+      this.distortTrainingSet();
+    }
+    resumed_ = false;
+
+    CheckpointWriter checkpointWriter = new CheckpointWriter(neuralNetworkSavePath_, numberOfBackups_);
+    CheckpointWriter stateCheckpointWriter = (checkpointPath_ != null) ?
+                                             new CheckpointWriter(checkpointPath_, numberOfBackups_) : null;
 
-    double bestAccuracy = 0;
-    for(int epoch = 0;epoch < numberOfEpochs_;epoch++){
+    try{
+      this.train(trainingState, testingClasses, checkpointWriter, stateCheckpointWriter);
+    }
+    finally{
+      try{
+        checkpointWriter.close();
+      }
+      finally{
+        if(stateCheckpointWriter != null){
+          stateCheckpointWriter.close();
+        }
+      }
+    }
+  }
+
+  /**
+   *  @brief Runs the epochs of train, from epoch_ on.
+   *
+   *  @param trainingState The main.java.base.TrainingState kept between the batches.
+   *  @param testingClasses The array where the classes of the testing samples are written.
+   *  @param checkpointWriter The main.java.trainers.CheckpointWriter that saves each new best
+   *         main.java.base.NeuralNetwork.
+   *  @param stateCheckpointWriter The main.java.trainers.CheckpointWriter that saves the state of this SimpleTrainer
+   *         after each epoch, or null.
+   *
+   *  @throws IOException When a checkpoint could not be written.
+   */
+  private void train(TrainingState trainingState, int[] testingClasses, CheckpointWriter checkpointWriter,
+                     CheckpointWriter stateCheckpointWriter) throws IOException{
+    while(epoch_ < numberOfEpochs_){
+      int epoch = epoch_;
       if(!quiet_){
         System.out.println("Epoch: " + epoch);
       }
@@ -94,68 +157,39 @@ public class SimpleTrainer extends Trainer{
       // increase the training set's size. The distortions are applied on the
       // initial training set and not on the already distorted.
       if(epoch % distorter_.getDistortFrequency() == 0 && epoch != 0){
-        if(!quiet_){
-          System.out.println("Distorting the training set...");
-        }
-        // On the first distortion, create the training set buffer.
-        // On every other distortion, load the training set from the buffer.
-        if(epoch == distorter_.getDistortFrequency()){
-          for(int i = 0;i < numberOfTrainingSamples_;i++){
-            for(int j = 0;j < sampleLength_;j++){
-              trainingSetBuffer[i][j] = trainingSet_[i][j];
-            }
-          }
-        }
-        else{
-          for(int i = 0;i < numberOfTrainingSamples_;i++){
-            for(int j = 0;j < sampleLength_;j++){
-              trainingSet_[i][j] = trainingSetBuffer[i][j];
-            }
-          }
-        }
-
-        trainingSet_ = distorter_.distort(trainingSet_);
-        if(!quiet_){
-          System.out.println("Distortion is done!");
-        }
+        this.distortTrainingSet();
       }
 
       // Actually train the neural network.
-      for(int batch = 0;batch < numberOfTrainingSamples_ / batchSize_;batch++){
-        neuralNetwork_.train(Arrays.copyOfRange(trainingSet_, batch * batchSize_, numberOfTrainingSamples_),
-                             Arrays.copyOfRange(trainingLabels_, batch * batchSize_, numberOfTrainingSamples_),
-                             batchSize_, 1, gamma_);
+      TrainingSet trainingSet = (trainingSet_ != null) ? new TrainingSet(trainingSet_, trainingLabels_) :
+                                                         new TrainingSet(rawTrainingSet_, trainingLabels_);
+      if(hogwild_){
+        neuralNetwork_.trainHogwild(trainingSet, 0, numberOfTrainingSamples_, 1, gamma_);
+      }
+      else{
+        for(int batch = 0;batch < numberOfTrainingSamples_ / batchSize_;batch++){
+          neuralNetwork_.train(trainingSet, batch * batchSize_, batchSize_, 1, gamma_, trainingState);
+        }
       }
 
       // Test the result on each epoch.
       int correctAnswerCounter = 0;
-      double[] output = new double[numberOfLabels_];
+      neuralNetwork_.classifyBatch(rawTestingSet_, numberOfTestingSamples_, testingClasses, null);
       for(int i = 0;i < numberOfTestingSamples_;i++){
-        output = neuralNetwork_.feedForward(testingSet_[i]);
-
-        double max = output[0];
-        int index = 0;
-        for(int j = 0;j < numberOfLabels_;j++){
-          if(output[j] > max){
-            max = output[j];
-            index = j;
-          }
-        }
-
-        if(index == testingLabels_[i]){
+        if(testingClasses[i] == testingLabels_[i]){
           correctAnswerCounter++;
         }
       }
 
       double accuracy = (double)correctAnswerCounter / numberOfTestingSamples_;
       accuracy *= 100;
-      if(accuracy > bestAccuracy){
-        bestAccuracy = accuracy;
+      if(accuracy > bestAccuracy_){
+        bestAccuracy_ = accuracy;
 
         if(!quiet_){
          System.out.println("Found best accuracy, saving the neural network!");
         }
-        neuralNetwork_.saveToBinary(neuralNetworkSavePath_);
+        checkpointWriter.write(neuralNetwork_);
       }
 
       if(!quiet_){
@@ -163,10 +197,66 @@ public class SimpleTrainer extends Trainer{
                                  numberOfTestingSamples_ + " correct answers!");
 
         System.out.println(accuracy + "%");
-        System.out.println("Best so far: " + bestAccuracy + "%");
+        System.out.println("Best so far: " + bestAccuracy_ + "%");
       }
 
+      epoch_ = epoch + 1;
+      if(stateCheckpointWriter != null){
+        stateCheckpointWriter.write(this);
+      }
     }
   }
 
+  /**
+   *  @brief Applies the next distortion of the main.java.distorters.Distorter on a fresh copy of the raw training set.
+   *
+   *  On the first distortion, the expanded training set is created. On every distortion, it is loaded from the raw
+   *  training set.
+   */
+  private void distortTrainingSet(){
+    if(!quiet_){
+      System.out.println("Distorting the training set...");
+    }
+
+    if(trainingSet_ == null){
+      trainingSet_ = new double[numberOfTrainingSamples_][sampleLength_];
+    }
+
+    double scale = neuralNetwork_.getInputScale();
+    double offset = neuralNetwork_.getInputOffset();
+    for(int i = 0;i < numberOfTrainingSamples_;i++){
+      for(int j = 0;j < sampleLength_;j++){
+        trainingSet_[i][j] = (rawTrainingSet_[i][j] & 0xFF) * scale + offset;
+      }
+    }
+
+    trainingSet_ = distorter_.distort(trainingSet_);
+    if(!quiet_){
+      System.out.println("Distortion is done!");
+    }
+  }
+
+  /**
+   *  @brief Setter method for the Hogwild mode of this SimpleTrainer.
+   *
+   *  In Hogwild mode, the main.java.base.NeuralNetwork is trained with main.java.base.NeuralNetwork.trainHogwild, that
+   *  is, the threads update the parameters after each sample without locking, and the batch size is ignored.
+   *
+   *  @param hogwild The Hogwild mode of this SimpleTrainer.
+   */
+  public void setHogwild(boolean hogwild){
+    hogwild_ = hogwild;
+  }
+
+  /**
+   *  @brief Getter method for the Hogwild mode of this SimpleTrainer.
+   *
+   *  @return Returns the Hogwild mode of this SimpleTrainer.
+   */
+  public boolean isHogwild(){
+    return hogwild_;
+  }
+
+  private boolean hogwild_ = false; //!< The Hogwild mode of this SimpleTrainer.
+
 }
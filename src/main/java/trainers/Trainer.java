@@ -3,6 +3,8 @@ package main.java.trainers;
 import java.io.IOException;
 
 import main.java.base.NeuralNetwork;
+import main.java.base.Optimizer;
+import main.java.base.TrainingState;
 import main.java.distorters.Distorter;
 import main.java.utilities.data.DataSet;
 
@@ -100,6 +102,23 @@ public abstract class Trainer{
     neuralNetwork_.saveToBinary(fullPath);
   }
 
+  /**
+   *  @brief Restores the state of this Trainer from a checkpoint, so that the next call to train continues from there.
+   *
+   *  The checkpoint must have been written while training, see setCheckpointPath. The parameters, the number of epochs
+   *  done, the best accuracy, the moments of the main.java.base.Optimizer and the state of the
+   *  main.java.distorters.Distorter are restored, so training continues as if it had not stopped. The other settings,
+   *  such as the hyper-parameters, must be set as they were.
+   *
+   *  @param path The path of the checkpoint.
+   *
+   *  @throws IOException When the checkpoint can not be read or does not hold a training state.
+   */
+  public void resume(String path) throws IOException{
+    TrainingCheckpoint.restore(path, this);
+    resumed_ = true;
+  }
+
   /**
    *  @brief Setter method for the main.java.base.NeuralNetwork.
    *
@@ -108,6 +127,7 @@ public abstract class Trainer{
   public void setNeuralNetwork(NeuralNetwork neuralNetwork){
     neuralNetwork_ = neuralNetwork;
     sizesOfLayers_ = neuralNetwork.getSizesOfLayers();
+    trainingState_ = null;
   }
 
   /**
@@ -395,12 +415,156 @@ public abstract class Trainer{
     return neuralNetworkSavePath_;
   }
 
+  /**
+   *  @brief Setter method for the checkpoint path.
+   *
+   *  When it is set, the whole state of this Trainer is saved there after each epoch, in the background, so that a
+   *  stopped training can continue with resume.
+   *
+   *  @param checkpointPath The full path of the checkpoint, or null to not write checkpoints.
+   */
+  public void setCheckpointPath(String checkpointPath){
+    checkpointPath_ = checkpointPath;
+  }
+
+  /**
+   *  @brief Getter method for the checkpoint path.
+   *
+   *  @return Returns the full path of the checkpoint, or null if no checkpoints are written.
+   */
+  public String getCheckpointPath(){
+    return checkpointPath_;
+  }
+
+  /**
+   *  @brief Getter method for the number of epochs done.
+   *
+   *  @return Returns the number of epochs done by the last or current call to train, counting the ones done before
+   *          resuming.
+   */
+  public int getEpoch(){
+    return epoch_;
+  }
+
+  /**
+   *  @brief Getter method for the best accuracy.
+   *
+   *  @return Returns the best accuracy on the testing set so far, in percent.
+   */
+  public double getBestAccuracy(){
+    return bestAccuracy_;
+  }
+
+  /**
+   *  @brief Setter method for the number of checkpoint backups.
+   *
+   *  Each time a new best main.java.base.NeuralNetwork or a new checkpoint is saved, the previous one is kept as a
+   *  backup, up to that many. See main.java.trainers.CheckpointWriter.
+   *
+   *  @param numberOfBackups The number of previous checkpoints to keep, 0 to keep only the latest.
+   */
+  public void setNumberOfBackups(int numberOfBackups){
+    numberOfBackups_ = numberOfBackups;
+  }
+
+  /**
+   *  @brief Getter method for the number of checkpoint backups.
+   *
+   *  @return Returns the number of previous checkpoints kept.
+   */
+  public int getNumberOfBackups(){
+    return numberOfBackups_;
+  }
+
+  /**
+   *  @brief Setter method for the number of threads.
+   *
+   *  The samples of each batch are split among that many threads while training the main.java.base.NeuralNetwork.
+   *
+   *  @param numberOfThreads The number of threads.
+   */
+  public void setNumberOfThreads(int numberOfThreads){
+    numberOfThreads_ = numberOfThreads;
+  }
+
+  /**
+   *  @brief Getter method for the number of threads.
+   *
+   *  The samples of each batch are split among that many threads while training the main.java.base.NeuralNetwork.
+   *
+   *  @return Returns the number of threads.
+   */
+  public int getNumberOfThreads(){
+    return numberOfThreads_;
+  }
+
+  /**
+   *  @brief Setter method for the main.java.base.Optimizer.
+   *
+   *  @param optimizer The main.java.base.Optimizer that updates the parameters of the main.java.base.NeuralNetwork
+   *         after each batch. If it is null, the main.java.base.Optimizer of the main.java.base.NeuralNetwork is left
+   *         as is.
+   */
+  public void setOptimizer(Optimizer optimizer){
+    optimizer_ = optimizer;
+  }
+
+  /**
+   *  @brief Getter method for the main.java.base.Optimizer.
+   *
+   *  @return Returns the main.java.base.Optimizer set with setOptimizer, or null if none is set.
+   */
+  public Optimizer getOptimizer(){
+    return optimizer_;
+  }
+
+  /**
+   *  @brief Setter method for the main.java.base.TrainingState.
+   *
+   *  The main.java.base.TrainingState holds the derivatives and the velocity of the parameters of the
+   *  main.java.base.NeuralNetwork, and it is kept between batches and epochs, so that the momentum carries over.
+   *
+   *  @param trainingState The main.java.base.TrainingState to be used. If it is null, or if it does not match the
+   *         main.java.base.NeuralNetwork, a new one is created when training starts.
+   */
+  public void setTrainingState(TrainingState trainingState){
+    trainingState_ = trainingState;
+  }
+
+  /**
+   *  @brief Getter method for the main.java.base.TrainingState.
+   *
+   *  @return Returns the main.java.base.TrainingState used while training, or null if training has not started yet.
+   */
+  public TrainingState getTrainingState(){
+    return trainingState_;
+  }
+
+  /**
+   *  @brief Returns the main.java.base.TrainingState, creating a new one if there is none or if it does not match the
+   *         main.java.base.NeuralNetwork.
+   *
+   *  @return Returns the main.java.base.TrainingState to be used while training.
+   */
+  protected TrainingState prepareTrainingState(){
+    if(trainingState_ == null || !trainingState_.isCompatible(neuralNetwork_.getSizesOfLayers())){
+      trainingState_ = new TrainingState(neuralNetwork_.getSizesOfLayers());
+    }
+
+    return trainingState_;
+  }
+
   protected int[] sizesOfLayers_; //!< The sizes of the layers of the main.java.base.NeuralNetwork.
   protected NeuralNetwork neuralNetwork_; //!< The main.java.base.NeuralNetwork of this Trainer.
 
-  protected double[][] trainingSet_; //!< The training set of data of this Trainer.
-  protected double[][] trainingLabels_; //!< The labels of the training set of this Trainer.
-  protected double[][] testingSet_; //!< The testing set of this Trainer.
+  protected byte[][] rawTrainingSet_; //!< The raw samples of the training set of this Trainer, as they are stored in a
+                                     //!< main.java.utilities.data.DataSet.
+  protected double[][] trainingSet_; //!< The training set of data of this Trainer, normalized. It may be null when the
+                                     //!< raw training set is used directly.
+  protected int[] trainingLabels_; //!< The class index of each sample of the training set of this Trainer.
+  protected byte[][] rawTestingSet_; //!< The raw samples of the testing set of this Trainer.
+  protected double[][] testingSet_; //!< The testing set of this Trainer, normalized. It may be null when the raw
+                                    //!< testing set is used directly.
   protected int[] testingLabels_; //!< The labels of the testing set of this Trainer.
 
   protected int numberOfTrainingSamples_; //!< The number of training samples of this Trainer.
@@ -413,6 +577,12 @@ public abstract class Trainer{
   protected String testingSetPath_; //!< The testing set path of this Trainer.
   protected String testingLabelsPath_; //!< The testing labels path of this Trainer.
   protected String neuralNetworkSavePath_; //!< The save path of the main.java.base.NeuralNetwork of this Trainer.
+  protected int numberOfBackups_; //!< The number of previous checkpoints kept next to each checkpoint.
+  protected String checkpointPath_; //!< The path where the whole state of this Trainer is saved after each epoch.
+
+  protected int epoch_; //!< The number of epochs done.
+  protected double bestAccuracy_; //!< The best accuracy on the testing set so far, in percent.
+  protected boolean resumed_; //!< Whether resume has been called since the last call to train.
 
   protected Distorter distorter_; //!< The main.java.distorters.Distorter of this Trainer.
 
@@ -421,6 +591,11 @@ public abstract class Trainer{
 
   protected double gamma_; //!< The gamma parameter of this Trainer.
 
+  protected int numberOfThreads_ = 1; //!< The number of threads used to train the main.java.base.NeuralNetwork.
+
+  protected Optimizer optimizer_; //!< The main.java.base.Optimizer of the main.java.base.NeuralNetwork.
+  protected TrainingState trainingState_; //!< The main.java.base.TrainingState kept between the batches.
+
   protected boolean quiet_ = true; //!< The quiet mode parameter of this Trainer.
 
 }
@@ -0,0 +1,253 @@
+package main.java.trainers;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+import main.java.base.NeuralNetwork;
+import main.java.base.Optimizer;
+import main.java.base.TrainingState;
+
+/** @class TrainingCheckpoint
+ *
+ *  @brief A copy of everything a Trainer needs to continue training from where it is, and its file format.
+ *
+ *  The file of a TrainingCheckpoint starts with the main.java.base.NeuralNetwork, exactly as written by
+ *  main.java.base.NeuralNetwork.saveToBinary, so it can also be loaded with
+ *  main.java.base.NeuralNetwork.createFromBinary.
+ *  The training state follows, as written by a DataOutputStream:
+ *  @code
+ *  int    MAGIC_NUMBER
+ *  int    VERSION
+ *  int    the number of epochs done
+ *  double the best accuracy so far
+ *  UTF    the name of the main.java.base.Optimizer
+ *  int    its number of hyper-parameters
+ *  double its hyper-parameters, as returned by main.java.base.Optimizer.getHyperParameters
+ *  bool   whether a main.java.distorters.Distorter is used, followed, if so, by
+ *  long   its seed and
+ *  long   its number of distortions
+ *  bool   whether a main.java.base.TrainingState is kept, followed, if so, by main.java.base.TrainingState.write
+ *  long   the offset of MAGIC_NUMBER above, in bytes from the start of the file
+ *  int    MAGIC_NUMBER
+ *  @endcode
+ *  The offset at the end lets the training state be found without parsing the main.java.base.NeuralNetwork.
+ *
+ *  A TrainingCheckpoint with no training state holds only the main.java.base.NeuralNetwork, and its file is an
+ *  ordinary main.java.base.NeuralNetwork binary file.
+ */
+class TrainingCheckpoint{
+  /**
+   *  @brief Constructor for a TrainingCheckpoint that holds only a main.java.base.NeuralNetwork.
+   *
+   *  @param neuralNetwork The main.java.base.NeuralNetwork. It must not be trained any further, e.g. it is a copy.
+   */
+  TrainingCheckpoint(NeuralNetwork neuralNetwork){
+    neuralNetwork_ = neuralNetwork;
+  }
+
+  /**
+   *  @brief Copies the state of a Trainer.
+   *
+   *  The parameters and the moments are copied with the copy constructors of main.java.base.NeuralNetwork and
+   *  main.java.base.TrainingState, so the Trainer can keep training while the TrainingCheckpoint is saved. No snapshot
+   *  of the main.java.base.NeuralNetwork is published.
+   *
+   *  @param trainer The Trainer, between two epochs.
+   *
+   *  @return Returns the TrainingCheckpoint.
+   */
+  static TrainingCheckpoint capture(Trainer trainer){
+    TrainingCheckpoint checkpoint = new TrainingCheckpoint(new NeuralNetwork(trainer.neuralNetwork_));
+
+    checkpoint.hasTrainingState_ = true;
+    checkpoint.epoch_ = trainer.epoch_;
+    checkpoint.bestAccuracy_ = trainer.bestAccuracy_;
+    checkpoint.optimizerName_ = trainer.neuralNetwork_.getOptimizer().getName();
+    checkpoint.optimizerHyperParameters_ = trainer.neuralNetwork_.getOptimizer().getHyperParameters();
+    if(trainer.distorter_ != null){
+      checkpoint.hasDistorter_ = true;
+      checkpoint.distorterSeed_ = trainer.distorter_.getSeed();
+      checkpoint.numberOfDistortions_ = trainer.distorter_.getNumberOfDistortions();
+    }
+    if(trainer.trainingState_ != null){
+      checkpoint.trainingState_ = new TrainingState(trainer.trainingState_);
+    }
+
+    return checkpoint;
+  }
+
+  /**
+   *  @brief Saves this TrainingCheckpoint to a file.
+   *
+   *  @param path The path of the file.
+   *
+   *  @throws IOException When an exception occurs while writing on the file.
+   */
+  void save(String path) throws IOException{
+    neuralNetwork_.saveToBinary(path);
+    if(!hasTrainingState_){
+      return;
+    }
+
+    long offset = new File(path).length();
+
+    DataOutputStream dataOutputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path,
+                                                                                                           true)));
+    try{
+      dataOutputStream.writeInt(MAGIC_NUMBER);
+      dataOutputStream.writeInt(VERSION);
+      dataOutputStream.writeInt(epoch_);
+      dataOutputStream.writeDouble(bestAccuracy_);
+      dataOutputStream.writeUTF(optimizerName_);
+      dataOutputStream.writeInt(optimizerHyperParameters_.length);
+      for(int i = 0;i < optimizerHyperParameters_.length;i++){
+        dataOutputStream.writeDouble(optimizerHyperParameters_[i]);
+      }
+
+      dataOutputStream.writeBoolean(hasDistorter_);
+      if(hasDistorter_){
+        dataOutputStream.writeLong(distorterSeed_);
+        dataOutputStream.writeLong(numberOfDistortions_);
+      }
+
+      dataOutputStream.writeBoolean(trainingState_ != null);
+      if(trainingState_ != null){
+        trainingState_.write(dataOutputStream);
+      }
+
+      dataOutputStream.writeLong(offset);
+      dataOutputStream.writeInt(MAGIC_NUMBER);
+    }
+    finally{
+      dataOutputStream.close();
+    }
+  }
+
+  /**
+   *  @brief Restores the state of a Trainer from the file of a TrainingCheckpoint.
+   *
+   *  The parameters are loaded into the main.java.base.NeuralNetwork of the Trainer, which keeps its other settings.
+   *  The main.java.base.Optimizer of the Trainer is kept if it has the name and the hyper-parameters of the saved one,
+   *  otherwise the saved one is created, with the saved hyper-parameters, so that training continues on the same
+   *  trajectory. The main.java.distorters.Distorter of the Trainer, if any, gets the saved seed and number of
+   *  distortions.
+   *
+   *  @param path The path of the file.
+   *  @param trainer The Trainer.
+   *
+   *  @throws IOException When an exception occurs while reading from the file, or when the file does not hold a
+   *          training state.
+   */
+  static void restore(String path, Trainer trainer) throws IOException{
+    long offset;
+    RandomAccessFile file = new RandomAccessFile(path, "r");
+    try{
+      if(file.length() < FOOTER_SIZE){
+        throw new IOException(path + " does not hold a training state.");
+      }
+
+      file.seek(file.length() - FOOTER_SIZE);
+      offset = file.readLong();
+      if(file.readInt() != MAGIC_NUMBER || offset < 0 || offset > file.length() - FOOTER_SIZE){
+        throw new IOException(path + " does not hold a training state.");
+      }
+    }
+    finally{
+      file.close();
+    }
+
+    FileInputStream fileInputStream = new FileInputStream(path);
+    DataInputStream dataInputStream = new DataInputStream(new BufferedInputStream(fileInputStream));
+    try{
+      fileInputStream.getChannel().position(offset);
+
+      if(dataInputStream.readInt() != MAGIC_NUMBER){
+        throw new IOException(path + " does not hold a training state.");
+      }
+      int version = dataInputStream.readInt();
+      if(version != VERSION){
+        throw new IOException(path + " has an unsupported training state version: " + version + ".");
+      }
+
+      int epoch = dataInputStream.readInt();
+      double bestAccuracy = dataInputStream.readDouble();
+      String optimizerName = dataInputStream.readUTF();
+      int numberOfHyperParameters = dataInputStream.readInt();
+      if(numberOfHyperParameters < 0 || numberOfHyperParameters > MAXIMUM_HYPER_PARAMETERS){
+        throw new IOException(path + " has an invalid number of hyper-parameters: " + numberOfHyperParameters + ".");
+      }
+      double[] hyperParameters = new double[numberOfHyperParameters];
+      for(int i = 0;i < numberOfHyperParameters;i++){
+        hyperParameters[i] = dataInputStream.readDouble();
+      }
+
+      NeuralNetwork neuralNetwork = trainer.neuralNetwork_;
+      neuralNetwork.loadFromBinary(path);
+      trainer.sizesOfLayers_ = neuralNetwork.getSizesOfLayers();
+
+      if(trainer.optimizer_ != null){
+        neuralNetwork.setOptimizer(trainer.optimizer_);
+      }
+      Optimizer optimizer = neuralNetwork.getOptimizer();
+      if(!optimizer.getName().equals(optimizerName) ||
+         !Arrays.equals(optimizer.getHyperParameters(), hyperParameters)){
+        try{
+          optimizer = Optimizer.create(optimizerName, hyperParameters);
+        }
+        catch(IllegalArgumentException exception){
+          throw new IOException(exception.getMessage());
+        }
+        trainer.optimizer_ = optimizer;
+        neuralNetwork.setOptimizer(optimizer);
+      }
+
+      if(dataInputStream.readBoolean()){
+        long distorterSeed = dataInputStream.readLong();
+        long numberOfDistortions = dataInputStream.readLong();
+        if(trainer.distorter_ != null){
+          trainer.distorter_.setSeed(distorterSeed);
+          trainer.distorter_.setNumberOfDistortions(numberOfDistortions);
+        }
+      }
+
+      if(dataInputStream.readBoolean()){
+        trainer.prepareTrainingState().read(dataInputStream, optimizer);
+      }
+      else{
+        trainer.trainingState_ = null;
+      }
+
+      trainer.epoch_ = epoch;
+      trainer.bestAccuracy_ = bestAccuracy;
+    }
+    finally{
+      dataInputStream.close();
+    }
+  }
+
+  private final NeuralNetwork neuralNetwork_; //!< The main.java.base.NeuralNetwork of this TrainingCheckpoint.
+  private boolean hasTrainingState_; //!< Whether this TrainingCheckpoint holds more than the
+                                     //!< main.java.base.NeuralNetwork.
+  private int epoch_; //!< The number of epochs done.
+  private double bestAccuracy_; //!< The best accuracy so far.
+  private String optimizerName_; //!< The name of the main.java.base.Optimizer.
+  private double[] optimizerHyperParameters_; //!< The hyper-parameters of the main.java.base.Optimizer.
+  private boolean hasDistorter_; //!< Whether a main.java.distorters.Distorter is used.
+  private long distorterSeed_; //!< The seed of the main.java.distorters.Distorter.
+  private long numberOfDistortions_; //!< The number of distortions applied by the main.java.distorters.Distorter.
+  private TrainingState trainingState_; //!< A copy of the main.java.base.TrainingState, or null if there is none.
+
+  static final int MAGIC_NUMBER = 0x54524E53; //!< The magic number of the training state, "TRNS".
+  static final int VERSION = 1; //!< The version of the training state.
+  private static final int MAXIMUM_HYPER_PARAMETERS = 64; //!< The largest number of hyper-parameters accepted.
+  private static final int FOOTER_SIZE = 12; //!< The size of the offset and the magic number at the end of the file.
+
+}
@@ -0,0 +1,95 @@
+package main.java.utilities.tools;
+
+import java.io.File;
+import java.io.IOException;
+
+import main.java.base.CompressedModel;
+import main.java.base.MappedNeuralNetwork;
+import main.java.base.NeuralNetwork;
+
+/** @class ModelConverter
+ *
+ *  @brief Converts a saved NeuralNetwork to the memory mapped format of MappedNeuralNetwork or to the compressed format
+ *         of CompressedModel.
+ *
+ *  Usage: ModelConverter <network.bin|network.xml> <output> [float64|float32|float16|bfloat16]
+ *
+ *  The NeuralNetwork is loaded from a file written by NeuralNetwork.saveToBinary, or by NeuralNetwork.saveToXML when
+ *  its name ends with ".xml". With float64, the default, or float32, it is written with MappedNeuralNetwork.write, the
+ *  time it takes to load the original file and to map the converted one are printed, and the checksum of the converted
+ *  file is verified. With float16 or bfloat16, it is written with NeuralNetwork.saveToCompressed, shuffled and
+ *  deflated, and the time it takes to load each file and the error bound of each layer are printed.
+ */
+public class ModelConverter{
+  /**
+   *  @brief The entry point of the tool.
+   *
+   *  @param args The path of the NeuralNetwork, the path of the output and, optionally, the data type.
+   *
+   *  @throws IOException When one of the files can not be read or written.
+   */
+  public static void main(String[] args) throws IOException{
+    if((args.length != 2 && args.length != 3) ||
+       (args.length == 3 && !args[2].equals("float64") && !args[2].equals("float32") &&
+        !args[2].equals("float16") && !args[2].equals("bfloat16"))){
+      System.err.println("Usage: ModelConverter <network.bin|network.xml> <output> [float64|float32|float16|bfloat16]");
+      System.exit(1);
+    }
+
+    if(args.length == 3 && (args[2].equals("float16") || args[2].equals("bfloat16"))){
+      compress(args[0], args[1], args[2].equals("float16") ? CompressedModel.ENCODING_FLOAT16 :
+                                                             CompressedModel.ENCODING_BFLOAT16);
+      return;
+    }
+
+    int dtype = (args.length == 3 && args[2].equals("float32")) ? MappedNeuralNetwork.DTYPE_FLOAT32 :
+                                                                   MappedNeuralNetwork.DTYPE_FLOAT64;
+
+    long start = System.nanoTime();
+    NeuralNetwork neuralNetwork = args[0].toLowerCase().endsWith(".xml") ? NeuralNetwork.createFromXML(args[0]) :
+                                                                           NeuralNetwork.createFromBinary(args[0]);
+    double loadSeconds = (System.nanoTime() - start) / 1e9;
+
+    MappedNeuralNetwork.write(neuralNetwork, args[1], dtype);
+
+    start = System.nanoTime();
+    MappedNeuralNetwork mappedNeuralNetwork = MappedNeuralNetwork.map(args[1]);
+    double mapSeconds = (System.nanoTime() - start) / 1e9;
+
+    System.out.printf("original: %12d bytes, loaded in %8.3f ms%n", new File(args[0]).length(), loadSeconds * 1e3);
+    System.out.printf("mapped:   %12d bytes, mapped in %8.3f ms%n", new File(args[1]).length(), mapSeconds * 1e3);
+    System.out.println("checksum: " + (mappedNeuralNetwork.verify() ? "ok" : "MISMATCH"));
+  }
+
+  /**
+   *  @brief Converts a saved NeuralNetwork to the compressed format.
+   *
+   *  @param inputPath The path of the NeuralNetwork.
+   *  @param outputPath The path of the compressed file.
+   *  @param encoding CompressedModel.ENCODING_FLOAT16 or CompressedModel.ENCODING_BFLOAT16.
+   *
+   *  @throws IOException When one of the files can not be read or written.
+   */
+  private static void compress(String inputPath, String outputPath, int encoding) throws IOException{
+    long start = System.nanoTime();
+    NeuralNetwork neuralNetwork = inputPath.toLowerCase().endsWith(".xml") ? NeuralNetwork.createFromXML(inputPath) :
+                                                                             NeuralNetwork.createFromBinary(inputPath);
+    double loadSeconds = (System.nanoTime() - start) / 1e9;
+
+    double[] errorBounds = neuralNetwork.saveToCompressed(outputPath, encoding,
+                                                          CompressedModel.FLAG_SHUFFLE | CompressedModel.FLAG_DEFLATE);
+
+    start = System.nanoTime();
+    NeuralNetwork.createFromCompressed(outputPath);
+    double decompressSeconds = (System.nanoTime() - start) / 1e9;
+
+    System.out.printf("original:   %12d bytes, loaded in %8.3f ms%n", new File(inputPath).length(),
+                      loadSeconds * 1e3);
+    System.out.printf("compressed: %12d bytes, loaded in %8.3f ms%n", new File(outputPath).length(),
+                      decompressSeconds * 1e3);
+    for(int i = 0;i < errorBounds.length;i++){
+      System.out.printf("layer %d: error bound %.3e%n", i + 1, errorBounds[i]);
+    }
+  }
+
+}
@@ -0,0 +1,192 @@
+package main.java.utilities.tools;
+
+import java.io.File;
+import java.io.IOException;
+
+import main.java.base.InferenceContext;
+import main.java.base.InferenceModel;
+import main.java.base.NeuralNetwork;
+import main.java.base.SparseNeuralNetwork;
+import main.java.base.TrainingSet;
+import main.java.base.TrainingState;
+import main.java.utilities.data.DataSet;
+
+/** @class PruningTool
+ *
+ *  @brief Prunes a trained NeuralNetwork at several sparsity levels and reports the accuracy and the inference speed of
+ *         the resulting SparseNeuralNetworks.
+ *
+ *  Usage: PruningTool <network.bin> <test data> <test labels> <output prefix> [<sparsity,...>
+ *                     [<training data> <training labels> <epochs>]]
+ *
+ *  The NeuralNetwork is loaded from a file written by NeuralNetwork.saveToBinary. For each sparsity level, a copy of
+ *  it is pruned with NeuralNetwork.prune, optionally fine-tuned on the given IDX training set for the given number of
+ *  epochs, and converted to a SparseNeuralNetwork, which is saved to <output prefix>-<sparsity>.bin. The dense and
+ *  the sparse models are evaluated on the given IDX test set, normalized the same way main.java.trainers.SimpleTrainer
+ *  does, and their accuracies, evaluation times and file sizes are printed.
+ */
+public class PruningTool{
+  /**
+   *  @brief The entry point of the tool.
+   *
+   *  @param args The path of the NeuralNetwork, the paths of the IDX test data and labels, the prefix of the outputs
+   *         and, optionally, the comma separated sparsity levels, followed, optionally, by the paths of the IDX
+   *         training data and labels and the number of epochs to fine-tune for.
+   *
+   *  @throws IOException When one of the files can not be read or written.
+   */
+  public static void main(String[] args) throws IOException{
+    if(args.length != 4 && args.length != 5 && args.length != 8){
+      System.err.println("Usage: PruningTool <network.bin> <test data> <test labels> <output prefix> " +
+                         "[<sparsity,...> [<training data> <training labels> <epochs>]]");
+      System.exit(1);
+    }
+
+    NeuralNetwork neuralNetwork = NeuralNetwork.createFromBinary(args[0]);
+
+    double[] sparsities = DEFAULT_SPARSITIES;
+    if(args.length > 4){
+      String[] tokens = args[4].split(",");
+      sparsities = new double[tokens.length];
+      for(int i = 0;i < tokens.length;i++){
+        sparsities[i] = Double.parseDouble(tokens[i]);
+      }
+    }
+
+    byte[][] trainingSet = null;
+    int[] trainingLabels = null;
+    int numberOfEpochs = 0;
+    if(args.length == 8){
+      DataSet dataSet = DataSet.loadIDXFormat(args[5], args[6]);
+      trainingSet = new byte[dataSet.size()][];
+      trainingLabels = new int[dataSet.size()];
+      for(int i = 0;i < dataSet.size();i++){
+        trainingSet[i] = dataSet.get(i).data_;
+        trainingLabels[i] = dataSet.get(i).label_ & 0xFF;
+      }
+      numberOfEpochs = Integer.parseInt(args[7]);
+    }
+
+    DataSet testingSet = DataSet.loadIDXFormat(args[1], args[2]);
+
+    int sampleLength = testingSet.get(0).data_.length;
+    double[][] samples = new double[testingSet.size()][sampleLength];
+    int[] labels = new int[testingSet.size()];
+    for(int i = 0;i < testingSet.size();i++){
+      for(int j = 0;j < sampleLength;j++){
+        samples[i][j] = ((double)(testingSet.get(i).data_[j] & 0xFF)) / 127.5 - 1;
+      }
+      labels[i] = testingSet.get(i).label_ & 0xFF;
+    }
+
+    int[] sizesOfLayers = neuralNetwork.getSizesOfLayers();
+    InferenceContext context = new InferenceContext(sizesOfLayers);
+    double[][] outputs = new double[samples.length][sizesOfLayers[sizesOfLayers.length - 1]];
+
+    double denseSeconds = evaluate(neuralNetwork, samples, context, outputs);
+    double denseAccuracy = accuracy(outputs, labels);
+    long denseSize = new File(args[0]).length();
+
+    System.out.printf("sparsity  accuracy  time (ms)  speedup  size (bytes)%n");
+    System.out.printf("dense     %7.2f%%  %9.2f  %6.2fx  %12d%n", denseAccuracy, denseSeconds * 1e3, 1.0, denseSize);
+
+    for(double sparsity : sparsities){
+      NeuralNetwork prunedNeuralNetwork = new NeuralNetwork(neuralNetwork);
+      prunedNeuralNetwork.prune(sparsity);
+
+      if(trainingSet != null){
+        fineTune(prunedNeuralNetwork, trainingSet, trainingLabels, numberOfEpochs);
+      }
+
+      SparseNeuralNetwork sparseNeuralNetwork = new SparseNeuralNetwork(prunedNeuralNetwork);
+      String path = String.format("%s-%.2f.bin", args[3], sparsity);
+      sparseNeuralNetwork.saveToBinary(path);
+
+      double sparseSeconds = evaluate(sparseNeuralNetwork, samples, context, outputs);
+      double sparseAccuracy = accuracy(outputs, labels);
+
+      System.out.printf("%-8.2f  %7.2f%%  %9.2f  %6.2fx  %12d%n", prunedNeuralNetwork.getSparsity(), sparseAccuracy,
+                        sparseSeconds * 1e3, denseSeconds / sparseSeconds, new File(path).length());
+    }
+  }
+
+  /**
+   *  @brief Fine-tunes a pruned NeuralNetwork, keeping its pruned weights at zero.
+   *
+   *  @param neuralNetwork The pruned NeuralNetwork.
+   *  @param trainingSet The raw training samples.
+   *  @param labels The class of each training sample.
+   *  @param numberOfEpochs The number of passes over the training set.
+   */
+  private static void fineTune(NeuralNetwork neuralNetwork, byte[][] trainingSet, int[] labels, int numberOfEpochs){
+    TrainingState trainingState = new TrainingState(neuralNetwork.getSizesOfLayers());
+    TrainingSet fineTuningSet = new TrainingSet(trainingSet, labels);
+
+    for(int epoch = 0;epoch < numberOfEpochs;epoch++){
+      for(int batch = 0;batch < trainingSet.length / FINE_TUNING_BATCH_SIZE;batch++){
+        neuralNetwork.train(fineTuningSet, batch * FINE_TUNING_BATCH_SIZE, FINE_TUNING_BATCH_SIZE, 1,
+                            FINE_TUNING_GAMMA, trainingState);
+      }
+    }
+  }
+
+  /**
+   *  @brief Evaluates a model on every sample, several times, and returns the shortest time a pass over the samples
+   *         took.
+   *
+   *  @param model The model to evaluate.
+   *  @param samples The normalized samples.
+   *  @param context The InferenceContext to evaluate with.
+   *  @param outputs The arrays where the output for each sample will be written.
+   *
+   *  @return Returns the shortest time, in seconds.
+   */
+  private static double evaluate(InferenceModel model, double[][] samples, InferenceContext context,
+                                 double[][] outputs){
+    long bestTime = Long.MAX_VALUE;
+    for(int run = 0;run < NUMBER_OF_RUNS;run++){
+      long start = System.nanoTime();
+      for(int i = 0;i < samples.length;i++){
+        model.feedForward(samples[i], context, outputs[i]);
+      }
+      bestTime = Math.min(bestTime, System.nanoTime() - start);
+    }
+
+    return bestTime / 1e9;
+  }
+
+  /**
+   *  @brief Returns the percentage of outputs whose largest element matches the label of their sample.
+   *
+   *  @param outputs The output for each sample.
+   *  @param labels The label of each sample.
+   *
+   *  @return Returns the accuracy in [0, 100].
+   */
+  private static double accuracy(double[][] outputs, int[] labels){
+    int correctAnswerCounter = 0;
+    for(int i = 0;i < outputs.length;i++){
+      double[] output = outputs[i];
+
+      int index = 0;
+      for(int j = 1;j < output.length;j++){
+        if(output[j] > output[index]){
+          index = j;
+        }
+      }
+
+      if(index == labels[i]){
+        correctAnswerCounter++;
+      }
+    }
+
+    return 100.0 * correctAnswerCounter / outputs.length;
+  }
+
+  private static final double[] DEFAULT_SPARSITIES = {0.5, 0.75, 0.9, 0.95}; //!< The sparsity levels to try, when
+                                                                             //!< none are given.
+  private static final int NUMBER_OF_RUNS = 5; //!< The number of passes over the test set each model is timed on.
+  private static final int FINE_TUNING_BATCH_SIZE = 10; //!< The batch size used for fine-tuning.
+  private static final double FINE_TUNING_GAMMA = 0.1; //!< The learning rate used for fine-tuning.
+
+}
@@ -0,0 +1,97 @@
+package main.java.utilities.tools;
+
+import java.io.File;
+import java.io.IOException;
+
+import main.java.base.InferenceContext;
+import main.java.base.InferenceModel;
+import main.java.base.NeuralNetwork;
+import main.java.base.QuantizedNeuralNetwork;
+import main.java.utilities.data.DataSet;
+
+/** @class QuantizationTool
+ *
+ *  @brief Quantizes a trained NeuralNetwork and reports how much accuracy is lost.
+ *
+ *  Usage: QuantizationTool <network.bin> <test data> <test labels> <output.bin>
+ *
+ *  The NeuralNetwork is loaded from a file written by NeuralNetwork.saveToBinary, quantized to a
+ *  QuantizedNeuralNetwork and saved to the output file. Both are then evaluated on the given IDX test set, normalized
+ *  the same way main.java.trainers.SimpleTrainer does, and their accuracies and file sizes are printed.
+ */
+public class QuantizationTool{
+  /**
+   *  @brief The entry point of the tool.
+   *
+   *  @param args The path of the NeuralNetwork, the paths of the IDX test data and labels and the path of the output.
+   *
+   *  @throws IOException When one of the files can not be read or written.
+   */
+  public static void main(String[] args) throws IOException{
+    if(args.length != 4){
+      System.err.println("Usage: QuantizationTool <network.bin> <test data> <test labels> <output.bin>");
+      System.exit(1);
+    }
+
+    NeuralNetwork neuralNetwork = NeuralNetwork.createFromBinary(args[0]);
+    QuantizedNeuralNetwork quantizedNeuralNetwork = new QuantizedNeuralNetwork(neuralNetwork);
+    quantizedNeuralNetwork.saveToBinary(args[3]);
+
+    DataSet testingSet = DataSet.loadIDXFormat(args[1], args[2]);
+
+    int sampleLength = testingSet.get(0).data_.length;
+    double[][] samples = new double[testingSet.size()][sampleLength];
+    int[] labels = new int[testingSet.size()];
+    for(int i = 0;i < testingSet.size();i++){
+      for(int j = 0;j < sampleLength;j++){
+        samples[i][j] = ((double)(testingSet.get(i).data_[j] & 0xFF)) / 127.5 - 1;
+      }
+      labels[i] = testingSet.get(i).label_ & 0xFF;
+    }
+
+    double accuracy = accuracy(neuralNetwork, samples, labels);
+    double quantizedAccuracy = accuracy(quantizedNeuralNetwork, samples, labels);
+
+    long size = new File(args[0]).length();
+    long quantizedSize = new File(args[3]).length();
+
+    System.out.printf("double accuracy:     %.2f%% (%d bytes)%n", accuracy, size);
+    System.out.printf("int8 accuracy:       %.2f%% (%d bytes)%n", quantizedAccuracy, quantizedSize);
+    System.out.printf("accuracy difference: %+.2f%%%n", quantizedAccuracy - accuracy);
+    System.out.printf("size reduction:      %.2fx%n", (double)size / quantizedSize);
+  }
+
+  /**
+   *  @brief Returns the percentage of samples whose largest output matches their label.
+   *
+   *  @param model The model to evaluate.
+   *  @param samples The normalized samples.
+   *  @param labels The label of each sample.
+   *
+   *  @return Returns the accuracy in [0, 100].
+   */
+  private static double accuracy(InferenceModel model, double[][] samples, int[] labels){
+    int[] sizesOfLayers = model.getSizesOfLayers();
+    InferenceContext context = new InferenceContext(sizesOfLayers);
+    double[] output = new double[sizesOfLayers[sizesOfLayers.length - 1]];
+
+    int correctAnswerCounter = 0;
+    for(int i = 0;i < samples.length;i++){
+      model.feedForward(samples[i], context, output);
+
+      int index = 0;
+      for(int j = 1;j < output.length;j++){
+        if(output[j] > output[index]){
+          index = j;
+        }
+      }
+
+      if(index == labels[i]){
+        correctAnswerCounter++;
+      }
+    }
+
+    return 100.0 * correctAnswerCounter / samples.length;
+  }
+
+}
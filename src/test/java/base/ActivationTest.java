@@ -0,0 +1,186 @@
+package test.java.base;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import main.java.base.Activation;
+import main.java.base.FastSigmoid;
+import main.java.base.FloatNeuralNetwork;
+import main.java.base.LeakyReLU;
+import main.java.base.NeuralNetwork;
+import main.java.base.QuantizedNeuralNetwork;
+import main.java.base.ReLU;
+import main.java.base.Sigmoid;
+import main.java.base.Tanh;
+
+/** @class ActivationTest
+ *
+ *  @brief Class that contains tests for main.java.base.Activation class and its implementations.
+ */
+public class ActivationTest{
+  /**
+   *  @brief Tests that the array kernels and the derivatives of every main.java.base.Activation agree with the scalar
+   *         function.
+   */
+  @Test
+  public void testKernelsAndDerivatives(){
+    Activation[] activations = {new Sigmoid(), new FastSigmoid(), new Tanh(), new ReLU(), new LeakyReLU(0.1)};
+
+    double[] z = new double[101];
+    for(int i = 0;i < z.length;i++){
+      z[i] = (i - 50) * 0.1 + 0.05;
+    }
+
+    for(Activation activation : activations){
+      double[] values = z.clone();
+      activation.apply(values, 0, values.length);
+
+      double[] delta = new double[z.length];
+      Arrays.fill(delta, 2);
+      activation.multiplyByDerivative(values, delta, delta.length);
+
+      for(int i = 0;i < z.length;i++){
+        assertEquals(activation.getName(), activation.apply(z[i]), values[i], 0);
+
+        // Compare with a central difference of the exact function.
+        double numericalDerivative = (exact(activation, z[i] + 1e-6) - exact(activation, z[i] - 1e-6)) / 2e-6;
+        assertEquals(activation.getName(), 2 * numericalDerivative, delta[i], 1e-6);
+      }
+    }
+  }
+
+  /**
+   *  @brief Tests that main.java.base.FastSigmoid stays within its error bound.
+   */
+  @Test
+  public void testFastSigmoidError(){
+    FastSigmoid fastSigmoid = new FastSigmoid();
+    Sigmoid sigmoid = new Sigmoid();
+
+    double maximumError = 0;
+    for(double z = -40;z <= 40;z += 0.0007){
+      maximumError = Math.max(maximumError, Math.abs(fastSigmoid.apply(z) - sigmoid.apply(z)));
+    }
+
+    assertTrue(maximumError < FastSigmoid.MAXIMUM_ERROR);
+  }
+
+  /**
+   *  @brief Tests create and getName methods of main.java.base.Activation class.
+   */
+  @Test
+  public void testCreate(){
+    Activation[] activations = {new Sigmoid(), new FastSigmoid(), new Tanh(), new ReLU(), new LeakyReLU(),
+                                new LeakyReLU(0.2)};
+
+    for(Activation activation : activations){
+      Activation created = Activation.create(activation.getName());
+
+      assertSame(activation.getClass(), created.getClass());
+      assertEquals(activation.getName(), created.getName());
+    }
+    assertEquals(0.2, ((LeakyReLU)Activation.create("leaky_relu:0.2")).getSlope(), 0);
+
+    try{
+      Activation.create("softmax");
+      fail("An unknown name must be rejected.");
+    }
+    catch(IllegalArgumentException exception){
+    }
+  }
+
+  /**
+   *  @brief Tests that the Activations of a main.java.base.NeuralNetwork are saved in its files and passed to the
+   *         other models.
+   *
+   *  @throws IOException When the NeuralNetwork can not be saved or loaded.
+   */
+  @Test
+  public void testSaveAndLoad() throws IOException{
+    NeuralNetwork neuralNetwork1 = new NeuralNetwork(new int[] {5, 4, 3, 2});
+    neuralNetwork1.setActivation(0, new ReLU());
+    neuralNetwork1.setActivation(1, new LeakyReLU(0.05));
+    neuralNetwork1.setActivation(2, new Tanh());
+
+    File binaryFile = File.createTempFile("neural_network", ".bin");
+    File xmlFile = File.createTempFile("neural_network", ".xml");
+    File floatFile = File.createTempFile("float_neural_network", ".bin");
+    File quantizedFile = File.createTempFile("quantized_neural_network", ".bin");
+    binaryFile.deleteOnExit();
+    xmlFile.deleteOnExit();
+    floatFile.deleteOnExit();
+    quantizedFile.deleteOnExit();
+
+    neuralNetwork1.saveToBinary(binaryFile.getPath());
+    neuralNetwork1.saveToXML(xmlFile.getPath());
+    new FloatNeuralNetwork(neuralNetwork1).saveToBinary(floatFile.getPath());
+    new QuantizedNeuralNetwork(neuralNetwork1).saveToBinary(quantizedFile.getPath());
+
+    NeuralNetwork neuralNetwork2 = NeuralNetwork.createFromBinary(binaryFile.getPath());
+    NeuralNetwork neuralNetwork3 = NeuralNetwork.createFromXML(xmlFile.getPath());
+    FloatNeuralNetwork floatNeuralNetwork = FloatNeuralNetwork.createFromBinary(floatFile.getPath());
+    QuantizedNeuralNetwork quantizedNeuralNetwork = QuantizedNeuralNetwork.createFromBinary(quantizedFile.getPath());
+
+    for(int i = 0;i < 3;i++){
+      String name = neuralNetwork1.getActivation(i).getName();
+
+      assertEquals(name, neuralNetwork2.getActivation(i).getName());
+      assertEquals(name, neuralNetwork3.getActivation(i).getName());
+      assertEquals(name, floatNeuralNetwork.getActivation(i).getName());
+      assertEquals(name, quantizedNeuralNetwork.getActivation(i).getName());
+    }
+
+    double[] input = {0.1, -0.2, 0.3, -0.4, 0.5};
+    assertArrayEquals(neuralNetwork1.feedForward(input), neuralNetwork2.feedForward(input), 0);
+    assertArrayEquals(neuralNetwork1.feedForward(input), neuralNetwork3.feedForward(input), 0);
+    assertArrayEquals(neuralNetwork1.feedForward(input), quantizedNeuralNetwork.feedForward(input), 0.05);
+
+    // A file written before the Activations were stored ends right after the parameters.
+    RandomAccessFile randomAccessFile = new RandomAccessFile(binaryFile, "rw");
+    randomAccessFile.setLength(4 + 4 * 4 + 8 * (4 * 5 + 4 + 3 * 4 + 3 + 2 * 3 + 2));
+    randomAccessFile.close();
+
+    NeuralNetwork neuralNetwork4 = NeuralNetwork.createFromBinary(binaryFile.getPath());
+    for(int i = 0;i < 3;i++){
+      assertTrue(neuralNetwork4.getActivation(i) instanceof Sigmoid);
+    }
+  }
+
+  /**
+   *  @brief Tests that a main.java.base.NeuralNetwork with rectified linear hidden layers learns a small problem.
+   */
+  @Test
+  public void testTrainWithReLU(){
+    NeuralNetwork neuralNetwork = new NeuralNetwork(new int[] {2, 8, 2});
+    neuralNetwork.setActivation(0, new LeakyReLU());
+    neuralNetwork.setActivation(1, new FastSigmoid());
+
+    double[][] trainingSet = {{0, 0}, {0, 1}, {1, 0}, {1, 1}};
+    double[][] labels = {{1, 0}, {0, 1}, {0, 1}, {1, 0}};
+
+    double errorBefore = NeuralNetworkTest.squaredError(neuralNetwork, trainingSet, labels);
+
+    neuralNetwork.train(trainingSet, labels, trainingSet.length, 2000, 0.5);
+
+    assertTrue(NeuralNetworkTest.squaredError(neuralNetwork, trainingSet, labels) < errorBefore);
+  }
+
+  /**
+   *  @brief Evaluates the exact function that an Activation implements or approximates.
+   *
+   *  @param activation The Activation.
+   *  @param z The independent variable.
+   *
+   *  @return Returns the value of the exact function at z.
+   */
+  private static double exact(Activation activation, double z){
+    return (activation instanceof FastSigmoid) ? new Sigmoid().apply(z) : activation.apply(z);
+  }
+
+}
@@ -0,0 +1,94 @@
+package test.java.base;
+
+import static org.junit.Assert.*;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import main.java.base.Activation;
+import main.java.base.CompiledNeuralNetwork;
+import main.java.base.InferenceContext;
+import main.java.base.LeakyReLU;
+import main.java.base.NeuralNetwork;
+import main.java.base.ScalarBackend;
+
+/** @class CompiledNeuralNetworkTest
+ *
+ *  @brief Class that contains tests for main.java.base.CompiledNeuralNetwork class.
+ */
+public class CompiledNeuralNetworkTest{
+  /**
+   *  @brief Skips the tests when the JVM has no Java compiler.
+   */
+  @Before
+  public void checkCompiler(){
+    Assume.assumeTrue(CompiledNeuralNetwork.isAvailable());
+  }
+
+  /**
+   *  @brief Tests that a main.java.base.CompiledNeuralNetwork gives the same outputs as the
+   *         main.java.base.NeuralNetwork it was compiled from, for several topologies and Activations.
+   */
+  @Test
+  public void testCompile(){
+    int[][] sizesOfLayers = {{5, 3}, {30, 17, 10}, {20, 9, 6, 3}, {13, 40, 21}};
+    Activation[] activations = {Activation.create(Activation.SIGMOID), Activation.create(Activation.FAST_SIGMOID),
+                                Activation.create(Activation.TANH), Activation.create(Activation.RELU),
+                                new LeakyReLU(0.25)};
+
+    for(int[] sizes : sizesOfLayers){
+      for(Activation activation : activations){
+        NeuralNetwork neuralNetwork = new NeuralNetwork(sizes);
+        neuralNetwork.setComputeBackend(new ScalarBackend());
+        neuralNetwork.setActivation(activation);
+        // The output layer keeps a different Activation, so that layers are not all alike.
+        neuralNetwork.setActivation(sizes.length - 2, Activation.create(Activation.SIGMOID));
+
+        CompiledNeuralNetwork compiledNeuralNetwork = CompiledNeuralNetwork.compile(neuralNetwork);
+        assertArrayEquals(sizes, compiledNeuralNetwork.getSizesOfLayers());
+
+        InferenceContext context = new InferenceContext(sizes);
+        double[] output = new double[sizes[sizes.length - 1]];
+        for(int i = 0;i < 5;i++){
+          double[] input = new double[sizes[0]];
+          for(int j = 0;j < input.length;j++){
+            input[j] = Math.random() * 2 - 1;
+          }
+
+          assertArrayEquals(neuralNetwork.feedForward(input), compiledNeuralNetwork.feedForward(input), 0);
+          assertArrayEquals(neuralNetwork.feedForward(input),
+                            compiledNeuralNetwork.feedForward(input, context, output), 0);
+        }
+      }
+    }
+  }
+
+  /**
+   *  @brief Tests that the generated class of a topology is reused, and that a main.java.base.CompiledNeuralNetwork
+   *         keeps the parameters it was compiled with.
+   */
+  @Test
+  public void testCache(){
+    NeuralNetwork neuralNetwork1 = new NeuralNetwork(new int[] {11, 7, 4});
+    NeuralNetwork neuralNetwork2 = new NeuralNetwork(new int[] {11, 7, 4});
+    neuralNetwork1.setComputeBackend(new ScalarBackend());
+    neuralNetwork2.setComputeBackend(new ScalarBackend());
+
+    CompiledNeuralNetwork compiledNeuralNetwork1 = CompiledNeuralNetwork.compile(neuralNetwork1);
+    CompiledNeuralNetwork compiledNeuralNetwork2 = CompiledNeuralNetwork.compile(neuralNetwork2);
+    assertSame(compiledNeuralNetwork1.getClass(), compiledNeuralNetwork2.getClass());
+
+    double[] input = new double[11];
+    for(int i = 0;i < input.length;i++){
+      input[i] = Math.random() * 2 - 1;
+    }
+    double[] output = neuralNetwork1.feedForward(input);
+
+    neuralNetwork1.train(new double[][] {input}, new double[][] {{1, 0, 0, 0}}, 1, 5, 0.5);
+
+    assertArrayEquals(output, compiledNeuralNetwork1.feedForward(input), 0);
+    assertArrayEquals(neuralNetwork2.feedForward(input), compiledNeuralNetwork2.feedForward(input), 0);
+  }
+
+}
@@ -0,0 +1,177 @@
+package test.java.base;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import main.java.base.Activation;
+import main.java.base.CompressedModel;
+import main.java.base.NeuralNetwork;
+
+/** @class CompressedModelTest
+ *
+ *  @brief Class that contains tests for main.java.base.CompressedModel class and for the compressed files of
+ *         main.java.base.NeuralNetwork class.
+ */
+public class CompressedModelTest{
+  /**
+   *  @brief Tests the conversions between floats and float16 or bfloat16.
+   */
+  @Test
+  public void testConversions(){
+    for(int code = 0;code < 0x10000;code++){
+      float value = CompressedModel.fromFloat16(code);
+      if(!Float.isNaN(value)){
+        assertEquals(code, CompressedModel.toFloat16(value));
+      }
+
+      value = CompressedModel.fromBFloat16(code);
+      if(!Float.isNaN(value)){
+        assertEquals(code, CompressedModel.toBFloat16(value));
+      }
+    }
+
+    // Ties go to the even code.
+    assertEquals(0x3C00, CompressedModel.toFloat16(1 + 0x1p-11f));
+    assertEquals(0x3C02, CompressedModel.toFloat16(1 + 3 * 0x1p-11f));
+    assertEquals(0x0000, CompressedModel.toFloat16(0x1p-25f));
+    assertEquals(0x0001, CompressedModel.toFloat16(1.5f * 0x1p-25f));
+    assertEquals(0x7BFF, CompressedModel.toFloat16(65504));
+    assertEquals(0x7C00, CompressedModel.toFloat16(65520));
+    assertEquals(0xFC00, CompressedModel.toFloat16(Float.NEGATIVE_INFINITY));
+    assertTrue(Float.isNaN(CompressedModel.fromFloat16(CompressedModel.toFloat16(Float.NaN))));
+
+    assertEquals(0x3F80, CompressedModel.toBFloat16(1 + 0x1p-8f));
+    assertEquals(0x3F82, CompressedModel.toBFloat16(1 + 3 * 0x1p-8f));
+    assertTrue(Float.isNaN(CompressedModel.fromBFloat16(CompressedModel.toBFloat16(Float.NaN))));
+  }
+
+  /**
+   *  @brief Tests saveToCompressed, loadFromCompressed and createFromCompressed methods of main.java.base.NeuralNetwork
+   *         class, with every encoding and combination of flags, against the binary format.
+   *
+   *  @throws IOException When one of the tested methods throws an exception.
+   */
+  @Test
+  public void testSaveAndLoad() throws IOException{
+    NeuralNetwork neuralNetwork = new NeuralNetwork(new int[] {300, 80, 10});
+    neuralNetwork.setActivation(0, Activation.create(Activation.TANH));
+
+    File binaryFile = File.createTempFile("neural_network", ".bin");
+    File compressedFile = File.createTempFile("neural_network", ".nnc");
+    binaryFile.deleteOnExit();
+    compressedFile.deleteOnExit();
+
+    neuralNetwork.saveToBinary(binaryFile.getPath());
+    NeuralNetwork binaryNeuralNetwork = NeuralNetwork.createFromBinary(binaryFile.getPath());
+
+    double[][] inputs = new double[100][300];
+    for(int i = 0;i < inputs.length;i++){
+      for(int j = 0;j < inputs[i].length;j++){
+        inputs[i][j] = Math.random() * 2 - 1;
+      }
+    }
+
+    int[] encodings = {CompressedModel.ENCODING_FLOAT16, CompressedModel.ENCODING_BFLOAT16};
+    // Half of the spacing of the codes of [0.125, 0.25), where the largest parameters are.
+    double[] maximumErrors = {0x1p-14, 0x1p-11};
+    int[] flags = {0, CompressedModel.FLAG_DEFLATE, CompressedModel.FLAG_SHUFFLE | CompressedModel.FLAG_DEFLATE,
+                   CompressedModel.FLAG_DELTA | CompressedModel.FLAG_SHUFFLE, CompressedModel.FLAG_DELTA |
+                   CompressedModel.FLAG_SHUFFLE | CompressedModel.FLAG_DEFLATE};
+
+    for(int e = 0;e < encodings.length;e++){
+      double[][] firstOutputs = null;
+      long plainLength = 0;
+
+      for(int f = 0;f < flags.length;f++){
+        double[] errorBounds = neuralNetwork.saveToCompressed(compressedFile.getPath(), encodings[e], flags[f]);
+
+        CompressedModel compressedModel = new CompressedModel(compressedFile.getPath());
+        try{
+          assertArrayEquals(neuralNetwork.getSizesOfLayers(), compressedModel.getSizesOfLayers());
+          assertEquals(encodings[e], compressedModel.getEncoding());
+          assertEquals(flags[f], compressedModel.getFlags());
+          assertArrayEquals(errorBounds, compressedModel.getErrorBounds(), 0);
+        }
+        finally{
+          compressedModel.close();
+        }
+
+        for(int i = 0;i < errorBounds.length;i++){
+          assertTrue(errorBounds[i] > 0);
+          assertTrue(errorBounds[i] <= maximumErrors[e]);
+        }
+
+        NeuralNetwork compressedNeuralNetwork = NeuralNetwork.createFromCompressed(compressedFile.getPath());
+        assertEquals(Activation.TANH, compressedNeuralNetwork.getActivation(0).getName());
+        assertEquals(Activation.SIGMOID, compressedNeuralNetwork.getActivation(1).getName());
+
+        // The flags are lossless, so every file decodes to the same parameters.
+        double[][] outputs = new double[inputs.length][];
+        int differentClasses = 0;
+        for(int i = 0;i < inputs.length;i++){
+          outputs[i] = compressedNeuralNetwork.feedForward(inputs[i]);
+          if(firstOutputs != null){
+            assertArrayEquals(firstOutputs[i], outputs[i], 0);
+          }
+
+          double[] binaryOutput = binaryNeuralNetwork.feedForward(inputs[i]);
+          assertArrayEquals(binaryOutput, outputs[i], 300 * 4 * maximumErrors[e]);
+          if(binaryNeuralNetwork.classify(inputs[i]) != compressedNeuralNetwork.classify(inputs[i])){
+            differentClasses++;
+          }
+        }
+        assertTrue(differentClasses <= inputs.length / 20);
+
+        if(firstOutputs == null){
+          firstOutputs = outputs;
+          plainLength = compressedFile.length();
+
+          // Two bytes per parameter instead of eight.
+          assertTrue(plainLength * 4 < binaryFile.length() + 256);
+        }
+        else if((flags[f] & CompressedModel.FLAG_DEFLATE) != 0){
+          assertTrue(compressedFile.length() < plainLength);
+        }
+      }
+    }
+  }
+
+  /**
+   *  @brief Tests that files which are not complete compressed files are rejected.
+   *
+   *  @throws IOException When a file can not be written.
+   */
+  @Test
+  public void testInvalidFiles() throws IOException{
+    NeuralNetwork neuralNetwork = new NeuralNetwork(new int[] {20, 10, 5});
+
+    File file = File.createTempFile("neural_network", ".nnc");
+    file.deleteOnExit();
+
+    neuralNetwork.saveToBinary(file.getPath());
+    try{
+      NeuralNetwork.createFromCompressed(file.getPath());
+      fail("A binary file must be rejected.");
+    }
+    catch(IOException exception){
+    }
+
+    neuralNetwork.saveToCompressed(file.getPath(), CompressedModel.ENCODING_FLOAT16,
+                                   CompressedModel.FLAG_SHUFFLE | CompressedModel.FLAG_DEFLATE);
+    byte[] bytes = Files.readAllBytes(file.toPath());
+    Files.write(file.toPath(), Arrays.copyOf(bytes, bytes.length - 16));
+    try{
+      NeuralNetwork.createFromCompressed(file.getPath());
+      fail("A truncated file must be rejected.");
+    }
+    catch(IOException exception){
+    }
+  }
+
+}
@@ -0,0 +1,134 @@
+package test.java.base;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import main.java.base.ComputeBackend;
+import main.java.base.NeuralNetwork;
+import main.java.base.ScalarBackend;
+
+/** @class ComputeBackendTest
+ *
+ *  @brief Class that contains tests for main.java.base.ComputeBackend class and its implementations.
+ *
+ *  The vector implementation is compared against main.java.base.ScalarBackend. Those tests are skipped when the
+ *  vector implementation is not available.
+ */
+public class ComputeBackendTest{
+  /**
+   *  @brief Tests the kernels of main.java.base.ScalarBackend against plain loops.
+   */
+  @Test
+  public void testScalarBackend(){
+    ComputeBackend computeBackend = ComputeBackend.create(ComputeBackend.SCALAR);
+    assertTrue(computeBackend instanceof ScalarBackend);
+
+    double[] a = {1, 2, 3, 4, 5};
+    double[] b = {5, 4, 3, 2, 1};
+
+    assertEquals(4 * 2 + 5 * 1, computeBackend.dot(a, 3, b, 3, 2), 0);
+
+    double[] results = new double[4];
+    computeBackend.dot4(a, 0, b, 0, 1, 2, 3, 2, results);
+    assertArrayEquals(new double[] {1 * 5 + 2 * 4, 1 * 4 + 2 * 3, 1 * 3 + 2 * 2, 1 * 2 + 2 * 1}, results, 0);
+
+    computeBackend.axpy(2, a, 1, b, 0, 3);
+    assertArrayEquals(new double[] {9, 10, 11, 2, 1}, b, 0);
+
+    double[] matrix = new double[6];
+    computeBackend.addOuterProduct(new double[] {1, 2}, new double[] {1, 10, 100}, matrix, 2, 3);
+    assertArrayEquals(new double[] {1, 10, 100, 2, 20, 200}, matrix, 0);
+  }
+
+  /**
+   *  @brief Tests the kernels of the vector implementation against main.java.base.ScalarBackend on lengths that do
+   *         and do not fill a whole number of vectors.
+   */
+  @Test
+  public void testVectorBackend(){
+    Assume.assumeTrue(ComputeBackend.isVectorAvailable());
+
+    ComputeBackend scalarBackend = ComputeBackend.create(ComputeBackend.SCALAR);
+    ComputeBackend vectorBackend = ComputeBackend.create(ComputeBackend.VECTOR);
+    Random random = new Random(0);
+
+    for(int length = 0;length < 40;length++){
+      double[] a = randomArray(random, length + 3);
+      double[] b = randomArray(random, length + 5);
+
+      assertEquals(scalarBackend.dot(a, 3, b, 5, length), vectorBackend.dot(a, 3, b, 5, length), 1e-12);
+
+      // dot4 must give exactly the results of dot, so that feedForwardBatch matches feedForward.
+      double[] c = randomArray(random, length + 8);
+      int[] offsets = {0, 2, 5, 8};
+      double[] results = new double[4];
+      vectorBackend.dot4(a, 3, c, offsets[0], offsets[1], offsets[2], offsets[3], length, results);
+      for(int i = 0;i < offsets.length;i++){
+        assertEquals(vectorBackend.dot(a, 3, c, offsets[i], length), results[i], 0);
+      }
+
+      double[] y1 = randomArray(random, length + 1);
+      double[] y2 = y1.clone();
+      scalarBackend.axpy(0.7, a, 2, y1, 1, length);
+      vectorBackend.axpy(0.7, a, 2, y2, 1, length);
+      assertArrayEquals(y1, y2, 1e-12);
+
+      double[] rowVector = randomArray(random, 3);
+      double[] matrix1 = randomArray(random, 3 * length);
+      double[] matrix2 = matrix1.clone();
+      scalarBackend.addOuterProduct(rowVector, a, matrix1, 3, length);
+      vectorBackend.addOuterProduct(rowVector, a, matrix2, 3, length);
+      assertArrayEquals(matrix1, matrix2, 1e-12);
+    }
+  }
+
+  /**
+   *  @brief Tests that a main.java.base.NeuralNetwork gives the same results with either implementation.
+   */
+  @Test
+  public void testNeuralNetworkWithVectorBackend(){
+    Assume.assumeTrue(ComputeBackend.isVectorAvailable());
+
+    NeuralNetwork neuralNetwork1 = new NeuralNetwork(new int[] {33, 17, 9, 4});
+    neuralNetwork1.setComputeBackend(ComputeBackend.create(ComputeBackend.SCALAR));
+    NeuralNetwork neuralNetwork2 = new NeuralNetwork(neuralNetwork1);
+    neuralNetwork2.setComputeBackend(ComputeBackend.create(ComputeBackend.VECTOR));
+
+    Random random = new Random(1);
+    double[][] trainingSet = new double[8][];
+    double[][] labels = new double[8][4];
+    for(int i = 0;i < trainingSet.length;i++){
+      trainingSet[i] = randomArray(random, 33);
+      labels[i][i % 4] = 1;
+    }
+
+    neuralNetwork1.train(trainingSet, labels, trainingSet.length, 3, 0.5);
+    neuralNetwork2.train(trainingSet, labels, trainingSet.length, 3, 0.5);
+
+    for(int i = 0;i < trainingSet.length;i++){
+      assertArrayEquals(neuralNetwork1.feedForward(trainingSet[i]), neuralNetwork2.feedForward(trainingSet[i]), 1e-12);
+    }
+  }
+
+  /**
+   *  @brief Creates an array of random values in [-1, 1).
+   *
+   *  @param random The random number generator.
+   *  @param length The length of the array.
+   *
+   *  @return Returns the created array.
+   */
+  static double[] randomArray(Random random, int length){
+    double[] array = new double[length];
+    for(int i = 0;i < length;i++){
+      array[i] = random.nextDouble() * 2 - 1;
+    }
+
+    return array;
+  }
+
+}
@@ -0,0 +1,151 @@
+package test.java.base;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import main.java.base.FloatNeuralNetwork;
+import main.java.base.NeuralNetwork;
+import main.java.base.TrainingState;
+
+/** @class FloatNeuralNetworkTest
+ *
+ *  @brief Class that contains tests for main.java.base.FloatNeuralNetwork class.
+ */
+public class FloatNeuralNetworkTest{
+  /**
+   *  @brief Tests that a main.java.base.FloatNeuralNetwork converted from a main.java.base.NeuralNetwork gives almost
+   *         the same outputs.
+   */
+  @Test
+  public void testConversion(){
+    NeuralNetwork neuralNetwork = new NeuralNetwork(new int[] {30, 20, 10});
+    FloatNeuralNetwork floatNeuralNetwork = new FloatNeuralNetwork(neuralNetwork);
+
+    double[] input = new double[30];
+    float[] floatInput = new float[30];
+    for(int i = 0;i < input.length;i++){
+      input[i] = Math.random() * 2 - 1;
+      floatInput[i] = (float)input[i];
+    }
+
+    double[] output = neuralNetwork.feedForward(input);
+
+    float[] floatOutput = floatNeuralNetwork.feedForward(floatInput);
+    for(int i = 0;i < output.length;i++){
+      assertEquals(output[i], floatOutput[i], 1e-5);
+    }
+
+    floatNeuralNetwork.setDoubleAccumulation(true);
+    floatOutput = floatNeuralNetwork.feedForward(floatInput);
+    for(int i = 0;i < output.length;i++){
+      assertEquals(output[i], floatOutput[i], 1e-5);
+    }
+  }
+
+  /**
+   *  @brief Tests saveToBinary, loadFromBinary and convertBinary methods of main.java.base.FloatNeuralNetwork class.
+   *
+   *  @throws IOException When one of the tested methods throws an exception.
+   */
+  @Test
+  public void testSaveAndLoad() throws IOException{
+    NeuralNetwork neuralNetwork = new NeuralNetwork(new int[] {5, 4, 3});
+
+    File neuralNetworkFile = File.createTempFile("neural_network", ".bin");
+    File floatNeuralNetworkFile = File.createTempFile("float_neural_network", ".bin");
+    neuralNetworkFile.deleteOnExit();
+    floatNeuralNetworkFile.deleteOnExit();
+
+    neuralNetwork.saveToBinary(neuralNetworkFile.getPath());
+    FloatNeuralNetwork.convertBinary(neuralNetworkFile.getPath(), floatNeuralNetworkFile.getPath());
+
+    FloatNeuralNetwork floatNeuralNetwork1 = new FloatNeuralNetwork(neuralNetwork);
+    FloatNeuralNetwork floatNeuralNetwork2 = FloatNeuralNetwork.createFromBinary(floatNeuralNetworkFile.getPath());
+
+    assertArrayEquals(floatNeuralNetwork1.getSizesOfLayers(), floatNeuralNetwork2.getSizesOfLayers());
+
+    float[] input = {0.1f, -0.2f, 0.3f, -0.4f, 0.5f};
+    assertArrayEquals(floatNeuralNetwork1.feedForward(input), floatNeuralNetwork2.feedForward(input), 0);
+
+    // A double precision file must be rejected.
+    try{
+      FloatNeuralNetwork.createFromBinary(neuralNetworkFile.getPath());
+      fail("A NeuralNetwork binary file must not be loaded as a FloatNeuralNetwork.");
+    }
+    catch(IOException exception){
+    }
+  }
+
+  /**
+   *  @brief Tests that train method of main.java.base.FloatNeuralNetwork class learns a small problem.
+   */
+  @Test
+  public void testTrain(){
+    FloatNeuralNetwork floatNeuralNetwork = new FloatNeuralNetwork(new int[] {2, 4, 2});
+
+    float[][] trainingSet = {{0, 0}, {0, 1}, {1, 0}, {1, 1}};
+    float[][] labels = {{1, 0}, {0, 1}, {0, 1}, {1, 0}};
+
+    double errorBefore = squaredError(floatNeuralNetwork, trainingSet, labels);
+
+    floatNeuralNetwork.train(trainingSet, labels, trainingSet.length, 2000, 2);
+
+    assertTrue(squaredError(floatNeuralNetwork, trainingSet, labels) < errorBefore);
+  }
+
+  /**
+   *  @brief Tests that train method of main.java.base.FloatNeuralNetwork class follows the same momentum gradient
+   *         descent as train method of main.java.base.NeuralNetwork class.
+   */
+  @Test
+  public void testTrainWithMomentum(){
+    NeuralNetwork neuralNetwork = new NeuralNetwork(new int[] {2, 4, 2});
+    neuralNetwork.setMomentumCoefficient(0.9);
+    FloatNeuralNetwork floatNeuralNetwork = new FloatNeuralNetwork(neuralNetwork);
+    assertEquals(0.9, floatNeuralNetwork.getMomentumCoefficient(), 0);
+
+    double[][] trainingSet = {{0, 0}, {0, 1}, {1, 0}, {1, 1}};
+    double[][] labels = {{1, 0}, {0, 1}, {0, 1}, {1, 0}};
+    float[][] floatTrainingSet = {{0, 0}, {0, 1}, {1, 0}, {1, 1}};
+    float[][] floatLabels = {{1, 0}, {0, 1}, {0, 1}, {1, 0}};
+
+    neuralNetwork.train(trainingSet, labels, trainingSet.length, 50, 2,
+                        new TrainingState(neuralNetwork.getSizesOfLayers()));
+    floatNeuralNetwork.train(floatTrainingSet, floatLabels, floatTrainingSet.length, 50, 2);
+
+    for(int i = 0;i < trainingSet.length;i++){
+      double[] output = neuralNetwork.feedForward(trainingSet[i]);
+      float[] floatOutput = floatNeuralNetwork.feedForward(floatTrainingSet[i]);
+      for(int j = 0;j < output.length;j++){
+        assertEquals(output[j], floatOutput[j], 1e-4);
+      }
+    }
+  }
+
+  /**
+   *  @brief Calculates the squared error of a FloatNeuralNetwork on a set of data.
+   *
+   *  @param floatNeuralNetwork The FloatNeuralNetwork to evaluate.
+   *  @param data The set of data.
+   *  @param labels The labels of the data.
+   *
+   *  @return Returns the sum of the squared errors over all the samples.
+   */
+  static double squaredError(FloatNeuralNetwork floatNeuralNetwork, float[][] data, float[][] labels){
+    double error = 0;
+    for(int i = 0;i < data.length;i++){
+      float[] output = floatNeuralNetwork.feedForward(data[i]);
+
+      for(int j = 0;j < output.length;j++){
+        error += (output[j] - labels[i][j]) * (output[j] - labels[i][j]);
+      }
+    }
+
+    return error;
+  }
+
+}
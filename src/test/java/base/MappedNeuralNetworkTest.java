@@ -0,0 +1,114 @@
+package test.java.base;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.junit.Test;
+
+import main.java.base.Activation;
+import main.java.base.InferenceContext;
+import main.java.base.MappedNeuralNetwork;
+import main.java.base.NeuralNetwork;
+import main.java.base.ScalarBackend;
+
+/** @class MappedNeuralNetworkTest
+ *
+ *  @brief Class that contains tests for main.java.base.MappedNeuralNetwork class.
+ */
+public class MappedNeuralNetworkTest{
+  /**
+   *  @brief Tests that a main.java.base.MappedNeuralNetwork converted from the binary and XML files of a
+   *         main.java.base.NeuralNetwork gives the same outputs.
+   *
+   *  @throws IOException When one of the tested methods throws an exception.
+   */
+  @Test
+  public void testConvert() throws IOException{
+    NeuralNetwork neuralNetwork = new NeuralNetwork(new int[] {30, 21, 10});
+    neuralNetwork.setComputeBackend(new ScalarBackend());
+    neuralNetwork.setActivation(0, Activation.create(Activation.TANH));
+
+    File binaryFile = File.createTempFile("neural_network", ".bin");
+    File xmlFile = File.createTempFile("neural_network", ".xml");
+    File mappedFile = File.createTempFile("mapped_neural_network", ".mnn");
+    File floatMappedFile = File.createTempFile("mapped_neural_network", ".mnn");
+    binaryFile.deleteOnExit();
+    xmlFile.deleteOnExit();
+    mappedFile.deleteOnExit();
+    floatMappedFile.deleteOnExit();
+
+    neuralNetwork.saveToBinary(binaryFile.getPath());
+    neuralNetwork.saveToXML(xmlFile.getPath());
+
+    for(File file : new File[] {binaryFile, xmlFile}){
+      MappedNeuralNetwork.convert(file.getPath(), mappedFile.getPath(), MappedNeuralNetwork.DTYPE_FLOAT64);
+      MappedNeuralNetwork.convert(file.getPath(), floatMappedFile.getPath(), MappedNeuralNetwork.DTYPE_FLOAT32);
+      assertEquals(0, mappedFile.length() % MappedNeuralNetwork.ALIGNMENT);
+
+      MappedNeuralNetwork mappedNeuralNetwork = MappedNeuralNetwork.map(mappedFile.getPath());
+      MappedNeuralNetwork floatMappedNeuralNetwork = MappedNeuralNetwork.map(floatMappedFile.getPath());
+
+      assertArrayEquals(neuralNetwork.getSizesOfLayers(), mappedNeuralNetwork.getSizesOfLayers());
+      assertEquals(MappedNeuralNetwork.DTYPE_FLOAT64, mappedNeuralNetwork.getDtype());
+      assertEquals(MappedNeuralNetwork.DTYPE_FLOAT32, floatMappedNeuralNetwork.getDtype());
+      assertEquals(Activation.TANH, mappedNeuralNetwork.getActivation(0).getName());
+      assertTrue(mappedNeuralNetwork.verify());
+      assertTrue(floatMappedNeuralNetwork.verify());
+
+      InferenceContext context = new InferenceContext(neuralNetwork.getSizesOfLayers());
+      double[] output = new double[10];
+      for(int i = 0;i < 5;i++){
+        double[] input = new double[30];
+        for(int j = 0;j < input.length;j++){
+          input[j] = Math.random() * 2 - 1;
+        }
+
+        assertArrayEquals(neuralNetwork.feedForward(input), mappedNeuralNetwork.feedForward(input), 0);
+        assertArrayEquals(neuralNetwork.feedForward(input), mappedNeuralNetwork.feedForward(input, context, output),
+                          0);
+        assertArrayEquals(neuralNetwork.feedForward(input), floatMappedNeuralNetwork.feedForward(input), 1e-5);
+      }
+    }
+  }
+
+  /**
+   *  @brief Tests that corrupted parameters and files that are not in the format of
+   *         main.java.base.MappedNeuralNetwork are detected.
+   *
+   *  @throws IOException When one of the tested methods throws an exception.
+   */
+  @Test
+  public void testCorruption() throws IOException{
+    NeuralNetwork neuralNetwork = new NeuralNetwork(new int[] {8, 5, 3});
+
+    File binaryFile = File.createTempFile("neural_network", ".bin");
+    File mappedFile = File.createTempFile("mapped_neural_network", ".mnn");
+    binaryFile.deleteOnExit();
+    mappedFile.deleteOnExit();
+
+    neuralNetwork.saveToBinary(binaryFile.getPath());
+    MappedNeuralNetwork.write(neuralNetwork, mappedFile.getPath(), MappedNeuralNetwork.DTYPE_FLOAT64);
+
+    // Flip a bit of the last bias.
+    RandomAccessFile file = new RandomAccessFile(mappedFile, "rw");
+    long position = mappedFile.length() - MappedNeuralNetwork.ALIGNMENT + 2 * 8;
+    file.seek(position);
+    int value = file.read();
+    file.seek(position);
+    file.write(value ^ 1);
+    file.close();
+
+    assertFalse(MappedNeuralNetwork.map(mappedFile.getPath()).verify());
+
+    try{
+      MappedNeuralNetwork.map(binaryFile.getPath());
+      fail("A NeuralNetwork binary file must be rejected.");
+    }
+    catch(IOException exception){
+    }
+  }
+
+}
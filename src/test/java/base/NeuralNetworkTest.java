@@ -0,0 +1,947 @@
+package test.java.base;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import main.java.base.Activation;
+import main.java.base.ComputeBackend;
+import main.java.base.InferenceContext;
+import main.java.base.NeuralNetwork;
+import main.java.base.ScalarBackend;
+import main.java.base.TrainingSet;
+import main.java.base.TrainingState;
+
+/** @class NeuralNetworkTest
+ *
+ *  @brief Class that contains tests for main.java.base.NeuralNetwork class.
+ */
+public class NeuralNetworkTest{
+  /**
+   *  @brief Tests saveToBinary, loadFromBinary, saveToXML and loadFromXML methods of main.java.base.NeuralNetwork
+   *         class.
+   *
+   *  @throws IOException When one of the tested methods throws an exception.
+   */
+  @Test
+  public void testSaveAndLoad() throws IOException{
+    NeuralNetwork neuralNetwork1 = new NeuralNetwork(new int[] {5, 4, 3, 2});
+
+    File binaryFile = File.createTempFile("neural_network", ".bin");
+    File xmlFile = File.createTempFile("neural_network", ".xml");
+    binaryFile.deleteOnExit();
+    xmlFile.deleteOnExit();
+
+    neuralNetwork1.saveToBinary(binaryFile.getPath());
+    neuralNetwork1.saveToXML(xmlFile.getPath());
+
+    NeuralNetwork neuralNetwork2 = NeuralNetwork.createFromBinary(binaryFile.getPath());
+    NeuralNetwork neuralNetwork3 = NeuralNetwork.createFromXML(xmlFile.getPath());
+
+    assertArrayEquals(neuralNetwork1.getSizesOfLayers(), neuralNetwork2.getSizesOfLayers());
+    assertArrayEquals(neuralNetwork1.getSizesOfLayers(), neuralNetwork3.getSizesOfLayers());
+
+    double[] input = {0.1, -0.2, 0.3, -0.4, 0.5};
+    double[] output1 = neuralNetwork1.feedForward(input);
+
+    assertArrayEquals(output1, neuralNetwork2.feedForward(input), 0);
+    assertArrayEquals(output1, neuralNetwork3.feedForward(input), 0);
+  }
+
+  /**
+   *  @brief Tests that the binary files of main.java.base.NeuralNetwork class keep the layout of DataOutputStream,
+   *         with and without the Activations after the parameters.
+   *
+   *  @throws IOException When one of the tested methods throws an exception.
+   */
+  @Test
+  public void testBinaryFormat() throws IOException{
+    // Larger than the buffer of saveToBinary and loadFromBinary, so that the parameters cross its boundaries.
+    NeuralNetwork neuralNetwork1 = new NeuralNetwork(new int[] {600, 250, 10});
+    neuralNetwork1.setActivation(Activation.create(Activation.TANH));
+    int[] sizesOfLayers = neuralNetwork1.getSizesOfLayers();
+
+    File binaryFile = File.createTempFile("neural_network", ".bin");
+    binaryFile.deleteOnExit();
+
+    neuralNetwork1.saveToBinary(binaryFile.getPath());
+
+    DataInputStream dataInputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(binaryFile)));
+    ByteArrayOutputStream legacy = new ByteArrayOutputStream();
+    DataOutputStream legacyStream = new DataOutputStream(legacy);
+    try{
+      assertEquals(sizesOfLayers.length, dataInputStream.readInt());
+      legacyStream.writeInt(sizesOfLayers.length);
+      for(int i = 0;i < sizesOfLayers.length;i++){
+        assertEquals(sizesOfLayers[i], dataInputStream.readInt());
+        legacyStream.writeInt(sizesOfLayers[i]);
+      }
+
+      for(int i = 0;i < sizesOfLayers.length - 1;i++){
+        for(int j = 0;j < (sizesOfLayers[i] + 1) * sizesOfLayers[i + 1];j++){
+          legacyStream.writeDouble(dataInputStream.readDouble());
+        }
+      }
+
+      assertEquals(0x41435456, dataInputStream.readInt());
+      assertEquals(Activation.TANH, dataInputStream.readUTF());
+      assertEquals(Activation.TANH, dataInputStream.readUTF());
+      assertEquals(-1, dataInputStream.read());
+    }
+    finally{
+      dataInputStream.close();
+    }
+
+    double[] input = new double[600];
+    for(int i = 0;i < input.length;i++){
+      input[i] = Math.random() * 2 - 1;
+    }
+    double[] output1 = neuralNetwork1.feedForward(input);
+
+    assertArrayEquals(output1, NeuralNetwork.createFromBinary(binaryFile.getPath()).feedForward(input), 0);
+
+    // A file written before the Activations were stored loads with Sigmoid on every layer.
+    Files.write(binaryFile.toPath(), legacy.toByteArray());
+    NeuralNetwork neuralNetwork2 = NeuralNetwork.createFromBinary(binaryFile.getPath());
+    assertEquals(Activation.SIGMOID, neuralNetwork2.getActivation(0).getName());
+    neuralNetwork2.setActivation(Activation.create(Activation.TANH));
+    assertArrayEquals(output1, neuralNetwork2.feedForward(input), 0);
+
+    Files.write(binaryFile.toPath(), Arrays.copyOf(legacy.toByteArray(), legacy.size() - 4));
+    try{
+      NeuralNetwork.createFromBinary(binaryFile.getPath());
+      fail("A truncated file must be rejected.");
+    }
+    catch(IOException exception){
+    }
+  }
+
+  /**
+   *  @brief Tests that loadFromXML method of main.java.base.NeuralNetwork class accepts files without activations or
+   *         with other whitespace, and rejects truncated files and files with fewer activations than layers.
+   *
+   *  @throws IOException When one of the tested methods throws an exception.
+   */
+  @Test
+  public void testLoadFromXML() throws IOException{
+    NeuralNetwork neuralNetwork1 = new NeuralNetwork(new int[] {6, 5, 3});
+
+    File xmlFile = File.createTempFile("neural_network", ".xml");
+    xmlFile.deleteOnExit();
+
+    neuralNetwork1.saveToXML(xmlFile.getPath());
+    String xml = new String(Files.readAllBytes(xmlFile.toPath()), StandardCharsets.UTF_8);
+
+    double[] input = {0.1, -0.2, 0.3, -0.4, 0.5, -0.6};
+    double[] output1 = neuralNetwork1.feedForward(input);
+
+    // Without the activations, as written before they were stored, and with Windows line endings.
+    String variant = xml.replaceAll("<activations>[^<]*</activations>\n", "").replace("\n", "\r\n\t ");
+    Files.write(xmlFile.toPath(), variant.getBytes(StandardCharsets.UTF_8));
+    assertArrayEquals(output1, NeuralNetwork.createFromXML(xmlFile.getPath()).feedForward(input), 0);
+
+    int[] lengths = {xml.length() / 3, xml.length() / 2, xml.lastIndexOf("</layer>")};
+    for(int length : lengths){
+      Files.write(xmlFile.toPath(), xml.substring(0, length).getBytes(StandardCharsets.UTF_8));
+      try{
+        NeuralNetwork.createFromXML(xmlFile.getPath());
+        fail("A truncated file must be rejected.");
+      }
+      catch(IOException exception){
+      }
+    }
+
+    // Only the first of the activations.
+    variant = xml.replaceAll("<activations>(\\S+)[^<]*</activations>", "<activations>$1</activations>");
+    Files.write(xmlFile.toPath(), variant.getBytes(StandardCharsets.UTF_8));
+    try{
+      NeuralNetwork.createFromXML(xmlFile.getPath());
+      fail("A file with fewer activations than layers must be rejected.");
+    }
+    catch(IOException exception){
+      assertTrue(exception.getMessage().contains("fewer activations"));
+    }
+  }
+
+  /**
+   *  @brief Tests that train method of main.java.base.NeuralNetwork class learns a small problem.
+   */
+  @Test
+  public void testTrain(){
+    NeuralNetwork neuralNetwork = new NeuralNetwork(new int[] {2, 4, 2});
+
+    double[][] trainingSet = {{0, 0}, {0, 1}, {1, 0}, {1, 1}};
+    double[][] labels = {{1, 0}, {0, 1}, {0, 1}, {1, 0}};
+
+    double errorBefore = squaredError(neuralNetwork, trainingSet, labels);
+
+    neuralNetwork.train(trainingSet, labels, trainingSet.length, 2000, 2);
+
+    assertTrue(squaredError(neuralNetwork, trainingSet, labels) < errorBefore);
+  }
+
+  /**
+   *  @brief Tests that trainHogwild method of main.java.base.NeuralNetwork class learns a small problem.
+   */
+  @Test
+  public void testTrainHogwild(){
+    NeuralNetwork neuralNetwork = new NeuralNetwork(new int[] {2, 4, 2});
+    neuralNetwork.setNumberOfThreads(2);
+
+    double[][] trainingSet = {{0, 0}, {0, 1}, {1, 0}, {1, 1}};
+    double[][] labels = {{1, 0}, {0, 1}, {0, 1}, {1, 0}};
+
+    double errorBefore = squaredError(neuralNetwork, trainingSet, labels);
+
+    neuralNetwork.trainHogwild(trainingSet, labels, trainingSet.length, 2000, 0.5);
+
+    assertTrue(squaredError(neuralNetwork, trainingSet, labels) < errorBefore);
+  }
+
+  /**
+   *  @brief Tests that feedForwardBatch method of main.java.base.NeuralNetwork class gives the same outputs as
+   *         feedForward, with main.java.base.ScalarBackend, the default main.java.base.ComputeBackend and one that
+   *         only implements the abstract kernels.
+   */
+  @Test
+  public void testFeedForwardBatch(){
+    final ComputeBackend scalarBackend = new ScalarBackend();
+    ComputeBackend customBackend = new ComputeBackend(){
+      @Override
+      public double dot(double[] a, int aOffset, double[] b, int bOffset, int length){
+        return scalarBackend.dot(a, aOffset, b, bOffset, length);
+      }
+
+      @Override
+      public void axpy(double alpha, double[] x, int xOffset, double[] y, int yOffset, int length){
+        scalarBackend.axpy(alpha, x, xOffset, y, yOffset, length);
+      }
+
+      @Override
+      public String getName(){
+        return "custom";
+      }
+    };
+
+    // Use a number of inputs that is neither a multiple of the block size nor of four.
+    double[][] inputs = new double[70][7];
+    for(int i = 0;i < inputs.length;i++){
+      for(int j = 0;j < inputs[i].length;j++){
+        inputs[i][j] = Math.random() * 2 - 1;
+      }
+    }
+
+    for(ComputeBackend computeBackend : new ComputeBackend[] {scalarBackend, ComputeBackend.getDefault(),
+                                                               customBackend}){
+      NeuralNetwork neuralNetwork = new NeuralNetwork(new int[] {7, 19, 5, 3});
+      neuralNetwork.setComputeBackend(computeBackend);
+
+      double[][] outputs = neuralNetwork.feedForwardBatch(inputs);
+      for(int i = 0;i < inputs.length;i++){
+        assertArrayEquals(neuralNetwork.feedForward(inputs[i]), outputs[i], 0);
+      }
+
+      // Make sure a given output buffer is used and only the requested inputs are applied.
+      double[][] buffer = new double[inputs.length][3];
+      assertSame(buffer, neuralNetwork.feedForwardBatch(inputs, 5, buffer));
+      assertArrayEquals(outputs[4], buffer[4], 0);
+      assertArrayEquals(new double[3], buffer[5], 0);
+    }
+  }
+
+  /**
+   *  @brief Tests that feedForward method of main.java.base.NeuralNetwork class does not allocate memory when given an
+   *         main.java.base.InferenceContext.
+   */
+  @Test
+  public void testFeedForwardWithInferenceContext(){
+    java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    Assume.assumeTrue(threadMXBean instanceof com.sun.management.ThreadMXBean);
+
+    com.sun.management.ThreadMXBean allocationCounter = (com.sun.management.ThreadMXBean)threadMXBean;
+    Assume.assumeTrue(allocationCounter.isThreadAllocatedMemorySupported());
+    allocationCounter.setThreadAllocatedMemoryEnabled(true);
+
+    NeuralNetwork neuralNetwork = new NeuralNetwork(new int[] {20, 30, 10, 4});
+    InferenceContext context = new InferenceContext(neuralNetwork.getSizesOfLayers());
+
+    double[] input = new double[20];
+    for(int i = 0;i < input.length;i++){
+      input[i] = Math.random() * 2 - 1;
+    }
+    double[] output = new double[4];
+
+    assertArrayEquals(neuralNetwork.feedForward(input), neuralNetwork.feedForward(input, context, output), 0);
+
+    long threadId = Thread.currentThread().getId();
+    // Warm up, so that the allocation counter itself has been resolved and initialized.
+    for(int i = 0;i < 10000;i++){
+      neuralNetwork.feedForward(input, context, output);
+    }
+    allocationCounter.getThreadAllocatedBytes(threadId);
+
+    long allocatedBefore = allocationCounter.getThreadAllocatedBytes(threadId);
+    for(int i = 0;i < 1000;i++){
+      neuralNetwork.feedForward(input, context, output);
+    }
+    long allocatedAfter = allocationCounter.getThreadAllocatedBytes(threadId);
+
+    assertEquals(0, allocatedAfter - allocatedBefore);
+
+    // Make sure the counter does see the allocations of the convenience wrapper.
+    allocatedBefore = allocationCounter.getThreadAllocatedBytes(threadId);
+    neuralNetwork.feedForward(input);
+    allocatedAfter = allocationCounter.getThreadAllocatedBytes(threadId);
+
+    assertTrue(allocatedAfter - allocatedBefore > 0);
+  }
+
+  /**
+   *  @brief Tests that train method of main.java.base.NeuralNetwork class gives the same result when the batches are
+   *         split among threads.
+   *
+   *  @throws IOException When the NeuralNetwork can not be copied through a temporary file.
+   */
+  @Test
+  public void testParallelTrain() throws IOException{
+    NeuralNetwork neuralNetwork1 = new NeuralNetwork(new int[] {6, 8, 5, 3});
+    NeuralNetwork neuralNetwork2 = copy(neuralNetwork1);
+    neuralNetwork2.setNumberOfThreads(3);
+
+    double[][] trainingSet = new double[10][6];
+    double[][] labels = new double[10][3];
+    for(int i = 0;i < trainingSet.length;i++){
+      for(int j = 0;j < trainingSet[i].length;j++){
+        trainingSet[i][j] = Math.random() * 2 - 1;
+      }
+      labels[i][i % 3] = 1;
+    }
+
+    neuralNetwork1.train(trainingSet, labels, trainingSet.length, 5, 0.5);
+    neuralNetwork2.train(trainingSet, labels, trainingSet.length, 5, 0.5);
+
+    // The derivatives are summed in a different order, so the results may differ by rounding errors.
+    for(int i = 0;i < trainingSet.length;i++){
+      assertArrayEquals(neuralNetwork1.feedForward(trainingSet[i]), neuralNetwork2.feedForward(trainingSet[i]), 1e-12);
+    }
+  }
+
+  /**
+   *  @brief Tests that train method of main.java.base.NeuralNetwork class reuses a given main.java.base.TrainingState
+   *         without allocating memory.
+   *
+   *  @throws IOException When the NeuralNetwork can not be copied through a temporary file.
+   */
+  @Test
+  public void testTrainWithTrainingState() throws IOException{
+    NeuralNetwork neuralNetwork1 = new NeuralNetwork(new int[] {6, 8, 5, 3});
+    neuralNetwork1.setMomentumCoefficient(0.5);
+    NeuralNetwork neuralNetwork2 = copy(neuralNetwork1);
+    neuralNetwork2.setMomentumCoefficient(0.5);
+
+    double[][] trainingSet = new double[10][6];
+    double[][] labels = new double[10][3];
+    for(int i = 0;i < trainingSet.length;i++){
+      for(int j = 0;j < trainingSet[i].length;j++){
+        trainingSet[i][j] = Math.random() * 2 - 1;
+      }
+      labels[i][i % 3] = 1;
+    }
+
+    // The momentum carries over between calls, both with the internal and with a given TrainingState.
+    TrainingState trainingState = new TrainingState(neuralNetwork2.getSizesOfLayers());
+    for(int i = 0;i < 3;i++){
+      neuralNetwork1.train(trainingSet, labels, trainingSet.length, 1, 0.5);
+      neuralNetwork2.train(trainingSet, labels, trainingSet.length, 1, 0.5, trainingState);
+    }
+    for(int i = 0;i < trainingSet.length;i++){
+      assertArrayEquals(neuralNetwork1.feedForward(trainingSet[i]), neuralNetwork2.feedForward(trainingSet[i]), 0);
+    }
+
+    java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    if(threadMXBean instanceof com.sun.management.ThreadMXBean &&
+       ((com.sun.management.ThreadMXBean)threadMXBean).isThreadAllocatedMemorySupported()){
+      com.sun.management.ThreadMXBean allocationCounter = (com.sun.management.ThreadMXBean)threadMXBean;
+      allocationCounter.setThreadAllocatedMemoryEnabled(true);
+
+      long threadId = Thread.currentThread().getId();
+      for(int i = 0;i < 2000;i++){
+        neuralNetwork2.train(trainingSet, labels, trainingSet.length, 1, 0.01, trainingState);
+      }
+      allocationCounter.getThreadAllocatedBytes(threadId);
+
+      long allocatedBefore = allocationCounter.getThreadAllocatedBytes(threadId);
+      neuralNetwork2.train(trainingSet, labels, trainingSet.length, 100, 0.01, trainingState);
+      long allocatedAfter = allocationCounter.getThreadAllocatedBytes(threadId);
+
+      assertEquals(0, allocatedAfter - allocatedBefore);
+    }
+
+    try{
+      neuralNetwork2.train(trainingSet, labels, trainingSet.length, 1, 0.5, new TrainingState(new int[] {6, 8, 3}));
+      fail("A TrainingState of different sizes of layers must be rejected.");
+    }
+    catch(IllegalArgumentException exception){
+    }
+  }
+
+  /**
+   *  @brief Tests the train methods of main.java.base.NeuralNetwork class that take a range or a permutation of a
+   *         training set.
+   */
+  @Test
+  public void testTrainOnView() throws IOException{
+    NeuralNetwork neuralNetwork1 = new NeuralNetwork(new int[] {6, 8, 3});
+    NeuralNetwork neuralNetwork2 = copy(neuralNetwork1);
+    NeuralNetwork neuralNetwork3 = copy(neuralNetwork1);
+
+    double[][] trainingSet = new double[12][6];
+    double[][] labels = new double[12][3];
+    for(int i = 0;i < trainingSet.length;i++){
+      for(int j = 0;j < trainingSet[i].length;j++){
+        trainingSet[i][j] = Math.random() * 2 - 1;
+      }
+      labels[i][i % 3] = 1;
+    }
+
+    int[] indices = {11, 2, 7, 0, 5, 9, 3, 10, 1, 8, 4, 6};
+    double[][] batch = new double[4][];
+    double[][] batchLabels = new double[4][];
+
+    TrainingSet rangeSet = new TrainingSet(trainingSet, labels);
+    TrainingSet identitySet = new TrainingSet(trainingSet, labels);
+    identitySet.setIndices(new int[] {0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11});
+    TrainingState trainingState2 = new TrainingState(neuralNetwork2.getSizesOfLayers());
+    TrainingState trainingState3 = new TrainingState(neuralNetwork3.getSizesOfLayers());
+    for(int offset = 0;offset < trainingSet.length;offset += 4){
+      for(int i = 0;i < 4;i++){
+        batch[i] = trainingSet[offset + i];
+        batchLabels[i] = labels[offset + i];
+      }
+      neuralNetwork1.train(batch, batchLabels, 4, 1, 0.5);
+      neuralNetwork2.train(rangeSet, offset, 4, 1, 0.5, trainingState2);
+
+      // The identity permutation must match the range.
+      neuralNetwork3.train(identitySet, offset, 4, 1, 0.5, trainingState3);
+    }
+    neuralNetwork2.trainHogwild(rangeSet, 2, 8, 1, 0.1);
+    neuralNetwork3.trainHogwild(identitySet, 2, 8, 1, 0.1);
+    for(int i = 0;i < trainingSet.length;i++){
+      assertArrayEquals(neuralNetwork2.feedForward(trainingSet[i]), neuralNetwork3.feedForward(trainingSet[i]), 0);
+    }
+    neuralNetwork1.trainHogwild(Arrays.copyOfRange(trainingSet, 2, 10), Arrays.copyOfRange(labels, 2, 10), 8, 1, 0.1);
+    for(int i = 0;i < trainingSet.length;i++){
+      assertArrayEquals(neuralNetwork1.feedForward(trainingSet[i]), neuralNetwork2.feedForward(trainingSet[i]), 0);
+    }
+
+    // A permutation, split between several threads.
+    neuralNetwork2 = copy(neuralNetwork1);
+    neuralNetwork3 = copy(neuralNetwork1);
+    neuralNetwork3.setNumberOfThreads(3);
+    batch = new double[6][];
+    batchLabels = new double[6][];
+    TrainingSet permutedSet = new TrainingSet(trainingSet, labels);
+    permutedSet.setIndices(indices);
+    trainingState2 = new TrainingState(neuralNetwork2.getSizesOfLayers());
+    trainingState3 = new TrainingState(neuralNetwork3.getSizesOfLayers());
+    for(int offset = 0;offset < trainingSet.length;offset += 6){
+      for(int i = 0;i < 6;i++){
+        batch[i] = trainingSet[indices[offset + i]];
+        batchLabels[i] = labels[indices[offset + i]];
+      }
+      neuralNetwork2.train(batch, batchLabels, 6, 1, 0.5, trainingState2);
+      neuralNetwork3.train(permutedSet, offset, 6, 1, 0.5, trainingState3);
+    }
+    for(int i = 0;i < trainingSet.length;i++){
+      assertArrayEquals(neuralNetwork2.feedForward(trainingSet[i]), neuralNetwork3.feedForward(trainingSet[i]), 1e-12);
+    }
+  }
+
+  /**
+   *  @brief Tests the sparse input mode of main.java.base.NeuralNetwork class.
+   */
+  @Test
+  public void testSparseInput() throws IOException{
+    NeuralNetwork denseNeuralNetwork = new NeuralNetwork(new int[] {16, 8, 3});
+    NeuralNetwork sparseNeuralNetwork = copy(denseNeuralNetwork);
+    sparseNeuralNetwork.setSparseInput(true);
+    assertTrue(sparseNeuralNetwork.isSparseInput());
+    assertEquals(-1, sparseNeuralNetwork.getInputBackground(), 0);
+
+    // Mostly background samples.
+    double[][] trainingSet = new double[20][16];
+    double[][] labels = new double[20][3];
+    for(int i = 0;i < trainingSet.length;i++){
+      for(int j = 0;j < trainingSet[i].length;j++){
+        trainingSet[i][j] = (Math.random() < 0.25) ? Math.random() * 2 - 1 : -1;
+      }
+      labels[i][i % 3] = 1;
+    }
+
+    double[][] denseOutputs = denseNeuralNetwork.feedForwardBatch(trainingSet);
+    double[][] sparseOutputs = sparseNeuralNetwork.feedForwardBatch(trainingSet);
+    for(int i = 0;i < trainingSet.length;i++){
+      assertArrayEquals(denseNeuralNetwork.feedForward(trainingSet[i]), sparseNeuralNetwork.feedForward(trainingSet[i]),
+                        1e-12);
+      assertArrayEquals(denseOutputs[i], sparseOutputs[i], 1e-12);
+    }
+
+    TrainingSet sparseSet = new TrainingSet(trainingSet, labels);
+    for(int offset = 0;offset < trainingSet.length;offset += 5){
+      denseNeuralNetwork.train(sparseSet, offset, 5, 2, 0.5, new TrainingState(new int[] {16, 8, 3}));
+      sparseNeuralNetwork.train(sparseSet, offset, 5, 2, 0.5, new TrainingState(new int[] {16, 8, 3}));
+    }
+    sparseNeuralNetwork.setNumberOfThreads(2);
+    denseNeuralNetwork.train(trainingSet, labels, trainingSet.length, 1, 0.5);
+    sparseNeuralNetwork.train(trainingSet, labels, trainingSet.length, 1, 0.5);
+    sparseNeuralNetwork.setNumberOfThreads(1);
+    denseNeuralNetwork.trainHogwild(trainingSet, labels, trainingSet.length, 1, 0.1);
+    sparseNeuralNetwork.trainHogwild(trainingSet, labels, trainingSet.length, 1, 0.1);
+    for(int i = 0;i < trainingSet.length;i++){
+      assertArrayEquals(denseNeuralNetwork.feedForward(trainingSet[i]), sparseNeuralNetwork.feedForward(trainingSet[i]),
+                        1e-10);
+      assertArrayEquals(denseNeuralNetwork.feedForward(trainingSet[i]),
+                        sparseNeuralNetwork.publish().feedForward(trainingSet[i]), 1e-10);
+    }
+
+    // The mode is kept when loading parameters, and the background can be changed.
+    File file = File.createTempFile("sparse", ".bin");
+    try{
+      denseNeuralNetwork.saveToBinary(file.getAbsolutePath());
+      sparseNeuralNetwork.loadFromBinary(file.getAbsolutePath());
+    }
+    finally{
+      file.delete();
+    }
+    assertTrue(sparseNeuralNetwork.isSparseInput());
+    sparseNeuralNetwork.setInputBackground(0);
+    for(int i = 0;i < trainingSet.length;i++){
+      assertArrayEquals(denseNeuralNetwork.feedForward(trainingSet[i]), sparseNeuralNetwork.feedForward(trainingSet[i]),
+                        1e-12);
+    }
+
+    sparseNeuralNetwork.setSparseInput(false);
+    assertFalse(sparseNeuralNetwork.isSparseInput());
+    assertArrayEquals(denseNeuralNetwork.feedForward(trainingSet[0]), sparseNeuralNetwork.feedForward(trainingSet[0]),
+                      0);
+  }
+
+  /**
+   *  @brief Tests the raw byte input methods of main.java.base.NeuralNetwork class.
+   */
+  @Test
+  public void testByteInput() throws IOException{
+    NeuralNetwork doubleNeuralNetwork = new NeuralNetwork(new int[] {16, 8, 5, 3});
+    NeuralNetwork byteNeuralNetwork = copy(doubleNeuralNetwork);
+    assertEquals(1 / 127.5, byteNeuralNetwork.getInputScale(), 0);
+    assertEquals(-1, byteNeuralNetwork.getInputOffset(), 0);
+    byteNeuralNetwork.setInputNormalization(1 / 255.0, -0.5);
+
+    byte[][] byteTrainingSet = new byte[20][16];
+    double[][] trainingSet = new double[20][16];
+    double[][] labels = new double[20][3];
+    for(int i = 0;i < trainingSet.length;i++){
+      for(int j = 0;j < trainingSet[i].length;j++){
+        byteTrainingSet[i][j] = (Math.random() < 0.5) ? (byte)(Math.random() * 256) : 0;
+        trainingSet[i][j] = (byteTrainingSet[i][j] & 0xFF) / 255.0 - 0.5;
+      }
+      labels[i][i % 3] = 1;
+    }
+
+    double[][] doubleOutputs = doubleNeuralNetwork.feedForwardBatch(trainingSet);
+    double[][] byteOutputs = byteNeuralNetwork.feedForwardBatch(byteTrainingSet);
+    for(int i = 0;i < trainingSet.length;i++){
+      assertArrayEquals(doubleNeuralNetwork.feedForward(trainingSet[i]),
+                        byteNeuralNetwork.feedForward(byteTrainingSet[i]), 1e-12);
+      assertArrayEquals(doubleOutputs[i], byteOutputs[i], 1e-12);
+    }
+
+    int[] indices = {3, 17, 0, 9, 12, 5, 19, 1, 8, 14, 2, 11, 6, 16, 4, 10, 13, 7, 18, 15};
+    TrainingSet doubleSet = new TrainingSet(trainingSet, labels);
+    TrainingSet byteSet = new TrainingSet(byteTrainingSet, labels);
+    TrainingState doubleTrainingState = new TrainingState(doubleNeuralNetwork.getSizesOfLayers());
+    TrainingState byteTrainingState = new TrainingState(byteNeuralNetwork.getSizesOfLayers());
+    for(int offset = 0;offset < trainingSet.length;offset += 5){
+      doubleNeuralNetwork.train(doubleSet, offset, 5, 1, 0.5, doubleTrainingState);
+      byteNeuralNetwork.train(byteSet, offset, 5, 1, 0.5, byteTrainingState);
+    }
+    doubleNeuralNetwork.setNumberOfThreads(2);
+    byteNeuralNetwork.setNumberOfThreads(2);
+    doubleSet.setIndices(indices);
+    byteSet.setIndices(indices);
+    doubleNeuralNetwork.train(doubleSet, 4, 10, 2, 0.5, doubleTrainingState);
+    byteNeuralNetwork.train(byteSet, 4, 10, 2, 0.5, byteTrainingState);
+    doubleNeuralNetwork.setNumberOfThreads(1);
+    byteNeuralNetwork.setNumberOfThreads(1);
+    doubleNeuralNetwork.trainHogwild(doubleSet, 0, doubleSet.getSize(), 1, 0.1);
+    byteNeuralNetwork.trainHogwild(byteSet, 0, byteSet.getSize(), 1, 0.1);
+    doubleSet.setIndices(null);
+    byteSet.setIndices(null);
+    for(int i = 0;i < trainingSet.length;i++){
+      assertArrayEquals(doubleNeuralNetwork.feedForward(trainingSet[i]),
+                        byteNeuralNetwork.feedForward(byteTrainingSet[i]), 1e-10);
+    }
+
+    // In sparse input mode, the zero bytes are skipped.
+    byteNeuralNetwork.setSparseInput(true);
+    for(int offset = 0;offset < trainingSet.length;offset += 5){
+      doubleNeuralNetwork.train(doubleSet, offset, 5, 1, 0.5, doubleTrainingState);
+      byteNeuralNetwork.train(byteSet, offset, 5, 1, 0.5, byteTrainingState);
+    }
+    doubleOutputs = doubleNeuralNetwork.feedForwardBatch(trainingSet);
+    byteOutputs = byteNeuralNetwork.feedForwardBatch(byteTrainingSet);
+    for(int i = 0;i < trainingSet.length;i++){
+      assertArrayEquals(doubleNeuralNetwork.feedForward(trainingSet[i]),
+                        byteNeuralNetwork.feedForward(byteTrainingSet[i]), 1e-10);
+      assertArrayEquals(doubleOutputs[i], byteOutputs[i], 1e-10);
+    }
+  }
+
+  /**
+   *  @brief Tests that training main.java.base.NeuralNetwork class on a main.java.base.TrainingSet with class indices
+   *         as labels is the same as training it on one-hot labels.
+   */
+  @Test
+  public void testTrainWithClassIndices() throws IOException{
+    NeuralNetwork denseNeuralNetwork = new NeuralNetwork(new int[] {6, 8, 4});
+    NeuralNetwork classNeuralNetwork = copy(denseNeuralNetwork);
+    NeuralNetwork byteNeuralNetwork = copy(denseNeuralNetwork);
+    NeuralNetwork byteClassNeuralNetwork = copy(denseNeuralNetwork);
+
+    double[][] trainingSet = new double[12][6];
+    byte[][] byteTrainingSet = new byte[12][6];
+    double[][] labels = new double[12][4];
+    int[] classes = new int[12];
+    for(int i = 0;i < trainingSet.length;i++){
+      for(int j = 0;j < trainingSet[i].length;j++){
+        byteTrainingSet[i][j] = (byte)(Math.random() * 256);
+        trainingSet[i][j] = (byteTrainingSet[i][j] & 0xFF) / 127.5 - 1;
+      }
+      classes[i] = (i * 7) % 4;
+      labels[i][classes[i]] = 1;
+    }
+
+    int[] indices = {5, 0, 11, 3, 8, 1, 10, 6, 2, 9, 4, 7};
+    TrainingSet denseSet = new TrainingSet(trainingSet, labels);
+    TrainingSet classSet = new TrainingSet(trainingSet, classes);
+    denseSet.setIndices(indices);
+    classSet.setIndices(indices);
+    TrainingSet byteSet = new TrainingSet(byteTrainingSet, labels);
+    TrainingSet byteClassSet = new TrainingSet(byteTrainingSet, classes);
+    TrainingState denseTrainingState = new TrainingState(denseNeuralNetwork.getSizesOfLayers());
+    TrainingState classTrainingState = new TrainingState(denseNeuralNetwork.getSizesOfLayers());
+    TrainingState byteTrainingState = new TrainingState(denseNeuralNetwork.getSizesOfLayers());
+    TrainingState byteClassTrainingState = new TrainingState(denseNeuralNetwork.getSizesOfLayers());
+    for(int offset = 0;offset < trainingSet.length;offset += 4){
+      denseNeuralNetwork.train(denseSet, offset, 4, 2, 0.5, denseTrainingState);
+      classNeuralNetwork.train(classSet, offset, 4, 2, 0.5, classTrainingState);
+      byteNeuralNetwork.train(byteSet, offset, 4, 2, 0.5, byteTrainingState);
+      byteClassNeuralNetwork.train(byteClassSet, offset, 4, 2, 0.5, byteClassTrainingState);
+    }
+    for(int i = 0;i < trainingSet.length;i++){
+      assertArrayEquals(denseNeuralNetwork.feedForward(trainingSet[i]), classNeuralNetwork.feedForward(trainingSet[i]),
+                        0);
+      assertArrayEquals(byteNeuralNetwork.feedForward(trainingSet[i]),
+                        byteClassNeuralNetwork.feedForward(trainingSet[i]), 0);
+    }
+
+    denseSet.setIndices(null);
+    classSet.setIndices(null);
+    denseNeuralNetwork.setNumberOfThreads(3);
+    classNeuralNetwork.setNumberOfThreads(3);
+    denseNeuralNetwork.train(denseSet, 0, trainingSet.length, 1, 0.5, denseTrainingState);
+    classNeuralNetwork.train(classSet, 0, trainingSet.length, 1, 0.5, classTrainingState);
+    denseNeuralNetwork.setNumberOfThreads(1);
+    classNeuralNetwork.setNumberOfThreads(1);
+    denseNeuralNetwork.trainHogwild(denseSet, 0, trainingSet.length, 1, 0.1);
+    classNeuralNetwork.trainHogwild(classSet, 0, trainingSet.length, 1, 0.1);
+    for(int i = 0;i < trainingSet.length;i++){
+      assertArrayEquals(denseNeuralNetwork.feedForward(trainingSet[i]), classNeuralNetwork.feedForward(trainingSet[i]),
+                        1e-12);
+    }
+
+    try{
+      classNeuralNetwork.train(new TrainingSet(trainingSet, new int[] {0, 4}), 0, 2, 1, 0.5, classTrainingState);
+      fail("A class index outside of the output layer must be rejected.");
+    }
+    catch(IllegalArgumentException exception){
+    }
+  }
+
+  /**
+   *  @brief Tests publish and getSnapshot methods of main.java.base.NeuralNetwork class.
+   */
+  @Test
+  public void testPublish(){
+    NeuralNetwork neuralNetwork = new NeuralNetwork(new int[] {2, 4, 2});
+    assertNull(neuralNetwork.getSnapshot());
+
+    double[][] trainingSet = {{0, 0}, {0, 1}, {1, 0}, {1, 1}};
+    double[][] labels = {{1, 0}, {0, 1}, {0, 1}, {1, 0}};
+
+    NeuralNetwork snapshot1 = neuralNetwork.publish();
+    assertSame(snapshot1, neuralNetwork.getSnapshot());
+    assertTrue(snapshot1.isReadOnly());
+
+    double[] output1 = snapshot1.feedForward(trainingSet[1]);
+    assertArrayEquals(neuralNetwork.feedForward(trainingSet[1]), output1, 0);
+
+    // Training must not change a published snapshot.
+    neuralNetwork.setAutoPublish(true);
+    neuralNetwork.train(trainingSet, labels, trainingSet.length, 10, 1);
+
+    assertArrayEquals(output1, snapshot1.feedForward(trainingSet[1]), 0);
+
+    NeuralNetwork snapshot2 = neuralNetwork.getSnapshot();
+    assertNotSame(snapshot1, snapshot2);
+    assertArrayEquals(neuralNetwork.feedForward(trainingSet[1]), snapshot2.feedForward(trainingSet[1]), 0);
+
+    try{
+      snapshot2.train(trainingSet, labels, trainingSet.length, 1, 1);
+      fail("A snapshot must not be trainable.");
+    }
+    catch(UnsupportedOperationException exception){
+    }
+  }
+
+  /**
+   *  @brief Tests that threads evaluating the snapshots of a main.java.base.NeuralNetwork while another thread trains
+   *         it only see the outputs of published snapshots.
+   *
+   *  @throws Throwable When a reader thread fails.
+   */
+  @Test
+  public void testConcurrentSnapshots() throws Throwable{
+    final NeuralNetwork neuralNetwork = new NeuralNetwork(new int[] {20, 30, 5});
+    neuralNetwork.setAutoPublish(true);
+
+    double[][] trainingSet = new double[8][20];
+    double[][] labels = new double[8][5];
+    for(int i = 0;i < trainingSet.length;i++){
+      for(int j = 0;j < trainingSet[i].length;j++){
+        trainingSet[i][j] = Math.random() * 2 - 1;
+      }
+      labels[i][i % 5] = 1;
+    }
+    final double[] input = trainingSet[0].clone();
+
+    Set<String> publishedOutputs = new HashSet<String>();
+    publishedOutputs.add(Arrays.toString(neuralNetwork.publish().feedForward(input)));
+
+    final AtomicBoolean done = new AtomicBoolean();
+    final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+    final List<List<double[]>> readOutputs = new ArrayList<List<double[]>>();
+    Thread[] readers = new Thread[4];
+    for(int r = 0;r < readers.length;r++){
+      final List<double[]> outputs = new ArrayList<double[]>();
+      readOutputs.add(outputs);
+
+      readers[r] = new Thread(new Runnable(){
+        @Override
+        public void run(){
+          try{
+            InferenceContext context = new InferenceContext(neuralNetwork.getSizesOfLayers());
+            while(!done.get() && outputs.size() < 20000){
+              outputs.add(neuralNetwork.getSnapshot().feedForward(input, context, new double[5]));
+            }
+          }
+          catch(Throwable throwable){
+            failure.set(throwable);
+          }
+        }
+      });
+      readers[r].start();
+    }
+
+    // The snapshot of every step is evaluated by this thread as soon as it is published.
+    for(int iteration = 0;iteration < 500;iteration++){
+      neuralNetwork.train(trainingSet, labels, trainingSet.length, 1, 1);
+      publishedOutputs.add(Arrays.toString(neuralNetwork.getSnapshot().feedForward(input)));
+    }
+
+    done.set(true);
+    for(Thread reader : readers){
+      reader.join();
+    }
+    if(failure.get() != null){
+      throw failure.get();
+    }
+
+    assertTrue(publishedOutputs.size() > 1);
+    for(List<double[]> outputs : readOutputs){
+      assertFalse(outputs.isEmpty());
+      for(double[] output : outputs){
+        assertTrue(Arrays.toString(output), publishedOutputs.contains(Arrays.toString(output)));
+      }
+    }
+  }
+
+  /**
+   *  @brief Tests classify, topK, classifyBatch and topKBatch methods of main.java.base.NeuralNetwork class.
+   */
+  @Test
+  public void testClassifyAndTopK(){
+    // A backend that is not ScalarBackend, so that the batched methods go through the single input path.
+    ComputeBackend otherBackend = new ComputeBackend(){
+      @Override
+      public double dot(double[] a, int aOffset, double[] b, int bOffset, int length){
+        double sum = 0;
+        for(int k = 0;k < length;k++){
+          sum += a[aOffset + k] * b[bOffset + k];
+        }
+
+        return sum;
+      }
+
+      @Override
+      public void axpy(double alpha, double[] x, int xOffset, double[] y, int yOffset, int length){
+        for(int k = 0;k < length;k++){
+          y[yOffset + k] += alpha * x[xOffset + k];
+        }
+      }
+
+      @Override
+      public String getName(){
+        return "other";
+      }
+    };
+
+    int[][] sizesOfLayers = {{12, 7}, {12, 9, 7}, {12, 9, 8, 7}};
+    for(int[] sizes : sizesOfLayers){
+      for(int mode = 0;mode < 3;mode++){
+        NeuralNetwork neuralNetwork = new NeuralNetwork(sizes);
+        neuralNetwork.setSparseInput(mode == 1);
+        if(mode == 2){
+          neuralNetwork.setComputeBackend(otherBackend);
+        }
+
+        byte[][] byteInputs = new byte[21][12];
+        double[][] inputs = new double[21][12];
+        for(int i = 0;i < inputs.length;i++){
+          for(int j = 0;j < inputs[i].length;j++){
+            byteInputs[i][j] = (j % 3 == 0) ? (byte)(Math.random() * 256) : 0;
+            inputs[i][j] = (byteInputs[i][j] & 0xFF) / 127.5 - 1;
+          }
+        }
+
+        InferenceContext context = new InferenceContext(sizes);
+        int[] indices = new int[3];
+        double[] scores = new double[3];
+        int[] batchIndices = new int[3 * inputs.length];
+        double[] batchScores = new double[3 * inputs.length];
+        int[] classes = new int[inputs.length];
+        int[] byteClasses = new int[inputs.length];
+        double[] classScores = new double[inputs.length];
+        neuralNetwork.topKBatch(inputs, inputs.length, 3, batchIndices, batchScores);
+        neuralNetwork.classifyBatch(inputs, inputs.length, classes, classScores);
+        neuralNetwork.classifyBatch(byteInputs, inputs.length, byteClasses, null);
+
+        for(int i = 0;i < inputs.length;i++){
+          double[] output = neuralNetwork.feedForward(inputs[i]);
+
+          int best = 0;
+          for(int j = 1;j < output.length;j++){
+            if(output[j] > output[best]){
+              best = j;
+            }
+          }
+
+          assertEquals(best, neuralNetwork.classify(inputs[i]));
+          assertEquals(best, neuralNetwork.classify(inputs[i], context));
+          assertEquals(best, neuralNetwork.classify(byteInputs[i], context));
+          assertEquals(best, classes[i]);
+          assertEquals(best, byteClasses[i]);
+          assertEquals(output[best], classScores[i], 1e-12);
+
+          neuralNetwork.topK(inputs[i], 3, indices, scores);
+          for(int r = 0;r < 3;r++){
+            assertEquals(output[indices[r]], scores[r], 0);
+            assertEquals(indices[r], batchIndices[3 * i + r]);
+            assertEquals(scores[r], batchScores[3 * i + r], 1e-12);
+
+            // Every output that is not selected is at most equal to the smallest selected one.
+            if(r > 0){
+              assertTrue(scores[r] <= scores[r - 1]);
+            }
+          }
+          for(int j = 0;j < output.length;j++){
+            if(j != indices[0] && j != indices[1] && j != indices[2]){
+              assertTrue(output[j] <= scores[2]);
+            }
+          }
+          assertEquals(best, indices[0]);
+
+          neuralNetwork.topK(byteInputs[i], context, 3, indices, null);
+          assertEquals(best, indices[0]);
+        }
+
+        try{
+          neuralNetwork.topK(inputs[0], context, 8, new int[8], null);
+          fail("A k larger than the output layer must be rejected.");
+        }
+        catch(IllegalArgumentException exception){
+        }
+      }
+    }
+  }
+
+  /**
+   *  @brief Creates an identical copy of a NeuralNetwork through a temporary binary file.
+   *
+   *  @param neuralNetwork The NeuralNetwork to copy.
+   *
+   *  @return Returns the copy.
+   *
+   *  @throws IOException When the temporary file can not be written or read.
+   */
+  static NeuralNetwork copy(NeuralNetwork neuralNetwork) throws IOException{
+    File file = File.createTempFile("neural_network", ".bin");
+    file.deleteOnExit();
+
+    neuralNetwork.saveToBinary(file.getPath());
+
+    return NeuralNetwork.createFromBinary(file.getPath());
+  }
+
+  /**
+   *  @brief Calculates the squared error of a NeuralNetwork on a set of data.
+   *
+   *  @param neuralNetwork The NeuralNetwork to evaluate.
+   *  @param data The set of data.
+   *  @param labels The labels of the data.
+   *
+   *  @return Returns the sum of the squared errors over all the samples.
+   */
+  static double squaredError(NeuralNetwork neuralNetwork, double[][] data, double[][] labels){
+    double error = 0;
+    for(int i = 0;i < data.length;i++){
+      double[] output = neuralNetwork.feedForward(data[i]);
+
+      for(int j = 0;j < output.length;j++){
+        error += (output[j] - labels[i][j]) * (output[j] - labels[i][j]);
+      }
+    }
+
+    return error;
+  }
+
+}
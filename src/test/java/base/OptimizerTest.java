@@ -0,0 +1,141 @@
+package test.java.base;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import main.java.base.Adam;
+import main.java.base.Momentum;
+import main.java.base.NeuralNetwork;
+import main.java.base.Nesterov;
+import main.java.base.Optimizer;
+import main.java.base.RMSProp;
+import main.java.base.SGD;
+import main.java.base.TrainingState;
+
+/** @class OptimizerTest
+ *
+ *  @brief Class that contains tests for main.java.base.Optimizer class and its implementations.
+ */
+public class OptimizerTest{
+  /**
+   *  @brief Tests the update rules of every main.java.base.Optimizer on a single parameter.
+   */
+  @Test
+  public void testUpdate(){
+    // A batch of two samples whose derivatives sum to 4, that is, an average derivative of 2.
+    double[] parameter = {1};
+    double[] firstMoment = {0.5};
+    double[] secondMoment = {0.25};
+
+    new SGD().update(parameter, new double[] {4}, null, null, 1, 0.1, 0.5, 1);
+    assertEquals(1 - 0.1 * 2, parameter[0], 1e-15);
+
+    parameter[0] = 1;
+    new Momentum(0.9).update(parameter, new double[] {4}, firstMoment, null, 1, 0.1, 0.5, 1);
+    assertEquals(0.1 * 2 + 0.9 * 0.5, firstMoment[0], 1e-15);
+    assertEquals(1 - 0.1 * firstMoment[0], parameter[0], 1e-15);
+
+    parameter[0] = 1;
+    firstMoment[0] = 0.5;
+    new Nesterov(0.9).update(parameter, new double[] {4}, firstMoment, null, 1, 0.1, 0.5, 1);
+    assertEquals(0.1 * 2 + 0.9 * 0.5, firstMoment[0], 1e-15);
+    assertEquals(1 - 0.1 * (0.1 * 2 + 0.9 * firstMoment[0]), parameter[0], 1e-15);
+
+    parameter[0] = 1;
+    firstMoment[0] = 0.5;
+    new RMSProp(0.9, 0).update(parameter, new double[] {4}, firstMoment, null, 1, 0.1, 0.5, 1);
+    assertEquals(0.9 * 0.5 + 0.1 * 4, firstMoment[0], 1e-15);
+    assertEquals(1 - 0.1 * 2 / Math.sqrt(firstMoment[0]), parameter[0], 1e-15);
+
+    // On the first step, the corrected moments of Adam are the derivative and its square.
+    parameter[0] = 1;
+    firstMoment[0] = 0;
+    secondMoment[0] = 0;
+    double[] nabla = {4};
+    new Adam(0.9, 0.999, 0).update(parameter, nabla, firstMoment, secondMoment, 1, 0.1, 0.5, 1);
+    assertEquals(1 - 0.1, parameter[0], 1e-12);
+    assertEquals(0, nabla[0], 0);
+  }
+
+  /**
+   *  @brief Tests that every main.java.base.Optimizer trains a main.java.base.NeuralNetwork on a small problem.
+   */
+  @Test
+  public void testTrain(){
+    double[][] trainingSet = {{0, 0}, {0, 1}, {1, 0}, {1, 1}};
+    double[][] labels = {{1, 0}, {0, 1}, {0, 1}, {1, 0}};
+
+    Optimizer[] optimizers = {new SGD(), new Momentum(), new Nesterov(), new RMSProp(), new Adam()};
+    double[] gammas = {2, 0.5, 0.5, 0.01, 0.01};
+
+    for(int i = 0;i < optimizers.length;i++){
+      NeuralNetwork neuralNetwork = new NeuralNetwork(new int[] {2, 4, 2});
+      neuralNetwork.setOptimizer(optimizers[i]);
+
+      double errorBefore = NeuralNetworkTest.squaredError(neuralNetwork, trainingSet, labels);
+
+      TrainingState trainingState = new TrainingState(neuralNetwork.getSizesOfLayers());
+      for(int iteration = 0;iteration < 500;iteration++){
+        neuralNetwork.train(trainingSet, labels, trainingSet.length, 1, gammas[i], trainingState);
+      }
+
+      assertEquals(500, trainingState.getStep());
+      assertTrue(optimizers[i].getName(),
+                 NeuralNetworkTest.squaredError(neuralNetwork, trainingSet, labels) < errorBefore);
+    }
+  }
+
+  /**
+   *  @brief Tests that the default main.java.base.Optimizer of main.java.base.NeuralNetwork class is a momentum with
+   *         the momentum coefficient of the NeuralNetwork, and create method of main.java.base.Optimizer class.
+   */
+  @Test
+  public void testDefaultAndCreate(){
+    NeuralNetwork neuralNetwork = new NeuralNetwork(new int[] {2, 4, 2});
+    neuralNetwork.setMomentumCoefficient(0.3);
+
+    assertTrue(neuralNetwork.getOptimizer() instanceof Momentum);
+    assertEquals(0.3, ((Momentum)neuralNetwork.getOptimizer()).getCoefficient(), 0);
+
+    String[] names = {"sgd", "momentum", "nesterov", "rmsprop", "adam"};
+    for(String name : names){
+      assertEquals(name, Optimizer.create(name).getName());
+    }
+
+    try{
+      Optimizer.create("adagrad");
+      fail("An unknown name must be rejected.");
+    }
+    catch(IllegalArgumentException exception){
+    }
+  }
+
+  /**
+   *  @brief Tests that create method of main.java.base.Optimizer class rebuilds every main.java.base.Optimizer from
+   *         its hyper-parameters.
+   */
+  @Test
+  public void testHyperParameters(){
+    Optimizer[] optimizers = {new SGD(), new Momentum(0.3), new Nesterov(0.4), new RMSProp(0.8, 1e-6),
+                              new Adam(0.7, 0.99, 1e-5)};
+    int[] numbersOfHyperParameters = {0, 1, 1, 2, 3};
+
+    for(int i = 0;i < optimizers.length;i++){
+      double[] hyperParameters = optimizers[i].getHyperParameters();
+      assertEquals(numbersOfHyperParameters[i], hyperParameters.length);
+
+      Optimizer optimizer = Optimizer.create(optimizers[i].getName(), hyperParameters);
+      assertEquals(optimizers[i].getClass(), optimizer.getClass());
+      assertArrayEquals(hyperParameters, optimizer.getHyperParameters(), 0);
+    }
+
+    try{
+      Optimizer.create("adam", new double[] {0.9});
+      fail("A wrong number of hyper-parameters must be rejected.");
+    }
+    catch(IllegalArgumentException exception){
+    }
+  }
+
+}
@@ -0,0 +1,87 @@
+package test.java.base;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import main.java.base.InferenceContext;
+import main.java.base.NeuralNetwork;
+import main.java.base.QuantizedNeuralNetwork;
+
+/** @class QuantizedNeuralNetworkTest
+ *
+ *  @brief Class that contains tests for main.java.base.QuantizedNeuralNetwork class.
+ */
+public class QuantizedNeuralNetworkTest{
+  /**
+   *  @brief Tests that a main.java.base.QuantizedNeuralNetwork created from a main.java.base.NeuralNetwork gives
+   *         almost the same outputs.
+   */
+  @Test
+  public void testQuantization(){
+    NeuralNetwork neuralNetwork = new NeuralNetwork(new int[] {30, 20, 10});
+    QuantizedNeuralNetwork quantizedNeuralNetwork = new QuantizedNeuralNetwork(neuralNetwork);
+
+    InferenceContext context = new InferenceContext(neuralNetwork.getSizesOfLayers());
+    double[] quantizedOutput = new double[10];
+
+    for(int i = 0;i < 10;i++){
+      double[] input = new double[30];
+      for(int j = 0;j < input.length;j++){
+        input[j] = Math.random() * 2 - 1;
+      }
+
+      double[] output = neuralNetwork.feedForward(input);
+
+      assertArrayEquals(output, quantizedNeuralNetwork.feedForward(input), 0.005);
+      assertArrayEquals(quantizedNeuralNetwork.feedForward(input),
+                        quantizedNeuralNetwork.feedForward(input, context, quantizedOutput), 0);
+    }
+  }
+
+  /**
+   *  @brief Tests saveToBinary, loadFromBinary and quantizeBinary methods of main.java.base.QuantizedNeuralNetwork
+   *         class.
+   *
+   *  @throws IOException When one of the tested methods throws an exception.
+   */
+  @Test
+  public void testSaveAndLoad() throws IOException{
+    NeuralNetwork neuralNetwork = new NeuralNetwork(new int[] {50, 40, 10});
+
+    File neuralNetworkFile = File.createTempFile("neural_network", ".bin");
+    File quantizedNeuralNetworkFile = File.createTempFile("quantized_neural_network", ".bin");
+    neuralNetworkFile.deleteOnExit();
+    quantizedNeuralNetworkFile.deleteOnExit();
+
+    neuralNetwork.saveToBinary(neuralNetworkFile.getPath());
+
+    QuantizedNeuralNetwork quantizedNeuralNetwork1 =
+      QuantizedNeuralNetwork.quantizeBinary(neuralNetworkFile.getPath(), quantizedNeuralNetworkFile.getPath());
+    QuantizedNeuralNetwork quantizedNeuralNetwork2 =
+      QuantizedNeuralNetwork.createFromBinary(quantizedNeuralNetworkFile.getPath());
+
+    assertArrayEquals(neuralNetwork.getSizesOfLayers(), quantizedNeuralNetwork2.getSizesOfLayers());
+
+    double[] input = new double[50];
+    for(int i = 0;i < input.length;i++){
+      input[i] = Math.random() * 2 - 1;
+    }
+
+    assertArrayEquals(quantizedNeuralNetwork1.feedForward(input), quantizedNeuralNetwork2.feedForward(input), 0);
+
+    // One byte per weight instead of eight, plus a scale and a bias per neuron.
+    assertTrue(quantizedNeuralNetworkFile.length() * 4 < neuralNetworkFile.length());
+
+    try{
+      QuantizedNeuralNetwork.createFromBinary(neuralNetworkFile.getPath());
+      fail("A NeuralNetwork binary file must be rejected.");
+    }
+    catch(IOException exception){
+    }
+  }
+
+}
@@ -0,0 +1,135 @@
+package test.java.base;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import main.java.base.InferenceContext;
+import main.java.base.NeuralNetwork;
+import main.java.base.SparseNeuralNetwork;
+import main.java.base.TrainingSet;
+import main.java.base.TrainingState;
+
+/** @class SparseNeuralNetworkTest
+ *
+ *  @brief Class that contains tests for main.java.base.SparseNeuralNetwork class and for the pruning of
+ *         main.java.base.NeuralNetwork class.
+ */
+public class SparseNeuralNetworkTest{
+  /**
+   *  @brief Tests that a main.java.base.SparseNeuralNetwork created from a pruned main.java.base.NeuralNetwork gives
+   *         the same outputs.
+   */
+  @Test
+  public void testPruning(){
+    NeuralNetwork neuralNetwork = new NeuralNetwork(new int[] {30, 20, 10});
+    neuralNetwork.prune(0.75);
+
+    assertEquals(0.75, neuralNetwork.getSparsity(), 1e-12);
+
+    SparseNeuralNetwork sparseNeuralNetwork = new SparseNeuralNetwork(neuralNetwork);
+    assertEquals((30 * 20 + 20 * 10) / 4, sparseNeuralNetwork.getNumberOfNonZeroWeights());
+
+    InferenceContext context = new InferenceContext(neuralNetwork.getSizesOfLayers());
+    double[] sparseOutput = new double[10];
+
+    for(int i = 0;i < 10;i++){
+      double[] input = new double[30];
+      for(int j = 0;j < input.length;j++){
+        input[j] = Math.random() * 2 - 1;
+      }
+
+      double[] output = neuralNetwork.feedForward(input);
+
+      assertArrayEquals(output, sparseNeuralNetwork.feedForward(input), 1e-12);
+      assertArrayEquals(output, sparseNeuralNetwork.feedForward(input, context, sparseOutput), 1e-12);
+    }
+
+    try{
+      neuralNetwork.prune(1.5);
+      fail("A sparsity outside of [0, 1] must be rejected.");
+    }
+    catch(IllegalArgumentException exception){
+    }
+  }
+
+  /**
+   *  @brief Tests that the pruned weights of a main.java.base.NeuralNetwork stay zero while it is fine-tuned.
+   */
+  @Test
+  public void testFineTuning(){
+    NeuralNetwork neuralNetwork = new NeuralNetwork(new int[] {8, 6, 4});
+    neuralNetwork.prune(0.5);
+
+    double[][] trainingSet = new double[16][8];
+    int[] labels = new int[16];
+    for(int i = 0;i < trainingSet.length;i++){
+      for(int j = 0;j < trainingSet[i].length;j++){
+        trainingSet[i][j] = Math.random() * 2 - 1;
+      }
+      labels[i] = i % 4;
+    }
+
+    TrainingSet fineTuningSet = new TrainingSet(trainingSet, labels);
+    TrainingState trainingState = new TrainingState(neuralNetwork.getSizesOfLayers());
+    neuralNetwork.train(fineTuningSet, 0, trainingSet.length, 5, 0.5, trainingState);
+    assertEquals(0.5, neuralNetwork.getSparsity(), 1e-12);
+
+    neuralNetwork.trainHogwild(fineTuningSet, 0, trainingSet.length, 2, 0.1);
+    assertEquals(0.5, neuralNetwork.getSparsity(), 1e-12);
+
+    NeuralNetwork copy = new NeuralNetwork(neuralNetwork);
+    copy.train(fineTuningSet, 0, trainingSet.length, 5, 0.5, new TrainingState(copy.getSizesOfLayers()));
+    assertEquals(0.5, copy.getSparsity(), 1e-12);
+  }
+
+  /**
+   *  @brief Tests saveToBinary, loadFromBinary and createFromBinary methods of main.java.base.SparseNeuralNetwork
+   *         class.
+   *
+   *  @throws IOException When one of the tested methods throws an exception.
+   */
+  @Test
+  public void testSaveAndLoad() throws IOException{
+    NeuralNetwork neuralNetwork = new NeuralNetwork(new int[] {50, 40, 10});
+    neuralNetwork.prune(0.9);
+
+    File neuralNetworkFile = File.createTempFile("neural_network", ".bin");
+    File sparseNeuralNetworkFile = File.createTempFile("sparse_neural_network", ".bin");
+    neuralNetworkFile.deleteOnExit();
+    sparseNeuralNetworkFile.deleteOnExit();
+
+    neuralNetwork.saveToBinary(neuralNetworkFile.getPath());
+
+    SparseNeuralNetwork sparseNeuralNetwork1 = new SparseNeuralNetwork(neuralNetwork);
+    sparseNeuralNetwork1.saveToBinary(sparseNeuralNetworkFile.getPath());
+    SparseNeuralNetwork sparseNeuralNetwork2 = SparseNeuralNetwork.createFromBinary(sparseNeuralNetworkFile.getPath());
+
+    assertArrayEquals(neuralNetwork.getSizesOfLayers(), sparseNeuralNetwork2.getSizesOfLayers());
+    assertEquals(sparseNeuralNetwork1.getNumberOfNonZeroWeights(), sparseNeuralNetwork2.getNumberOfNonZeroWeights());
+    for(int i = 0;i < sparseNeuralNetwork2.getNumberOfLayers() - 1;i++){
+      assertEquals(neuralNetwork.getActivation(i).getName(), sparseNeuralNetwork2.getActivation(i).getName());
+    }
+
+    double[] input = new double[50];
+    for(int i = 0;i < input.length;i++){
+      input[i] = Math.random() * 2 - 1;
+    }
+
+    assertArrayEquals(sparseNeuralNetwork1.feedForward(input), sparseNeuralNetwork2.feedForward(input), 0);
+
+    // Twelve bytes per non-zero weight instead of eight per weight.
+    assertTrue(sparseNeuralNetworkFile.length() * 3 < neuralNetworkFile.length());
+
+    try{
+      SparseNeuralNetwork.createFromBinary(neuralNetworkFile.getPath());
+      fail("A NeuralNetwork binary file must be rejected.");
+    }
+    catch(IOException exception){
+    }
+  }
+
+}
@@ -0,0 +1,100 @@
+package test.java.benchmarks;
+
+import main.java.base.Activation;
+import main.java.base.CompiledNeuralNetwork;
+import main.java.base.InferenceContext;
+import main.java.base.InferenceModel;
+import main.java.base.NeuralNetwork;
+import main.java.base.ScalarBackend;
+
+/** @class CompiledNeuralNetworkBenchmark
+ *
+ *  @brief Compares the speed of main.java.base.NeuralNetwork.feedForward with the one of the
+ *         main.java.base.CompiledNeuralNetwork compiled from it.
+ *
+ *  The NeuralNetwork is timed both with its default main.java.base.ComputeBackend and with
+ *  main.java.base.ScalarBackend, the only one whose outputs the CompiledNeuralNetwork matches exactly.
+ *
+ *  This is not a unit test, it is meant to be run by hand, e.g.
+ *  @code
+ *  mvn test-compile
+ *  java -cp target/classes:target/test-classes test.java.benchmarks.CompiledNeuralNetworkBenchmark
+ *  @endcode
+ */
+public class CompiledNeuralNetworkBenchmark{
+  /**
+   *  @brief Runs the benchmark.
+   *
+   *  @param args The first argument, if any, is the number of measured repetitions. The second argument, if any, is
+   *         the name of the Activation of every layer, e.g. "relu".
+   */
+  public static void main(String[] args){
+    int repetitions = (args.length > 0) ? Integer.parseInt(args[0]) : 5;
+
+    NeuralNetwork neuralNetwork = new NeuralNetwork(NeuralNetworkBenchmark.SIZES_OF_LAYERS);
+    if(args.length > 1){
+      neuralNetwork.setActivation(Activation.create(args[1]));
+    }
+    NeuralNetwork scalarNeuralNetwork = new NeuralNetwork(neuralNetwork);
+    scalarNeuralNetwork.setComputeBackend(new ScalarBackend());
+
+    long start = System.nanoTime();
+    CompiledNeuralNetwork compiledNeuralNetwork = CompiledNeuralNetwork.compile(neuralNetwork);
+    System.out.printf("Activation: %s, default ComputeBackend: %s, compiled in %.0f ms%n",
+                      neuralNetwork.getActivation(0).getName(), neuralNetwork.getComputeBackend().getName(),
+                      (System.nanoTime() - start) / 1e6);
+
+    double[][] samples = NeuralNetworkBenchmark.randomSamples(NeuralNetworkBenchmark.NUMBER_OF_SAMPLES,
+                                                              NeuralNetworkBenchmark.SIZES_OF_LAYERS[0]);
+
+    // Warm up the JIT before measuring.
+    feedForward(neuralNetwork, samples);
+    feedForward(scalarNeuralNetwork, samples);
+    feedForward(compiledNeuralNetwork, samples);
+
+    for(int repetition = 0;repetition < repetitions;repetition++){
+      start = System.nanoTime();
+      feedForward(neuralNetwork, samples);
+      double seconds = (System.nanoTime() - start) / 1e9;
+
+      start = System.nanoTime();
+      double scalarChecksum = feedForward(scalarNeuralNetwork, samples);
+      double scalarSeconds = (System.nanoTime() - start) / 1e9;
+
+      start = System.nanoTime();
+      double compiledChecksum = feedForward(compiledNeuralNetwork, samples);
+      double compiledSeconds = (System.nanoTime() - start) / 1e9;
+
+      System.out.printf("default: %10.1f samples/s    scalar: %10.1f samples/s    compiled: %10.1f samples/s    " +
+                        "speedup: %.2fx (default) %.2fx (scalar)    same outputs as scalar: %b%n",
+                        samples.length / seconds, samples.length / scalarSeconds, samples.length / compiledSeconds,
+                        seconds / compiledSeconds, scalarSeconds / compiledSeconds, scalarChecksum == compiledChecksum);
+    }
+  }
+
+  /**
+   *  @brief Applies every sample to the given model, reusing one InferenceContext.
+   *
+   *  @param model The model to evaluate.
+   *  @param samples The samples to apply.
+   *
+   *  @return Returns a value depending on every output, so that the JIT can not eliminate the work.
+   */
+  private static double feedForward(InferenceModel model, double[][] samples){
+    int[] sizesOfLayers = model.getSizesOfLayers();
+    InferenceContext context = new InferenceContext(sizesOfLayers);
+    double[] output = new double[sizesOfLayers[sizesOfLayers.length - 1]];
+
+    double checksum = 0;
+    for(int i = 0;i < samples.length;i++){
+      model.feedForward(samples[i], context, output);
+
+      for(int j = 0;j < output.length;j++){
+        checksum += output[j];
+      }
+    }
+
+    return checksum;
+  }
+
+}
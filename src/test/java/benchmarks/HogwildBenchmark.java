@@ -0,0 +1,96 @@
+package test.java.benchmarks;
+
+import java.io.IOException;
+
+import main.java.base.NeuralNetwork;
+
+/** @class HogwildBenchmark
+ *
+ *  @brief Compares the time needed to reach a target accuracy with main.java.base.NeuralNetwork.train, run on a single
+ *         thread, and with main.java.base.NeuralNetwork.trainHogwild.
+ *
+ *  This is not a unit test, it is meant to be run by hand on the MNIST data set, e.g.
+ *  @code
+ *  mvn test-compile
+ *  java -cp target/classes:target/test-classes test.java.benchmarks.HogwildBenchmark \
+ *       train-images-idx3-ubyte train-labels-idx1-ubyte t10k-images-idx3-ubyte t10k-labels-idx1-ubyte 8
+ *  @endcode
+ */
+public class HogwildBenchmark{
+  /**
+   *  @brief Runs the benchmark.
+   *
+   *  @param args The training data, training labels, testing data and testing labels files, followed, optionally, by
+   *         the number of Hogwild threads, the number of epochs and the target accuracy.
+   *
+   *  @throws IOException When the data can not be loaded.
+   */
+  public static void main(String[] args) throws IOException{
+    IDXData trainingData = new IDXData(args[0], args[1], NUMBER_OF_LABELS);
+    IDXData testingData = new IDXData(args[2], args[3], NUMBER_OF_LABELS);
+    int numberOfThreads = (args.length > 4) ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+    int numberOfEpochs = (args.length > 5) ? Integer.parseInt(args[5]) : 10;
+    double targetAccuracy = (args.length > 6) ? Double.parseDouble(args[6]) : 95;
+
+    int[] sizesOfLayers = {trainingData.samples_[0].length, 300, NUMBER_OF_LABELS};
+
+    System.out.println("Sequential, batch size " + BATCH_SIZE + ":");
+    NeuralNetwork neuralNetwork = new NeuralNetwork(sizesOfLayers);
+    run(neuralNetwork, false, trainingData, testingData, numberOfEpochs, targetAccuracy);
+
+    System.out.println("Hogwild, " + numberOfThreads + " threads:");
+    neuralNetwork = new NeuralNetwork(sizesOfLayers);
+    neuralNetwork.setNumberOfThreads(numberOfThreads);
+    run(neuralNetwork, true, trainingData, testingData, numberOfEpochs, targetAccuracy);
+  }
+
+  /**
+   *  @brief Trains a NeuralNetwork for a number of epochs, printing the elapsed time and the accuracy after each one.
+   *
+   *  @param neuralNetwork The NeuralNetwork to train.
+   *  @param hogwild Whether to use trainHogwild or train.
+   *  @param trainingData The training set.
+   *  @param testingData The testing set.
+   *  @param numberOfEpochs The number of epochs.
+   *  @param targetAccuracy The accuracy whose time of arrival is reported.
+   */
+  static void run(NeuralNetwork neuralNetwork, boolean hogwild, IDXData trainingData, IDXData testingData,
+                  int numberOfEpochs, double targetAccuracy){
+    int numberOfSamples = trainingData.samples_.length;
+    double[][] batchSamples = new double[BATCH_SIZE][];
+    double[][] batchLabels = new double[BATCH_SIZE][];
+
+    double trainingSeconds = 0;
+    boolean reportedTarget = false;
+    for(int epoch = 0;epoch < numberOfEpochs;epoch++){
+      long start = System.nanoTime();
+      if(hogwild){
+        neuralNetwork.trainHogwild(trainingData.samples_, trainingData.oneHotLabels_, numberOfSamples, 1,
+                                   HOGWILD_GAMMA);
+      }
+      else{
+        for(int batch = 0;batch < numberOfSamples / BATCH_SIZE;batch++){
+          System.arraycopy(trainingData.samples_, batch * BATCH_SIZE, batchSamples, 0, BATCH_SIZE);
+          System.arraycopy(trainingData.oneHotLabels_, batch * BATCH_SIZE, batchLabels, 0, BATCH_SIZE);
+
+          neuralNetwork.train(batchSamples, batchLabels, BATCH_SIZE, 1, BATCH_GAMMA);
+        }
+      }
+      trainingSeconds += (System.nanoTime() - start) / 1e9;
+
+      double accuracy = testingData.accuracy(neuralNetwork.feedForwardBatch(testingData.samples_));
+      System.out.printf("  epoch %3d: %8.2f s, %6.2f%%%n", epoch, trainingSeconds, accuracy);
+
+      if(accuracy >= targetAccuracy && !reportedTarget){
+        System.out.printf("  reached %.2f%% after %.2f s of training%n", targetAccuracy, trainingSeconds);
+        reportedTarget = true;
+      }
+    }
+  }
+
+  static final int NUMBER_OF_LABELS = 10; //!< The number of labels of the MNIST data set.
+  static final int BATCH_SIZE = 10; //!< The batch size of the sequential training.
+  static final double BATCH_GAMMA = 0.5; //!< The learning rate of the sequential training.
+  static final double HOGWILD_GAMMA = 0.05; //!< The learning rate of the Hogwild training, applied per sample.
+
+}
@@ -0,0 +1,71 @@
+package test.java.benchmarks;
+
+import java.io.IOException;
+
+import main.java.utilities.data.DataSet;
+
+/** @class IDXData
+ *
+ *  @brief Loads a set of data saved with IDX format and converts it to the form expected by
+ *         main.java.base.NeuralNetwork.
+ *
+ *  The samples are normalized to [-1, 1] the same way main.java.trainers.SimpleTrainer does.
+ */
+class IDXData{
+  /**
+   *  @brief Constructor.
+   *
+   *  @param dataFile The full path of the data file.
+   *  @param labelsFile The full path of the labels file.
+   *  @param numberOfLabels The number of different labels.
+   *
+   *  @throws IOException When main.java.utilities.data.DataSet.loadIDXFormat throws an exception.
+   */
+  IDXData(String dataFile, String labelsFile, int numberOfLabels) throws IOException{
+    DataSet dataSet = DataSet.loadIDXFormat(dataFile, labelsFile);
+
+    int sampleLength = dataSet.get(0).data_.length;
+
+    samples_ = new double[dataSet.size()][sampleLength];
+    labels_ = new int[dataSet.size()];
+    oneHotLabels_ = new double[dataSet.size()][numberOfLabels];
+    for(int i = 0;i < dataSet.size();i++){
+      for(int j = 0;j < sampleLength;j++){
+        samples_[i][j] = ((double)(dataSet.get(i).data_[j] & 0xFF)) / 127.5 - 1;
+      }
+
+      labels_[i] = dataSet.get(i).label_ & 0xFF;
+      oneHotLabels_[i][labels_[i]] = 1;
+    }
+  }
+
+  /**
+   *  @brief Returns the percentage of samples whose largest output matches their label.
+   *
+   *  @param outputs The outputs of a classifier, one for each sample.
+   *
+   *  @return Returns the accuracy in [0, 100].
+   */
+  double accuracy(double[][] outputs){
+    int correctAnswerCounter = 0;
+    for(int i = 0;i < outputs.length;i++){
+      int index = 0;
+      for(int j = 1;j < outputs[i].length;j++){
+        if(outputs[i][j] > outputs[i][index]){
+          index = j;
+        }
+      }
+
+      if(index == labels_[i]){
+        correctAnswerCounter++;
+      }
+    }
+
+    return 100.0 * correctAnswerCounter / outputs.length;
+  }
+
+  double[][] samples_; //!< The normalized samples.
+  int[] labels_; //!< The label of each sample.
+  double[][] oneHotLabels_; //!< The label of each sample as a vector with a one at the position of the label.
+
+}
@@ -0,0 +1,129 @@
+package test.java.benchmarks;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import main.java.base.NeuralNetwork;
+
+/** @class ModelIOBenchmark
+ *
+ *  @brief Measures the throughput of main.java.base.NeuralNetwork.saveToBinary and loadFromBinary.
+ *
+ *  The throughput is compared with the one of the unbuffered DataOutputStream and DataInputStream the binary files
+ *  used to be written and read with, and with the one of writing and reading the same number of bytes at once, which
+ *  is the best the disk and the page cache can do.
+ *
+ *  This is not a unit test, it is meant to be run by hand, e.g.
+ *  @code
+ *  mvn test-compile
+ *  java -cp target/classes:target/test-classes test.java.benchmarks.ModelIOBenchmark
+ *  @endcode
+ */
+public class ModelIOBenchmark{
+  /**
+   *  @brief Runs the benchmark.
+   *
+   *  @param args The first argument, if any, is the number of measured repetitions. The second argument, if any, is
+   *         the sizes of the layers separated by commas, e.g. "784,1000,300,10".
+   *
+   *  @throws IOException When the temporary files can not be written or read.
+   */
+  public static void main(String[] args) throws IOException{
+    int repetitions = (args.length > 0) ? Integer.parseInt(args[0]) : 5;
+
+    int[] sizesOfLayers = SIZES_OF_LAYERS;
+    if(args.length > 1){
+      String[] sizes = args[1].split(",");
+      sizesOfLayers = new int[sizes.length];
+      for(int i = 0;i < sizes.length;i++){
+        sizesOfLayers[i] = Integer.parseInt(sizes[i]);
+      }
+    }
+
+    NeuralNetwork neuralNetwork = new NeuralNetwork(sizesOfLayers);
+
+    File file = File.createTempFile("neural_network", ".bin");
+    file.deleteOnExit();
+
+    neuralNetwork.saveToBinary(file.getPath());
+    byte[] bytes = Files.readAllBytes(file.toPath());
+    double megabytes = bytes.length / 1e6;
+    System.out.printf("Model file: %.1f MB%n", megabytes);
+
+    for(int repetition = 0;repetition < repetitions;repetition++){
+      long start = System.nanoTime();
+      neuralNetwork.saveToBinary(file.getPath());
+      double saveSeconds = (System.nanoTime() - start) / 1e9;
+
+      start = System.nanoTime();
+      NeuralNetwork.createFromBinary(file.getPath());
+      double loadSeconds = (System.nanoTime() - start) / 1e9;
+
+      start = System.nanoTime();
+      writeDataStream(file, bytes.length / 8);
+      double streamSaveSeconds = (System.nanoTime() - start) / 1e9;
+
+      start = System.nanoTime();
+      readDataStream(file, bytes.length / 8);
+      double streamLoadSeconds = (System.nanoTime() - start) / 1e9;
+
+      start = System.nanoTime();
+      Files.write(file.toPath(), bytes);
+      double rawSaveSeconds = (System.nanoTime() - start) / 1e9;
+
+      start = System.nanoTime();
+      Files.readAllBytes(file.toPath());
+      double rawLoadSeconds = (System.nanoTime() - start) / 1e9;
+
+      System.out.printf("save: %8.1f MB/s    load: %8.1f MB/s    DataOutputStream: %8.1f MB/s    " +
+                        "DataInputStream: %8.1f MB/s    raw write: %8.1f MB/s    raw read: %8.1f MB/s%n",
+                        megabytes / saveSeconds, megabytes / loadSeconds, megabytes / streamSaveSeconds,
+                        megabytes / streamLoadSeconds, megabytes / rawSaveSeconds, megabytes / rawLoadSeconds);
+    }
+  }
+
+  /**
+   *  @brief Writes doubles one at a time through an unbuffered DataOutputStream, the way saveToBinary used to.
+   *
+   *  @param file The file to write.
+   *  @param numberOfDoubles The number of doubles to write.
+   *
+   *  @throws IOException When the file can not be written.
+   */
+  static void writeDataStream(File file, int numberOfDoubles) throws IOException{
+    DataOutputStream dataOutputStream = new DataOutputStream(new FileOutputStream(file));
+    for(int i = 0;i < numberOfDoubles;i++){
+      dataOutputStream.writeDouble(i);
+    }
+    dataOutputStream.close();
+  }
+
+  /**
+   *  @brief Reads doubles one at a time through an unbuffered DataInputStream, the way loadFromBinary used to.
+   *
+   *  @param file The file to read.
+   *  @param numberOfDoubles The number of doubles to read.
+   *
+   *  @return Returns the sum of the doubles, so that the JIT can not eliminate the work.
+   *
+   *  @throws IOException When the file can not be read.
+   */
+  static double readDataStream(File file, int numberOfDoubles) throws IOException{
+    DataInputStream dataInputStream = new DataInputStream(new FileInputStream(file));
+    double sum = 0;
+    for(int i = 0;i < numberOfDoubles;i++){
+      sum += dataInputStream.readDouble();
+    }
+    dataInputStream.close();
+
+    return sum;
+  }
+
+  static final int[] SIZES_OF_LAYERS = {784, 2000, 2000, 10}; //!< A topology whose model file is about 45 MB.
+
+}
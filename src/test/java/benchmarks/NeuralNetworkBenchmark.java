@@ -0,0 +1,168 @@
+package test.java.benchmarks;
+
+import java.util.Random;
+
+import main.java.base.Activation;
+import main.java.base.FloatNeuralNetwork;
+import main.java.base.InferenceContext;
+import main.java.base.NeuralNetwork;
+
+/** @class NeuralNetworkBenchmark
+ *
+ *  @brief Measures the throughput of main.java.base.NeuralNetwork on an MNIST sized topology.
+ *
+ *  This is not a unit test, it is meant to be run by hand, e.g.
+ *  @code
+ *  mvn test-compile
+ *  java -cp target/classes:target/test-classes test.java.benchmarks.NeuralNetworkBenchmark
+ *  @endcode
+ *  Add --add-modules jdk.incubator.vector to the java command to measure the vector ComputeBackend.
+ */
+public class NeuralNetworkBenchmark{
+  /**
+   *  @brief Runs the benchmark.
+   *
+   *  @param args The first argument, if any, is the number of measured repetitions. The second argument, if any, is
+   *         the number of threads used while training. The third argument, if any, is the name of the Activation of
+   *         every layer, e.g. "fast_sigmoid".
+   */
+  public static void main(String[] args){
+    int repetitions = (args.length > 0) ? Integer.parseInt(args[0]) : 5;
+    int numberOfThreads = (args.length > 1) ? Integer.parseInt(args[1]) : 1;
+
+    NeuralNetwork neuralNetwork = new NeuralNetwork(SIZES_OF_LAYERS);
+    neuralNetwork.setNumberOfThreads(numberOfThreads);
+    if(args.length > 2){
+      neuralNetwork.setActivation(Activation.create(args[2]));
+    }
+    System.out.println("ComputeBackend: " + neuralNetwork.getComputeBackend().getName() + ", Activation: " +
+                       neuralNetwork.getActivation(0).getName());
+
+    double[][] samples = randomSamples(NUMBER_OF_SAMPLES, SIZES_OF_LAYERS[0]);
+    double[][] labels = new double[NUMBER_OF_SAMPLES][SIZES_OF_LAYERS[SIZES_OF_LAYERS.length - 1]];
+    for(int i = 0;i < NUMBER_OF_SAMPLES;i++){
+      labels[i][i % labels[i].length] = 1;
+    }
+
+    double[][] outputs = new double[NUMBER_OF_SAMPLES][SIZES_OF_LAYERS[SIZES_OF_LAYERS.length - 1]];
+
+    FloatNeuralNetwork floatNeuralNetwork = new FloatNeuralNetwork(neuralNetwork);
+    float[][] floatSamples = new float[NUMBER_OF_SAMPLES][SIZES_OF_LAYERS[0]];
+    for(int i = 0;i < NUMBER_OF_SAMPLES;i++){
+      for(int j = 0;j < SIZES_OF_LAYERS[0];j++){
+        floatSamples[i][j] = (float)samples[i][j];
+      }
+    }
+
+    // Warm up the JIT before measuring.
+    feedForward(neuralNetwork, samples);
+    neuralNetwork.feedForwardBatch(samples, NUMBER_OF_SAMPLES, outputs);
+    feedForward(floatNeuralNetwork, floatSamples);
+    train(neuralNetwork, samples, labels);
+
+    for(int repetition = 0;repetition < repetitions;repetition++){
+      long start = System.nanoTime();
+      feedForward(neuralNetwork, samples);
+      double feedForwardSeconds = (System.nanoTime() - start) / 1e9;
+
+      start = System.nanoTime();
+      neuralNetwork.feedForwardBatch(samples, NUMBER_OF_SAMPLES, outputs);
+      double feedForwardBatchSeconds = (System.nanoTime() - start) / 1e9;
+
+      start = System.nanoTime();
+      feedForward(floatNeuralNetwork, floatSamples);
+      double floatFeedForwardSeconds = (System.nanoTime() - start) / 1e9;
+
+      start = System.nanoTime();
+      train(neuralNetwork, samples, labels);
+      double trainSeconds = (System.nanoTime() - start) / 1e9;
+
+      System.out.printf("feedForward: %10.1f samples/s    feedForwardBatch: %10.1f samples/s    " +
+                        "float feedForward: %10.1f samples/s    train: %10.1f samples/s%n",
+                        NUMBER_OF_SAMPLES / feedForwardSeconds, NUMBER_OF_SAMPLES / feedForwardBatchSeconds,
+                        NUMBER_OF_SAMPLES / floatFeedForwardSeconds, NUMBER_OF_SAMPLES / trainSeconds);
+    }
+  }
+
+  /**
+   *  @brief Applies every sample to the given NeuralNetwork.
+   *
+   *  @param neuralNetwork The NeuralNetwork to evaluate.
+   *  @param samples The samples to apply.
+   *
+   *  @return Returns a value depending on every output, so that the JIT can not eliminate the work.
+   */
+  static double feedForward(NeuralNetwork neuralNetwork, double[][] samples){
+    double checksum = 0;
+    for(int i = 0;i < samples.length;i++){
+      checksum += neuralNetwork.feedForward(samples[i])[0];
+    }
+
+    return checksum;
+  }
+
+  /**
+   *  @brief Applies every sample to the given FloatNeuralNetwork, reusing one InferenceContext.
+   *
+   *  @param floatNeuralNetwork The FloatNeuralNetwork to evaluate.
+   *  @param samples The samples to apply.
+   *
+   *  @return Returns a value depending on every output, so that the JIT can not eliminate the work.
+   */
+  static double feedForward(FloatNeuralNetwork floatNeuralNetwork, float[][] samples){
+    InferenceContext context = new InferenceContext(floatNeuralNetwork.getSizesOfLayers());
+    float[] output = new float[SIZES_OF_LAYERS[SIZES_OF_LAYERS.length - 1]];
+
+    double checksum = 0;
+    for(int i = 0;i < samples.length;i++){
+      checksum += floatNeuralNetwork.feedForward(samples[i], context, output)[0];
+    }
+
+    return checksum;
+  }
+
+  /**
+   *  @brief Trains the given NeuralNetwork for one pass over the samples, using batches of BATCH_SIZE samples.
+   *
+   *  @param neuralNetwork The NeuralNetwork to train.
+   *  @param samples The training samples.
+   *  @param labels The labels of the training samples.
+   */
+  static void train(NeuralNetwork neuralNetwork, double[][] samples, double[][] labels){
+    double[][] batchSamples = new double[BATCH_SIZE][];
+    double[][] batchLabels = new double[BATCH_SIZE][];
+
+    for(int batch = 0;batch < samples.length / BATCH_SIZE;batch++){
+      System.arraycopy(samples, batch * BATCH_SIZE, batchSamples, 0, BATCH_SIZE);
+      System.arraycopy(labels, batch * BATCH_SIZE, batchLabels, 0, BATCH_SIZE);
+
+      neuralNetwork.train(batchSamples, batchLabels, BATCH_SIZE, 1, 0.01);
+    }
+  }
+
+  /**
+   *  @brief Creates random samples with values in [-1, 1).
+   *
+   *  @param numberOfSamples The number of samples to create.
+   *  @param sampleLength The length of each sample.
+   *
+   *  @return Returns the created samples.
+   */
+  static double[][] randomSamples(int numberOfSamples, int sampleLength){
+    Random random = new Random(0);
+
+    double[][] samples = new double[numberOfSamples][sampleLength];
+    for(int i = 0;i < numberOfSamples;i++){
+      for(int j = 0;j < sampleLength;j++){
+        samples[i][j] = random.nextDouble() * 2 - 1;
+      }
+    }
+
+    return samples;
+  }
+
+  static final int[] SIZES_OF_LAYERS = {784, 1000, 300, 10}; //!< An MNIST sized topology.
+  static final int NUMBER_OF_SAMPLES = 2000; //!< The number of samples used in each measurement.
+  static final int BATCH_SIZE = 10; //!< The batch size used while training.
+
+}
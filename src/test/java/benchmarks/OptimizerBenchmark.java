@@ -0,0 +1,102 @@
+package test.java.benchmarks;
+
+import java.io.IOException;
+
+import main.java.base.Adam;
+import main.java.base.Momentum;
+import main.java.base.NeuralNetwork;
+import main.java.base.Nesterov;
+import main.java.base.Optimizer;
+import main.java.base.RMSProp;
+import main.java.base.SGD;
+import main.java.base.TrainingState;
+
+/** @class OptimizerBenchmark
+ *
+ *  @brief Compares the time each main.java.base.Optimizer needs to reach a target accuracy.
+ *
+ *  This is not a unit test, it is meant to be run by hand on the MNIST data set, e.g.
+ *  @code
+ *  mvn test-compile
+ *  java -cp target/classes:target/test-classes test.java.benchmarks.OptimizerBenchmark \
+ *       train-images-idx3-ubyte train-labels-idx1-ubyte t10k-images-idx3-ubyte t10k-labels-idx1-ubyte 97
+ *  @endcode
+ *  Every Optimizer starts from the same initial parameters.
+ */
+public class OptimizerBenchmark{
+  /**
+   *  @brief Runs the benchmark.
+   *
+   *  @param args The training data, training labels, testing data and testing labels files, followed, optionally, by
+   *         the target accuracy and the maximum number of epochs.
+   *
+   *  @throws IOException When the data can not be loaded.
+   */
+  public static void main(String[] args) throws IOException{
+    IDXData trainingData = new IDXData(args[0], args[1], NUMBER_OF_LABELS);
+    IDXData testingData = new IDXData(args[2], args[3], NUMBER_OF_LABELS);
+    double targetAccuracy = (args.length > 4) ? Double.parseDouble(args[4]) : 97;
+    int maximumNumberOfEpochs = (args.length > 5) ? Integer.parseInt(args[5]) : 20;
+
+    NeuralNetwork initialNeuralNetwork = new NeuralNetwork(new int[] {trainingData.samples_[0].length, 300,
+                                                                      NUMBER_OF_LABELS});
+
+    Optimizer[] optimizers = {new SGD(), new Momentum(), new Nesterov(), new RMSProp(), new Adam()};
+    for(int i = 0;i < optimizers.length;i++){
+      System.out.println(optimizers[i].getName() + ", gamma " + GAMMAS[i] + ":");
+
+      NeuralNetwork neuralNetwork = new NeuralNetwork(initialNeuralNetwork);
+      neuralNetwork.setOptimizer(optimizers[i]);
+
+      run(neuralNetwork, GAMMAS[i], trainingData, testingData, maximumNumberOfEpochs, targetAccuracy);
+    }
+  }
+
+  /**
+   *  @brief Trains a NeuralNetwork until it reaches a target accuracy, printing the elapsed time and the accuracy
+   *         after each epoch.
+   *
+   *  @param neuralNetwork The NeuralNetwork to train.
+   *  @param gamma The learning rate.
+   *  @param trainingData The training set.
+   *  @param testingData The testing set.
+   *  @param maximumNumberOfEpochs The number of epochs after which training stops, even if the target accuracy has
+   *         not been reached.
+   *  @param targetAccuracy The accuracy at which training stops.
+   */
+  static void run(NeuralNetwork neuralNetwork, double gamma, IDXData trainingData, IDXData testingData,
+                  int maximumNumberOfEpochs, double targetAccuracy){
+    int numberOfSamples = trainingData.samples_.length;
+    double[][] batchSamples = new double[BATCH_SIZE][];
+    double[][] batchLabels = new double[BATCH_SIZE][];
+    TrainingState trainingState = new TrainingState(neuralNetwork.getSizesOfLayers());
+
+    double trainingSeconds = 0;
+    for(int epoch = 0;epoch < maximumNumberOfEpochs;epoch++){
+      long start = System.nanoTime();
+      for(int batch = 0;batch < numberOfSamples / BATCH_SIZE;batch++){
+        System.arraycopy(trainingData.samples_, batch * BATCH_SIZE, batchSamples, 0, BATCH_SIZE);
+        System.arraycopy(trainingData.oneHotLabels_, batch * BATCH_SIZE, batchLabels, 0, BATCH_SIZE);
+
+        neuralNetwork.train(batchSamples, batchLabels, BATCH_SIZE, 1, gamma, trainingState);
+      }
+      trainingSeconds += (System.nanoTime() - start) / 1e9;
+
+      double accuracy = testingData.accuracy(neuralNetwork.feedForwardBatch(testingData.samples_));
+      System.out.printf("  epoch %3d: %8.2f s, %6.2f%%%n", epoch, trainingSeconds, accuracy);
+
+      if(accuracy >= targetAccuracy){
+        System.out.printf("  reached %.2f%% after %d epochs, %.2f s of training%n", targetAccuracy, epoch + 1,
+                          trainingSeconds);
+        return;
+      }
+    }
+
+    System.out.printf("  did not reach %.2f%% in %d epochs%n", targetAccuracy, maximumNumberOfEpochs);
+  }
+
+  static final int NUMBER_OF_LABELS = 10; //!< The number of labels of the MNIST data set.
+  static final int BATCH_SIZE = 10; //!< The batch size.
+  static final double[] GAMMAS = {0.5, 0.5, 0.5, 0.001, 0.001}; //!< The learning rate of each Optimizer.
+
+}
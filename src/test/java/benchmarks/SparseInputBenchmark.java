@@ -0,0 +1,92 @@
+package test.java.benchmarks;
+
+import java.io.IOException;
+
+import main.java.base.NeuralNetwork;
+import main.java.base.TrainingSet;
+import main.java.base.TrainingState;
+
+/** @class SparseInputBenchmark
+ *
+ *  @brief Compares the speed of training and evaluating a main.java.base.NeuralNetwork with and without its sparse
+ *         input mode.
+ *
+ *  This is not a unit test, it is meant to be run by hand on the MNIST data set, e.g.
+ *  @code
+ *  mvn test-compile
+ *  java -cp target/classes:target/test-classes test.java.benchmarks.SparseInputBenchmark \
+ *       train-images-idx3-ubyte train-labels-idx1-ubyte t10k-images-idx3-ubyte t10k-labels-idx1-ubyte
+ *  @endcode
+ */
+public class SparseInputBenchmark{
+  /**
+   *  @brief Runs the benchmark.
+   *
+   *  @param args The training data, training labels, testing data and testing labels files, followed, optionally, by
+   *         the size of the hidden layer and the number of epochs.
+   *
+   *  @throws IOException When the data can not be loaded.
+   */
+  public static void main(String[] args) throws IOException{
+    IDXData trainingData = new IDXData(args[0], args[1], HogwildBenchmark.NUMBER_OF_LABELS);
+    IDXData testingData = new IDXData(args[2], args[3], HogwildBenchmark.NUMBER_OF_LABELS);
+    int hiddenLayerSize = (args.length > 4) ? Integer.parseInt(args[4]) : 100;
+    int numberOfEpochs = (args.length > 5) ? Integer.parseInt(args[5]) : 3;
+
+    long foregroundPixels = 0;
+    long pixels = 0;
+    for(double[] sample : trainingData.samples_){
+      for(double pixel : sample){
+        foregroundPixels += (pixel != -1) ? 1 : 0;
+      }
+      pixels += sample.length;
+    }
+    System.out.printf("Foreground pixels: %.1f%%%n", 100.0 * foregroundPixels / pixels);
+
+    NeuralNetwork denseNeuralNetwork = new NeuralNetwork(new int[] {trainingData.samples_[0].length, hiddenLayerSize,
+                                                                    HogwildBenchmark.NUMBER_OF_LABELS});
+    NeuralNetwork sparseNeuralNetwork = new NeuralNetwork(denseNeuralNetwork);
+    sparseNeuralNetwork.setSparseInput(true);
+
+    for(int epoch = 0;epoch < numberOfEpochs;epoch++){
+      double denseTrainingSeconds = train(denseNeuralNetwork, trainingData);
+      double sparseTrainingSeconds = train(sparseNeuralNetwork, trainingData);
+
+      long start = System.nanoTime();
+      double denseAccuracy = testingData.accuracy(denseNeuralNetwork.feedForwardBatch(testingData.samples_));
+      double denseTestingSeconds = (System.nanoTime() - start) / 1e9;
+      start = System.nanoTime();
+      double sparseAccuracy = testingData.accuracy(sparseNeuralNetwork.feedForwardBatch(testingData.samples_));
+      double sparseTestingSeconds = (System.nanoTime() - start) / 1e9;
+
+      System.out.printf("epoch %d: training %.2f s dense, %.2f s sparse (%.2fx); " +
+                        "testing %.3f s dense, %.3f s sparse (%.2fx); accuracy %.2f%% / %.2f%%%n", epoch,
+                        denseTrainingSeconds, sparseTrainingSeconds, denseTrainingSeconds / sparseTrainingSeconds,
+                        denseTestingSeconds, sparseTestingSeconds, denseTestingSeconds / sparseTestingSeconds,
+                        denseAccuracy, sparseAccuracy);
+    }
+  }
+
+  /**
+   *  @brief Trains a NeuralNetwork for one epoch.
+   *
+   *  @param neuralNetwork The NeuralNetwork to train.
+   *  @param trainingData The training set.
+   *
+   *  @return Returns the elapsed time in seconds.
+   */
+  private static double train(NeuralNetwork neuralNetwork, IDXData trainingData){
+    TrainingState trainingState = new TrainingState(neuralNetwork.getSizesOfLayers());
+    TrainingSet trainingSet = new TrainingSet(trainingData.samples_, trainingData.oneHotLabels_);
+    int numberOfSamples = trainingData.samples_.length;
+
+    long start = System.nanoTime();
+    for(int batch = 0;batch < numberOfSamples / HogwildBenchmark.BATCH_SIZE;batch++){
+      neuralNetwork.train(trainingSet, batch * HogwildBenchmark.BATCH_SIZE, HogwildBenchmark.BATCH_SIZE, 1,
+                          HogwildBenchmark.BATCH_GAMMA, trainingState);
+    }
+
+    return (System.nanoTime() - start) / 1e9;
+  }
+
+}
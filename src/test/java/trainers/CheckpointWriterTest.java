@@ -0,0 +1,110 @@
+package test.java.trainers;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.Test;
+
+import main.java.base.NeuralNetwork;
+import main.java.trainers.CheckpointWriter;
+
+/** @class CheckpointWriterTest
+ *
+ *  @brief Class that contains tests for main.java.trainers.CheckpointWriter class.
+ */
+public class CheckpointWriterTest{
+  /**
+   *  @brief Tests that main.java.trainers.CheckpointWriter writes the latest checkpoint and rotates the backups.
+   *
+   *  @throws IOException When a checkpoint can not be written or read.
+   */
+  @Test
+  public void testWriteAndRotate() throws IOException{
+    File directory = Files.createTempDirectory("checkpoints").toFile();
+    File checkpoint = new File(directory, "neural_network.bin");
+
+    NeuralNetwork neuralNetwork = new NeuralNetwork(new int[] {4, 3, 2});
+    double[][] trainingSet = {{0, 0, 1, 1}, {1, 1, 0, 0}};
+    double[][] labels = {{1, 0}, {0, 1}};
+    double[] input = {0.1, 0.2, 0.3, 0.4};
+
+    double[][] outputs = new double[4][];
+    CheckpointWriter checkpointWriter = new CheckpointWriter(checkpoint.getPath(), 2);
+    try{
+      for(int i = 0;i < outputs.length;i++){
+        neuralNetwork.train(trainingSet, labels, trainingSet.length, 1, 1);
+        outputs[i] = neuralNetwork.feedForward(input);
+
+        checkpointWriter.write(neuralNetwork);
+        checkpointWriter.await();
+      }
+    }
+    finally{
+      checkpointWriter.close();
+    }
+
+    assertArrayEquals(outputs[3], NeuralNetwork.createFromBinary(checkpoint.getPath()).feedForward(input), 0);
+    assertArrayEquals(outputs[2], NeuralNetwork.createFromBinary(checkpoint.getPath() + ".1").feedForward(input), 0);
+    assertArrayEquals(outputs[1], NeuralNetwork.createFromBinary(checkpoint.getPath() + ".2").feedForward(input), 0);
+    assertFalse(new File(checkpoint.getPath() + ".3").exists());
+    assertFalse(new File(checkpoint.getPath() + ".tmp").exists());
+
+    for(File file : directory.listFiles()){
+      file.delete();
+    }
+    directory.delete();
+  }
+
+  /**
+   *  @brief Tests that writing a checkpoint does not publish a snapshot of the main.java.base.NeuralNetwork.
+   *
+   *  @throws IOException When a checkpoint can not be written.
+   */
+  @Test
+  public void testNoPublish() throws IOException{
+    File checkpoint = File.createTempFile("neural_network", ".bin");
+    checkpoint.deleteOnExit();
+
+    NeuralNetwork neuralNetwork = new NeuralNetwork(new int[] {4, 3, 2});
+    CheckpointWriter checkpointWriter = new CheckpointWriter(checkpoint.getPath(), 0);
+    try{
+      checkpointWriter.write(neuralNetwork);
+      checkpointWriter.await();
+      assertNull(neuralNetwork.getSnapshot());
+
+      NeuralNetwork snapshot = neuralNetwork.publish();
+      checkpointWriter.write(neuralNetwork);
+      checkpointWriter.await();
+      assertSame(snapshot, neuralNetwork.getSnapshot());
+    }
+    finally{
+      checkpointWriter.close();
+    }
+  }
+
+  /**
+   *  @brief Tests that a checkpoint that can not be written is reported.
+   *
+   *  @throws IOException When the temporary directory can not be created.
+   */
+  @Test
+  public void testFailure() throws IOException{
+    File directory = Files.createTempDirectory("checkpoints").toFile();
+    File checkpoint = new File(new File(directory, "missing"), "neural_network.bin");
+
+    CheckpointWriter checkpointWriter = new CheckpointWriter(checkpoint.getPath(), 0);
+    try{
+      checkpointWriter.write(new NeuralNetwork(new int[] {4, 3, 2}));
+      checkpointWriter.close();
+      fail("A checkpoint in a missing directory must be reported.");
+    }
+    catch(IOException exception){
+    }
+
+    directory.delete();
+  }
+
+}
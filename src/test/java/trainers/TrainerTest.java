@@ -0,0 +1,196 @@
+package test.java.trainers;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.Test;
+
+import main.java.base.Adam;
+import main.java.base.NeuralNetwork;
+import main.java.base.TrainingSet;
+import main.java.base.TrainingState;
+import main.java.distorters.Distorter;
+import main.java.trainers.CheckpointWriter;
+import main.java.trainers.Trainer;
+import main.java.utilities.data.DataSet;
+
+/** @class TrainerTest
+ *
+ *  @brief Class that contains tests for the checkpoints of main.java.trainers.Trainer class.
+ */
+public class TrainerTest{
+  /**
+   *  @brief Tests that a main.java.trainers.Trainer resumed from a checkpoint follows the same trajectory as one that
+   *         did not stop.
+   *
+   *  @throws Exception When training or a checkpoint fails.
+   */
+  @Test
+  public void testResume() throws Exception{
+    File checkpoint = File.createTempFile("checkpoint", ".bin");
+    checkpoint.deleteOnExit();
+
+    NeuralNetwork neuralNetwork = new NeuralNetwork(new int[] {6, 5, 3});
+
+    TestTrainer uninterrupted = new TestTrainer(new NeuralNetwork(neuralNetwork), 42);
+    uninterrupted.setNumberOfEpochs(6);
+    uninterrupted.train();
+
+    TestTrainer interrupted = new TestTrainer(new NeuralNetwork(neuralNetwork), 42);
+    interrupted.setCheckpointPath(checkpoint.getPath());
+    interrupted.setNumberOfEpochs(3);
+    interrupted.train();
+    // Checkpoints do not publish snapshots.
+    assertNull(interrupted.getNeuralNetwork().getSnapshot());
+
+    // A fresh Trainer, with a different seed, as after a restart.
+    TestTrainer resumed = new TestTrainer(new NeuralNetwork(new int[] {6, 5, 3}), 7);
+    resumed.resume(checkpoint.getPath());
+    assertEquals(3, resumed.getEpoch());
+    assertEquals(3, resumed.getTrainingState().getStep());
+
+    resumed.setNumberOfEpochs(6);
+    resumed.train();
+
+    double[] input = {0.1, -0.2, 0.3, -0.4, 0.5, -0.6};
+    assertArrayEquals(uninterrupted.getNeuralNetwork().feedForward(input),
+                      resumed.getNeuralNetwork().feedForward(input), 0);
+    assertEquals(uninterrupted.getTrainingState().getStep(), resumed.getTrainingState().getStep());
+
+    // The checkpoint is also an ordinary NeuralNetwork file.
+    assertArrayEquals(interrupted.getNeuralNetwork().feedForward(input),
+                      NeuralNetwork.createFromBinary(checkpoint.getPath()).feedForward(input), 0);
+
+    interrupted.getNeuralNetwork().saveToBinary(checkpoint.getPath());
+    try{
+      resumed.resume(checkpoint.getPath());
+      fail("A NeuralNetwork file without a training state must be rejected.");
+    }
+    catch(IOException exception){
+    }
+  }
+
+  /**
+   *  @brief Tests that a main.java.trainers.Trainer resumed from a checkpoint gets the hyper-parameters of the saved
+   *         main.java.base.Optimizer, even when it was set up with other ones.
+   *
+   *  @throws Exception When training or a checkpoint fails.
+   */
+  @Test
+  public void testResumeOptimizer() throws Exception{
+    File checkpoint = File.createTempFile("checkpoint", ".bin");
+    checkpoint.deleteOnExit();
+
+    NeuralNetwork neuralNetwork = new NeuralNetwork(new int[] {6, 5, 3});
+
+    TestTrainer uninterrupted = new TestTrainer(new NeuralNetwork(neuralNetwork), 42);
+    uninterrupted.setOptimizer(new Adam(0.5, 0.9, 1e-4));
+    uninterrupted.setNumberOfEpochs(4);
+    uninterrupted.train();
+
+    TestTrainer interrupted = new TestTrainer(new NeuralNetwork(neuralNetwork), 42);
+    interrupted.setOptimizer(new Adam(0.5, 0.9, 1e-4));
+    interrupted.setCheckpointPath(checkpoint.getPath());
+    interrupted.setNumberOfEpochs(2);
+    interrupted.train();
+
+    // Set up with the default hyper-parameters of Adam.
+    TestTrainer resumed = new TestTrainer(new NeuralNetwork(new int[] {6, 5, 3}), 7);
+    resumed.resume(checkpoint.getPath());
+    assertArrayEquals(new double[] {0.5, 0.9, 1e-4}, resumed.getNeuralNetwork().getOptimizer().getHyperParameters(),
+                      0);
+
+    resumed.setNumberOfEpochs(4);
+    resumed.train();
+
+    double[] input = {0.1, -0.2, 0.3, -0.4, 0.5, -0.6};
+    assertArrayEquals(uninterrupted.getNeuralNetwork().feedForward(input),
+                      resumed.getNeuralNetwork().feedForward(input), 0);
+  }
+
+  /** @class TestTrainer
+   *
+   *  @brief A main.java.trainers.Trainer that trains with main.java.base.Adam on a small fixed set, distorted on every
+   *         epoch.
+   */
+  private static class TestTrainer extends Trainer{
+    /**
+     *  @brief Constructor.
+     *
+     *  @param neuralNetwork The main.java.base.NeuralNetwork to train.
+     *  @param seed The seed of the main.java.distorters.Distorter.
+     */
+    TestTrainer(NeuralNetwork neuralNetwork, long seed){
+      super(neuralNetwork.getSizesOfLayers());
+
+      this.setNeuralNetwork(neuralNetwork);
+      this.setOptimizer(new Adam());
+      this.setGamma(0.01);
+
+      Distorter distorter = new Distorter(1){
+        @Override
+        public double[][] distort(double[][] data){
+          Random random = this.nextRandom();
+          for(int i = 0;i < data.length;i++){
+            for(int j = 0;j < data[i].length;j++){
+              data[i][j] += random.nextGaussian() * 0.1;
+            }
+          }
+
+          return data;
+        }
+      };
+      distorter.setSeed(seed);
+      this.setDistorter(distorter);
+    }
+
+    /**
+     *  @brief Does nothing, the data are fixed.
+     */
+    @Override
+    public void load(DataSet trainingSet, DataSet testingSet){
+    }
+
+    /**
+     *  @brief Trains for the remaining epochs, writing a checkpoint after each one if a checkpoint path is set.
+     *
+     *  @throws IOException When a checkpoint could not be written.
+     */
+    @Override
+    public void train() throws IOException{
+      if(optimizer_ != null){
+        neuralNetwork_.setOptimizer(optimizer_);
+      }
+      TrainingState trainingState = this.prepareTrainingState();
+      CheckpointWriter checkpointWriter = (checkpointPath_ != null) ? new CheckpointWriter(checkpointPath_, 0) : null;
+
+      while(epoch_ < numberOfEpochs_){
+        double[][] trainingSet = new double[SAMPLES.length][];
+        for(int i = 0;i < SAMPLES.length;i++){
+          trainingSet[i] = SAMPLES[i].clone();
+        }
+
+        neuralNetwork_.train(new TrainingSet(distorter_.distort(trainingSet), LABELS), 0, SAMPLES.length, 1, gamma_,
+                             trainingState);
+
+        epoch_++;
+        if(checkpointWriter != null){
+          checkpointWriter.write(this);
+        }
+      }
+
+      if(checkpointWriter != null){
+        checkpointWriter.close();
+      }
+    }
+
+    private static final double[][] SAMPLES = {{0, 0, 1, 1, 0, 0}, {1, 1, 0, 0, 1, 1}, {0, 1, 0, 1, 0, 1},
+                                               {1, 0, 1, 0, 1, 0}}; //!< The training samples.
+    private static final int[] LABELS = {0, 1, 2, 0}; //!< The classes of the training samples.
+
+  }
+
+}